@@ -0,0 +1,30 @@
+package benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// Прогоняет наборы бенчмарков для каждого количества потоков с профилировщиком GC
+// и сохраняет результаты в JSON, чтобы сравнивать оптимизации с одной и той же базой:
+//   java -cp benchmarks/target/benchmarks.jar benchmarks.BenchmarkRunner [шаблон] [потоки через запятую]
+public class BenchmarkRunner {
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : "benchmarks\\.(TaskManager|HistoryManager)Benchmark";
+        String threads = args.length > 1 ? args[1] : "1,2,4," + Runtime.getRuntime().availableProcessors();
+
+        for (String value : threads.split(",")) {
+            int threadCount = Integer.parseInt(value.trim());
+            Options options = new OptionsBuilder()
+                    .include(include)
+                    .threads(threadCount)
+                    .addProfiler(GCProfiler.class)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result("jmh-result-" + threadCount + "t.json")
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package benchmarks;
+
+import managers.InMemoryHistoryManager;
+import org.openjdk.jmh.annotations.*;
+import tasks.Epic;
+import tasks.Task;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Горячие пути InMemoryHistoryManager: просмотр (add), удаление и чтение истории.
+// storeSize — сколько разных задач просматривается, capacity — емкость истории (0 — без ограничения)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HistoryManagerBenchmark {
+    @Param({"1000", "100000"})
+    public int storeSize;
+
+    @Param({"0", "100"})
+    public int capacity;
+
+    @Param({"10", "1000"})
+    public int epicFanOut;
+
+    private InMemoryHistoryManager history;
+    private Task[] tasks;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        history = new InMemoryHistoryManager(capacity == 0 ? InMemoryHistoryManager.UNBOUNDED : capacity);
+        tasks = new Task[storeSize];
+        for (int i = 0; i < storeSize; i++) {
+            // Каждая десятая задача — эпик, чтобы копирование списка подзадач тоже попадало в замер
+            Task task;
+            if (i % 10 == 0) {
+                Epic epic = new Epic("Epic " + i, "Description");
+                for (int s = 0; s < epicFanOut; s++) {
+                    epic.addSubtask(storeSize + s);
+                }
+                task = epic;
+            } else {
+                task = new Task("Task " + i, "Description");
+            }
+            task.setId(i + 1);
+            tasks[i] = task;
+            history.add(task);
+        }
+    }
+
+    @Benchmark
+    public Task add() {
+        Task task = tasks[ThreadLocalRandom.current().nextInt(storeSize)];
+        history.add(task);
+        return task;
+    }
+
+    // Удаление из истории; задача сразу возвращается, чтобы размер истории не менялся
+    @Benchmark
+    public Task removeAndAdd() {
+        Task task = tasks[ThreadLocalRandom.current().nextInt(storeSize)];
+        history.remove(task.getId());
+        history.add(task);
+        return task;
+    }
+
+    @Benchmark
+    public List<Task> getHistory() {
+        return history.getHistory();
+    }
+}
@@ -0,0 +1,134 @@
+package benchmarks;
+
+import http.HttpTaskServer;
+import managers.Managers;
+import managers.TaskManager;
+import tasks.Epic;
+import tasks.Subtask;
+import tasks.Task;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Нагрузочный тест HTTP API на локальном сервере: параллельные клиенты в виртуальных потоках
+// вперемешку читают задачи по id и списки, по завершении печатаются пропускная способность
+// и перцентили задержки:
+//   java -cp benchmarks/target/benchmarks.jar benchmarks.HttpLoadTest [задач] [клиентов] [секунд]
+public class HttpLoadTest {
+    private static final int WARMUP_SECONDS = 3;
+
+    public static void main(String[] args) throws Exception {
+        int taskCount = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        TaskManager manager = Managers.getConcurrent();
+        int[] taskIds = new int[taskCount];
+        for (int i = 0; i < taskCount; i++) {
+            taskIds[i] = manager.createTask(new Task("Task " + i, "Description " + i)).getId();
+        }
+        Epic epic = manager.createEpic(new Epic("Epic", "Description"));
+        for (int i = 0; i < 100; i++) {
+            manager.createSubtask(new Subtask("Subtask " + i, "Description", epic.getId()));
+        }
+
+        HttpTaskServer server = new HttpTaskServer(manager, 0);
+        server.start();
+        try (HttpClient client = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build()) {
+            String base = "http://localhost:" + server.getPort();
+            run(client, base, taskIds, clients, WARMUP_SECONDS); // Прогрев JIT и соединений
+            long[] latencies = run(client, base, taskIds, clients, seconds);
+
+            Arrays.sort(latencies);
+            System.out.printf("Задач: %d, клиентов: %d, запросов: %d за %d с%n",
+                    taskCount, clients, latencies.length, seconds);
+            System.out.printf("Пропускная способность: %.0f запросов/с%n", latencies.length / (double) seconds);
+            System.out.printf("Задержка, мкс: p50 = %d, p99 = %d, p99.9 = %d, max = %d%n",
+                    percentile(latencies, 0.5), percentile(latencies, 0.99), percentile(latencies, 0.999),
+                    latencies.length == 0 ? 0 : latencies[latencies.length - 1] / 1000);
+        } finally {
+            server.stop();
+        }
+    }
+
+    // Каждый клиент шлет запросы один за другим до истечения времени; возвращает задержки в наносекундах
+    private static long[] run(HttpClient client, String base, int[] taskIds, int clients, int seconds)
+            throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<?>[] futures = new Future<?>[clients];
+            long[][] results = new long[clients][];
+            for (int c = 0; c < clients; c++) {
+                int index = c;
+                futures[c] = executor.submit(() -> {
+                    results[index] = clientLoop(client, base, taskIds, deadline);
+                    return null;
+                });
+            }
+            int total = 0;
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            for (long[] result : results) {
+                total += result.length;
+            }
+            long[] latencies = new long[total];
+            int offset = 0;
+            for (long[] result : results) {
+                System.arraycopy(result, 0, latencies, offset, result.length);
+                offset += result.length;
+            }
+            return latencies;
+        }
+    }
+
+    private static long[] clientLoop(HttpClient client, String base, int[] taskIds, long deadline)
+            throws IOException, InterruptedException {
+        long[] latencies = new long[1024];
+        int count = 0;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (System.nanoTime() < deadline) {
+            String path = switch (random.nextInt(100)) {
+                case 0 -> "/tasks"; // Длинный список, отдается потоком
+                case 1, 2 -> "/history";
+                case 3, 4 -> "/subtasks";
+                default -> "/tasks/" + taskIds[random.nextInt(taskIds.length)];
+            };
+            HttpRequest request = HttpRequest.newBuilder(URI.create(base + path)).GET().build();
+            long start = System.nanoTime();
+            HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            try (InputStream body = response.body()) {
+                body.transferTo(OutputStream.nullOutputStream()); // Задержка включает чтение всего ответа
+            }
+            long latency = System.nanoTime() - start;
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Код ответа " + response.statusCode() + " на " + path);
+            }
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latency;
+        }
+        return Arrays.copyOf(latencies, count);
+    }
+
+    // Перцентиль отсортированных задержек в микросекундах
+    private static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1000;
+    }
+}
@@ -0,0 +1,49 @@
+package benchmarks;
+
+import managers.ConcurrentTaskManager;
+import managers.Managers;
+import managers.TaskManager;
+import org.openjdk.jmh.annotations.*;
+import tasks.Task;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Цена метрик на горячем пути: чтение задачи по id через менеджер и через декоратор с метриками.
+// Запуск в несколько потоков показывает и стоимость общих счетчиков:
+//   java -jar benchmarks/target/benchmarks.jar MetricsOverheadBenchmark -t 4 -prof gc
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricsOverheadBenchmark {
+    private static final int TASK_COUNT = 10_000;
+
+    @Param({"false", "true"})
+    public boolean metrics;
+
+    private TaskManager manager;
+    private int firstId;
+
+    @Setup
+    public void setUp() {
+        TaskManager concurrent = new ConcurrentTaskManager();
+        firstId = concurrent.createTask(new Task("Task 0", "Description")).getId();
+        for (int i = 1; i < TASK_COUNT; i++) {
+            concurrent.createTask(new Task("Task " + i, "Description"));
+        }
+        manager = metrics ? Managers.withMetrics(concurrent) : concurrent;
+    }
+
+    @Benchmark
+    public Task getTaskById() {
+        return manager.getTaskById(firstId + ThreadLocalRandom.current().nextInt(TASK_COUNT));
+    }
+
+    @Benchmark
+    public int[] search() {
+        return manager.search("task*", 10);
+    }
+}
@@ -0,0 +1,73 @@
+package benchmarks;
+
+import managers.InMemoryHistoryManager;
+import managers.InMemoryTaskManager;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import tasks.Epic;
+import tasks.Subtask;
+import tasks.Task;
+import util.IntArrayList;
+
+import java.util.concurrent.TimeUnit;
+
+// Путь чтения "получить задачу по id" вместе с записью в историю.
+// Запуск с профилировщиком GC показывает выделение памяти на одно чтение (gc.alloc.rate.norm):
+//   java -jar benchmarks/target/benchmarks.jar ReadPathBenchmark -prof gc
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReadPathBenchmark {
+    @Param({"10", "1000"})
+    public int epicFanOut;
+
+    @Param({"COPY", "IDS"})
+    public String historyMode;
+
+    private InMemoryTaskManager manager;
+    private Epic epic;
+    private int taskId;
+
+    @Setup
+    public void setUp() {
+        manager = "IDS".equals(historyMode)
+                ? new InMemoryTaskManager(InMemoryHistoryManager.UNBOUNDED, true)
+                : new InMemoryTaskManager();
+        taskId = manager.createTask(new Task("Task", "Description")).getId();
+        epic = manager.createEpic(new Epic("Epic", "Description"));
+        for (int i = 0; i < epicFanOut; i++) {
+            manager.createSubtask(new Subtask("Subtask " + i, "Description", epic.getId()));
+        }
+    }
+
+    @Benchmark
+    public Task getTaskById() {
+        return manager.getTaskById(taskId);
+    }
+
+    @Benchmark
+    public Epic getEpicById() {
+        return manager.getEpicById(epic.getId());
+    }
+
+    // Прежний путь чтения эпика для сравнения: менеджер копировал эпик вместе со списком подзадач,
+    // а история копировала эту копию еще раз (режим истории здесь не используется)
+    @Benchmark
+    public void legacyDoubleCopyEpic(Blackhole blackhole) {
+        blackhole.consume(deepCopy(deepCopy(epic)));
+    }
+
+    private static Epic deepCopy(Epic source) {
+        Epic copy = new Epic(source.getTitle(), source.getDescription());
+        copy.setId(source.getId());
+        copy.setStatus(source.getStatus());
+        IntArrayList subtaskIds = source.getSubtaskIds();
+        for (int i = 0; i < subtaskIds.size(); i++) {
+            copy.addSubtask(subtaskIds.getInt(i));
+        }
+        return copy;
+    }
+}
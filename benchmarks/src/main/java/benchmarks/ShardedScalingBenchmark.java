@@ -0,0 +1,82 @@
+package benchmarks;
+
+import managers.ConcurrentTaskManager;
+import managers.ShardedTaskManager;
+import managers.TaskManager;
+import org.openjdk.jmh.annotations.*;
+import tasks.Epic;
+import tasks.Status;
+import tasks.Subtask;
+import tasks.TaskSnapshot;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Пропускная способность общего менеджера при росте числа потоков: у каждого потока своя доска
+// (эпик с подзадачами), он обновляет подзадачи с пересчетом статуса эпика и читает их.
+// В шардированном менеджере доски разных потоков лежат в разных шардах, поэтому потоки
+// не делят ни блокировок, ни расписания. Сравнение по количеству потоков:
+//   java -cp benchmarks/target/benchmarks.jar benchmarks.BenchmarkRunner "benchmarks\.ShardedScalingBenchmark" 1,2,4,8
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShardedScalingBenchmark {
+    private static final int SUBTASKS_PER_BOARD = 100;
+
+    @Param({"CONCURRENT", "SHARDED"})
+    public String managerType;
+
+    private TaskManager manager;
+    private final AtomicInteger boards = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        manager = "SHARDED".equals(managerType)
+                ? new ShardedTaskManager(Runtime.getRuntime().availableProcessors())
+                : new ConcurrentTaskManager();
+    }
+
+    // Доска потока: эпик в своем шарде и заранее созданные версии его подзадач
+    @State(Scope.Thread)
+    public static class Board {
+        private Subtask[] updates;
+        private int cursor;
+
+        @Setup(Level.Trial)
+        public void setUp(ShardedScalingBenchmark benchmark) {
+            int board = benchmark.boards.getAndIncrement();
+            TaskManager manager = benchmark.manager;
+            Epic epic = manager instanceof ShardedTaskManager sharded
+                    ? sharded.createEpic(new Epic("Epic", "Description"), board)
+                    : manager.createEpic(new Epic("Epic", "Description"));
+            updates = new Subtask[SUBTASKS_PER_BOARD];
+            for (int i = 0; i < SUBTASKS_PER_BOARD; i++) {
+                Subtask subtask = manager.createSubtask(new Subtask("Subtask " + i, "Description", epic.getId()));
+                updates[i] = new Subtask(subtask.getTitle(), subtask.getDescription(), epic.getId());
+                updates[i].setId(subtask.getId());
+                updates[i].setStatus(i % 2 == 0 ? Status.DONE : Status.IN_PROGRESS);
+            }
+        }
+
+        private Subtask next() {
+            cursor = cursor + 1 == updates.length ? 0 : cursor + 1;
+            return updates[cursor];
+        }
+    }
+
+    @Benchmark
+    public Subtask updateSubtask(Board board) {
+        Subtask subtask = board.next();
+        manager.updateSubtask(subtask);
+        return subtask;
+    }
+
+    // Чтение без записи в историю: история просмотров у менеджера общая
+    @Benchmark
+    public TaskSnapshot getSnapshot(Board board) {
+        return manager.getSnapshot(board.next().getId());
+    }
+}
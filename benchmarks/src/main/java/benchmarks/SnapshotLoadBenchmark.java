@@ -0,0 +1,54 @@
+package benchmarks;
+
+import managers.BinarySnapshot;
+import managers.InMemoryTaskManager;
+import org.openjdk.jmh.annotations.*;
+import tasks.Epic;
+import tasks.Status;
+import tasks.Subtask;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// Холодный старт из бинарного снимка: доска на миллион задач, эпики по 100 подзадач с шаблонными
+// названиями. Цель — загрузка быстрее полсекунды; юнит-тест проверяет только результат загрузки:
+//   java -jar benchmarks/target/benchmarks.jar SnapshotLoadBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class SnapshotLoadBenchmark {
+    private Path directory;
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        for (int e = 0; e < 10_000; e++) {
+            Epic epic = manager.createEpic(new Epic("Эпик " + (e % 100), "Шаблонное описание эпика"));
+            for (int s = 0; s < 99; s++) {
+                Subtask subtask = new Subtask("Подзадача " + s, "Шаблонное описание подзадачи", epic.getId());
+                subtask.setStatus(Status.values()[s % 3]);
+                manager.createSubtask(subtask);
+            }
+        }
+        directory = Files.createTempDirectory("snapshot-benchmark");
+        file = directory.resolve("board.snapshot");
+        BinarySnapshot.write(manager, file);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public InMemoryTaskManager load() {
+        return BinarySnapshot.load(file);
+    }
+}
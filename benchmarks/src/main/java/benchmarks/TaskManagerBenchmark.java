@@ -0,0 +1,116 @@
+package benchmarks;
+
+import managers.InMemoryTaskManager;
+import org.openjdk.jmh.annotations.*;
+import tasks.Epic;
+import tasks.Status;
+import tasks.Subtask;
+import tasks.Task;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Горячие пути InMemoryTaskManager в зависимости от размера хранилища и размера эпика.
+// InMemoryTaskManager не потокобезопасен, поэтому у каждого потока свой менеджер:
+// при запуске с несколькими потоками (-t) видно, как операции масштабируются по ядрам
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaskManagerBenchmark {
+    @Param({"1000", "100000"})
+    public int storeSize;
+
+    @Param({"10", "1000", "10000"})
+    public int epicFanOut;
+
+    private InMemoryTaskManager manager;
+    private int[] taskIds;
+    private Task[] replacements;   // Заранее созданные новые версии задач для updateTask
+    private Epic epic;
+    private int[] subtaskIds;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        manager = new InMemoryTaskManager();
+        taskIds = new int[storeSize];
+        replacements = new Task[storeSize];
+        for (int i = 0; i < storeSize; i++) {
+            Task task = manager.createTask(new Task("Task " + i, "Description"));
+            taskIds[i] = task.getId();
+            replacements[i] = new Task(task);
+        }
+        epic = manager.createEpic(new Epic("Epic", "Description"));
+        for (int i = 0; i < epicFanOut; i++) {
+            manager.createSubtask(new Subtask("Subtask " + i, "Description", epic.getId()));
+        }
+        subtaskIds = epic.getSubtaskIds().toArray();
+        for (int id : taskIds) {
+            manager.getTaskById(id); // История заполнена просмотрами всех задач
+        }
+    }
+
+    // Создание задачи; сразу удаляем её, чтобы размер хранилища не рос от итерации к итерации
+    @Benchmark
+    public int createTask() {
+        Task task = manager.createTask(new Task("New task", "Description"));
+        return manager.deleteTask(task.getId());
+    }
+
+    @Benchmark
+    public Task getTaskById() {
+        return manager.getTaskById(taskIds[nextIndex(storeSize)]);
+    }
+
+    @Benchmark
+    public Task updateTask() {
+        Task task = replacements[nextIndex(storeSize)];
+        manager.updateTask(task);
+        return task;
+    }
+
+    // Обновление подзадачи большого эпика с пересчетом его статуса
+    @Benchmark
+    public Status updateSubtask() {
+        Subtask subtask = new Subtask("Subtask", "Description", epic.getId());
+        subtask.setId(subtaskIds[nextIndex(subtaskIds.length)]);
+        subtask.setStatus(Status.values()[cursor % 3]);
+        manager.updateSubtask(subtask);
+        return epic.getStatus();
+    }
+
+    // Удаление подзадачи из большого эпика; подзадача тут же создается заново
+    @Benchmark
+    public Subtask deleteSubtask() {
+        int index = nextIndex(subtaskIds.length);
+        manager.deleteSubtask(subtaskIds[index]);
+        Subtask subtask = manager.createSubtask(new Subtask("Subtask", "Description", epic.getId()));
+        subtaskIds[index] = subtask.getId();
+        return subtask;
+    }
+
+    @Benchmark
+    public Status updateEpicStatus() {
+        manager.updateEpicStatus(epic.getId());
+        return epic.getStatus();
+    }
+
+    @Benchmark
+    public List<Task> getHistory() {
+        return manager.getHistory();
+    }
+
+    @Benchmark
+    public List<Task> getAllTasks() {
+        return manager.getAllTasks();
+    }
+
+    private int nextIndex(int bound) {
+        cursor++;
+        return ThreadLocalRandom.current().nextInt(bound);
+    }
+}
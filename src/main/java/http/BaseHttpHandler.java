@@ -0,0 +1,150 @@
+package http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import managers.TaskManager;
+import managers.TimeOverlapException;
+import tasks.Task;
+import tasks.TaskSnapshot;
+import tasks.TaskType;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// Общая часть обработчиков: разбор пути, коды ответов и потоковая запись списков.
+// Ошибки менеджера переводятся в коды: нет задачи — 404, пересечение по времени — 406,
+// неверный запрос — 400, прочее — 500
+abstract class BaseHttpHandler implements HttpHandler {
+    private static final String JSON = "application/json;charset=utf-8";
+    private static final int BUFFER_SIZE = 8192; // Столько символов копится перед отправкой очередного блока
+
+    // Обновление с проверкой версии: updateTask, updateSubtask или updateEpic менеджера
+    @FunctionalInterface
+    protected interface VersionedUpdate<T extends Task> {
+        boolean update(T task, int expectedVersion);
+    }
+
+    protected final TaskManager manager;
+
+    protected BaseHttpHandler(TaskManager manager) {
+        this.manager = manager;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            String[] path = exchange.getRequestURI().getPath().split("/");
+            handle(exchange, exchange.getRequestMethod(), path);
+        } catch (NoSuchElementException e) {
+            sendNotFound(exchange);
+        } catch (TimeOverlapException e) {
+            sendHasInteractions(exchange);
+        } catch (IllegalArgumentException e) {
+            sendText(exchange, 400, e.getMessage());
+        } catch (RuntimeException e) {
+            sendText(exchange, 500, e.getMessage());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // path — части пути запроса: для "/tasks/5" это ["", "tasks", "5"]
+    protected abstract void handle(HttpExchange exchange, String method, String[] path) throws IOException;
+
+    protected void sendJson(HttpExchange exchange, int code, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(code, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    protected void sendTask(HttpExchange exchange, int code, Task task) throws IOException {
+        if (task == null) {
+            throw new NoSuchElementException();
+        }
+        sendJson(exchange, code, TaskJson.toJson(task));
+    }
+
+    // Пишет JSON-массив по мере обхода задач: длина ответа заранее неизвестна, поэтому он
+    // уходит блоками (chunked), а в памяти одновременно лежит только буфер, а не весь список
+    protected void sendStream(HttpExchange exchange, Iterator<? extends Task> tasks) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(200, 0);
+        try (Writer out = new BufferedWriter(
+                new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            out.write('[');
+            boolean first = true;
+            while (tasks.hasNext()) {
+                if (!first) {
+                    out.write(',');
+                }
+                TaskJson.write(out, tasks.next());
+                first = false;
+            }
+            out.write(']');
+        }
+    }
+
+    protected void sendText(HttpExchange exchange, int code, String text) throws IOException {
+        byte[] body = (text == null ? "" : text).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain;charset=utf-8");
+        exchange.sendResponseHeaders(code, body.length == 0 ? -1 : body.length);
+        if (body.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    protected void sendOk(HttpExchange exchange) throws IOException {
+        exchange.sendResponseHeaders(200, -1);
+    }
+
+    protected void sendNotFound(HttpExchange exchange) throws IOException {
+        sendText(exchange, 404, "Задача не найдена");
+    }
+
+    protected void sendHasInteractions(HttpExchange exchange) throws IOException {
+        sendText(exchange, 406, "Задача пересекается по времени с существующими");
+    }
+
+    protected void sendMethodNotAllowed(HttpExchange exchange) throws IOException {
+        sendText(exchange, 405, "Метод не поддерживается");
+    }
+
+    protected String readBody(HttpExchange exchange) throws IOException {
+        return new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+    }
+
+    // Обновляет хранимую задачу типа type с id из тела запроса; отсутствующая задача — 404.
+    // Версия берется из снимка, поэтому задача, удаленная между проверкой и обновлением, тоже дает 404,
+    // а обновление, которое опередил другой запрос, повторяется с новой версией
+    protected <T extends Task> void update(T task, TaskType type, VersionedUpdate<T> update) {
+        while (true) {
+            TaskSnapshot stored = manager.getSnapshot(task.getId());
+            if (stored == null || stored.type() != type) {
+                throw new NoSuchElementException();
+            }
+            if (update.update(task, stored.version())) {
+                return;
+            }
+        }
+    }
+
+    // Id из части пути с заданным номером
+    protected int pathId(String[] path, int index) {
+        try {
+            return Integer.parseInt(path[index]);
+        } catch (NumberFormatException e) {
+            throw new NoSuchElementException(); // Такого адреса нет
+        }
+    }
+}
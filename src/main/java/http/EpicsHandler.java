@@ -0,0 +1,51 @@
+package http;
+
+import com.sun.net.httpserver.HttpExchange;
+import managers.TaskManager;
+import tasks.Epic;
+import tasks.TaskType;
+
+import java.io.IOException;
+import java.util.NoSuchElementException;
+
+// /epics, /epics/{id} и /epics/{id}/subtasks
+class EpicsHandler extends BaseHttpHandler {
+    EpicsHandler(TaskManager manager) {
+        super(manager);
+    }
+
+    @Override
+    protected void handle(HttpExchange exchange, String method, String[] path) throws IOException {
+        if (path.length == 2) {
+            switch (method) {
+                case "GET" -> sendStream(exchange, manager.getEpicsView().iterator());
+                case "POST" -> {
+                    Epic epic = TaskJson.read(readBody(exchange), Epic.class);
+                    if (epic.getId() == 0) {
+                        sendTask(exchange, 201, manager.createEpic(epic));
+                    } else {
+                        update(epic, TaskType.EPIC, manager::updateEpic);
+                        sendTask(exchange, 201, epic);
+                    }
+                }
+                default -> sendMethodNotAllowed(exchange);
+            }
+        } else if (path.length == 3) {
+            int id = pathId(path, 2);
+            switch (method) {
+                case "GET" -> sendTask(exchange, 200, manager.getEpicById(id));
+                case "DELETE" -> {
+                    if (manager.deleteEpic(id) < 0) {
+                        throw new NoSuchElementException();
+                    }
+                    sendOk(exchange);
+                }
+                default -> sendMethodNotAllowed(exchange);
+            }
+        } else if (path.length == 4 && "subtasks".equals(path[3]) && "GET".equals(method)) {
+            sendStream(exchange, manager.getEpicSubtasks(pathId(path, 2)).iterator());
+        } else {
+            sendNotFound(exchange);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package http;
+
+import com.sun.net.httpserver.HttpExchange;
+import managers.TaskManager;
+
+import java.io.IOException;
+
+// /history и /prioritized: списки только для чтения
+class HistoryHandler extends BaseHttpHandler {
+    private final boolean prioritized; // true — отсортированный по времени список вместо истории
+
+    HistoryHandler(TaskManager manager, boolean prioritized) {
+        super(manager);
+        this.prioritized = prioritized;
+    }
+
+    @Override
+    protected void handle(HttpExchange exchange, String method, String[] path) throws IOException {
+        if (path.length != 2) {
+            sendNotFound(exchange);
+        } else if (!"GET".equals(method)) {
+            sendMethodNotAllowed(exchange);
+        } else if (prioritized) {
+            sendStream(exchange, manager.getPrioritizedTasks().iterator());
+        } else {
+            sendStream(exchange, manager.streamHistory().iterator());
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package http;
+
+import com.sun.net.httpserver.HttpServer;
+import managers.Managers;
+import managers.TaskManager;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// HTTP API менеджера задач на встроенном сервере JDK.
+// Каждый запрос обрабатывается в своем виртуальном потоке, поэтому медленный клиент,
+// читающий длинный список, не занимает поток платформы. Запросы выполняются параллельно,
+// так что менеджер должен быть потокобезопасным (см. Managers.getConcurrent())
+public class HttpTaskServer {
+    public static final int DEFAULT_PORT = 8080;
+    private static final int STOP_DELAY_SECONDS = 1; // Сколько ждать завершения текущих запросов при остановке
+
+    static {
+        // Без TCP_NODELAY заголовки и тело короткого ответа уходят разными пакетами, и второй ждет
+        // подтверждения первого (алгоритм Нейгла против отложенного ACK) — около 40 мс на запрос.
+        // Сервер JDK читает свойство один раз, поэтому задаем его до создания первого сервера
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    public HttpTaskServer(TaskManager manager) throws IOException {
+        this(manager, DEFAULT_PORT);
+    }
+
+    // port = 0 — свободный порт, выбранный системой
+    public HttpTaskServer(TaskManager manager, int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/tasks", new TasksHandler(manager));
+        server.createContext("/subtasks", new SubtasksHandler(manager));
+        server.createContext("/epics", new EpicsHandler(manager));
+        server.createContext("/history", new HistoryHandler(manager, false));
+        server.createContext("/prioritized", new HistoryHandler(manager, true));
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(STOP_DELAY_SECONDS);
+        executor.close(); // Дожидаемся виртуальных потоков запросов
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        HttpTaskServer server = new HttpTaskServer(Managers.getConcurrent(), port);
+        server.start();
+        System.out.println("HTTP-сервер запущен на порту " + server.getPort());
+    }
+}
@@ -0,0 +1,49 @@
+package http;
+
+import com.sun.net.httpserver.HttpExchange;
+import managers.TaskManager;
+import tasks.Subtask;
+import tasks.TaskType;
+
+import java.io.IOException;
+import java.util.NoSuchElementException;
+
+// /subtasks и /subtasks/{id}
+class SubtasksHandler extends BaseHttpHandler {
+    SubtasksHandler(TaskManager manager) {
+        super(manager);
+    }
+
+    @Override
+    protected void handle(HttpExchange exchange, String method, String[] path) throws IOException {
+        if (path.length == 2) {
+            switch (method) {
+                case "GET" -> sendStream(exchange, manager.getSubtasksView().iterator());
+                case "POST" -> {
+                    Subtask subtask = TaskJson.read(readBody(exchange), Subtask.class);
+                    if (subtask.getId() == 0) {
+                        sendTask(exchange, 201, manager.createSubtask(subtask)); // null — нет такого эпика
+                    } else {
+                        update(subtask, TaskType.SUBTASK, manager::updateSubtask);
+                        sendTask(exchange, 201, subtask);
+                    }
+                }
+                default -> sendMethodNotAllowed(exchange);
+            }
+        } else if (path.length == 3) {
+            int id = pathId(path, 2);
+            switch (method) {
+                case "GET" -> sendTask(exchange, 200, manager.getSubTaskById(id));
+                case "DELETE" -> {
+                    if (manager.deleteSubtask(id) < 0) {
+                        throw new NoSuchElementException();
+                    }
+                    sendOk(exchange);
+                }
+                default -> sendMethodNotAllowed(exchange);
+            }
+        } else {
+            sendNotFound(exchange);
+        }
+    }
+}
@@ -0,0 +1,322 @@
+package http;
+
+import tasks.Epic;
+import tasks.Status;
+import tasks.Subtask;
+import tasks.Task;
+import tasks.TaskType;
+import util.IntArrayList;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// JSON-представление задач без сторонних библиотек. Задача пишется прямо в Writer,
+// чтобы длинные списки отдавались потоком, не собираясь целиком в памяти.
+// Время — в формате ISO-8601: "2024-01-15T09:00:00" и "PT1H30M"
+final class TaskJson {
+    private TaskJson() {
+    }
+
+    // Пишет задачу любого типа одним JSON-объектом
+    static void write(Writer out, Task task) throws IOException {
+        out.write("{\"id\":");
+        out.write(Integer.toString(task.getId()));
+        out.write(",\"type\":\"");
+        out.write(TaskType.of(task).name());
+        out.write("\",\"title\":");
+        writeString(out, task.getTitle());
+        out.write(",\"description\":");
+        writeString(out, task.getDescription());
+        out.write(",\"status\":");
+        writeString(out, task.getStatus() == null ? null : task.getStatus().name());
+        out.write(",\"startTime\":");
+        writeString(out, task.getStartTime() == null ? null : task.getStartTime().toString());
+        out.write(",\"duration\":");
+        writeString(out, task.getDuration() == null ? null : task.getDuration().toString());
+        out.write(",\"endTime\":");
+        writeString(out, task.getEndTime() == null ? null : task.getEndTime().toString());
+        if (task instanceof Subtask subtask) {
+            out.write(",\"epicId\":");
+            out.write(Integer.toString(subtask.getEpicId()));
+        } else if (task instanceof Epic epic) {
+            out.write(",\"parentId\":");
+            out.write(Integer.toString(epic.getParentId()));
+            out.write(",\"subtaskIds\":[");
+            IntArrayList subtaskIds = epic.getSubtaskIds();
+            for (int i = 0; i < subtaskIds.size(); i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                out.write(Integer.toString(subtaskIds.getInt(i)));
+            }
+            out.write(']');
+        }
+        out.write('}');
+    }
+
+    static String toJson(Task task) {
+        StringWriter out = new StringWriter();
+        try {
+            write(out, task);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // StringWriter не бросает IOException
+        }
+        return out.toString();
+    }
+
+    // Читает задачу заданного типа из JSON-объекта; неизвестные поля игнорируются.
+    // Неверный JSON или значения полей — IllegalArgumentException
+    static <T extends Task> T read(String json, Class<T> type) {
+        Map<String, Object> fields = new Parser(json).parseDocument();
+        String title = string(fields, "title");
+        String description = string(fields, "description");
+        Task task;
+        if (type == Subtask.class) {
+            task = new Subtask(title, description, number(fields, "epicId"));
+        } else if (type == Epic.class) {
+            task = new Epic(title, description, number(fields, "parentId"));
+        } else {
+            task = new Task(title, description);
+        }
+        task.setId(number(fields, "id"));
+        try {
+            String status = string(fields, "status");
+            if (status != null) {
+                task.setStatus(Status.valueOf(status));
+            }
+            String startTime = string(fields, "startTime");
+            task.setStartTime(startTime == null ? null : LocalDateTime.parse(startTime));
+            String duration = string(fields, "duration");
+            task.setDuration(duration == null ? null : Duration.parse(duration));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Неверный формат времени: " + e.getParsedString(), e);
+        }
+        return type.cast(task);
+    }
+
+    private static String string(Map<String, Object> fields, String name) {
+        Object value = fields.get(name);
+        if (value != null && !(value instanceof String)) {
+            throw new IllegalArgumentException("Поле " + name + " должно быть строкой");
+        }
+        return (String) value;
+    }
+
+    private static int number(Map<String, Object> fields, String name) {
+        Object value = fields.get(name);
+        if (value == null) {
+            return 0;
+        }
+        if (!(value instanceof Long number) || number != number.intValue()) {
+            throw new IllegalArgumentException("Поле " + name + " должно быть целым числом");
+        }
+        return number.intValue();
+    }
+
+    private static void writeString(Writer out, String value) throws IOException {
+        if (value == null) {
+            out.write("null");
+            return;
+        }
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.write("\\\"");
+                case '\\' -> out.write("\\\\");
+                case '\n' -> out.write("\\n");
+                case '\r' -> out.write("\\r");
+                case '\t' -> out.write("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.write(c);
+                    }
+                }
+            }
+        }
+        out.write('"');
+    }
+
+    // Минимальный разборщик JSON: объекты, массивы, строки, целые и дробные числа, true/false/null
+    private static final class Parser {
+        private final String json;
+        private int pos;
+
+        Parser(String json) {
+            this.json = json;
+        }
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> parseDocument() {
+            Object value = parseValue();
+            skipWhitespace();
+            if (pos != json.length()) {
+                throw error("Лишние символы после JSON");
+            }
+            if (!(value instanceof Map)) {
+                throw error("Ожидался JSON-объект");
+            }
+            return (Map<String, Object>) value;
+        }
+
+        private Object parseValue() {
+            skipWhitespace();
+            if (pos >= json.length()) {
+                throw error("Неожиданный конец JSON");
+            }
+            char c = json.charAt(pos);
+            return switch (c) {
+                case '{' -> parseObject();
+                case '[' -> parseArray();
+                case '"' -> parseString();
+                case 't' -> literal("true", Boolean.TRUE);
+                case 'f' -> literal("false", Boolean.FALSE);
+                case 'n' -> literal("null", null);
+                default -> parseNumber();
+            };
+        }
+
+        private Map<String, Object> parseObject() {
+            Map<String, Object> object = new HashMap<>();
+            pos++; // {
+            skipWhitespace();
+            if (peek('}')) {
+                pos++;
+                return object;
+            }
+            while (true) {
+                skipWhitespace();
+                if (!peek('"')) {
+                    throw error("Ожидалось имя поля");
+                }
+                String name = parseString();
+                skipWhitespace();
+                expect(':');
+                object.put(name, parseValue());
+                skipWhitespace();
+                if (peek(',')) {
+                    pos++;
+                } else {
+                    expect('}');
+                    return object;
+                }
+            }
+        }
+
+        private List<Object> parseArray() {
+            List<Object> array = new ArrayList<>();
+            pos++; // [
+            skipWhitespace();
+            if (peek(']')) {
+                pos++;
+                return array;
+            }
+            while (true) {
+                array.add(parseValue());
+                skipWhitespace();
+                if (peek(',')) {
+                    pos++;
+                } else {
+                    expect(']');
+                    return array;
+                }
+            }
+        }
+
+        private String parseString() {
+            StringBuilder builder = new StringBuilder();
+            pos++; // "
+            while (pos < json.length()) {
+                char c = json.charAt(pos++);
+                if (c == '"') {
+                    return builder.toString();
+                }
+                if (c != '\\') {
+                    builder.append(c);
+                    continue;
+                }
+                if (pos >= json.length()) {
+                    break;
+                }
+                char escaped = json.charAt(pos++);
+                switch (escaped) {
+                    case '"', '\\', '/' -> builder.append(escaped);
+                    case 'b' -> builder.append('\b');
+                    case 'f' -> builder.append('\f');
+                    case 'n' -> builder.append('\n');
+                    case 'r' -> builder.append('\r');
+                    case 't' -> builder.append('\t');
+                    case 'u' -> {
+                        if (pos + 4 > json.length()) {
+                            throw error("Неполная escape-последовательность");
+                        }
+                        try {
+                            builder.append((char) Integer.parseInt(json.substring(pos, pos + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw error("Неверная escape-последовательность");
+                        }
+                        pos += 4;
+                    }
+                    default -> throw error("Неверная escape-последовательность");
+                }
+            }
+            throw error("Незакрытая строка");
+        }
+
+        private Object parseNumber() {
+            int start = pos;
+            while (pos < json.length() && "+-0123456789.eE".indexOf(json.charAt(pos)) >= 0) {
+                pos++;
+            }
+            String number = json.substring(start, pos);
+            try {
+                if (number.indexOf('.') < 0 && number.indexOf('e') < 0 && number.indexOf('E') < 0) {
+                    return Long.parseLong(number);
+                }
+                return Double.parseDouble(number);
+            } catch (NumberFormatException e) {
+                throw error("Неверное значение");
+            }
+        }
+
+        private Object literal(String text, Object value) {
+            if (!json.startsWith(text, pos)) {
+                throw error("Неверное значение");
+            }
+            pos += text.length();
+            return value;
+        }
+
+        private void expect(char c) {
+            if (!peek(c)) {
+                throw error("Ожидался символ '" + c + "'");
+            }
+            pos++;
+        }
+
+        private boolean peek(char c) {
+            return pos < json.length() && json.charAt(pos) == c;
+        }
+
+        private void skipWhitespace() {
+            while (pos < json.length() && Character.isWhitespace(json.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " (позиция " + pos + ")");
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package http;
+
+import com.sun.net.httpserver.HttpExchange;
+import managers.TaskManager;
+import tasks.Task;
+import tasks.TaskType;
+
+import java.io.IOException;
+import java.util.NoSuchElementException;
+
+// /tasks и /tasks/{id}
+class TasksHandler extends BaseHttpHandler {
+    TasksHandler(TaskManager manager) {
+        super(manager);
+    }
+
+    @Override
+    protected void handle(HttpExchange exchange, String method, String[] path) throws IOException {
+        if (path.length == 2) {
+            switch (method) {
+                case "GET" -> sendStream(exchange, manager.getTasksView().iterator());
+                case "POST" -> {
+                    Task task = TaskJson.read(readBody(exchange), Task.class);
+                    if (task.getId() == 0) {
+                        sendTask(exchange, 201, manager.createTask(task));
+                    } else {
+                        update(task, TaskType.TASK, manager::updateTask);
+                        sendTask(exchange, 201, task);
+                    }
+                }
+                default -> sendMethodNotAllowed(exchange);
+            }
+        } else if (path.length == 3) {
+            int id = pathId(path, 2);
+            switch (method) {
+                case "GET" -> sendTask(exchange, 200, manager.getTaskById(id));
+                case "DELETE" -> {
+                    if (manager.deleteTask(id) < 0) {
+                        throw new NoSuchElementException();
+                    }
+                    sendOk(exchange);
+                }
+                default -> sendMethodNotAllowed(exchange);
+            }
+        } else {
+            sendNotFound(exchange);
+        }
+    }
+}
@@ -0,0 +1,350 @@
+package managers;
+
+import tasks.Epic;
+import tasks.Status;
+import tasks.Subtask;
+import tasks.Task;
+import util.IntArrayList;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Двоичный снимок доски для быстрого холодного старта. Файл читается через FileChannel.map:
+//   заголовок (HEADER_SIZE байт) — счетчики и смещения секций;
+//   таблица строк — смещения и байты UTF-8 уникальных названий и описаний;
+//   записи фиксированной ширины (RECORD_SIZE байт): эпики, затем задачи и подзадачи;
+//   связи — по каждому эпику id родительского эпика (0 — верхний уровень) и id его подзадач подряд;
+//   индекс — отсортированные id и номера их записей для поиска без полной загрузки;
+//   зависимости — их количество и пары (блокер, заблокированная задача)
+public final class BinarySnapshot {
+    private static final int MAGIC = 0x4B425332; // "KBS2"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int RECORD_SIZE = 52;
+    private static final int NO_STRING = -1;
+
+    private static final Status[] STATUSES = Status.values();
+
+    private BinarySnapshot() {
+    }
+
+    // Сохраняет состояние менеджера в файл
+    public static void write(InMemoryTaskManager manager, Path file) {
+        write(manager, file, 0);
+    }
+
+    // Сохраняет состояние вместе с номером последней учтенной записи журнала.
+    // Файл пишется во временный и атомарно подменяет прежний
+    static void write(InMemoryTaskManager manager, Path file, long lsn) {
+        List<Task> records = new ArrayList<>();
+        records.addAll(manager.getAllEpics()); // Эпики раньше подзадач, чтобы подзадачи нашли свои счетчики
+        records.addAll(manager.getAllTasks());
+        records.addAll(manager.getAllSubtasks());
+
+        // Интернируем строки и считаем размер связей эпиков
+        Map<String, Integer> stringIds = new HashMap<>();
+        List<byte[]> strings = new ArrayList<>();
+        long stringBytes = 0;
+        int linkCount = 0;
+        for (Task task : records) {
+            stringBytes += intern(task.getTitle(), stringIds, strings);
+            stringBytes += intern(task.getDescription(), stringIds, strings);
+            if (task instanceof Epic epic) {
+                linkCount += 1 + epic.getSubtaskIds().size();
+            }
+        }
+
+        long stringsOffset = HEADER_SIZE;
+        long recordsOffset = stringsOffset + (long) Integer.BYTES * (strings.size() + 1) + stringBytes;
+        long linksOffset = recordsOffset + (long) RECORD_SIZE * records.size();
+        long indexOffset = linksOffset + (long) Integer.BYTES * linkCount;
+        IntArrayList edges = manager.dependencyEdges();
+        long fileSize = indexOffset + (long) Integer.BYTES * 2 * records.size() + (long) Integer.BYTES * (edges.size() + 1);
+        if (fileSize > Integer.MAX_VALUE) {
+            throw new ManagerSaveException("Снимок больше 2 ГБ не помещается в одно отображение: " + file);
+        }
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(lsn);
+            out.writeInt(manager.getIdCounter());
+            out.writeInt(records.size());
+            out.writeInt(strings.size());
+            out.writeInt(linkCount);
+            out.writeLong(stringsOffset);
+            out.writeLong(recordsOffset);
+            out.writeLong(linksOffset);
+            out.writeLong(indexOffset);
+
+            int blobOffset = 0;
+            out.writeInt(blobOffset);
+            for (byte[] bytes : strings) {
+                blobOffset += bytes.length;
+                out.writeInt(blobOffset);
+            }
+            for (byte[] bytes : strings) {
+                out.write(bytes);
+            }
+
+            int linkStart = 0;
+            for (Task task : records) {
+                out.writeByte(task instanceof Epic ? TaskRecords.EPIC
+                        : task instanceof Subtask ? TaskRecords.SUBTASK : TaskRecords.TASK);
+                out.writeByte(task.getStatus() == null ? -1 : task.getStatus().ordinal());
+                out.writeShort(0);
+                out.writeInt(task.getId());
+                out.writeInt(stringId(task.getTitle(), stringIds));
+                out.writeInt(stringId(task.getDescription(), stringIds));
+                if (task instanceof Epic epic) {
+                    out.writeInt(linkStart);
+                    out.writeInt(epic.getSubtaskIds().size());
+                    linkStart += 1 + epic.getSubtaskIds().size();
+                } else if (task instanceof Subtask subtask) {
+                    out.writeInt(subtask.getEpicId());
+                    out.writeInt(0);
+                } else {
+                    out.writeLong(0);
+                }
+                out.writeLong(TaskRecords.startSeconds(task.getStartTime()));
+                out.writeInt(task.getStartTime() == null ? 0 : task.getStartTime().getNano());
+                out.writeLong(task.getDuration() == null ? TaskRecords.NO_TIME : task.getDuration().getSeconds());
+                out.writeInt(task.getDuration() == null ? 0 : task.getDuration().getNano());
+                out.writeInt(task.getVersion());
+            }
+
+            for (Task task : records) {
+                if (task instanceof Epic epic) {
+                    out.writeInt(epic.getParentId());
+                    IntArrayList subtaskIds = epic.getSubtaskIds();
+                    for (int i = 0; i < subtaskIds.size(); i++) {
+                        out.writeInt(subtaskIds.getInt(i));
+                    }
+                }
+            }
+
+            // Индекс: пары (id, номер записи), отсортированные по id
+            long[] index = new long[records.size()];
+            for (int i = 0; i < index.length; i++) {
+                index[i] = ((long) records.get(i).getId() << 32) | i;
+            }
+            Arrays.sort(index);
+            for (long entry : index) {
+                out.writeInt((int) (entry >> 32));
+            }
+            for (long entry : index) {
+                out.writeInt((int) entry);
+            }
+
+            out.writeInt(edges.size() / 2);
+            for (int i = 0; i < edges.size(); i++) {
+                out.writeInt(edges.getInt(i));
+            }
+
+            out.flush();
+            channel.force(true);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Не удалось записать снимок " + file, e);
+        }
+        try {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Не удалось записать снимок " + file, e);
+        }
+    }
+
+    // Загружает снимок в новый менеджер
+    public static InMemoryTaskManager load(Path file) {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        open(file).loadInto(manager);
+        return manager;
+    }
+
+    // Отображает снимок в память для загрузки или поиска отдельных задач
+    public static Reader open(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new ManagerSaveException("Снимок больше 2 ГБ не помещается в одно отображение: " + file);
+            }
+            // Отображение остается действительным и после закрытия канала
+            return new Reader(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IOException e) {
+            throw new ManagerSaveException("Не удалось прочитать снимок " + file, e);
+        }
+    }
+
+    private static long intern(String value, Map<String, Integer> stringIds, List<byte[]> strings) {
+        if (value == null || stringIds.containsKey(value)) {
+            return 0;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        stringIds.put(value, strings.size());
+        strings.add(bytes);
+        return bytes.length;
+    }
+
+    private static int stringId(String value, Map<String, Integer> stringIds) {
+        return value == null ? NO_STRING : stringIds.get(value);
+    }
+
+    // Снимок, отображенный в память
+    public static final class Reader {
+        private final Path file;
+        private final MappedByteBuffer buffer;
+        private final long lsn;
+        private final int idCounter;
+        private final int recordCount;
+        private final int stringCount;
+        private final int stringsOffset;
+        private final int blobOffset;
+        private final int recordsOffset;
+        private final int linksOffset;
+        private final int indexOffset;
+        private final String[] decoded; // Строки декодируются один раз и разделяются между задачами
+
+        private Reader(Path file, MappedByteBuffer buffer) {
+            this.file = file;
+            this.buffer = buffer;
+            if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+                throw new ManagerSaveException("Файл " + file + " не является снимком задач");
+            }
+            int version = buffer.getInt(4);
+            if (version != VERSION) {
+                throw new ManagerSaveException("Неподдерживаемая версия снимка " + file + ": " + version);
+            }
+            lsn = buffer.getLong(8);
+            idCounter = buffer.getInt(16);
+            recordCount = buffer.getInt(20);
+            stringCount = buffer.getInt(24);
+            stringsOffset = (int) buffer.getLong(32);
+            recordsOffset = (int) buffer.getLong(40);
+            linksOffset = (int) buffer.getLong(48);
+            indexOffset = (int) buffer.getLong(56);
+            blobOffset = stringsOffset + Integer.BYTES * (stringCount + 1);
+            decoded = new String[stringCount];
+        }
+
+        // Номер последней записи журнала, учтенной в снимке
+        public long getLsn() {
+            return lsn;
+        }
+
+        // Количество задач всех типов в снимке
+        public int size() {
+            return recordCount;
+        }
+
+        // Находит задачу по id через индекс, не загружая остальные (null — нет такой задачи)
+        public Task find(int id) {
+            int low = 0;
+            int high = recordCount - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int midId = buffer.getInt(indexOffset + mid * Integer.BYTES);
+                if (midId < id) {
+                    low = mid + 1;
+                } else if (midId > id) {
+                    high = mid - 1;
+                } else {
+                    int record = buffer.getInt(indexOffset + (recordCount + mid) * Integer.BYTES);
+                    return readRecord(recordsOffset + record * RECORD_SIZE);
+                }
+            }
+            return null;
+        }
+
+        // Массово заполняет менеджер; статусы эпиков пересчитываются один раз в конце
+        public void loadInto(InMemoryTaskManager manager) {
+            int epicCount = 0;
+            int subtaskCount = 0;
+            for (int i = 0; i < recordCount; i++) {
+                byte type = buffer.get(recordsOffset + i * RECORD_SIZE);
+                if (type == TaskRecords.EPIC) {
+                    epicCount++;
+                } else if (type == TaskRecords.SUBTASK) {
+                    subtaskCount++;
+                }
+            }
+            manager.reserveCapacity(recordCount - epicCount - subtaskCount, epicCount, subtaskCount);
+
+            for (int i = 0; i < recordCount; i++) {
+                manager.restoreTask(readRecord(recordsOffset + i * RECORD_SIZE));
+            }
+            manager.refreshEpicStatuses();
+            // Ребра записаны в топологическом порядке (DependencyGraph.edges), поэтому добавляются без перестановок
+            int edgesOffset = indexOffset + recordCount * Integer.BYTES * 2;
+            int edgeCount = buffer.getInt(edgesOffset);
+            for (int i = 0; i < edgeCount; i++) {
+                int edge = edgesOffset + Integer.BYTES * (1 + 2 * i);
+                manager.addDependency(buffer.getInt(edge), buffer.getInt(edge + Integer.BYTES));
+            }
+            manager.setIdCounter(Math.max(manager.getIdCounter(), idCounter));
+        }
+
+        private Task readRecord(int offset) {
+            byte type = buffer.get(offset);
+            byte status = buffer.get(offset + 1);
+            int id = buffer.getInt(offset + 4);
+            String title = string(buffer.getInt(offset + 8));
+            String description = string(buffer.getInt(offset + 12));
+            int first = buffer.getInt(offset + 16);
+            int second = buffer.getInt(offset + 20);
+
+            Task task;
+            switch (type) {
+                case TaskRecords.EPIC -> {
+                    Epic epic = new Epic(title, description);
+                    epic.setParentId(buffer.getInt(linksOffset + first++ * Integer.BYTES));
+                    for (int i = 0; i < second; i++) {
+                        epic.addSubtask(buffer.getInt(linksOffset + (first + i) * Integer.BYTES));
+                    }
+                    task = epic;
+                }
+                case TaskRecords.SUBTASK -> task = new Subtask(title, description, first);
+                case TaskRecords.TASK -> task = new Task(title, description);
+                default -> throw new ManagerSaveException("Неизвестный тип задачи в снимке " + file + ": " + type);
+            }
+            task.setId(id);
+            task.setStatus(status < 0 ? null : STATUSES[status]);
+            task.setStartTime(TaskRecords.startTime(buffer.getLong(offset + 24), buffer.getInt(offset + 32)));
+            task.setDuration(TaskRecords.duration(buffer.getLong(offset + 36), buffer.getInt(offset + 44)));
+            task.setVersion(buffer.getInt(offset + 48));
+            return task;
+        }
+
+        private String string(int stringId) {
+            if (stringId == NO_STRING) {
+                return null;
+            }
+            String value = decoded[stringId];
+            if (value == null) {
+                int start = buffer.getInt(stringsOffset + stringId * Integer.BYTES);
+                int end = buffer.getInt(stringsOffset + (stringId + 1) * Integer.BYTES);
+                byte[] bytes = new byte[end - start];
+                buffer.get(blobOffset + start, bytes);
+                value = new String(bytes, StandardCharsets.UTF_8);
+                decoded[stringId] = value;
+            }
+            return value;
+        }
+    }
+}
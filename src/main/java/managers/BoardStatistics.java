@@ -0,0 +1,20 @@
+package managers;
+
+import java.util.List;
+
+// Сводная статистика доски: количество задач по статусам, выполнение каждого эпика (по возрастанию id)
+// и самые большие эпики по числу подзадач (при равенстве — по возрастанию id)
+public record BoardStatistics(StatusCounts counts, List<EpicProgress> epics, List<EpicProgress> largestEpics) {
+    // Выполнение эпика: сколько у него подзадач и сколько из них в статусе DONE
+    public record EpicProgress(int epicId, String title, int subtaskCount, int doneCount) {
+        // Процент выполненных подзадач; эпик без подзадач, как и его статус, считается выполненным
+        public double percentDone() {
+            return subtaskCount == 0 ? 100.0 : doneCount * 100.0 / subtaskCount;
+        }
+    }
+
+    public BoardStatistics {
+        epics = List.copyOf(epics);
+        largestEpics = List.copyOf(largestEpics);
+    }
+}
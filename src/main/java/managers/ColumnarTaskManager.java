@@ -0,0 +1,889 @@
+package managers;
+
+import tasks.Epic;
+import tasks.Status;
+import tasks.Subtask;
+import tasks.Task;
+import tasks.TaskSnapshot;
+import tasks.TaskType;
+import util.DirectColumn;
+import util.IntIntHashMap;
+import util.TextArena;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+// Менеджер для очень больших досок: задачи хранятся не объектами в куче, а построчно в столбцах
+// вне кучи (DirectColumn), названия и описания — в TextArena. Строка освобожденной задачи попадает
+// в список свободных и переиспользуется. Объекты Task, Subtask и Epic собираются только при чтении
+// и не связаны с хранилищем: изменения вносятся через update*. Выборки по статусу и пересчет
+// статуса эпика — циклы по примитивным столбцам; подзадачи эпика связаны списком через столбцы.
+// Время эпика собирается по подзадачам при чтении. В куче остаются карта id -> строка,
+// расписание задач со временем и история (только id). Не потокобезопасен, как и InMemoryTaskManager
+public class ColumnarTaskManager implements TaskManager {
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int NONE = -1;        // Нет строки (конец списка подзадач или свободных строк)
+    private static final byte FREE = 0;        // Вид свободной строки; виды задач — TaskType.ordinal() + 1
+    private static final byte NULL_STATUS = -1;
+    private static final byte NEW = encode(Status.NEW);
+    private static final byte IN_PROGRESS = encode(Status.IN_PROGRESS);
+    private static final byte DONE = encode(Status.DONE);
+    private static final long NULL_TIME = Long.MIN_VALUE;
+    private static final Status[] STATUSES = Status.values();
+    private static final TaskType[] TYPES = TaskType.values();
+
+    // Поля задачи
+    private final DirectColumn kinds = new DirectColumn(1, INITIAL_CAPACITY);
+    private final DirectColumn statuses = new DirectColumn(1, INITIAL_CAPACITY);
+    private final DirectColumn ids = new DirectColumn(4, INITIAL_CAPACITY);
+    private final DirectColumn versions = new DirectColumn(4, INITIAL_CAPACITY);
+    private final DirectColumn epicIds = new DirectColumn(4, INITIAL_CAPACITY);
+    private final DirectColumn startSeconds = new DirectColumn(8, INITIAL_CAPACITY); // UTC, NULL_TIME — нет
+    private final DirectColumn startNanos = new DirectColumn(4, INITIAL_CAPACITY);
+    private final DirectColumn durationSeconds = new DirectColumn(8, INITIAL_CAPACITY); // NULL_TIME — нет
+    private final DirectColumn durationNanos = new DirectColumn(4, INITIAL_CAPACITY);
+    private final DirectColumn titles = new DirectColumn(8, INITIAL_CAPACITY);       // Ссылки в TextArena
+    private final DirectColumn descriptions = new DirectColumn(8, INITIAL_CAPACITY);
+    // Связи: соседние подзадачи эпика (у свободной строки next — следующая свободная)
+    private final DirectColumn next = new DirectColumn(4, INITIAL_CAPACITY);
+    private final DirectColumn previous = new DirectColumn(4, INITIAL_CAPACITY);
+    // Только у эпиков: первая и последняя подзадача и счетчики подзадач по статусам
+    private final DirectColumn firstChild = new DirectColumn(4, INITIAL_CAPACITY);
+    private final DirectColumn lastChild = new DirectColumn(4, INITIAL_CAPACITY);
+    private final DirectColumn newCounts = new DirectColumn(4, INITIAL_CAPACITY);
+    private final DirectColumn inProgressCounts = new DirectColumn(4, INITIAL_CAPACITY);
+    private final DirectColumn doneCounts = new DirectColumn(4, INITIAL_CAPACITY);
+    private final DirectColumn[] columns = {kinds, statuses, ids, versions, epicIds, startSeconds, startNanos,
+            durationSeconds, durationNanos, titles, descriptions, next, previous, firstChild, lastChild,
+            newCounts, inProgressCounts, doneCounts};
+
+    private TextArena texts = new TextArena();
+    private final IntIntHashMap slots = new IntIntHashMap(); // Id задачи -> номер строки
+    private final int[] counts = new int[TYPES.length];      // Количество задач каждого вида
+    private int highWater;      // Строк когда-либо занято; выше них столбцы не читаются
+    private int freeHead = NONE; // Начало списка свободных строк
+
+    private final TaskSchedule schedule = new TaskSchedule();
+    private final HistoryManager historyManager =
+            Managers.getDefaultHistory(InMemoryHistoryManager.UNBOUNDED, this::resolve);
+    private SearchIndex searchIndex;
+    private int idCounter = 1;
+
+    // Хранилище для проверки пакетов перед применением
+    private final TaskBatch.Store batchStore = new TaskBatch.Store() {
+        @Override
+        public boolean containsTask(int id) {
+            return slotOf(id, TaskType.TASK) != NONE;
+        }
+
+        @Override
+        public int getSubtaskEpicId(int id) {
+            int slot = slotOf(id, TaskType.SUBTASK);
+            return slot == NONE ? 0 : epicIds.getInt(slot);
+        }
+
+        @Override
+        public Epic getEpic(int id) {
+            int slot = slotOf(id, TaskType.EPIC);
+            return slot == NONE ? null : (Epic) materialize(slot);
+        }
+
+        @Override
+        public boolean supportsNesting() {
+            return false;
+        }
+
+        @Override
+        public TaskSchedule schedule() {
+            return schedule;
+        }
+    };
+
+    @Override
+    public Task createTask(Task task) {
+        checkOverlap(task, 0);
+        insert(task, TaskType.TASK, 0);
+        schedule.put(task);
+        return task;
+    }
+
+    @Override
+    public Subtask createSubtask(Subtask subtask) {
+        int epicSlot = slotOf(subtask.getEpicId(), TaskType.EPIC);
+        if (epicSlot == NONE || subtask.getEpicId() == subtask.getId()) {
+            return null; // Эпик не найден, или подзадача указана своим эпиком
+        }
+        checkOverlap(subtask, 0);
+        int slot = insert(subtask, TaskType.SUBTASK, subtask.getEpicId());
+        schedule.put(subtask);
+        link(epicSlot, slot);
+        count(epicSlot, statuses.getByte(slot), 1);
+        rollUp(epicSlot);
+        return subtask;
+    }
+
+    @Override
+    public Epic createEpic(Epic epic) {
+        if (epic.getParentId() != 0) {
+            return null; // Вложенные эпики не поддерживаются: список в столбцах связывает только подзадачи
+        }
+        int slot = insert(epic, TaskType.EPIC, 0);
+        firstChild.putInt(slot, NONE);
+        lastChild.putInt(slot, NONE);
+        newCounts.putInt(slot, 0);
+        inProgressCounts.putInt(slot, 0);
+        doneCounts.putInt(slot, 0);
+        epic.clearSubtasks(); // Подзадачи появляются только через createSubtask
+        return epic;
+    }
+
+    @Override
+    public Task getTaskById(int id) {
+        return view(slotOf(id, TaskType.TASK));
+    }
+
+    @Override
+    public Epic getEpicById(int id) {
+        return (Epic) view(slotOf(id, TaskType.EPIC));
+    }
+
+    @Override
+    public Subtask getSubTaskById(int id) {
+        return (Subtask) view(slotOf(id, TaskType.SUBTASK));
+    }
+
+    @Override
+    public List<Task> getAllTasks() {
+        return new ArrayList<>(getTasksView());
+    }
+
+    @Override
+    public List<Subtask> getAllSubtasks() {
+        return new ArrayList<>(getSubtasksView());
+    }
+
+    @Override
+    public List<Epic> getAllEpics() {
+        return new ArrayList<>(getEpicsView());
+    }
+
+    @Override
+    public TaskSnapshot getSnapshot(int id) {
+        int slot = slots.get(id, NONE);
+        return slot == NONE ? null : TaskSnapshot.of(materialize(slot));
+    }
+
+    @Override
+    public List<Task> getAllTasks(int offset, int limit) {
+        return page(TaskType.TASK, offset, limit);
+    }
+
+    @Override
+    public List<Subtask> getAllSubtasks(int offset, int limit) {
+        return page(TaskType.SUBTASK, offset, limit);
+    }
+
+    @Override
+    public List<Epic> getAllEpics(int offset, int limit) {
+        return page(TaskType.EPIC, offset, limit);
+    }
+
+    @Override
+    public List<Task> getTasksAfter(int afterId, int limit) {
+        return pageAfter(TaskType.TASK, afterId, limit);
+    }
+
+    @Override
+    public List<Subtask> getSubtasksAfter(int afterId, int limit) {
+        return pageAfter(TaskType.SUBTASK, afterId, limit);
+    }
+
+    @Override
+    public List<Epic> getEpicsAfter(int afterId, int limit) {
+        return pageAfter(TaskType.EPIC, afterId, limit);
+    }
+
+    // Представления собирают задачи при обходе и не копируют хранилище
+    @Override
+    public Collection<Task> getTasksView() {
+        return new KindView<>(TaskType.TASK);
+    }
+
+    @Override
+    public Collection<Subtask> getSubtasksView() {
+        return new KindView<>(TaskType.SUBTASK);
+    }
+
+    @Override
+    public Collection<Epic> getEpicsView() {
+        return new KindView<>(TaskType.EPIC);
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return historyManager.getHistory(); // История хранит id и собирает задачи при чтении
+    }
+
+    @Override
+    public Stream<Task> streamHistory() {
+        return historyManager.streamHistory();
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        List<Task> prioritized = new ArrayList<>(schedule.ordered().size());
+        for (TaskSchedule.Slot slot : schedule.ordered()) {
+            prioritized.add(materialize(slots.get(slot.id(), NONE)));
+        }
+        return prioritized;
+    }
+
+    @Override
+    public List<Task> getTasksByStatus(Status status) {
+        return byStatus(TaskType.TASK, status);
+    }
+
+    @Override
+    public List<Subtask> getSubtasksByStatus(Status status) {
+        return byStatus(TaskType.SUBTASK, status);
+    }
+
+    @Override
+    public List<Epic> getEpicsByStatus(Status status) {
+        return byStatus(TaskType.EPIC, status);
+    }
+
+    // Количество задач вида type в статусе status (null — задачи без статуса) без сборки объектов
+    public int countByStatus(TaskType type, Status status) {
+        byte kind = kindOf(type);
+        byte code = encode(status);
+        int count = 0;
+        for (int slot = 0; slot < highWater; slot++) {
+            if (kinds.getByte(slot) == kind && statuses.getByte(slot) == code) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Один проход по строкам, на больших досках — параллельно по диапазонам строк: статусы читаются
+    // из столбца, выполнение эпика — из его счетчиков подзадач; из объектов собираются только названия эпиков
+    @Override
+    public BoardStatistics getStatistics(int largestEpics) {
+        RowTally tally = rows().collect(RowTally::new, (part, slot) -> {
+            byte kind = kinds.getByte(slot);
+            if (kind == FREE) {
+                return;
+            }
+            part.add(kind, statuses.getByte(slot));
+            if (kind == kindOf(TaskType.EPIC)) {
+                int done = doneCounts.getInt(slot);
+                part.epics.add(new BoardStatistics.EpicProgress(ids.getInt(slot), texts.get(titles.getLong(slot)),
+                        newCounts.getInt(slot) + inProgressCounts.getInt(slot) + done, done));
+            }
+        }, RowTally::merge);
+        return TaskStatistics.of(tally.counts, tally.epics, largestEpics);
+    }
+
+    @Override
+    public StatusCounts getStatusCounts() {
+        return rows().collect(RowTally::new, (part, slot) -> {
+            if (kinds.getByte(slot) != FREE) {
+                part.add(kinds.getByte(slot), statuses.getByte(slot));
+            }
+        }, RowTally::merge).counts;
+    }
+
+    @Override
+    public List<Subtask> getEpicSubtasks(int epicId) {
+        return getEpicSubtasksByStatus(epicId, null, false);
+    }
+
+    @Override
+    public List<Subtask> getEpicSubtasksByStatus(int epicId, Status status) {
+        return getEpicSubtasksByStatus(epicId, status, true);
+    }
+
+    @Override
+    public int[] search(String query, int limit) {
+        if (searchIndex == null) {
+            searchIndex = new SearchIndex(); // Первый поиск один раз индексирует хранилище
+            for (int slot = 0; slot < highWater; slot++) {
+                if (kinds.getByte(slot) != FREE) {
+                    searchIndex.replace(materialize(slot));
+                }
+            }
+        }
+        return searchIndex.search(query, limit);
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        update(task, TaskType.TASK);
+    }
+
+    @Override
+    public boolean updateTask(Task task, int expectedVersion) {
+        return hasVersion(task.getId(), TaskType.TASK, expectedVersion) && update(task, TaskType.TASK);
+    }
+
+    @Override
+    public boolean updateSubtask(Subtask subtask, int expectedVersion) {
+        return hasVersion(subtask.getId(), TaskType.SUBTASK, expectedVersion) && update(subtask, TaskType.SUBTASK);
+    }
+
+    @Override
+    public boolean updateEpic(Epic epic, int expectedVersion) {
+        return hasVersion(epic.getId(), TaskType.EPIC, expectedVersion) && update(epic, TaskType.EPIC);
+    }
+
+    // Полный пересчет статуса эпика по его подзадачам (в обычной работе статус следует за счетчиками)
+    @Override
+    public void updateEpicStatus(int epicId) {
+        int epicSlot = slotOf(epicId, TaskType.EPIC);
+        if (epicSlot == NONE) {
+            return;
+        }
+        int[] counted = countSubtasks(epicSlot);
+        newCounts.putInt(epicSlot, counted[0]);
+        inProgressCounts.putInt(epicSlot, counted[1]);
+        doneCounts.putInt(epicSlot, counted[2]);
+        rollUp(epicSlot);
+    }
+
+    @Override
+    public void applyBatch(TaskBatch batch) {
+        batch.validate(batchStore);
+        batch.applyTo(this); // Статусы эпиков следуют за счетчиками, отдельный пересчет не нужен
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        update(subtask, TaskType.SUBTASK);
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        update(epic, TaskType.EPIC);
+    }
+
+    @Override
+    public int deleteTask(int id) {
+        int slot = slotOf(id, TaskType.TASK);
+        if (slot == NONE) {
+            return -1;
+        }
+        remove(slot);
+        compactTextsIfNeeded();
+        return id;
+    }
+
+    @Override
+    public void deleteAllTasks() {
+        removeAll(TaskType.TASK);
+    }
+
+    @Override
+    public void deleteAllSubTasks() {
+        removeAll(TaskType.SUBTASK);
+        for (int slot = 0; slot < highWater; slot++) {
+            if (kinds.getByte(slot) == kindOf(TaskType.EPIC)) {
+                firstChild.putInt(slot, NONE);
+                lastChild.putInt(slot, NONE);
+                newCounts.putInt(slot, 0);
+                inProgressCounts.putInt(slot, 0);
+                doneCounts.putInt(slot, 0);
+            }
+        }
+    }
+
+    @Override
+    public void deleteAllEpics() {
+        removeAll(TaskType.EPIC);
+        removeAll(TaskType.SUBTASK);
+    }
+
+    @Override
+    public int deleteSubtask(int id) {
+        int slot = slotOf(id, TaskType.SUBTASK);
+        if (slot == NONE) {
+            return -1;
+        }
+        int epicSlot = slots.get(epicIds.getInt(slot), NONE);
+        unlink(epicSlot, slot);
+        count(epicSlot, statuses.getByte(slot), -1);
+        rollUp(epicSlot);
+        remove(slot);
+        compactTextsIfNeeded();
+        return id;
+    }
+
+    @Override
+    public int deleteEpic(int id) {
+        int epicSlot = slotOf(id, TaskType.EPIC);
+        if (epicSlot == NONE) {
+            return -1;
+        }
+        int slot = firstChild.getInt(epicSlot);
+        while (slot != NONE) {
+            int following = next.getInt(slot); // remove() переписывает next под список свободных строк
+            remove(slot);
+            slot = following;
+        }
+        remove(epicSlot);
+        compactTextsIfNeeded();
+        return id;
+    }
+
+    // Занятая память вне кучи: столбцы и тексты
+    public long getOffHeapBytes() {
+        long bytes = texts.getAllocatedBytes();
+        for (DirectColumn column : columns) {
+            bytes += column.sizeInBytes();
+        }
+        return bytes;
+    }
+
+    // Согласованы ли счетчики и статусы эпиков с их подзадачами (используется в тестах)
+    public boolean isEpicStatusConsistent() {
+        for (int epicSlot = 0; epicSlot < highWater; epicSlot++) {
+            if (kinds.getByte(epicSlot) != kindOf(TaskType.EPIC)) {
+                continue;
+            }
+            int[] counted = countSubtasks(epicSlot);
+            boolean hasSubtasks = firstChild.getInt(epicSlot) != NONE; // Новый эпик сохраняет исходный статус
+            if (counted[0] != newCounts.getInt(epicSlot) || counted[1] != inProgressCounts.getInt(epicSlot)
+                    || counted[2] != doneCounts.getInt(epicSlot)
+                    || hasSubtasks && statuses.getByte(epicSlot) != statusOf(counted[0], counted[1])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Записывает новую задачу в свободную строку и назначает ей id
+    private int insert(Task task, TaskType type, int epicId) {
+        int slot = allocate();
+        task.setId(++idCounter);
+        kinds.putByte(slot, kindOf(type));
+        ids.putInt(slot, task.getId());
+        epicIds.putInt(slot, epicId);
+        titles.putLong(slot, TextArena.NULL);
+        descriptions.putLong(slot, TextArena.NULL);
+        write(slot, task);
+        slots.put(task.getId(), slot);
+        counts[type.ordinal()]++;
+        indexText(task);
+        return slot;
+    }
+
+    // Заменяет поля хранимой задачи полями переданного объекта и повышает версию
+    private boolean update(Task task, TaskType type) {
+        int slot = slotOf(task.getId(), type);
+        if (slot == NONE) {
+            return false;
+        }
+        task.setVersion(versions.getInt(slot) + 1);
+        if (type == TaskType.EPIC) {
+            // Статус и время эпика выводятся из подзадач, меняются только текст и версия
+            replaceText(slot, task);
+            versions.putInt(slot, task.getVersion());
+        } else {
+            checkOverlap(task, task.getId());
+            byte oldStatus = statuses.getByte(slot);
+            write(slot, task);
+            schedule.put(task);
+            if (type == TaskType.SUBTASK) {
+                ((Subtask) task).setEpicId(epicIds.getInt(slot));
+                int epicSlot = slots.get(epicIds.getInt(slot), NONE); // Подзадача остается в своем эпике
+                count(epicSlot, oldStatus, -1);
+                count(epicSlot, statuses.getByte(slot), 1);
+                rollUp(epicSlot);
+            }
+        }
+        indexText(task);
+        compactTextsIfNeeded();
+        return true;
+    }
+
+    private void write(int slot, Task task) {
+        statuses.putByte(slot, encode(task.getStatus()));
+        versions.putInt(slot, task.getVersion());
+        LocalDateTime start = task.getStartTime();
+        startSeconds.putLong(slot, start == null ? NULL_TIME : start.toEpochSecond(ZoneOffset.UTC));
+        startNanos.putInt(slot, start == null ? 0 : start.getNano());
+        Duration duration = task.getDuration();
+        durationSeconds.putLong(slot, duration == null ? NULL_TIME : duration.getSeconds());
+        durationNanos.putInt(slot, duration == null ? 0 : duration.getNano());
+        replaceText(slot, task);
+    }
+
+    private void replaceText(int slot, Task task) {
+        texts.release(titles.getLong(slot));
+        texts.release(descriptions.getLong(slot));
+        titles.putLong(slot, texts.add(task.getTitle()));
+        descriptions.putLong(slot, texts.add(task.getDescription()));
+    }
+
+    // Убирает задачу из всех структур и освобождает строку; подзадачи и связи эпика обрабатывает вызывающий
+    private void remove(int slot) {
+        int id = ids.getInt(slot);
+        counts[kinds.getByte(slot) - 1]--;
+        slots.remove(id);
+        schedule.remove(id);
+        historyManager.remove(id);
+        if (searchIndex != null) {
+            searchIndex.remove(id);
+        }
+        texts.release(titles.getLong(slot));
+        texts.release(descriptions.getLong(slot));
+        kinds.putByte(slot, FREE);
+        next.putInt(slot, freeHead);
+        freeHead = slot;
+    }
+
+    private void removeAll(TaskType type) {
+        byte kind = kindOf(type);
+        for (int slot = 0; slot < highWater; slot++) {
+            if (kinds.getByte(slot) == kind) {
+                remove(slot);
+            }
+        }
+        compactTextsIfNeeded();
+    }
+
+    // Строка из списка свободных или новая строка в конце столбцов
+    private int allocate() {
+        if (freeHead != NONE) {
+            int slot = freeHead;
+            freeHead = next.getInt(slot);
+            return slot;
+        }
+        if (highWater == kinds.capacity()) {
+            for (DirectColumn column : columns) {
+                column.ensureCapacity(highWater + 1);
+            }
+        }
+        return highWater++;
+    }
+
+    // Добавляет подзадачу в конец списка эпика
+    private void link(int epicSlot, int slot) {
+        int last = lastChild.getInt(epicSlot);
+        previous.putInt(slot, last);
+        next.putInt(slot, NONE);
+        if (last == NONE) {
+            firstChild.putInt(epicSlot, slot);
+        } else {
+            next.putInt(last, slot);
+        }
+        lastChild.putInt(epicSlot, slot);
+    }
+
+    private void unlink(int epicSlot, int slot) {
+        int before = previous.getInt(slot);
+        int after = next.getInt(slot);
+        if (before == NONE) {
+            firstChild.putInt(epicSlot, after);
+        } else {
+            next.putInt(before, after);
+        }
+        if (after == NONE) {
+            lastChild.putInt(epicSlot, before);
+        } else {
+            previous.putInt(after, before);
+        }
+    }
+
+    // Подзадача без статуса считается NEW
+    private void count(int epicSlot, byte status, int delta) {
+        DirectColumn counter = status == IN_PROGRESS ? inProgressCounts : status == DONE ? doneCounts : newCounts;
+        counter.putInt(epicSlot, counter.getInt(epicSlot) + delta);
+    }
+
+    // Счетчики подзадач эпика NEW, IN_PROGRESS и DONE по обходу списка подзадач
+    private int[] countSubtasks(int epicSlot) {
+        int[] counted = new int[3];
+        for (int slot = firstChild.getInt(epicSlot); slot != NONE; slot = next.getInt(slot)) {
+            byte status = statuses.getByte(slot);
+            counted[status == IN_PROGRESS ? 1 : status == DONE ? 2 : 0]++;
+        }
+        return counted;
+    }
+
+    private void rollUp(int epicSlot) {
+        statuses.putByte(epicSlot, statusOf(newCounts.getInt(epicSlot), inProgressCounts.getInt(epicSlot)));
+    }
+
+    // Статус эпика по счетчикам: по тем же правилам, что и EpicStatusCounter
+    private static byte statusOf(int newCount, int inProgressCount) {
+        if (newCount == 0 && inProgressCount == 0) {
+            return DONE; // Нет подзадач или все подзадачи выполнены
+        }
+        return inProgressCount > 0 ? IN_PROGRESS : NEW;
+    }
+
+    // Собирает объект задачи из строки столбцов
+    private Task materialize(int slot) {
+        String title = texts.get(titles.getLong(slot));
+        String description = texts.get(descriptions.getLong(slot));
+        Task task = switch (TYPES[kinds.getByte(slot) - 1]) {
+            case TASK -> new Task(title, description);
+            case SUBTASK -> new Subtask(title, description, epicIds.getInt(slot));
+            case EPIC -> new Epic(title, description);
+        };
+        task.setId(ids.getInt(slot));
+        task.setVersion(versions.getInt(slot));
+        byte status = statuses.getByte(slot);
+        task.setStatus(status == NULL_STATUS ? null : STATUSES[status]);
+        if (task instanceof Epic epic) {
+            collectSubtasks(slot, epic);
+        } else {
+            task.setStartTime(startTime(slot));
+            task.setDuration(duration(slot));
+        }
+        return task;
+    }
+
+    // Список подзадач и время эпика: начало — самое раннее, завершение — самое позднее,
+    // продолжительность — сумма продолжительностей подзадач
+    private void collectSubtasks(int epicSlot, Epic epic) {
+        for (int slot = firstChild.getInt(epicSlot); slot != NONE; slot = next.getInt(slot)) {
+            epic.addSubtask(ids.getInt(slot));
+            Duration duration = duration(slot);
+            if (duration != null) {
+                epic.setDuration(epic.getDuration() == null ? duration : epic.getDuration().plus(duration));
+            }
+            LocalDateTime start = startTime(slot);
+            if (start == null) {
+                continue;
+            }
+            LocalDateTime end = duration == null ? start : start.plus(duration);
+            if (epic.getStartTime() == null || start.isBefore(epic.getStartTime())) {
+                epic.setStartTime(start);
+            }
+            if (epic.getEndTime() == null || end.isAfter(epic.getEndTime())) {
+                epic.setEndTime(end);
+            }
+        }
+    }
+
+    private LocalDateTime startTime(int slot) {
+        long seconds = startSeconds.getLong(slot);
+        return seconds == NULL_TIME ? null : LocalDateTime.ofEpochSecond(seconds, startNanos.getInt(slot), ZoneOffset.UTC);
+    }
+
+    private Duration duration(int slot) {
+        long seconds = durationSeconds.getLong(slot);
+        return seconds == NULL_TIME ? null : Duration.ofSeconds(seconds, durationNanos.getInt(slot));
+    }
+
+    // Собирает задачу для выдачи по id и записывает ее в историю
+    private Task view(int slot) {
+        if (slot == NONE) {
+            return null;
+        }
+        Task task = materialize(slot);
+        historyManager.add(task);
+        return task;
+    }
+
+    // Задача для истории по id (null — задача удалена)
+    private Task resolve(int id) {
+        int slot = slots.get(id, NONE);
+        return slot == NONE ? null : materialize(slot);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends Task> List<T> byStatus(TaskType type, Status status) {
+        byte kind = kindOf(type);
+        byte code = encode(status);
+        List<T> result = new ArrayList<>();
+        for (int slot = 0; slot < highWater; slot++) {
+            byte stored = statuses.getByte(slot);
+            // Задача без статуса считается NEW
+            if (kinds.getByte(slot) == kind && (stored == code || code == NEW && stored == NULL_STATUS)) {
+                result.add((T) materialize(slot));
+            }
+        }
+        return result;
+    }
+
+    private List<Subtask> getEpicSubtasksByStatus(int epicId, Status status, boolean filter) {
+        int epicSlot = slotOf(epicId, TaskType.EPIC);
+        List<Subtask> result = new ArrayList<>();
+        if (epicSlot == NONE) {
+            return result;
+        }
+        byte code = encode(status);
+        for (int slot = firstChild.getInt(epicSlot); slot != NONE; slot = next.getInt(slot)) {
+            byte stored = statuses.getByte(slot);
+            if (!filter || stored == code || code == NEW && stored == NULL_STATUS) {
+                result.add((Subtask) materialize(slot));
+            }
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends Task> List<T> page(TaskType type, int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException(
+                    "Смещение и размер страницы не могут быть отрицательными: " + offset + ", " + limit);
+        }
+        byte kind = kindOf(type);
+        List<T> page = new ArrayList<>(Math.min(limit, Math.max(counts[type.ordinal()] - offset, 0)));
+        int skipped = 0;
+        for (int slot = 0; slot < highWater && page.size() < limit; slot++) {
+            if (kinds.getByte(slot) != kind) {
+                continue;
+            }
+            if (skipped < offset) {
+                skipped++; // Строки предыдущих страниц пропускаются без сборки объектов
+            } else {
+                page.add((T) materialize(slot));
+            }
+        }
+        return page;
+    }
+
+    // Объекты собираются только для задач страницы: обход хранилища читает столбцы типов и id
+    @SuppressWarnings("unchecked")
+    private <T extends Task> List<T> pageAfter(TaskType type, int afterId, int limit) {
+        byte kind = kindOf(type);
+        return Pages.after(counts[type.ordinal()], idCounter, afterId, limit, id -> {
+            int slot = slotOf(id, type);
+            return slot == NONE ? null : (T) materialize(slot);
+        }, action -> {
+            for (int slot = 0; slot < highWater; slot++) {
+                if (kinds.getByte(slot) == kind) {
+                    action.accept(ids.getInt(slot));
+                }
+            }
+        });
+    }
+
+    private boolean hasVersion(int id, TaskType type, int expectedVersion) {
+        int slot = slotOf(id, type);
+        return slot != NONE && versions.getInt(slot) == expectedVersion;
+    }
+
+    // Строка задачи нужного вида (NONE — такой задачи нет)
+    private int slotOf(int id, TaskType type) {
+        int slot = slots.get(id, NONE);
+        return slot != NONE && kinds.getByte(slot) == kindOf(type) ? slot : NONE;
+    }
+
+    private void checkOverlap(Task task, int excludeId) {
+        if (schedule.overlaps(task.getStartTime(), task.getEndTime(), excludeId)) {
+            throw new TimeOverlapException(task);
+        }
+    }
+
+    // Тексты лежат в арене, а переданный объект принадлежит вызывающему: индекс не держит ссылок
+    // на его строки и переиндексирует задачу при каждом создании и обновлении
+    private void indexText(Task task) {
+        if (searchIndex != null) {
+            searchIndex.replace(task);
+        }
+    }
+
+    // Переписывает живые тексты в новую арену, когда освобожденных строк становится больше живых
+    private void compactTextsIfNeeded() {
+        if (!texts.needsCompaction()) {
+            return;
+        }
+        TextArena compacted = new TextArena();
+        for (int slot = 0; slot < highWater; slot++) {
+            if (kinds.getByte(slot) != FREE) {
+                titles.putLong(slot, compacted.add(texts.get(titles.getLong(slot))));
+                descriptions.putLong(slot, compacted.add(texts.get(descriptions.getLong(slot))));
+            }
+        }
+        texts = compacted;
+    }
+
+    // Номера занятых когда-либо строк; на больших досках — параллельный поток
+    private IntStream rows() {
+        IntStream rows = IntStream.range(0, highWater);
+        return highWater >= TaskStatistics.PARALLEL_THRESHOLD ? rows.parallel() : rows;
+    }
+
+    private static byte kindOf(TaskType type) {
+        return (byte) (type.ordinal() + 1);
+    }
+
+    private static byte encode(Status status) {
+        return status == null ? NULL_STATUS : (byte) status.ordinal();
+    }
+
+    // Накопитель статистики для части строк
+    private static final class RowTally {
+        private final StatusCounts counts = new StatusCounts();
+        private final List<BoardStatistics.EpicProgress> epics = new ArrayList<>();
+
+        void add(byte kind, byte status) {
+            counts.add(TYPES[kind - 1], status == NULL_STATUS ? null : STATUSES[status], 1);
+        }
+
+        void merge(RowTally other) {
+            counts.addAll(other.counts);
+            epics.addAll(other.epics);
+        }
+    }
+
+    // Задачи одного вида в порядке строк; объекты собираются при обходе
+    private final class KindView<T extends Task> extends AbstractCollection<T> {
+        private final TaskType type;
+
+        KindView(TaskType type) {
+            this.type = type;
+        }
+
+        @Override
+        public int size() {
+            return counts[type.ordinal()];
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            byte kind = kindOf(type);
+            return new Iterator<>() {
+                private int slot = advance(0);
+
+                @Override
+                public boolean hasNext() {
+                    return slot < highWater;
+                }
+
+                @Override
+                @SuppressWarnings("unchecked")
+                public T next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    T task = (T) materialize(slot);
+                    slot = advance(slot + 1);
+                    return task;
+                }
+
+                private int advance(int from) {
+                    int current = from;
+                    while (current < highWater && kinds.getByte(current) != kind) {
+                        current++;
+                    }
+                    return current;
+                }
+            };
+        }
+    }
+}
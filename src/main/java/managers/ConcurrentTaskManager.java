@@ -0,0 +1,876 @@
+package managers;
+
+import tasks.Epic;
+import tasks.Status;
+import tasks.Subtask;
+import tasks.Task;
+import tasks.TaskSnapshot;
+import tasks.TaskType;
+import util.IntArrayList;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+public class ConcurrentTaskManager implements TaskManager {
+    // Количество полос блокировок эпиков (степень двойки для быстрого взятия остатка)
+    private static final int DEFAULT_STRIPES = 64;
+    // Ожидаемая версия для обычного обновления: заменяется любая версия
+    private static final int ANY_VERSION = -1;
+
+    // Потокобезопасные хранилища задач, подзадач и эпиков
+    private final Map<Integer, Task> tasks = new ConcurrentHashMap<>();
+    private final Map<Integer, Subtask> subtasks = new ConcurrentHashMap<>();
+    private final Map<Integer, Epic> epics = new ConcurrentHashMap<>();
+    // Эпик каждой подзадачи: epicId у хранимого объекта могут сменить напрямую, а блокировка
+    // и список подзадач эпика должны остаться прежними
+    private final Map<Integer, Integer> subtaskEpics = new ConcurrentHashMap<>();
+
+    // Менеджер истории не потокобезопасен, поэтому доступ к нему идет под его монитором
+    private final HistoryManager historyManager = Managers.getDefaultHistory();
+
+    // Расписание задач; доступ под его монитором, который берется после блокировки полосы эпика
+    private final TaskSchedule schedule = new TaskSchedule();
+
+    // Эпики, затронутые применяемым пакетом (null вне пакета); пакет держит все полосы блокировок
+    private Map<Integer, Epic> batchEpics;
+
+    // Полнотекстовый индекс; доступ под его монитором, который берется последним
+    private final SearchIndex searchIndex = new SearchIndex();
+
+    // Генератор уникальных id без блокировок
+    private final AtomicInteger idCounter = new AtomicInteger(1);
+
+    // Поток, применяющий пакет, берет id из выделенного пакету блока: создания в других потоках
+    // (задачи без времени идут без блокировок) не вклиниваются между id пакета
+    private volatile Thread batchThread;
+    private int batchNextId;
+
+    // Полосатые блокировки: все изменения эпика и его подзадач идут под блокировкой его полосы
+    private final ReentrantLock[] epicLocks;
+    private final int stripeMask;
+
+    public ConcurrentTaskManager() {
+        this(DEFAULT_STRIPES);
+    }
+
+    // Хранилище для проверки пакетов; используется под всеми полосами блокировок
+    private final TaskBatch.Store batchStore = new TaskBatch.Store() {
+        @Override
+        public boolean containsTask(int id) {
+            return tasks.containsKey(id);
+        }
+
+        @Override
+        public int getSubtaskEpicId(int id) {
+            return subtaskEpics.getOrDefault(id, 0);
+        }
+
+        @Override
+        public Epic getEpic(int id) {
+            return epics.get(id);
+        }
+
+        @Override
+        public boolean supportsNesting() {
+            return false;
+        }
+
+        @Override
+        public TaskSchedule schedule() {
+            return schedule;
+        }
+    };
+
+    public ConcurrentTaskManager(int stripes) {
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("Количество полос блокировок должно быть положительным: " + stripes);
+        }
+        int size = Integer.highestOneBit(stripes);
+        if (size < stripes) {
+            size <<= 1; // Округляем вверх до степени двойки
+        }
+        epicLocks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            epicLocks[i] = new ReentrantLock();
+        }
+        stripeMask = size - 1;
+    }
+
+    @Override
+    public Task createTask(Task task) {
+        if (task.getStartTime() == null) {
+            task.setId(nextId()); // Уникальный id без блокировок
+            tasks.put(task.getId(), task);
+            schedule(task);
+            indexText(tasks, task);
+            return task;
+        }
+        synchronized (schedule) {
+            checkOverlap(task, 0); // Проверка и занятие времени атомарны относительно других задач
+            task.setId(nextId());
+            tasks.put(task.getId(), task);
+            schedule.put(task);
+        }
+        indexText(tasks, task);
+        return task;
+    }
+
+    @Override
+    public Subtask createSubtask(Subtask subtask) {
+        int epicId = subtask.getEpicId();
+        if (epicId == subtask.getId()) {
+            return null; // Подзадача не может быть своим эпиком
+        }
+        ReentrantLock lock = lockFor(epicId);
+        lock.lock();
+        try {
+            Epic epic = epics.get(epicId);
+            if (epic == null) {
+                return null; // Если эпик не найден
+            }
+            synchronized (schedule) {
+                checkOverlap(subtask, 0);
+                subtask.setId(nextId());
+                subtasks.put(subtask.getId(), subtask);
+                subtaskEpics.put(subtask.getId(), epicId);
+                schedule.put(subtask);
+            }
+            epic.addSubtask(subtask.getId());
+            epicChanged(epic);
+            indexText(subtasks, subtask);
+            return subtask;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Epic createEpic(Epic epic) {
+        // Вложенные эпики не поддерживаются (NestedEpics не реализован): подъем статуса по дереву
+        // потребовал бы блокировок всех предков в одном порядке
+        if (epic.getParentId() != 0) {
+            return null;
+        }
+        epic.setId(nextId());
+        epic.setStartTime(null); // Время эпика выводится из подзадач, а их пока нет
+        epic.setDuration(null);
+        epic.setEndTime(null);
+        epics.put(epic.getId(), epic);
+        indexText(epics, epic);
+        return epic;
+    }
+
+    @Override
+    public Task getTaskById(int id) {
+        Task task = tasks.get(id);
+        if (task != null) {
+            addToHistory(task); // История клонирует задачу сама
+        }
+        return task;
+    }
+
+    @Override
+    public Epic getEpicById(int id) {
+        ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            Epic epic = epics.get(id);
+            if (epic != null) {
+                addToHistory(epic); // История клонирует эпик под блокировкой, пока список подзадач не меняется
+            }
+            return epic;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Subtask getSubTaskById(int id) {
+        Subtask subtask = subtasks.get(id);
+        if (subtask != null) {
+            addToHistory(subtask);
+        }
+        return subtask;
+    }
+
+    @Override
+    public List<Task> getAllTasks() {
+        return new ArrayList<>(tasks.values());
+    }
+
+    @Override
+    public List<Subtask> getAllSubtasks() {
+        return new ArrayList<>(subtasks.values());
+    }
+
+    @Override
+    public List<Epic> getAllEpics() {
+        return new ArrayList<>(epics.values());
+    }
+
+    @Override
+    public TaskSnapshot getSnapshot(int id) {
+        Task task = tasks.get(id);
+        if (task == null) {
+            task = subtasks.get(id);
+        }
+        if (task != null) {
+            return TaskSnapshot.of(task); // Обновление заменяет объект целиком, хранимый не меняется
+        }
+        ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            Epic epic = epics.get(id); // Статус, время и подзадачи эпика меняются под блокировкой полосы
+            return epic == null ? null : TaskSnapshot.of(epic);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Обход представлений слабо согласован: он не падает при параллельных изменениях,
+    // но может не увидеть задачи, добавленные во время обхода
+    @Override
+    public List<Task> getAllTasks(int offset, int limit) {
+        return Pages.of(tasks.values(), offset, limit);
+    }
+
+    @Override
+    public List<Subtask> getAllSubtasks(int offset, int limit) {
+        return Pages.of(subtasks.values(), offset, limit);
+    }
+
+    @Override
+    public List<Epic> getAllEpics(int offset, int limit) {
+        return Pages.of(epics.values(), offset, limit);
+    }
+
+    @Override
+    public List<Task> getTasksAfter(int afterId, int limit) {
+        return Pages.after(tasks.size(), idCounter.get(), afterId, limit, tasks::get,
+                action -> tasks.keySet().forEach(action::accept));
+    }
+
+    @Override
+    public List<Subtask> getSubtasksAfter(int afterId, int limit) {
+        return Pages.after(subtasks.size(), idCounter.get(), afterId, limit, subtasks::get,
+                action -> subtasks.keySet().forEach(action::accept));
+    }
+
+    @Override
+    public List<Epic> getEpicsAfter(int afterId, int limit) {
+        return Pages.after(epics.size(), idCounter.get(), afterId, limit, epics::get,
+                action -> epics.keySet().forEach(action::accept));
+    }
+
+    @Override
+    public Collection<Task> getTasksView() {
+        return Collections.unmodifiableCollection(tasks.values());
+    }
+
+    @Override
+    public Collection<Subtask> getSubtasksView() {
+        return Collections.unmodifiableCollection(subtasks.values());
+    }
+
+    @Override
+    public Collection<Epic> getEpicsView() {
+        return Collections.unmodifiableCollection(epics.values());
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        synchronized (historyManager) {
+            return historyManager.getHistory();
+        }
+    }
+
+    // Историю меняют другие потоки, поэтому поток идет по снимку, снятому под монитором
+    @Override
+    public Stream<Task> streamHistory() {
+        return getHistory().stream();
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        int[] ids;
+        synchronized (schedule) {
+            ids = new int[schedule.ordered().size()];
+            int i = 0;
+            for (TaskSchedule.Slot slot : schedule.ordered()) {
+                ids[i++] = slot.id();
+            }
+        }
+        List<Task> prioritized = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            Task task = tasks.get(id);
+            if (task == null) {
+                task = subtasks.get(id);
+            }
+            if (task != null) {
+                prioritized.add(task); // Задача могла быть удалена после снятия списка
+            }
+        }
+        return prioritized;
+    }
+
+    // Выборки по статусу здесь идут обходом хранилища: индексы пришлось бы согласовывать
+    // со сменой статуса из разных потоков. Выборки по эпику обходят только его подзадачи
+    @Override
+    public List<Task> getTasksByStatus(Status status) {
+        return filterByStatus(tasks.values(), status);
+    }
+
+    @Override
+    public List<Subtask> getSubtasksByStatus(Status status) {
+        return filterByStatus(subtasks.values(), status);
+    }
+
+    @Override
+    public List<Epic> getEpicsByStatus(Status status) {
+        return filterByStatus(epics.values(), status);
+    }
+
+    @Override
+    public List<Subtask> getEpicSubtasks(int epicId) {
+        return collectEpicSubtasks(epicId, subtask -> true);
+    }
+
+    @Override
+    public List<Subtask> getEpicSubtasksByStatus(int epicId, Status status) {
+        Status key = status == null ? Status.NEW : status;
+        return collectEpicSubtasks(epicId, subtask -> statusOf(subtask) == key);
+    }
+
+    private List<Subtask> collectEpicSubtasks(int epicId, Predicate<Subtask> filter) {
+        List<Subtask> result = new ArrayList<>();
+        ReentrantLock lock = lockFor(epicId);
+        lock.lock();
+        try {
+            Epic epic = epics.get(epicId);
+            if (epic != null) {
+                IntArrayList subtaskIds = epic.getSubtaskIds();
+                for (int i = 0; i < subtaskIds.size(); i++) {
+                    Subtask subtask = subtasks.get(subtaskIds.getInt(i));
+                    if (subtask != null && filter.test(subtask)) {
+                        result.add(subtask);
+                    }
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return result;
+    }
+
+    @Override
+    public int[] search(String query, int limit) {
+        synchronized (searchIndex) {
+            return searchIndex.search(query, limit);
+        }
+    }
+
+    // Индексов по статусу здесь нет (см. выборки по статусу), поэтому статистика считается обходом
+    // хранилищ; обход слабо согласован и при параллельных изменениях дает приблизительные числа
+    @Override
+    public BoardStatistics getStatistics(int largestEpics) {
+        return TaskStatistics.compute(tasks.values(), subtasks.values(), epics.values(), largestEpics);
+    }
+
+    @Override
+    public StatusCounts getStatusCounts() {
+        return TaskStatistics.countStatuses(tasks.values(), subtasks.values(), epics.values());
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        replaceTask(task, ANY_VERSION);
+    }
+
+    @Override
+    public boolean updateTask(Task task, int expectedVersion) {
+        return replaceTask(task, expectedVersion);
+    }
+
+    // Задача без времени заменяется без монитора расписания: он нужен, только если у прежней
+    // версии было время, которое надо освободить
+    private boolean replaceTask(Task task, int expectedVersion) {
+        int id = task.getId();
+        if (task.getStartTime() == null) {
+            Task previous = replace(tasks, task, expectedVersion);
+            if (previous == null) {
+                return false;
+            }
+            if (previous.getStartTime() != null) {
+                synchronized (schedule) {
+                    Task current = tasks.get(id); // Задачу со временем могли записать параллельно
+                    if (current == null || current.getStartTime() == null) {
+                        schedule.remove(id);
+                    }
+                }
+            }
+        } else {
+            synchronized (schedule) {
+                if (!tasks.containsKey(id)) {
+                    return false;
+                }
+                checkOverlap(task, id);
+                if (replace(tasks, task, expectedVersion) == null) {
+                    return false;
+                }
+                schedule.put(task);
+            }
+        }
+        indexText(tasks, task);
+        return true;
+    }
+
+    // Атомарно заменяет хранимую задачу, если ее версия равна ожидаемой (ANY_VERSION — любая),
+    // и присваивает новой следующую версию до публикации. Возвращает замененную задачу или null
+    private static <T extends Task> T replace(Map<Integer, T> store, T task, int expectedVersion) {
+        List<T> replaced = new ArrayList<>(1);
+        store.computeIfPresent(task.getId(), (id, current) -> {
+            if (expectedVersion != ANY_VERSION && current.getVersion() != expectedVersion) {
+                return current; // Устаревшая версия: оставляем хранимую задачу
+            }
+            task.setVersion(current.getVersion() + 1);
+            replaced.add(current);
+            return task;
+        });
+        return replaced.isEmpty() ? null : replaced.get(0);
+    }
+
+    // Пакет держит все полосы блокировок и монитор расписания: проверка и применение атомарны
+    // для других потоков, а статус и время каждого затронутого эпика пересчитываются один раз
+    @Override
+    public void applyBatch(TaskBatch batch) {
+        lockAll();
+        try {
+            synchronized (schedule) {
+                batch.validate(batchStore);
+                batchEpics = new HashMap<>();
+                batchNextId = idCounter.getAndAdd(batch.creations()) + 1;
+                batchThread = Thread.currentThread();
+                try {
+                    batch.applyTo(this);
+                } finally {
+                    batchThread = null;
+                    Map<Integer, Epic> changed = batchEpics;
+                    batchEpics = null;
+                    for (Epic epic : changed.values()) {
+                        if (epics.get(epic.getId()) == epic) { // Эпик мог быть удален позже в пакете
+                            epicChanged(epic);
+                        }
+                    }
+                }
+            }
+        } finally {
+            unlockAll();
+        }
+    }
+
+    @Override
+    public void updateEpicStatus(int epicId) {
+        ReentrantLock lock = lockFor(epicId);
+        lock.lock();
+        try {
+            Epic epic = epics.get(epicId);
+            if (epic != null) {
+                recalculateEpicStatus(epic);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        replaceSubtask(subtask, ANY_VERSION);
+    }
+
+    @Override
+    public boolean updateSubtask(Subtask subtask, int expectedVersion) {
+        return replaceSubtask(subtask, expectedVersion);
+    }
+
+    private boolean replaceSubtask(Subtask subtask, int expectedVersion) {
+        Integer epicId = subtaskEpics.get(subtask.getId());
+        if (epicId == null) {
+            return false;
+        }
+        // Эпик подзадачи не меняется, поэтому блокировку можно выбрать заранее
+        ReentrantLock lock = lockFor(epicId);
+        lock.lock();
+        try {
+            synchronized (schedule) {
+                if (!subtasks.containsKey(subtask.getId())) {
+                    return false;
+                }
+                subtask.setEpicId(epicId); // Подзадача остается в своем эпике
+                checkOverlap(subtask, subtask.getId());
+                if (replace(subtasks, subtask, expectedVersion) == null) {
+                    return false;
+                }
+                schedule.put(subtask);
+            }
+            indexText(subtasks, subtask);
+            Epic epic = epics.get(epicId);
+            if (epic != null) {
+                epicChanged(epic); // Статус и время эпика пересчитываются атомарно с обновлением
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        replaceEpic(epic, ANY_VERSION);
+    }
+
+    @Override
+    public boolean updateEpic(Epic epic, int expectedVersion) {
+        return replaceEpic(epic, expectedVersion);
+    }
+
+    private boolean replaceEpic(Epic epic, int expectedVersion) {
+        ReentrantLock lock = lockFor(epic.getId());
+        lock.lock();
+        try {
+            Epic previous = epics.get(epic.getId());
+            if (previous == null || expectedVersion != ANY_VERSION && previous.getVersion() != expectedVersion) {
+                return false;
+            }
+            epic.setStartTime(previous.getStartTime()); // Время эпика переносится из расчетного
+            epic.setDuration(previous.getDuration());
+            epic.setEndTime(previous.getEndTime());
+            if (previous != epic) {
+                epic.copySubtasksFrom(previous); // Подзадачи и статус тоже выводятся из подзадач
+                epic.setStatus(previous.getStatus());
+            }
+            epic.setVersion(previous.getVersion() + 1);
+            epics.replace(epic.getId(), epic); // Эпики заменяются только под блокировкой полосы
+            indexText(epics, epic);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int deleteTask(int id) {
+        Task task = tasks.remove(id);
+        if (task != null) {
+            removeFromHistory(id);
+            unschedule(id);
+            unindexText(id);
+            return id;
+        }
+        return -1; // Если задача не найдена
+    }
+
+    // Задачи без времени создаются без монитора расписания, поэтому удаляются по одной: задача,
+    // созданная во время обхода, либо удаляется целиком, либо остается вместе с записью в индексе
+    @Override
+    public void deleteAllTasks() {
+        IntArrayList removed = new IntArrayList();
+        synchronized (schedule) {
+            for (Integer id : tasks.keySet()) {
+                if (tasks.remove(id) != null) {
+                    schedule.remove(id);
+                    unindexText(id);
+                    removed.add(id);
+                }
+            }
+        }
+        removeFromHistory(removed);
+    }
+
+    @Override
+    public void deleteAllSubTasks() {
+        lockAll();
+        try {
+            unscheduleSubtasks();
+            subtasks.clear();
+            subtaskEpics.clear();
+            removeFromHistory(TaskType.SUBTASK);
+            for (Epic epic : epics.values()) {
+                boolean hadSubtasks = !epic.getSubtaskIds().isEmpty();
+                epic.clearSubtasks();
+                if (hadSubtasks) {
+                    recalculateEpicStatus(epic); // Опустевший эпик выполнен, как после удаления последней подзадачи
+                }
+                recalculateEpicTime(epic);
+            }
+        } finally {
+            unlockAll();
+        }
+    }
+
+    @Override
+    public void deleteAllEpics() {
+        lockAll();
+        try {
+            unscheduleSubtasks();
+            subtasks.clear();
+            subtaskEpics.clear();
+            removeFromHistory(TaskType.SUBTASK);
+            IntArrayList removed = new IntArrayList();
+            for (Integer id : epics.keySet()) { // Эпики создаются без блокировок полос, как и задачи
+                if (epics.remove(id) != null) {
+                    unindexText(id);
+                    removed.add(id);
+                }
+            }
+            removeFromHistory(removed);
+        } finally {
+            unlockAll();
+        }
+    }
+
+    @Override
+    public int deleteSubtask(int id) {
+        Integer epicId = subtaskEpics.get(id);
+        if (epicId == null) {
+            return -1;
+        }
+        ReentrantLock lock = lockFor(epicId);
+        lock.lock();
+        try {
+            if (subtasks.remove(id) == null) {
+                return -1; // Подзадачу уже удалил другой поток
+            }
+            subtaskEpics.remove(id);
+            removeFromHistory(id);
+            unschedule(id);
+            unindexText(id);
+            Epic epic = epics.get(epicId);
+            if (epic != null) {
+                epic.removeSubtask(id);
+                epicChanged(epic);
+            }
+            return id;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int deleteEpic(int id) {
+        ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            Epic epic = epics.remove(id);
+            if (epic == null) {
+                return -1; // Если эпик не найден
+            }
+            IntArrayList subtaskIds = epic.getSubtaskIds();
+            for (int i = 0; i < subtaskIds.size(); i++) {
+                int subId = subtaskIds.getInt(i);
+                subtasks.remove(subId);
+                subtaskEpics.remove(subId);
+                removeFromHistory(subId);
+                unschedule(subId);
+                unindexText(subId);
+            }
+            removeFromHistory(id);
+            unindexText(id);
+            return id;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Пересчитывает статус эпика; вызывается только под блокировкой полосы эпика
+    private void recalculateEpicStatus(Epic epic) {
+        IntArrayList subtaskIds = epic.getSubtaskIds();
+        boolean allDone = true;
+        boolean anyInProgress = false;
+
+        for (int i = 0; i < subtaskIds.size(); i++) {
+            Subtask subtask = subtasks.get(subtaskIds.getInt(i));
+            if (subtask != null) {
+                if (subtask.getStatus() != Status.DONE) {
+                    allDone = false;
+                }
+                if (subtask.getStatus() == Status.IN_PROGRESS) {
+                    anyInProgress = true;
+                }
+            }
+        }
+
+        if (subtaskIds.isEmpty() || allDone) {
+            epic.setStatus(Status.DONE);
+        } else if (anyInProgress) {
+            epic.setStatus(Status.IN_PROGRESS);
+        } else {
+            epic.setStatus(Status.NEW);
+        }
+    }
+
+    // Пересчитывает статус и время эпика сразу или, внутри пакета, один раз при его фиксации.
+    // Вызывается только под блокировкой полосы эпика
+    private void epicChanged(Epic epic) {
+        if (batchEpics != null) {
+            batchEpics.put(epic.getId(), epic);
+            return;
+        }
+        recalculateEpicStatus(epic);
+        recalculateEpicTime(epic);
+    }
+
+    // Собирает время эпика по подзадачам; вызывается только под блокировкой полосы эпика
+    private void recalculateEpicTime(Epic epic) {
+        IntArrayList subtaskIds = epic.getSubtaskIds();
+        LocalDateTime start = null;
+        LocalDateTime end = null;
+        Duration duration = null;
+        synchronized (schedule) {
+            for (int i = 0; i < subtaskIds.size(); i++) {
+                TaskSchedule.Slot slot = schedule.get(subtaskIds.getInt(i));
+                if (slot == null) {
+                    continue;
+                }
+                if (slot.duration() != null) {
+                    duration = duration == null ? slot.duration() : duration.plus(slot.duration());
+                }
+                if (slot.start() != null) {
+                    if (start == null || slot.start().isBefore(start)) {
+                        start = slot.start();
+                    }
+                    if (end == null || slot.end().isAfter(end)) {
+                        end = slot.end();
+                    }
+                }
+            }
+        }
+        epic.setStartTime(start);
+        epic.setDuration(duration);
+        epic.setEndTime(end);
+    }
+
+    // Отклоняет задачу, время которой пересекается с другой; вызывается под монитором расписания
+    private void checkOverlap(Task task, int excludeId) {
+        if (schedule.overlaps(task.getStartTime(), task.getEndTime(), excludeId)) {
+            throw new TimeOverlapException(task);
+        }
+    }
+
+    private void schedule(Task task) {
+        synchronized (schedule) {
+            schedule.put(task);
+        }
+    }
+
+    private void unschedule(int id) {
+        synchronized (schedule) {
+            schedule.remove(id);
+        }
+    }
+
+    // Освобождает время подзадач и убирает их из поискового индекса перед очисткой хранилища
+    private void unscheduleSubtasks() {
+        synchronized (schedule) {
+            for (Integer id : subtasks.keySet()) {
+                schedule.remove(id);
+                unindexText(id);
+            }
+        }
+    }
+
+    // Индексирует задачу, только пока она хранится: удаление убирает задачу из хранилища раньше,
+    // чем из индекса, поэтому проверка под монитором индекса не оставляет в нем удаленных id
+    private <T extends Task> void indexText(Map<Integer, T> store, T task) {
+        synchronized (searchIndex) {
+            if (store.get(task.getId()) == task) {
+                searchIndex.put(task);
+            }
+        }
+    }
+
+    private void unindexText(int id) {
+        synchronized (searchIndex) {
+            searchIndex.remove(id);
+        }
+    }
+
+    private static <T extends Task> List<T> filterByStatus(Collection<T> values, Status status) {
+        Status key = status == null ? Status.NEW : status;
+        List<T> result = new ArrayList<>();
+        for (T task : values) {
+            if (statusOf(task) == key) {
+                result.add(task);
+            }
+        }
+        return result;
+    }
+
+    // Задача без статуса считается NEW
+    private static Status statusOf(Task task) {
+        return task.getStatus() == null ? Status.NEW : task.getStatus();
+    }
+
+    // Следующий уникальный id: внутри пакета — из его блока
+    private int nextId() {
+        if (batchThread == Thread.currentThread()) {
+            return batchNextId++;
+        }
+        return idCounter.incrementAndGet();
+    }
+
+    // Возвращает блокировку полосы, к которой относится эпик
+    private ReentrantLock lockFor(int epicId) {
+        int h = epicId * 0x9E3779B9; // Перемешиваем биты, чтобы соседние id попадали в разные полосы
+        return epicLocks[(h ^ (h >>> 16)) & stripeMask];
+    }
+
+    // Захватывает все полосы в фиксированном порядке, чтобы избежать взаимоблокировок
+    private void lockAll() {
+        for (ReentrantLock lock : epicLocks) {
+            lock.lock();
+        }
+    }
+
+    private void unlockAll() {
+        for (int i = epicLocks.length - 1; i >= 0; i--) {
+            epicLocks[i].unlock();
+        }
+    }
+
+    private void addToHistory(Task task) {
+        synchronized (historyManager) {
+            historyManager.add(task);
+        }
+    }
+
+    private void removeFromHistory(int id) {
+        synchronized (historyManager) {
+            historyManager.remove(id);
+        }
+    }
+
+    private void removeFromHistory(IntArrayList ids) {
+        synchronized (historyManager) {
+            for (int i = 0; i < ids.size(); i++) {
+                historyManager.remove(ids.getInt(i));
+            }
+        }
+    }
+
+    private void removeFromHistory(TaskType type) {
+        synchronized (historyManager) {
+            historyManager.removeAll(type);
+        }
+    }
+}
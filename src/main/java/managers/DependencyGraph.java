@@ -0,0 +1,306 @@
+package managers;
+
+import util.IntArrayList;
+import util.IntObjectHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+// Граф зависимостей "блокер -> заблокированная задача" с поддерживаемым топологическим порядком.
+// Ребро, идущее по порядку, добавляется за O(1). Ребро против порядка проверяется на цикл
+// и переупорядочивает только задачи между его концами (алгоритм Пирса — Келли), без сортировки всего графа.
+// У каждой задачи хранится число невыполненных блокеров, поэтому готовность проверяется за O(1);
+// готовые невыполненные задачи лежат в очереди в порядке, в котором стали готовыми.
+// В графе только задачи, у которых есть зависимости; статус задачи граф узнает от менеджера
+final class DependencyGraph {
+    private static final Comparator<Node> BY_ORDER = Comparator.comparingInt(node -> node.order);
+
+    private static final class Node {
+        final int id;
+        int order;    // Позиция в топологическом порядке: блокер всегда раньше заблокированной задачи
+        boolean done; // Выполнена ли задача
+        int pending;  // Невыполненные блокеры
+        final IntArrayList blocks = new IntArrayList();    // Задачи, которые блокирует эта
+        final IntArrayList blockedBy = new IntArrayList(); // Блокеры этой задачи
+        boolean visited; // Отметка обхода при переупорядочивании
+        Node previousReady; // Соседи в очереди готовых задач
+        Node nextReady;
+        boolean ready;
+
+        Node(int id, int order, boolean done) {
+            this.id = id;
+            this.order = order;
+            this.done = done;
+        }
+    }
+
+    private final IntObjectHashMap<Node> nodes = new IntObjectHashMap<>();
+    private int firstOrder; // Наименьшая и наибольшая выданные позиции
+    private int lastOrder;
+    private Node firstReady;
+    private Node lastReady;
+
+    // Добавляет ребро; false — оно уже есть. Ребро, замыкающее цикл, — IllegalArgumentException
+    boolean add(int blockerId, boolean blockerDone, int blockedId, boolean blockedDone) {
+        if (blockerId == blockedId) {
+            throw cycle(blockerId, blockedId);
+        }
+        Node blocker = nodes.get(blockerId);
+        Node blocked = nodes.get(blockedId);
+        if (blocker != null && blocked != null) {
+            if (blocker.blocks.contains(blockedId)) {
+                return false;
+            }
+            if (blocker.order > blocked.order) {
+                reorder(blocker, blocked);
+            }
+        }
+        // Новая задача встает в начало порядка, если она блокер, и в конец, если заблокирована
+        if (blocker == null) {
+            blocker = node(blockerId, blockerDone, --firstOrder);
+        }
+        if (blocked == null) {
+            blocked = node(blockedId, blockedDone, ++lastOrder);
+        }
+        blocker.blocks.add(blockedId);
+        blocked.blockedBy.add(blockerId);
+        if (!blocker.done) {
+            blocked.pending++;
+            updateReady(blocked);
+        }
+        return true;
+    }
+
+    // Убирает ребро; false — его не было. Порядок остается топологическим и без перестановок
+    boolean remove(int blockerId, int blockedId) {
+        Node blocker = nodes.get(blockerId);
+        Node blocked = nodes.get(blockedId);
+        if (blocker == null || blocked == null || !blocker.blocks.removeValue(blockedId)) {
+            return false;
+        }
+        blocked.blockedBy.removeValue(blockerId);
+        if (!blocker.done) {
+            blocked.pending--;
+            updateReady(blocked);
+        }
+        dropIfIsolated(blocker);
+        dropIfIsolated(blocked);
+        return true;
+    }
+
+    // Убирает удаленную задачу вместе с ее ребрами
+    void remove(int id) {
+        Node node = nodes.get(id);
+        if (node == null) {
+            return;
+        }
+        for (int i = 0; i < node.blocks.size(); i++) {
+            Node blocked = nodes.get(node.blocks.getInt(i));
+            blocked.blockedBy.removeValue(id);
+            if (!node.done) {
+                blocked.pending--;
+                updateReady(blocked);
+            }
+            dropIfIsolated(blocked);
+        }
+        for (int i = 0; i < node.blockedBy.size(); i++) {
+            Node blocker = nodes.get(node.blockedBy.getInt(i));
+            blocker.blocks.removeValue(id);
+            dropIfIsolated(blocker);
+        }
+        unlinkReady(node);
+        nodes.remove(id);
+    }
+
+    // Учитывает статус задачи; повторное сообщение о том же состоянии ничего не меняет
+    void statusChanged(int id, boolean done) {
+        Node node = nodes.get(id);
+        if (node == null || node.done == done) {
+            return;
+        }
+        node.done = done;
+        for (int i = 0; i < node.blocks.size(); i++) {
+            Node blocked = nodes.get(node.blocks.getInt(i));
+            blocked.pending += done ? -1 : 1;
+            updateReady(blocked);
+        }
+        updateReady(node);
+    }
+
+    // Все ли блокеры задачи выполнены (задача без блокеров готова)
+    boolean isReady(int id) {
+        Node node = nodes.get(id);
+        return node == null || node.pending == 0;
+    }
+
+    // Id готовых невыполненных задач графа в порядке, в котором они стали готовыми
+    IntArrayList readyIds() {
+        IntArrayList ids = new IntArrayList();
+        for (Node node = firstReady; node != null; node = node.nextReady) {
+            ids.add(node.id);
+        }
+        return ids;
+    }
+
+    // Ребра парами (блокер, заблокированная), сгруппированные по заблокированной задаче в топологическом
+    // порядке. В новый граф в этом порядке каждая заблокированная задача приходит после всех своих блокеров
+    // и встает в конец, а новый блокер — в начало, поэтому переупорядочивать ничего не придется
+    IntArrayList edges() {
+        List<Node> ordered = new ArrayList<>(nodes.values());
+        ordered.sort(BY_ORDER);
+        IntArrayList edges = new IntArrayList();
+        for (Node node : ordered) {
+            for (int i = 0; i < node.blockedBy.size(); i++) {
+                edges.add(node.blockedBy.getInt(i));
+                edges.add(node.id);
+            }
+        }
+        return edges;
+    }
+
+    void clear() {
+        nodes.clear();
+        firstReady = null;
+        lastReady = null;
+    }
+
+    private Node node(int id, boolean done, int order) {
+        Node node = new Node(id, order, done);
+        nodes.put(id, node);
+        updateReady(node);
+        return node;
+    }
+
+    // Ребро blocker -> blocked идет против порядка. Задачи, достижимые из blocked с позицией до blocker,
+    // должны встать после задач, из которых достижим blocker, с позицией после blocked; их позиции
+    // перераспределяются между ними, остальной граф не трогается. Если из blocked достижим blocker — цикл
+    private void reorder(Node blocker, Node blocked) {
+        List<Node> forward = new ArrayList<>();
+        List<Node> backward = new ArrayList<>();
+        try {
+            if (!collectForward(blocked, blocker.order, forward)) {
+                throw cycle(blocker.id, blocked.id);
+            }
+            collectBackward(blocker, blocked.order, backward);
+        } finally {
+            for (Node node : forward) {
+                node.visited = false;
+            }
+            for (Node node : backward) {
+                node.visited = false;
+            }
+        }
+        forward.sort(BY_ORDER);
+        backward.sort(BY_ORDER);
+        int[] orders = new int[forward.size() + backward.size()];
+        int i = 0;
+        for (Node node : backward) {
+            orders[i++] = node.order;
+        }
+        for (Node node : forward) {
+            orders[i++] = node.order;
+        }
+        Arrays.sort(orders);
+        i = 0;
+        for (Node node : backward) {
+            node.order = orders[i++];
+        }
+        for (Node node : forward) {
+            node.order = orders[i++];
+        }
+    }
+
+    // Обход вперед по ребрам в пределах позиций до upper; false — встретилась задача на позиции upper (цикл)
+    private boolean collectForward(Node start, int upper, List<Node> visited) {
+        List<Node> stack = new ArrayList<>();
+        stack.add(start);
+        start.visited = true;
+        visited.add(start);
+        while (!stack.isEmpty()) {
+            Node node = stack.remove(stack.size() - 1);
+            for (int i = 0; i < node.blocks.size(); i++) {
+                Node next = nodes.get(node.blocks.getInt(i));
+                if (next.order == upper) {
+                    return false;
+                }
+                if (!next.visited && next.order < upper) {
+                    next.visited = true;
+                    visited.add(next);
+                    stack.add(next);
+                }
+            }
+        }
+        return true;
+    }
+
+    // Обход назад по ребрам в пределах позиций после lower
+    private void collectBackward(Node start, int lower, List<Node> visited) {
+        List<Node> stack = new ArrayList<>();
+        stack.add(start);
+        start.visited = true;
+        visited.add(start);
+        while (!stack.isEmpty()) {
+            Node node = stack.remove(stack.size() - 1);
+            for (int i = 0; i < node.blockedBy.size(); i++) {
+                Node previous = nodes.get(node.blockedBy.getInt(i));
+                if (!previous.visited && previous.order > lower) {
+                    previous.visited = true;
+                    visited.add(previous);
+                    stack.add(previous);
+                }
+            }
+        }
+    }
+
+    private void dropIfIsolated(Node node) {
+        if (node.blocks.isEmpty() && node.blockedBy.isEmpty()) {
+            unlinkReady(node);
+            nodes.remove(node.id);
+        }
+    }
+
+    // Задача в очереди, пока она не выполнена и все ее блокеры выполнены
+    private void updateReady(Node node) {
+        boolean ready = !node.done && node.pending == 0;
+        if (ready == node.ready) {
+            return;
+        }
+        if (ready) {
+            node.ready = true;
+            node.previousReady = lastReady;
+            if (lastReady == null) {
+                firstReady = node;
+            } else {
+                lastReady.nextReady = node;
+            }
+            lastReady = node;
+        } else {
+            unlinkReady(node);
+        }
+    }
+
+    private void unlinkReady(Node node) {
+        if (!node.ready) {
+            return;
+        }
+        if (node.previousReady == null) {
+            firstReady = node.nextReady;
+        } else {
+            node.previousReady.nextReady = node.nextReady;
+        }
+        if (node.nextReady == null) {
+            lastReady = node.previousReady;
+        } else {
+            node.nextReady.previousReady = node.previousReady;
+        }
+        node.previousReady = null;
+        node.nextReady = null;
+        node.ready = false;
+    }
+
+    private static IllegalArgumentException cycle(int blockerId, int blockedId) {
+        return new IllegalArgumentException("Зависимость " + blockerId + " -> " + blockedId + " замыкает цикл");
+    }
+}
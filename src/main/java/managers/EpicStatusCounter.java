@@ -0,0 +1,92 @@
+package managers;
+
+import tasks.Status;
+
+// Счетчики подзадач эпика по статусам, из которых статус эпика выводится за O(1)
+class EpicStatusCounter {
+    private int newCount;        // Подзадачи в статусе NEW
+    private int inProgressCount; // Подзадачи в статусе IN_PROGRESS
+    private int doneCount;       // Подзадачи в статусе DONE
+
+    // Учитывает подзадачу с указанным статусом
+    void increment(Status status) {
+        add(status, 1);
+    }
+
+    // Перестает учитывать подзадачу с указанным статусом
+    void decrement(Status status) {
+        add(status, -1);
+    }
+
+    // Сбрасывает все счетчики (например, при удалении всех подзадач)
+    void clear() {
+        newCount = 0;
+        inProgressCount = 0;
+        doneCount = 0;
+    }
+
+    int total() {
+        return newCount + inProgressCount + doneCount;
+    }
+
+    int doneCount() {
+        return doneCount;
+    }
+
+    // Статус эпика по тем же правилам, что и полный пересчет по подзадачам
+    Status toStatus() {
+        return statusOf(newCount, inProgressCount);
+    }
+
+    // Статус эпика с вложенными эпиками: их статусы учитываются наравне со статусами подзадач
+    Status toStatus(EpicStatusCounter children) {
+        return statusOf(newCount + children.newCount, inProgressCount + children.inProgressCount);
+    }
+
+    private static Status statusOf(int newCount, int inProgressCount) {
+        if (newCount == 0 && inProgressCount == 0) {
+            return Status.DONE; // Нет подзадач или все подзадачи выполнены
+        }
+        if (inProgressCount > 0) {
+            return Status.IN_PROGRESS;
+        }
+        return Status.NEW;
+    }
+
+    private void add(Status status, int delta) {
+        if (status == null) {
+            status = Status.NEW; // Подзадача без статуса, как и при полном пересчете, считается невыполненной
+        }
+        switch (status) {
+            case NEW -> newCount += delta;
+            case IN_PROGRESS -> inProgressCount += delta;
+            case DONE -> doneCount += delta;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        EpicStatusCounter that = (EpicStatusCounter) o;
+        return newCount == that.newCount && inProgressCount == that.inProgressCount && doneCount == that.doneCount;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = newCount;
+        result = 31 * result + inProgressCount;
+        result = 31 * result + doneCount;
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "EpicStatusCounter{" +
+                "new=" + newCount +
+                ", inProgress=" + inProgressCount +
+                ", done=" + doneCount +
+                '}';
+    }
+}
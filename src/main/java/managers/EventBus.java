@@ -0,0 +1,262 @@
+package managers;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+// Шина событий на кольцевом буфере ограниченного размера без блокировок.
+// Публикует один поток (поток менеджера), а каждый подписчик читает буфер в своем виртуальном потоке
+// со своей позиции и получает события пачками: все накопившиеся, но не больше maxBatch за раз.
+// Ячейка буфера переиспользуется, только когда событие из нее прочитали все подписчики;
+// что делать, если самый медленный подписчик отстал на весь буфер, задает BackPressure
+public class EventBus implements AutoCloseable {
+    public static final int DEFAULT_CAPACITY = 1024;
+    public static final int DEFAULT_MAX_BATCH = 256;
+    private static final long PARK_NANOS = 1_000_000; // Наибольшая пауза ожидания; обычно будят раньше
+
+    // Поведение при заполненном буфере
+    public enum BackPressure {
+        BLOCK, // Публикующий поток ждет, пока подписчики освободят место
+        DROP,  // Событие отбрасывается и учитывается в getDroppedCount()
+        FAIL   // Публикация завершается IllegalStateException
+    }
+
+    private final TaskEvent[] ring;
+    private final int mask;
+    private final BackPressure backPressure;
+
+    private volatile long published = -1; // Номер последнего опубликованного события
+    private volatile long dropped;        // Меняет только публикующий поток
+    private volatile Subscription[] subscriptions = new Subscription[0];
+    private volatile Thread blockedPublisher; // Публикующий поток, ждущий места в буфере (BLOCK)
+    private long minConsumed = -1;            // Кэш наименьшей позиции подписчиков для публикующего потока
+    private int threadCounter;
+
+    public EventBus() {
+        this(DEFAULT_CAPACITY, BackPressure.BLOCK);
+    }
+
+    public EventBus(int capacity, BackPressure backPressure) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Емкость шины событий должна быть положительной: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1; // Округляем вверх до степени двойки
+        }
+        ring = new TaskEvent[size];
+        mask = size - 1;
+        this.backPressure = backPressure;
+    }
+
+    // Подписывает обработчик на события, опубликованные после подписки
+    public Subscription subscribe(Consumer<List<TaskEvent>> handler) {
+        return subscribe(handler, DEFAULT_MAX_BATCH);
+    }
+
+    public synchronized Subscription subscribe(Consumer<List<TaskEvent>> handler, int maxBatch) {
+        if (maxBatch <= 0) {
+            throw new IllegalArgumentException("Размер пачки должен быть положительным: " + maxBatch);
+        }
+        Subscription subscription = new Subscription(handler, maxBatch, published, "task-events-" + ++threadCounter);
+        Subscription[] current = subscriptions;
+        Subscription[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = subscription;
+        subscriptions = updated;
+        subscription.thread.start();
+        return subscription;
+    }
+
+    // Есть ли подписчики: без них менеджер не тратит время на снимки задач для событий
+    public boolean hasSubscribers() {
+        return subscriptions.length > 0;
+    }
+
+    // Публикует событие; вызывается только из одного потока за раз.
+    // Возвращает false, если событие отброшено из-за переполнения (BackPressure.DROP).
+    // Из потока подписчика переполнение при BackPressure.BLOCK завершается IllegalStateException
+    public boolean publish(TaskEvent event) {
+        long next = published + 1;
+        if (!awaitCapacity(next)) {
+            dropped++;
+            return false;
+        }
+        ring[(int) next & mask] = event;
+        published = next; // Запись volatile публикует и само событие
+        for (Subscription subscription : subscriptions) {
+            if (subscription.waiting) {
+                LockSupport.unpark(subscription.thread);
+            }
+        }
+        return true;
+    }
+
+    public long getDroppedCount() {
+        return dropped;
+    }
+
+    // Отписывает всех подписчиков
+    @Override
+    public void close() {
+        for (Subscription subscription : subscriptions) {
+            subscription.close();
+        }
+    }
+
+    // Ждет, пока ячейку для события с номером next прочитают все подписчики
+    private boolean awaitCapacity(long next) {
+        long wrapPoint = next - ring.length; // Событие, которое лежит в этой ячейке сейчас
+        if (wrapPoint <= minConsumed) {
+            return true;
+        }
+        while (true) {
+            minConsumed = minConsumed(next - 1);
+            if (wrapPoint <= minConsumed) {
+                return true;
+            }
+            switch (backPressure) {
+                case DROP -> {
+                    return false;
+                }
+                case FAIL -> throw new IllegalStateException("Буфер событий переполнен: подписчик отстал на "
+                        + ring.length + " событий");
+                case BLOCK -> {
+                    if (isSubscriberThread(Thread.currentThread())) {
+                        // Поток подписчика не прочитает свои события, пока ждет: ожидание не закончилось бы
+                        throw new IllegalStateException("Буфер событий переполнен, а публикация идет из потока "
+                                + "подписчика: ожидание места заблокировало бы его навсегда");
+                    }
+                    blockedPublisher = Thread.currentThread();
+                    if (wrapPoint > minConsumed(next - 1)) { // Подписчик мог продвинуться до установки флага
+                        LockSupport.parkNanos(PARK_NANOS);
+                    }
+                    blockedPublisher = null;
+                }
+            }
+        }
+    }
+
+    // Наименьшая позиция среди подписчиков (без подписчиков — последнее опубликованное событие)
+    private long minConsumed(long last) {
+        long min = last;
+        for (Subscription subscription : subscriptions) {
+            min = Math.min(min, subscription.consumed);
+        }
+        return min;
+    }
+
+    private boolean isSubscriberThread(Thread thread) {
+        for (Subscription subscription : subscriptions) {
+            if (subscription.thread == thread) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private synchronized void remove(Subscription subscription) {
+        Subscription[] current = subscriptions;
+        int index = Arrays.asList(current).indexOf(subscription);
+        if (index < 0) {
+            return;
+        }
+        Subscription[] updated = new Subscription[current.length - 1];
+        System.arraycopy(current, 0, updated, 0, index);
+        System.arraycopy(current, index + 1, updated, index, current.length - index - 1);
+        subscriptions = updated;
+    }
+
+    // Подписка со своим потоком и позицией в буфере. Исключение или ошибка обработчика не останавливает
+    // подписку: они передаются обработчику неперехваченных исключений потока, а пачка считается прочитанной.
+    // Если поток подписки все же завершился, подписка снимается и больше не держит место в буфере
+    public final class Subscription implements AutoCloseable {
+        private final Consumer<List<TaskEvent>> handler;
+        private final int maxBatch;
+        private volatile long consumed; // Номер последнего обработанного события
+        private volatile boolean waiting;
+        private volatile boolean closed;
+        private final Thread thread;
+
+        private Subscription(Consumer<List<TaskEvent>> handler, int maxBatch, long consumed, String threadName) {
+            this.handler = handler;
+            this.maxBatch = maxBatch;
+            this.consumed = consumed;
+            this.thread = Thread.ofVirtual().name(threadName).unstarted(this::run);
+        }
+
+        // Номер последнего обработанного события; события нумеруются с нуля в порядке публикации
+        public long getConsumed() {
+            return consumed;
+        }
+
+        // Останавливает подписку; события, еще не переданные обработчику, не доставляются
+        @Override
+        public void close() {
+            closed = true;
+            remove(this);
+            LockSupport.unpark(thread);
+            Thread publisher = blockedPublisher;
+            if (publisher != null) {
+                LockSupport.unpark(publisher); // Отписавшийся больше не держит место в буфере
+            }
+            if (Thread.currentThread() != thread) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        private void run() {
+            try {
+                consume();
+            } finally {
+                closed = true;
+                remove(this);
+                Thread publisher = blockedPublisher;
+                if (publisher != null) {
+                    LockSupport.unpark(publisher);
+                }
+            }
+        }
+
+        private void consume() {
+            long next = consumed + 1;
+            while (!closed) {
+                long available = published;
+                if (available < next) {
+                    waiting = true;
+                    if (published < next && !closed) { // Повторная проверка после установки флага
+                        LockSupport.parkNanos(PARK_NANOS);
+                    }
+                    waiting = false;
+                    continue;
+                }
+                long end = Math.min(available, next + maxBatch - 1);
+                TaskEvent[] batch = new TaskEvent[(int) (end - next + 1)];
+                for (int i = 0; i < batch.length; i++) {
+                    batch[i] = ring[(int) (next + i) & mask];
+                }
+                deliver(Collections.unmodifiableList(Arrays.asList(batch)));
+                consumed = end; // Освобождаем ячейки для публикующего потока
+                next = end + 1;
+                Thread publisher = blockedPublisher;
+                if (publisher != null) {
+                    LockSupport.unpark(publisher);
+                }
+            }
+        }
+
+        private void deliver(List<TaskEvent> batch) {
+            try {
+                handler.accept(batch);
+            } catch (Throwable e) {
+                Thread current = Thread.currentThread();
+                current.getUncaughtExceptionHandler().uncaughtException(current, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,590 @@
+package managers;
+
+import tasks.Epic;
+import tasks.Subtask;
+import tasks.Task;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+// Менеджер задач, который переживает перезапуск: каждое изменение дописывается в журнал,
+// а журнал периодически сворачивается в двоичный снимок (BinarySnapshot).
+// Запись журнала: [длина данных][CRC32][номер записи][данные].
+// Запись делается сразу после того, как изменение применилось в памяти, и только если оно что-то изменило.
+// Ошибка записи (ManagerSaveException) означает, что в памяти изменение уже есть, а на диске его нет.
+// При групповой фиксации записи копятся не дольше flushIntervalMillis: их сбрасывает фоновый поток.
+// Снимок обходит все хранилище, поэтому запись журнала его не делает: журнал сворачивают compact(),
+// compactIfDue() в удобный для владельца момент и close(), если набралось snapshotInterval записей.
+// Состояние восстанавливается в конструкторе через методы менеджера, поэтому класс закрыт для наследования:
+// подкласс увидел бы эти вызовы до своей инициализации
+public final class FileBackedTaskManager extends InMemoryTaskManager implements AutoCloseable {
+    static final String SNAPSHOT_FILE = "tasks.snapshot";
+    static final String LOG_FILE = "tasks.wal";
+
+    public static final int DEFAULT_GROUP_COMMIT_SIZE = 1;    // Сбрасывать на диск каждую запись
+    public static final int DEFAULT_SNAPSHOT_INTERVAL = 10_000; // Записей журнала, после которых нужен снимок
+    public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 50; // Наибольшая задержка сброса при групповой фиксации
+
+    private static final int RECORD_HEADER_SIZE = Integer.BYTES * 2 + Long.BYTES;
+
+    // Коды операций в журнале
+    private static final byte OP_CREATE = 1;
+    private static final byte OP_UPDATE = 2;
+    private static final byte OP_DELETE_TASK = 3;
+    private static final byte OP_DELETE_SUBTASK = 4;
+    private static final byte OP_DELETE_EPIC = 5;
+    private static final byte OP_DELETE_ALL_TASKS = 6;
+    private static final byte OP_DELETE_ALL_SUBTASKS = 7;
+    private static final byte OP_DELETE_ALL_EPICS = 8;
+    private static final byte OP_BATCH = 9; // Записи операций пакета внутри одной записи журнала
+    private static final byte OP_MOVE_EPIC = 10;
+    private static final byte OP_ADD_DEPENDENCY = 11;
+    private static final byte OP_REMOVE_DEPENDENCY = 12;
+
+    private final Path snapshotPath;
+    private final Path logPath;
+    private final int groupCommitSize;   // Сколько записей копить перед сбросом журнала на диск
+    private final int snapshotInterval;  // Через сколько записей журнала снимок становится нужен
+    // Журнал пишут поток менеджера и поток периодического сброса; все записи в файл и в pending — под этим монитором
+    private final Object logLock = new Object();
+    private final ScheduledExecutorService flusher; // null — групповой фиксации нет, каждая запись сбрасывается сразу
+    private volatile IOException logFailure; // Ошибка записи журнала; после нее журнал больше не пишется
+
+    private FileChannel log;
+    private final ByteArrayOutputStream record = new ByteArrayOutputStream(); // Данные текущей записи
+    private final DataOutputStream recordOut = new DataOutputStream(record);
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream(); // Записи, ждущие сброса
+    private final DataOutputStream pendingOut = new DataOutputStream(pending);
+    private final ByteArrayOutputStream batch = new ByteArrayOutputStream(); // Записи операций пакета
+    private final DataOutputStream batchOut = new DataOutputStream(batch);
+    private int batchRecords = -1; // Количество записей в применяемом пакете (-1 — пакет не применяется)
+    private final CRC32 crc = new CRC32();
+    private int pendingRecords;
+    private int recordsSinceSnapshot;
+    private long lastLsn;       // Номер последней записи журнала
+    private boolean muted = true; // Не журналировать (восстановление и вложенные вызовы)
+
+    public FileBackedTaskManager(Path directory) {
+        this(directory, DEFAULT_GROUP_COMMIT_SIZE, DEFAULT_SNAPSHOT_INTERVAL);
+    }
+
+    public FileBackedTaskManager(Path directory, int groupCommitSize, int snapshotInterval) {
+        this(directory, groupCommitSize, snapshotInterval, DEFAULT_FLUSH_INTERVAL_MILLIS);
+    }
+
+    public FileBackedTaskManager(Path directory, int groupCommitSize, int snapshotInterval, long flushIntervalMillis) {
+        if (groupCommitSize <= 0 || snapshotInterval <= 0 || flushIntervalMillis <= 0) {
+            throw new IllegalArgumentException(
+                    "Размер пакета, интервал снимков и интервал сброса должны быть положительными");
+        }
+        this.snapshotPath = directory.resolve(SNAPSHOT_FILE);
+        this.logPath = directory.resolve(LOG_FILE);
+        this.groupCommitSize = groupCommitSize;
+        this.snapshotInterval = snapshotInterval;
+        try {
+            Files.createDirectories(directory);
+            long snapshotLsn = loadSnapshot();
+            lastLsn = snapshotLsn;
+            long validSize = replayLog(snapshotLsn);
+            log = FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            if (log.size() > validSize) {
+                log.truncate(validSize); // Отрезаем оборванный хвост, чтобы дописывать после целых записей
+                log.force(true);
+            }
+            log.position(validSize);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Не удалось восстановить состояние из " + directory, e);
+        }
+        muted = false;
+        if (groupCommitSize > 1) {
+            flusher = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("wal-flush").factory());
+            flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis,
+                    TimeUnit.MILLISECONDS);
+        } else {
+            flusher = null;
+        }
+    }
+
+    @Override
+    public Task createTask(Task task) {
+        Task created = super.createTask(task);
+        append(OP_CREATE, created);
+        return created;
+    }
+
+    @Override
+    public Subtask createSubtask(Subtask subtask) {
+        Subtask created = super.createSubtask(subtask);
+        if (created != null) {
+            append(OP_CREATE, created);
+        }
+        return created;
+    }
+
+    @Override
+    public Epic createEpic(Epic epic) {
+        Epic created = super.createEpic(epic);
+        if (created == null) {
+            return null;
+        }
+        if (created.getParentId() == 0) {
+            append(OP_CREATE, created);
+        } else {
+            // Запись задачи не хранит родителя: вложенный эпик пишется созданием и переносом в одной записи
+            // пакета, чтобы после сбоя он не восстановился эпиком верхнего уровня
+            appendFramed(() -> {
+                append(OP_CREATE, created);
+                append(OP_MOVE_EPIC, created.getId(), created.getParentId());
+            });
+        }
+        return created;
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        boolean stored = isStored(task.getId(), Task.class);
+        super.updateTask(task);
+        if (stored) {
+            append(OP_UPDATE, task);
+        }
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        boolean stored = isStored(subtask.getId(), Subtask.class);
+        super.updateSubtask(subtask);
+        if (stored) {
+            append(OP_UPDATE, subtask);
+        }
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        boolean stored = isStored(epic.getId(), Epic.class);
+        super.updateEpic(epic);
+        if (stored) {
+            append(OP_UPDATE, epic);
+        }
+    }
+
+    @Override
+    public int deleteTask(int id) {
+        int deleted = super.deleteTask(id);
+        if (deleted != -1) {
+            append(OP_DELETE_TASK, id);
+        }
+        return deleted;
+    }
+
+    @Override
+    public int deleteSubtask(int id) {
+        int deleted = super.deleteSubtask(id);
+        if (deleted != -1) {
+            append(OP_DELETE_SUBTASK, id);
+        }
+        return deleted;
+    }
+
+    @Override
+    public boolean moveEpic(int epicId, int parentId) {
+        boolean moved = super.moveEpic(epicId, parentId);
+        if (moved) {
+            append(OP_MOVE_EPIC, epicId, parentId);
+        }
+        return moved;
+    }
+
+    @Override
+    public boolean addDependency(int blockerId, int blockedId) {
+        boolean added = super.addDependency(blockerId, blockedId);
+        if (added) {
+            append(OP_ADD_DEPENDENCY, blockerId, blockedId);
+        }
+        return added;
+    }
+
+    @Override
+    public boolean removeDependency(int blockerId, int blockedId) {
+        boolean removed = super.removeDependency(blockerId, blockedId);
+        if (removed) {
+            append(OP_REMOVE_DEPENDENCY, blockerId, blockedId);
+        }
+        return removed;
+    }
+
+    @Override
+    public int deleteEpic(int id) {
+        int deleted = super.deleteEpic(id);
+        if (deleted != -1) {
+            append(OP_DELETE_EPIC, id);
+        }
+        return deleted;
+    }
+
+    // Смена статуса у хранимого объекта пишется в журнал так же, как его обновление. Статусы эпиков,
+    // пересчитанные из-за нее, отдельно не пишутся: повтор обновления пересчитает их так же
+    @Override
+    protected void storedStatusChanged(Task task) {
+        append(OP_UPDATE, task);
+    }
+
+    // Операции пакета попадают в журнал одной записью: после сбоя пакет восстанавливается целиком или никак
+    @Override
+    public void applyBatch(TaskBatch taskBatch) {
+        appendFramed(() -> super.applyBatch(taskBatch));
+    }
+
+    @Override
+    public void deleteAllTasks() {
+        if (getTasksView().isEmpty()) {
+            return;
+        }
+        super.deleteAllTasks();
+        append(OP_DELETE_ALL_TASKS, 0);
+    }
+
+    @Override
+    public void deleteAllSubTasks() {
+        if (getSubtasksView().isEmpty()) {
+            return;
+        }
+        super.deleteAllSubTasks();
+        append(OP_DELETE_ALL_SUBTASKS, 0);
+    }
+
+    @Override
+    public void deleteAllEpics() {
+        if (getEpicsView().isEmpty()) {
+            return; // Без эпиков нет и подзадач
+        }
+        boolean wasMuted = muted;
+        muted = true; // Удаление всех эпиков само удаляет подзадачи, отдельная запись для них не нужна
+        try {
+            super.deleteAllEpics();
+        } finally {
+            muted = wasMuted;
+        }
+        append(OP_DELETE_ALL_EPICS, 0);
+    }
+
+    // Сбрасывает накопленные записи журнала на диск
+    public void flush() {
+        try {
+            flushLog();
+        } catch (IOException e) {
+            throw new ManagerSaveException("Не удалось записать журнал " + logPath, e);
+        }
+    }
+
+    // Сворачивает журнал в снимок текущего состояния и очищает журнал
+    public void compact() {
+        try {
+            synchronized (logLock) {
+                flushLog();
+                BinarySnapshot.write(this, snapshotPath, lastLsn); // Записи с этим номером и меньше учтены в снимке
+                log.truncate(0);
+                log.force(true);
+                recordsSinceSnapshot = 0;
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Не удалось записать снимок " + snapshotPath, e);
+        }
+    }
+
+    // Набралось ли в журнале snapshotInterval записей после последнего снимка
+    public boolean isCompactionDue() {
+        synchronized (logLock) {
+            return recordsSinceSnapshot >= snapshotInterval;
+        }
+    }
+
+    // Сворачивает журнал, если снимок нужен; возвращает true, если снимок сделан
+    public boolean compactIfDue() {
+        if (!isCompactionDue()) {
+            return false;
+        }
+        compact();
+        return true;
+    }
+
+    // Закрывает журнал; длинный журнал перед этим сворачивается, чтобы не повторять его при следующем запуске
+    @Override
+    public void close() {
+        if (flusher != null) {
+            flusher.shutdown(); // Не прерываем: прерывание потока закрыло бы канал журнала посреди записи
+        }
+        try {
+            synchronized (logLock) {
+                try {
+                    if (logFailure == null && isCompactionDue()) {
+                        compact();
+                    } else {
+                        flushLog();
+                    }
+                } finally {
+                    log.close();
+                }
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Не удалось закрыть журнал " + logPath, e);
+        }
+    }
+
+    // Задача этого типа с этим id есть в хранилище: без нее update ничего не меняет и в журнал не пишется
+    private boolean isStored(int id, Class<? extends Task> type) {
+        Task stored = findTask(id);
+        return stored != null && stored.getClass() == type;
+    }
+
+    private void append(byte op, Task task) {
+        if (muted) {
+            return;
+        }
+        try {
+            record.reset();
+            recordOut.writeByte(op);
+            TaskRecords.write(recordOut, task);
+            appendRecord();
+        } catch (IOException e) {
+            throw new ManagerSaveException("Не удалось записать журнал " + logPath, e);
+        }
+    }
+
+    private void append(byte op, int id) {
+        if (muted) {
+            return;
+        }
+        try {
+            record.reset();
+            recordOut.writeByte(op);
+            recordOut.writeInt(id);
+            appendRecord();
+        } catch (IOException e) {
+            throw new ManagerSaveException("Не удалось записать журнал " + logPath, e);
+        }
+    }
+
+    private void append(byte op, int id, int otherId) {
+        if (muted) {
+            return;
+        }
+        try {
+            record.reset();
+            recordOut.writeByte(op);
+            recordOut.writeInt(id);
+            recordOut.writeInt(otherId);
+            appendRecord();
+        } catch (IOException e) {
+            throw new ManagerSaveException("Не удалось записать журнал " + logPath, e);
+        }
+    }
+
+    // Записи, которые делает writes, попадают в журнал одной записью OP_BATCH (внутри пакета — в сам пакет)
+    private void appendFramed(Runnable writes) {
+        if (muted || batchRecords >= 0) {
+            writes.run();
+            return;
+        }
+        batch.reset();
+        batchRecords = 0;
+        try {
+            writes.run();
+        } finally {
+            int count = batchRecords;
+            batchRecords = -1;
+            if (count > 0) {
+                // Проверенный пакет применяется без исключений (см. TaskBatch); если применение все же
+                // оборвала ошибка, пишем примененную часть, чтобы журнал совпадал с памятью
+                appendBatch(count);
+            }
+        }
+    }
+
+    private void appendBatch(int count) {
+        try {
+            record.reset();
+            recordOut.writeByte(OP_BATCH);
+            recordOut.writeInt(count);
+            batch.writeTo(recordOut);
+            appendRecord();
+        } catch (IOException e) {
+            throw new ManagerSaveException("Не удалось записать журнал " + logPath, e);
+        }
+    }
+
+    // Оформляет текущую запись и сбрасывает пакет, когда он набран (групповая фиксация).
+    // Во время применения пакета запись откладывается в записи пакета
+    private void appendRecord() throws IOException {
+        if (batchRecords >= 0) {
+            batchOut.writeInt(record.size());
+            record.writeTo(batchOut);
+            batchRecords++;
+            return;
+        }
+        synchronized (logLock) {
+            checkLogFailure();
+            long lsn = ++lastLsn;
+            byte[] data = record.toByteArray();
+            pendingOut.writeInt(data.length);
+            pendingOut.writeInt(checksum(lsn, data));
+            pendingOut.writeLong(lsn);
+            pendingOut.write(data);
+
+            if (++pendingRecords >= groupCommitSize) {
+                flushLog();
+            }
+            recordsSinceSnapshot++;
+        }
+    }
+
+    // Периодический сброс накопленных записей. Бросить ошибку здесь некому: она запомнена в logFailure
+    // и сообщается следующей операцией с журналом
+    private void flushQuietly() {
+        try {
+            flushLog();
+        } catch (IOException ignored) {
+        }
+    }
+
+    // Часть записей могла уйти в файл до ошибки, поэтому дописывать журнал после нее нельзя
+    private void checkLogFailure() throws IOException {
+        IOException failure = logFailure;
+        if (failure != null) {
+            throw new IOException("Журнал " + logPath + " не записан после прежней ошибки", failure);
+        }
+    }
+
+    private void flushLog() throws IOException {
+        synchronized (logLock) {
+            checkLogFailure();
+            if (pendingRecords == 0) {
+                return;
+            }
+            try {
+                ByteBuffer buffer = ByteBuffer.wrap(pending.toByteArray());
+                while (buffer.hasRemaining()) {
+                    log.write(buffer);
+                }
+                log.force(false); // Одна синхронизация с диском на весь пакет
+            } catch (IOException e) {
+                logFailure = e;
+                throw e;
+            }
+            pending.reset();
+            pendingRecords = 0;
+        }
+    }
+
+    // Загружает двоичный снимок и возвращает номер последней учтенной в нем записи журнала
+    private long loadSnapshot() {
+        if (!Files.exists(snapshotPath)) {
+            return 0;
+        }
+        BinarySnapshot.Reader snapshot = BinarySnapshot.open(snapshotPath);
+        snapshot.loadInto(this);
+        return snapshot.getLsn();
+    }
+
+    // Повторяет записи журнала после снимка и возвращает длину его целой части:
+    // оборванная при сбое или поврежденная запись и все, что за ней, отбрасываются
+    private long replayLog(long snapshotLsn) throws IOException {
+        if (!Files.exists(logPath)) {
+            return 0;
+        }
+        long validSize = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(logPath)))) {
+            long remaining = Files.size(logPath);
+            while (remaining >= RECORD_HEADER_SIZE) {
+                int length = in.readInt();
+                int checksum = in.readInt();
+                long lsn = in.readLong();
+                if (length < 0 || length > remaining - RECORD_HEADER_SIZE) {
+                    break; // Запись не успела дописаться целиком
+                }
+                byte[] data = new byte[length];
+                in.readFully(data);
+                if (checksum(lsn, data) != checksum) {
+                    break;
+                }
+                if (lsn > snapshotLsn) {
+                    apply(new DataInputStream(new ByteArrayInputStream(data)));
+                    lastLsn = lsn;
+                    recordsSinceSnapshot++;
+                }
+                remaining -= RECORD_HEADER_SIZE + length;
+                validSize += RECORD_HEADER_SIZE + length;
+            }
+        }
+        return validSize;
+    }
+
+    // Контрольная сумма номера и данных записи
+    private int checksum(long lsn, byte[] data) {
+        crc.reset();
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            crc.update((int) (lsn >>> shift));
+        }
+        crc.update(data);
+        return (int) crc.getValue();
+    }
+
+    // Повторяет одну операцию журнала через методы InMemoryTaskManager
+    private void apply(DataInputStream in) throws IOException {
+        byte op = in.readByte();
+        switch (op) {
+            case OP_CREATE -> {
+                Task task = TaskRecords.read(in);
+                int expectedId = task.getId();
+                Task created;
+                if (task instanceof Epic epic) {
+                    created = super.createEpic(epic);
+                } else if (task instanceof Subtask subtask) {
+                    created = super.createSubtask(subtask);
+                } else {
+                    created = super.createTask(task);
+                }
+                if (created == null || created.getId() != expectedId) {
+                    throw new ManagerSaveException("Журнал " + logPath + " не согласован со снимком");
+                }
+            }
+            case OP_UPDATE -> {
+                Task task = TaskRecords.read(in);
+                int version = task.getVersion();
+                if (task instanceof Epic epic) {
+                    super.updateEpic(epic);
+                } else if (task instanceof Subtask subtask) {
+                    super.updateSubtask(subtask);
+                } else {
+                    super.updateTask(task);
+                }
+                task.setVersion(version); // update назначил версию заново, восстанавливаем записанную
+            }
+            case OP_DELETE_TASK -> super.deleteTask(in.readInt());
+            case OP_DELETE_SUBTASK -> super.deleteSubtask(in.readInt());
+            case OP_DELETE_EPIC -> super.deleteEpic(in.readInt());
+            case OP_MOVE_EPIC -> super.moveEpic(in.readInt(), in.readInt());
+            case OP_ADD_DEPENDENCY -> super.addDependency(in.readInt(), in.readInt());
+            case OP_REMOVE_DEPENDENCY -> super.removeDependency(in.readInt(), in.readInt());
+            case OP_DELETE_ALL_TASKS -> super.deleteAllTasks();
+            case OP_DELETE_ALL_SUBTASKS -> super.deleteAllSubTasks();
+            case OP_DELETE_ALL_EPICS -> super.deleteAllEpics();
+            case OP_BATCH -> {
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    byte[] data = new byte[in.readInt()];
+                    in.readFully(data);
+                    apply(new DataInputStream(new ByteArrayInputStream(data))); // Пакет уже был проверен
+                }
+            }
+            default -> throw new ManagerSaveException("Неизвестная операция в журнале: " + op);
+        }
+    }
+}
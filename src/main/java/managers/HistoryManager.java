@@ -1,8 +1,10 @@
 package managers;
 
 import tasks.Task;
+import tasks.TaskType;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface HistoryManager {
     // Добавляет задачу в историю просмотров
@@ -11,6 +13,15 @@ public interface HistoryManager {
     // Удаляет задачу из истории просмотров по её id
     void remove(int id);
 
+    // Удаляет из истории все задачи одного типа за время, пропорциональное их числу
+    void removeAll(TaskType type);
+
+    // Очищает историю просмотров
+    void clear();
+
     // Возвращает список задач из истории просмотров
     List<Task> getHistory();
+
+    // Обходит историю просмотров по порядку без копирования в список
+    Stream<Task> streamHistory();
 }
\ No newline at end of file
@@ -3,91 +3,243 @@ package managers;
 import tasks.Epic;
 import tasks.Subtask;
 import tasks.Task;
+import tasks.TaskType;
+import util.IntObjectHashMap;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class InMemoryHistoryManager implements HistoryManager {
+    // Емкость истории без ограничения
+    public static final int UNBOUNDED = Integer.MAX_VALUE;
+
     // Внутренний класс для узла двусвязного списка
     private static class Node {
-        Task task; // Задача, хранящаяся в узле
-        Node prev; // Ссылка на предыдущий узел
-        Node next; // Ссылка на следующий узел
-
-        Node(Task task, Node prev, Node next) {
-            this.task = task;
-            this.prev = prev;
-            this.next = next;
-        }
+        Task task;   // Клон задачи (null в режиме хранения только id)
+        int id;      // Id задачи
+        int version; // Версия задачи на момент просмотра
+        Node prev;   // Ссылка на предыдущий узел
+        Node next;   // Ссылка на следующий узел
+        TaskType type;     // Тип задачи: узлы одного типа связаны в отдельный список
+        Node typePrev;     // Предыдущий узел того же типа
+        Node typeNext;     // Следующий узел того же типа
     }
 
     // Хранит узлы по id задач для быстрого доступа
-    private final Map<Integer, Node> historyMap = new HashMap<>();
-    private Node head; // Начало списка
-    private Node tail; // Конец списка
+    private final IntObjectHashMap<Node> historyMap = new IntObjectHashMap<>();
+    private Node head; // Начало списка (самый давний просмотр)
+    private Node tail; // Конец списка (последний просмотр)
+    // Начала списков узлов по типам задач, чтобы удалять задачи одного типа без обхода всей истории
+    private final Node[] typeHeads = new Node[TaskType.values().length];
+
+    private final int capacity;                   // Максимальное количество записей
+    private final IntFunction<Task> resolver;     // Поиск актуальной задачи по id (режим хранения только id)
+    private long evictionCount;                   // Сколько записей вытеснено из-за ограничения емкости
+
+    public InMemoryHistoryManager() {
+        this(UNBOUNDED);
+    }
+
+    public InMemoryHistoryManager(int capacity) {
+        this(capacity, null);
+    }
 
+    // Если resolver задан, история хранит только id и версии, а задачи получает у него при чтении
+    public InMemoryHistoryManager(int capacity, IntFunction<Task> resolver) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Емкость истории должна быть положительной: " + capacity);
+        }
+        this.capacity = capacity;
+        this.resolver = resolver;
+    }
 
     @Override
     public void add(Task task) {
         if (task == null) {
             return; // Игнорируем null-задачи
         }
-        // Удаляем задачу, если она уже есть в истории
-        remove(task.getId());
-
-        // Создаем клон задачи в зависимости от её типа
-        Task clonedTask;
-        if (task instanceof Epic) {
-            clonedTask = new Epic((Epic) task); // Клонируем Epic
-        } else if (task instanceof Subtask) {
-            clonedTask = new Subtask((Subtask) task); // Клонируем Subtask
+        Node node = historyMap.get(task.getId());
+        if (node != null) {
+            unlink(node); // Повторный просмотр: переносим существующий узел в конец
         } else {
-            clonedTask = new Task(task); // Клонируем обычную Task
+            if (historyMap.size() >= capacity) {
+                evictOldest(); // История заполнена: вытесняем самый давний просмотр за O(1)
+            }
+            node = new Node();
+            node.id = task.getId();
+            node.type = TaskType.of(task);
+            historyMap.put(node.id, node);
+            linkType(node);
         }
-
-        // Добавляем клон в историю
-        linkLast(clonedTask);
+        node.version = task.getVersion();
+        node.task = resolver != null ? null : copyOf(task); // В режиме id клон не нужен
+        linkLast(node);
     }
 
     @Override
     public void remove(int id) {
-        Node node = historyMap.get(id);
+        Node node = historyMap.remove(id);
         if (node != null) {
-            // Удаляем узел из списка
-            removeNode(node);
-            // Удаляем узел из мапы
-            historyMap.remove(id);
+            unlink(node); // Удаляем узел из списка
+            unlinkType(node);
         }
     }
 
+    @Override
+    public void removeAll(TaskType type) {
+        Node node = typeHeads[type.ordinal()];
+        while (node != null) {
+            Node next = node.typeNext;
+            historyMap.remove(node.id);
+            unlink(node);
+            node.typePrev = null; // Не оставляем ссылок между удаленными узлами
+            node.typeNext = null;
+            node.task = null;
+            node = next;
+        }
+        typeHeads[type.ordinal()] = null;
+    }
+
+    @Override
+    public void clear() {
+        historyMap.clear(); // Узлы ссылаются только друг на друга и становятся недостижимы целиком
+        Arrays.fill(typeHeads, null);
+        head = null;
+        tail = null;
+    }
+
     @Override
     public List<Task> getHistory() {
-        List<Task> history = new ArrayList<>();
+        List<Task> history = new ArrayList<>(historyMap.size());
         Node current = head;
         // Проходим по списку и собираем задачи
         while (current != null) {
-            history.add(current.task);
+            Task task = resolver != null ? resolver.apply(current.id) : current.task;
+            if (task != null) {
+                history.add(task);
+            }
             current = current.next;
         }
         return history;
     }
 
-    // Добавляет задачу в конец двусвязного списка
-    private void linkLast(Task task) {
-        final Node newNode = new Node(task, tail, null);
+    // Ленивый обход истории по списку узлов; историю нельзя менять, пока поток не дочитан
+    @Override
+    public Stream<Task> streamHistory() {
+        Iterator<Node> nodes = new Iterator<>() {
+            private Node next = head;
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Node next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                Node node = next;
+                next = node.next;
+                return node;
+            }
+        };
+        Stream<Node> stream = StreamSupport.stream(Spliterators.spliterator(nodes, historyMap.size(),
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+        if (resolver == null) {
+            return stream.map(node -> node.task);
+        }
+        return stream.map(node -> resolver.apply(node.id)).filter(Objects::nonNull); // Пропускаем удаленные задачи
+    }
+
+    // Изменилась ли задача после последнего просмотра (по версии, сохраненной в истории)
+    public boolean isModifiedSinceViewed(int id) {
+        Node node = historyMap.get(id);
+        if (node == null) {
+            return false;
+        }
+        Task current = resolver != null ? resolver.apply(id) : null;
+        return current != null && current.getVersion() != node.version;
+    }
+
+    // Текущее количество записей в истории
+    public int size() {
+        return historyMap.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    // Сколько записей было вытеснено из-за ограничения емкости
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    // Создаем клон задачи в зависимости от её типа
+    static Task copyOf(Task task) {
+        if (task instanceof Epic) {
+            return new Epic((Epic) task); // Клонируем Epic
+        } else if (task instanceof Subtask) {
+            return new Subtask((Subtask) task); // Клонируем Subtask
+        }
+        return new Task(task); // Клонируем обычную Task
+    }
+
+    private void evictOldest() {
+        Node oldest = head;
+        unlink(oldest);
+        unlinkType(oldest);
+        historyMap.remove(oldest.id);
+        evictionCount++;
+    }
+
+    // Добавляет узел в конец двусвязного списка
+    private void linkLast(Node node) {
+        node.prev = tail;
+        node.next = null;
         if (tail == null) {
-            head = newNode; // Если список пуст, новый узел становится головой
+            head = node; // Если список пуст, новый узел становится головой
         } else {
-            tail.next = newNode; // Иначе добавляем узел в конец
+            tail.next = node; // Иначе добавляем узел в конец
+        }
+        tail = node; // Обновляем хвост списка
+    }
+
+    // Добавляет узел в начало списка узлов его типа (порядок внутри типа не важен)
+    private void linkType(Node node) {
+        int type = node.type.ordinal();
+        node.typeNext = typeHeads[type];
+        if (node.typeNext != null) {
+            node.typeNext.typePrev = node;
+        }
+        typeHeads[type] = node;
+    }
+
+    private void unlinkType(Node node) {
+        if (node.typePrev != null) {
+            node.typePrev.typeNext = node.typeNext;
+        } else {
+            typeHeads[node.type.ordinal()] = node.typeNext;
+        }
+        if (node.typeNext != null) {
+            node.typeNext.typePrev = node.typePrev;
         }
-        tail = newNode; // Обновляем хвост списка
-        historyMap.put(task.getId(), newNode); // Сохраняем узел в мапе
+        node.typePrev = null;
+        node.typeNext = null;
     }
 
     // Удаляет узел из двусвязного списка
-    private void removeNode(Node node) {
+    private void unlink(Node node) {
         if (node.prev != null) {
             node.prev.next = node.next; // Обновляем ссылку у предыдущего узла
         } else {
@@ -99,5 +251,7 @@ public class InMemoryHistoryManager implements HistoryManager {
         } else {
             tail = node.prev; // Если удаляем хвост, обновляем tail
         }
+        node.prev = null;
+        node.next = null;
     }
-}
\ No newline at end of file
+}
@@ -2,27 +2,149 @@ package managers;
 
 import tasks.Epic;
 import tasks.Status;
+import tasks.StatusObserver;
 import tasks.Subtask;
 import tasks.Task;
+import tasks.TaskSnapshot;
+import tasks.TaskType;
+import util.IntArrayList;
+import util.IntIntHashMap;
+import util.IntObjectHashMap;
+import util.StringPool;
 
+import java.time.Duration;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.stream.Stream;
 
-public class InMemoryTaskManager implements TaskManager {
+public class InMemoryTaskManager implements TaskManager, NestedEpics, TaskDependencies {
     // Хранилище задач, подзадач и эпиков
-    private Map<Integer, Task> tasks = new HashMap<>();
-    private Map<Integer, Subtask> subtasks = new HashMap<>();
-    private Map<Integer, Epic> epics = new HashMap<>();
+    private IntObjectHashMap<Task> tasks = new IntObjectHashMap<>();
+    private IntObjectHashMap<Subtask> subtasks = new IntObjectHashMap<>();
+    private IntObjectHashMap<Epic> epics = new IntObjectHashMap<>();
+
+    // Представления хранилищ только для чтения (хранилища не пересоздаются, поэтому создаются один раз)
+    private final Collection<Task> tasksView = Collections.unmodifiableCollection(tasks.values());
+    private final Collection<Subtask> subtasksView = Collections.unmodifiableCollection(subtasks.values());
+    private final Collection<Epic> epicsView = Collections.unmodifiableCollection(epics.values());
+
+    // Счетчики статусов подзадач каждого эпика для пересчета статуса за O(1)
+    private IntObjectHashMap<EpicStatusCounter> epicCounters = new IntObjectHashMap<>();
+    // Эпик каждой хранимой подзадачи. epicId у самого объекта могут сменить напрямую, минуя update,
+    // поэтому счетчики и индексы сверяются с этим значением, а не с полем подзадачи
+    private final IntIntHashMap subtaskEpics = new IntIntHashMap();
+    // Вложенные эпики: id дочерних эпиков и счетчики их статусов по id родителя (заводятся с первым дочерним)
+    private final IntObjectHashMap<IntArrayList> childEpics = new IntObjectHashMap<>();
+    private final IntObjectHashMap<EpicStatusCounter> childCounters = new IntObjectHashMap<>();
+    // Следит за сменой статуса хранимых задач, даже если статус меняют напрямую у объекта
+    private final StatusObserver statusObserver = this::onStatusChanged;
+    // Индексы по статусу и по эпику для выборок без обхода всего хранилища. Как и поисковый индекс,
+    // строятся при первой выборке, поэтому холодный старт из снимка не заполняет их на каждую задачу
+    private TaskIndexes indexes;
+    // Полнотекстовый индекс строится при первом поиске и дальше обновляется вместе с хранилищами,
+    // поэтому загрузка доски, по которой не ищут, не тратит время на разбор текста
+    private SearchIndex searchIndex;
+    // Время задач и подзадач, упорядоченное по началу, для приоритизации и проверки пересечений
+    private final TaskSchedule schedule = new TaskSchedule();
+    // Зависимости между задачами: топологический порядок, готовность задач и очередь готовых
+    private final DependencyGraph dependencies = new DependencyGraph();
+
+    // Шина событий об изменениях задач; создается при первом обращении
+    private EventBus eventBus;
+
+    // Пул названий и описаний: одинаковые тексты задач хранятся один раз (null — без дедупликации)
+    private StringPool stringPool = new StringPool();
+
+    // Эпики, статус которых пересчитается при фиксации применяемого пакета (null вне пакета)
+    private IntObjectHashMap<Epic> batchEpics;
+    // События применяемого пакета; публикуются после фиксации (null вне пакета)
+    private List<TaskEvent> batchEvents;
+    // Идет пересчет статуса эпика: такую смену статуса выводит сам менеджер, а не вызывающий
+    private boolean rollingUp;
 
     // Менеджер истории для отслеживания просмотренных задач
-    private HistoryManager historyManager = Managers.getDefaultHistory();
+    private final HistoryManager historyManager;
 
     // Счетчики для генерации уникальных id
     private int idCounter = 1;
+    private int idStep = 1; // Шаг счетчика: у шардов ShardedTaskManager id не пересекаются
+
+    // Хранилище для проверки пакетов перед применением
+    private final TaskBatch.Store batchStore = new TaskBatch.Store() {
+        @Override
+        public boolean containsTask(int id) {
+            return tasks.containsKey(id);
+        }
+
+        @Override
+        public int getSubtaskEpicId(int id) {
+            return subtaskEpics.get(id, 0);
+        }
+
+        @Override
+        public Epic getEpic(int id) {
+            return epics.get(id);
+        }
+
+        @Override
+        public boolean supportsNesting() {
+            return true;
+        }
+
+        @Override
+        public TaskSchedule schedule() {
+            return schedule;
+        }
+    };
+
+    public InMemoryTaskManager() {
+        this.historyManager = Managers.getDefaultHistory();
+    }
+
+    // История ограниченной емкости; в режиме storeHistoryIds она хранит только id и версии задач,
+    // а при чтении берет актуальные задачи из хранилищ этого менеджера
+    public InMemoryTaskManager(int historyCapacity, boolean storeHistoryIds) {
+        this.historyManager = storeHistoryIds
+                ? Managers.getDefaultHistory(historyCapacity, this::findTask)
+                : Managers.getDefaultHistory(historyCapacity);
+    }
+
+    // Шард ShardedTaskManager: выдает id shard + k * shardCount (k >= 1), так что id уникальны
+    // среди всех шардов без общего счетчика, а шард задачи вычисляется по ее id
+    InMemoryTaskManager(int shard, int shardCount) {
+        this(1, true); // Историю ведет сам ShardedTaskManager
+        this.idCounter = shard;
+        this.idStep = shardCount;
+    }
+
+    // Шина событий об изменениях задач: подписчики получают их пачками в своих потоках
+    // вместо периодического опроса getAllTasks(). По умолчанию — DEFAULT_CAPACITY событий с BackPressure.BLOCK
+    public EventBus getEventBus() {
+        if (eventBus == null) {
+            eventBus = new EventBus();
+        }
+        return eventBus;
+    }
+
+    // Заменяет шину событий, например на шину другой емкости или с другим поведением при переполнении
+    public void setEventBus(EventBus eventBus) {
+        this.eventBus = eventBus;
+    }
+
+    // Заменяет пул текстов, например на пул со сжатием длинных описаний вне кучи (null — отключить пул)
+    public void setStringPool(StringPool stringPool) {
+        this.stringPool = stringPool;
+    }
 
     @Override
     public Task createTask(Task task) {
-        task.setId(++idCounter); // Увеличиваем счетчик и устанавливаем уникальный id
+        checkOverlap(task, 0); // Id еще не назначен, исключать из проверки нечего
+        task.setId(nextId()); // Увеличиваем счетчик и устанавливаем уникальный id
         tasks.put(task.getId(), task); // Добавляем задачу в хранилище
+        track(task); // Учитываем задачу в индексах
+        schedule.put(task); // Добавляем задачу в расписание
+        publishCreated(task);
         return task;
     }
 
@@ -32,10 +154,16 @@ public class InMemoryTaskManager implements TaskManager {
             if (subtask.getEpicId() == subtask.getId()) {
                 return null; // Подзадача не может быть своим эпиком
             }
-            subtask.setId(++idCounter); // Увеличиваем счетчик и устанавливаем уникальный id
+            checkOverlap(subtask, 0);
+            subtask.setId(nextId()); // Увеличиваем счетчик и устанавливаем уникальный id
             subtasks.put(subtask.getId(), subtask); // Добавляем подзадачу в хранилище
-            epics.get(subtask.getEpicId()).addSubtask(subtask.getId()); // Добавляем id подзадачи в эпик
-            updateEpicStatus(subtask.getEpicId()); // Обновляем статус эпика
+            Epic epic = epics.get(subtask.getEpicId());
+            epic.addSubtask(subtask.getId()); // Добавляем id подзадачи в эпик
+            track(subtask); // Учитываем статус подзадачи в счетчиках эпика и индексах
+            publishCreated(subtask); // Событие подзадачи идет раньше смены статуса эпика
+            schedule.put(subtask); // Добавляем подзадачу в расписание
+            updateEpicTime(epic, null, scheduleSlot(subtask)); // Учитываем время подзадачи во времени эпика
+            refreshEpicStatus(subtask.getEpicId()); // Обновляем статус эпика
             return subtask;
         }
         return null; // Если эпик не найден
@@ -43,8 +171,20 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public Epic createEpic(Epic epic) {
-        epic.setId(++idCounter); // Увеличиваем счетчик и устанавливаем уникальный id
+        int parentId = epic.getParentId();
+        if (parentId != 0 && !epics.containsKey(parentId)) {
+            return null; // Родительский эпик не найден
+        }
+        epic.setId(nextId()); // Увеличиваем счетчик и устанавливаем уникальный id
+        resetEpicTime(epic); // Время эпика выводится из подзадач, а их пока нет
         epics.put(epic.getId(), epic); // Добавляем эпик в хранилище
+        epicCounters.put(epic.getId(), new EpicStatusCounter()); // Заводим счетчики статусов эпика
+        track(epic);
+        publishCreated(epic);
+        if (parentId != 0) {
+            attachEpic(epic); // Новый эпик — такая же часть родителя, как подзадача
+            refreshEpicStatus(parentId);
+        }
         return epic;
     }
 
@@ -52,7 +192,7 @@ public class InMemoryTaskManager implements TaskManager {
     public Task getTaskById(int id) {
         Task task = tasks.get(id);
         if (task != null) {
-            historyManager.add(new Task(task)); // Добавляем клон задачи в историю
+            historyManager.add(task); // История сама решает, что хранить: клон или только id
         }
         return task;
     }
@@ -61,7 +201,7 @@ public class InMemoryTaskManager implements TaskManager {
     public Epic getEpicById(int id) {
         Epic epic = epics.get(id);
         if (epic != null) {
-            historyManager.add(new Epic(epic)); // Добавляем клон эпика в историю
+            historyManager.add(epic);
         }
         return epic;
     }
@@ -70,7 +210,7 @@ public class InMemoryTaskManager implements TaskManager {
     public Subtask getSubTaskById(int id) {
         Subtask subtask = subtasks.get(id);
         if (subtask != null) {
-            historyManager.add(new Subtask(subtask)); // Добавляем клон подзадачи в историю
+            historyManager.add(subtask);
         }
         return subtask;
     }
@@ -90,30 +230,362 @@ public class InMemoryTaskManager implements TaskManager {
         return new ArrayList<>(epics.values()); // Возвращаем список всех эпиков
     }
 
+    @Override
+    public TaskSnapshot getSnapshot(int id) {
+        Task task = tasks.get(id);
+        if (task == null) {
+            task = subtasks.get(id);
+        }
+        if (task == null) {
+            task = epics.get(id);
+        }
+        return task == null ? null : TaskSnapshot.of(task);
+    }
+
+    @Override
+    public List<Task> getAllTasks(int offset, int limit) {
+        return Pages.of(tasks.values(), offset, limit);
+    }
+
+    @Override
+    public List<Subtask> getAllSubtasks(int offset, int limit) {
+        return Pages.of(subtasks.values(), offset, limit);
+    }
+
+    @Override
+    public List<Epic> getAllEpics(int offset, int limit) {
+        return Pages.of(epics.values(), offset, limit);
+    }
+
+    @Override
+    public List<Task> getTasksAfter(int afterId, int limit) {
+        return Pages.after(tasks.size(), idCounter, afterId, limit, tasks::get, idsOf(tasks));
+    }
+
+    @Override
+    public List<Subtask> getSubtasksAfter(int afterId, int limit) {
+        return Pages.after(subtasks.size(), idCounter, afterId, limit, subtasks::get, idsOf(subtasks));
+    }
+
+    @Override
+    public List<Epic> getEpicsAfter(int afterId, int limit) {
+        return Pages.after(epics.size(), idCounter, afterId, limit, epics::get, idsOf(epics));
+    }
+
+    private static Consumer<IntConsumer> idsOf(IntObjectHashMap<? extends Task> store) {
+        return action -> {
+            for (Task task : store.values()) {
+                action.accept(task.getId());
+            }
+        };
+    }
+
+    // Представления отражают текущее содержимое хранилищ; обход, во время которого
+    // хранилище изменили, завершается ConcurrentModificationException
+    @Override
+    public Collection<Task> getTasksView() {
+        return tasksView;
+    }
+
+    @Override
+    public Collection<Subtask> getSubtasksView() {
+        return subtasksView;
+    }
+
+    @Override
+    public Collection<Epic> getEpicsView() {
+        return epicsView;
+    }
+
     @Override
     public List<Task> getHistory() {
         return historyManager.getHistory(); // Возвращаем историю просмотров
     }
 
+    @Override
+    public Stream<Task> streamHistory() {
+        return historyManager.streamHistory();
+    }
+
+    // Задачи и подзадачи с заданным временем начала, отсортированные по нему
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        List<Task> prioritized = new ArrayList<>();
+        for (TaskSchedule.Slot slot : schedule.ordered()) {
+            prioritized.add(findTask(slot.id()));
+        }
+        return prioritized;
+    }
+
+    // Выборки по индексам: время пропорционально количеству найденных задач
+    @Override
+    public List<Task> getTasksByStatus(Status status) {
+        return indexes().tasks(status);
+    }
+
+    @Override
+    public List<Subtask> getSubtasksByStatus(Status status) {
+        return indexes().subtasks(status);
+    }
+
+    @Override
+    public List<Epic> getEpicsByStatus(Status status) {
+        return indexes().epics(status);
+    }
+
+    @Override
+    public List<Subtask> getEpicSubtasks(int epicId) {
+        Epic epic = epics.get(epicId);
+        if (epic == null) {
+            return new ArrayList<>();
+        }
+        IntArrayList subtaskIds = epic.getSubtaskIds();
+        List<Subtask> result = new ArrayList<>(subtaskIds.size());
+        for (int i = 0; i < subtaskIds.size(); i++) {
+            result.add(subtasks.get(subtaskIds.getInt(i)));
+        }
+        return result;
+    }
+
+    @Override
+    public List<Subtask> getEpicSubtasksByStatus(int epicId, Status status) {
+        return indexes().subtasks(epicId, status);
+    }
+
+    @Override
+    public List<Epic> getChildEpics(int epicId) {
+        IntArrayList childIds = childEpics.get(epicId);
+        if (childIds == null) {
+            return new ArrayList<>();
+        }
+        List<Epic> result = new ArrayList<>(childIds.size());
+        for (int i = 0; i < childIds.size(); i++) {
+            result.add(epics.get(childIds.getInt(i)));
+        }
+        return result;
+    }
+
+    // Задачи любого типа; выполненность блокеров граф узнает через наблюдатель статусов и track()
+    @Override
+    public boolean addDependency(int blockerId, int blockedId) {
+        Task blocker = findTask(blockerId);
+        Task blocked = findTask(blockedId);
+        if (blocker == null || blocked == null) {
+            return false;
+        }
+        return dependencies.add(blockerId, blocker.getStatus() == Status.DONE,
+                blockedId, blocked.getStatus() == Status.DONE);
+    }
+
+    @Override
+    public boolean removeDependency(int blockerId, int blockedId) {
+        return dependencies.remove(blockerId, blockedId);
+    }
+
+    @Override
+    public boolean isReady(int id) {
+        return findTask(id) != null && dependencies.isReady(id);
+    }
+
+    @Override
+    public List<Task> getReadyTasks() {
+        IntArrayList readyIds = dependencies.readyIds();
+        List<Task> result = new ArrayList<>(readyIds.size());
+        for (int i = 0; i < readyIds.size(); i++) {
+            result.add(findTask(readyIds.getInt(i)));
+        }
+        return result;
+    }
+
+    // Цикл ищется подъемом от нового родителя по ссылкам на родителей: O(глубины), а не обход дерева
+    @Override
+    public boolean moveEpic(int epicId, int parentId) {
+        Epic epic = epics.get(epicId);
+        if (epic == null || parentId != 0 && !epics.containsKey(parentId)) {
+            return false; // Эпик или новый родитель не найден
+        }
+        int oldParentId = epic.getParentId();
+        if (oldParentId == parentId) {
+            return true;
+        }
+        for (int ancestor = parentId; ancestor != 0; ancestor = epics.get(ancestor).getParentId()) {
+            if (ancestor == epicId) {
+                throw new IllegalArgumentException("Эпик " + epicId + " нельзя вложить в эпик " + parentId
+                        + ": получится цикл");
+            }
+        }
+        detachEpic(epic);
+        epic.setParentId(parentId);
+        attachEpic(epic);
+        if (oldParentId != 0) {
+            refreshEpicStatus(oldParentId);
+        }
+        if (parentId != 0) {
+            refreshEpicStatus(parentId);
+        }
+        return true;
+    }
+
+    // Индексы по статусу; при первом обращении заполняются по хранилищам
+    private TaskIndexes indexes() {
+        if (indexes == null) {
+            indexes = new TaskIndexes();
+            for (Task task : tasks.values()) {
+                indexes.add(task);
+            }
+            for (Epic epic : epics.values()) {
+                indexes.add(epic);
+            }
+            for (Subtask subtask : subtasks.values()) {
+                indexes.add(subtask);
+            }
+        }
+        return indexes;
+    }
+
+    // Полнотекстовый поиск по названиям и описаниям задач всех типов: id по убыванию ранга
+    @Override
+    public int[] search(String query, int limit) {
+        if (searchIndex == null) {
+            searchIndex = new SearchIndex(); // Первый поиск один раз индексирует хранилища
+            for (Task task : tasks.values()) {
+                searchIndex.put(task);
+            }
+            for (Epic epic : epics.values()) {
+                searchIndex.put(epic);
+            }
+            for (Subtask subtask : subtasks.values()) {
+                searchIndex.put(subtask);
+            }
+        }
+        return searchIndex.search(query, limit);
+    }
+
+    // Количество по статусам берется из индексов, выполнение эпиков — из их счетчиков статусов,
+    // поэтому хранилища задач и подзадач не обходятся; обходятся только эпики (большие — параллельно)
+    @Override
+    public BoardStatistics getStatistics(int largestEpics) {
+        List<BoardStatistics.EpicProgress> progress = TaskStatistics.stream(epics.values())
+                .map(epic -> {
+                    EpicStatusCounter counter = epicCounters.get(epic.getId());
+                    return new BoardStatistics.EpicProgress(epic.getId(), epic.getTitle(), counter.total(),
+                            counter.doneCount());
+                })
+                .toList();
+        return TaskStatistics.of(getStatusCounts(), progress, largestEpics);
+    }
+
+    // Индексы по статусу поддерживаются при каждом изменении, поэтому счетчики — это размеры их наборов
+    // (первый вызов строит индексы)
+    @Override
+    public StatusCounts getStatusCounts() {
+        StatusCounts counts = new StatusCounts();
+        for (TaskType type : TaskType.values()) {
+            for (Status status : Status.values()) {
+                counts.add(type, status, indexes().count(type, status));
+            }
+        }
+        return counts;
+    }
+
     @Override
     public void updateTask(Task task) {
-        if (tasks.containsKey(task.getId())) {
+        Task previous = tasks.get(task.getId());
+        if (previous != null) {
+            checkOverlap(task, task.getId()); // С прежним временем самой задачи не сравниваем
+            task.setVersion(previous.getVersion() + 1); // Новая версия задачи
             tasks.put(task.getId(), task); // Обновляем задачу
+            if (previous != task) {
+                untrack(previous); // Переносим индексы на новый объект
+                track(task);
+            }
+            indexText(task); // Текст могли поменять и у хранимого объекта
+            schedule.put(task); // Переносим задачу в расписании
+            publishUpdated(task);
+        }
+    }
+
+    // Обновления с проверкой версии идут через обычные, чтобы наследники видели каждое изменение
+    @Override
+    public boolean updateTask(Task task, int expectedVersion) {
+        Task previous = tasks.get(task.getId());
+        if (previous == null || previous.getVersion() != expectedVersion) {
+            return false; // Задачу успели изменить или удалить
+        }
+        updateTask(task);
+        return true;
+    }
+
+    @Override
+    public boolean updateSubtask(Subtask subtask, int expectedVersion) {
+        Subtask previous = subtasks.get(subtask.getId());
+        if (previous == null || previous.getVersion() != expectedVersion) {
+            return false;
+        }
+        updateSubtask(subtask);
+        return true;
+    }
+
+    @Override
+    public boolean updateEpic(Epic epic, int expectedVersion) {
+        Epic previous = epics.get(epic.getId());
+        if (previous == null || previous.getVersion() != expectedVersion) {
+            return false;
         }
+        updateEpic(epic);
+        return true;
     }
 
     @Override
     public void updateSubtask(Subtask subtask) {
-        if (subtasks.containsKey(subtask.getId())) {
+        Subtask previous = subtasks.get(subtask.getId());
+        if (previous != null) {
+            checkOverlap(subtask, subtask.getId());
+            // Подзадача остается в своем эпике, как эпик — у родителя, даже если epicId сменили у хранимого объекта
+            restoreEpicId(previous);
+            subtask.setEpicId(previous.getEpicId());
+            subtask.setVersion(previous.getVersion() + 1); // Новая версия подзадачи
             subtasks.put(subtask.getId(), subtask); // Обновляем подзадачу
-            updateEpicStatus(subtask.getEpicId()); // Обновляем статус эпика
+            if (previous != subtask) {
+                untrack(previous); // Снимаем прежнюю версию со счетчиков и индексов
+                track(subtask); // Учитываем новую версию
+            }
+            indexText(subtask);
+            publishUpdated(subtask);
+            TaskSchedule.Slot removed = schedule.put(subtask);
+            updateEpicTime(epics.get(subtask.getEpicId()), removed, scheduleSlot(subtask));
+            refreshEpicStatus(subtask.getEpicId()); // Обновляем статус эпика
         }
     }
 
     @Override
     public void updateEpic(Epic epic) {
-        if (epics.containsKey(epic.getId())) {
+        Epic previous = epics.get(epic.getId());
+        if (previous != null) {
+            epic.setVersion(previous.getVersion() + 1); // Новая версия эпика
+            // Время эпика не задается вручную, а переносится из расчетного
+            epic.setStartTime(previous.getStartTime());
+            epic.setDuration(previous.getDuration());
+            epic.setEndTime(previous.getEndTime());
+            epic.setParentId(previous.getParentId()); // Вложенность меняется только через moveEpic
+            if (previous != epic) {
+                // Подзадачи и статус тоже выводятся менеджером: новый объект из запроса их не знает
+                epic.copySubtasksFrom(previous);
+                epic.setStatus(previous.getStatus());
+            }
             epics.put(epic.getId(), epic); // Обновляем эпик
+            if (previous != epic) {
+                untrack(previous);
+                track(epic);
+            } else {
+                // Статус, измененный у самого хранимого эпика, снова выводим из счетчиков
+                EpicStatusCounter children = childCounters.get(epic.getId());
+                if (epicCounters.get(epic.getId()).total() > 0 || children != null && children.total() > 0) {
+                    updateEpicStatus(epic.getId());
+                }
+            }
+            indexText(epic);
+            publishUpdated(epic);
         }
     }
 
@@ -121,7 +593,11 @@ public class InMemoryTaskManager implements TaskManager {
     public int deleteTask(int id) {
         Task task = tasks.remove(id);
         if (task != null) {
+            untrack(task); // Убираем задачу из индексов
+            dependencies.remove(id); // И из графа зависимостей
+            publishDeleted(id);
             historyManager.remove(id); // Удаляем задачу из истории
+            schedule.remove(id); // Освобождаем время задачи
             return id;
         }
         return -1; // Если задача не найдена
@@ -129,80 +605,547 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public void deleteAllTasks() {
+        for (Task task : tasks.values()) {
+            task.setStatusObserver(null); // Перестаем следить за удаляемыми задачами
+            schedule.remove(task.getId()); // Освобождаем время задач
+            unindexText(task.getId());
+            dependencies.remove(task.getId());
+            publishDeleted(task.getId());
+        }
         tasks.clear(); // Очищаем хранилище задач
+        historyManager.removeAll(TaskType.TASK); // И историю: в ней не должно остаться удаленных задач
+        if (indexes != null) {
+            indexes.clearTasks();
+        }
     }
 
     @Override
     public void deleteAllSubTasks() {
+        for (Subtask subtask : subtasks.values()) {
+            subtask.setStatusObserver(null); // Перестаем следить за удаляемыми подзадачами
+            schedule.remove(subtask.getId()); // Освобождаем время подзадач
+            unindexText(subtask.getId());
+            dependencies.remove(subtask.getId());
+            publishDeleted(subtask.getId());
+        }
         subtasks.clear(); // Очищаем хранилище подзадач
+        subtaskEpics.clear();
+        historyManager.removeAll(TaskType.SUBTASK);
+        if (indexes != null) {
+            indexes.clearSubtasks();
+        }
         for (Epic epic : epics.values()) {
-            epic.getSubtaskIds().clear(); // Очищаем списки подзадач у всех эпиков
+            boolean hadSubtasks = !epic.getSubtaskIds().isEmpty();
+            epic.clearSubtasks(); // Очищаем списки подзадач у всех эпиков
+            epicCounters.get(epic.getId()).clear(); // Сбрасываем счетчики статусов
+            resetEpicTime(epic); // Без подзадач у эпика нет времени
+            if (hadSubtasks) {
+                // Опустевший эпик выполнен (если нет невыполненных вложенных эпиков); наблюдатель
+                // переносит его в индексе статусов и в счетчиках родителя
+                updateEpicStatus(epic.getId());
+            }
         }
     }
 
     @Override
     public void deleteAllEpics() {
+        for (Epic epic : epics.values()) {
+            epic.setStatusObserver(null);
+            unindexText(epic.getId());
+            dependencies.remove(epic.getId());
+            publishDeleted(epic.getId());
+        }
         epics.clear(); // Очищаем хранилище эпиков
+        historyManager.removeAll(TaskType.EPIC);
+        if (indexes != null) {
+            indexes.clearEpics();
+        }
+        epicCounters.clear();
+        childEpics.clear();
+        childCounters.clear();
         deleteAllSubTasks(); // Удаляем все подзадачи
     }
 
     @Override
-    public void deleteSubtask(int id) {
+    public int deleteSubtask(int id) {
         Subtask subtask = subtasks.remove(id);
         if (subtask != null) {
+            restoreEpicId(subtask);
             historyManager.remove(id); // Удаляем подзадачу из истории
-            updateEpicStatus(subtask.getEpicId()); // Обновляем статус эпика
+            untrack(subtask); // Снимаем статус подзадачи со счетчиков и индексов
+            dependencies.remove(id);
+            publishDeleted(id);
+            refreshEpicStatus(subtask.getEpicId()); // Обновляем статус эпика
+            TaskSchedule.Slot removed = schedule.remove(id); // Освобождаем время подзадачи
             Epic epic = epics.get(subtask.getEpicId());
             if (epic != null) {
-                epic.getSubtaskIds().remove(Integer.valueOf(id)); // Удаляем id подзадачи из эпика
+                epic.removeSubtask(id); // Удаляем id подзадачи из эпика
+                updateEpicTime(epic, removed, null); // Снимаем время подзадачи со времени эпика
             }
+            return id;
         }
+        return -1; // Если подзадача не найдена
     }
 
     @Override
     public int deleteEpic(int id) {
         Epic epic = epics.get(id);
         if (epic != null) {
-            for (int subId : epic.getSubtaskIds()) {
-                subtasks.remove(subId); // Удаляем все подзадачи эпика
+            IntArrayList subtaskIds = epic.getSubtaskIds();
+            for (int i = 0; i < subtaskIds.size(); i++) {
+                int subId = subtaskIds.getInt(i);
+                Subtask subtask = subtasks.remove(subId); // Удаляем все подзадачи эпика
+                if (subtask != null) {
+                    restoreEpicId(subtask);
+                    untrack(subtask);
+                    dependencies.remove(subId);
+                    publishDeleted(subId);
+                }
+                schedule.remove(subId); // Освобождаем время подзадач
                 historyManager.remove(subId); // Удаляем подзадачи из истории
             }
             epics.remove(id); // Удаляем эпик
+            untrack(epic);
+            dependencies.remove(id);
+            publishDeleted(id);
+            epicCounters.remove(id);
             historyManager.remove(id); // Удаляем эпик из истории
+            promoteChildEpics(epic);
             return id;
         }
         return -1; // Если эпик не найден
     }
 
+    // Проверяет весь пакет до первого изменения, применяет его и один раз обновляет статусы эпиков.
+    // События пакета публикуются после фиксации: переполнение шины с BackPressure.FAIL завершает
+    // applyBatch исключением уже после того, как пакет применен целиком
+    @Override
+    public void applyBatch(TaskBatch batch) {
+        batch.validate(batchStore);
+        batchEpics = new IntObjectHashMap<>();
+        batchEvents = new ArrayList<>();
+        List<TaskEvent> events = batchEvents;
+        try {
+            batch.applyTo(this);
+        } finally {
+            IntObjectHashMap<Epic> changed = batchEpics;
+            batchEpics = null;
+            try {
+                for (Epic epic : changed.values()) {
+                    updateEpicStatus(epic.getId());
+                }
+            } finally {
+                batchEvents = null;
+            }
+        }
+        for (TaskEvent event : events) {
+            eventBus.publish(event);
+        }
+    }
+
     @Override
     public void updateEpicStatus(int epicId) {
         Epic epic = epics.get(epicId);
         if (epic != null) {
-            List<Integer> subtaskIds = epic.getSubtaskIds();
-            boolean allDone = true;
-            boolean anyInProgress = false;
+            // Статус выводится из счетчиков без обхода подзадач. Если он изменился, наблюдатель передает
+            // изменение родителю, и так вверх, пока статус очередного предка не останется прежним
+            EpicStatusCounter children = childCounters.get(epicId);
+            EpicStatusCounter counter = epicCounters.get(epicId);
+            boolean wasRollingUp = rollingUp;
+            rollingUp = true;
+            try {
+                epic.setStatus(children == null ? counter.toStatus() : counter.toStatus(children));
+            } finally {
+                rollingUp = wasRollingUp;
+            }
+        }
+    }
 
-            // Проверяем статусы всех подзадач
-            for (int subtaskId : subtaskIds) {
-                Subtask subtask = subtasks.get(subtaskId);
-                if (subtask != null) {
-                    if (subtask.getStatus() != Status.DONE) {
-                        allDone = false;
-                    }
-                    if (subtask.getStatus() == Status.IN_PROGRESS) {
-                        anyInProgress = true;
-                    }
+    // Пересчитывает счетчики всех эпиков с нуля по хранилищу подзадач и сравнивает с текущими.
+    // Возвращает true, если счетчики и статусы эпиков согласованы (используется в тестах)
+    public boolean isEpicStatusConsistent() {
+        for (Subtask subtask : subtasks.values()) {
+            Epic epic = epics.get(subtask.getEpicId());
+            if (epic == null || !epic.getSubtaskIds().contains(subtask.getId())) {
+                return false;
+            }
+        }
+        for (Epic epic : epics.values()) {
+            EpicStatusCounter expected = new EpicStatusCounter();
+            IntArrayList subtaskIds = epic.getSubtaskIds();
+            for (int i = 0; i < subtaskIds.size(); i++) {
+                Subtask subtask = subtasks.get(subtaskIds.getInt(i));
+                if (subtask == null || subtask.getEpicId() != epic.getId()
+                        || subtaskEpics.get(subtask.getId(), 0) != epic.getId()) {
+                    return false; // Подзадача из списка эпика должна ссылаться на этот эпик
+                }
+                expected.increment(subtask.getStatus());
+            }
+            EpicStatusCounter expectedChildren = new EpicStatusCounter();
+            IntArrayList childIds = childEpics.getOrDefault(epic.getId(), new IntArrayList());
+            for (int i = 0; i < childIds.size(); i++) {
+                Epic child = epics.get(childIds.getInt(i));
+                if (child == null || child.getParentId() != epic.getId()) {
+                    return false;
                 }
+                expectedChildren.increment(child.getStatus());
             }
+            if (epic.getParentId() != 0 && !childEpics.getOrDefault(epic.getParentId(), new IntArrayList())
+                    .contains(epic.getId())) {
+                return false;
+            }
+            if (!expected.equals(epicCounters.get(epic.getId()))
+                    || !expectedChildren.equals(childCounters.getOrDefault(epic.getId(), new EpicStatusCounter()))) {
+                return false;
+            }
+            // Новый пустой эпик остается NEW, пока в нем ничего не изменится, поэтому его статус не сверяем
+            boolean empty = expected.total() == 0 && expectedChildren.total() == 0;
+            if (!empty && epic.getStatus() != expected.toStatus(expectedChildren)) {
+                return false;
+            }
+        }
+        return true;
+    }
 
-            // Обновляем статус эпика
-            if (subtaskIds.isEmpty() || allDone) {
-                epic.setStatus(Status.DONE);
-            } else if (anyInProgress) {
-                epic.setStatus(Status.IN_PROGRESS);
-            } else {
-                epic.setStatus(Status.NEW);
+    // Кладет задачу с уже назначенным id в хранилище как есть (восстановление из файла).
+    // Эпики восстанавливаются раньше своих подзадач; вложенные эпики связывает с родителями
+    // и статусы эпиков обновляет refreshEpicStatuses()
+    protected void restoreTask(Task task) {
+        if (task instanceof Epic epic) {
+            resetEpicTime(epic); // Время эпика соберется из восстановленных подзадач
+            epics.put(epic.getId(), epic);
+            epicCounters.put(epic.getId(), new EpicStatusCounter());
+            track(epic);
+        } else if (task instanceof Subtask subtask) {
+            subtasks.put(subtask.getId(), subtask);
+            track(subtask);
+            schedule.put(subtask); // Сохраненное состояние уже проверено на пересечения
+            updateEpicTime(epics.get(subtask.getEpicId()), null, scheduleSlot(subtask));
+        } else {
+            tasks.put(task.getId(), task);
+            track(task);
+            schedule.put(task);
+        }
+        idCounter = Math.max(idCounter, task.getId()); // Новые id не должны совпасть с восстановленными
+    }
+
+    // Готовит хранилища к массовому восстановлению заданного количества задач
+    protected void reserveCapacity(int taskCount, int epicCount, int subtaskCount) {
+        tasks.ensureCapacity(taskCount);
+        epics.ensureCapacity(epicCount);
+        epicCounters.ensureCapacity(epicCount);
+        subtasks.ensureCapacity(subtaskCount);
+    }
+
+    // Выставляет статусы всех эпиков по счетчикам (один раз после массового восстановления).
+    // Родитель мог восстановиться позже вложенного эпика, поэтому связи заводятся здесь, до статусов.
+    // Статус пустого эпика из счетчиков не выводится (новый пустой эпик — NEW, опустевший — DONE),
+    // поэтому у него остается сохраненный
+    protected void refreshEpicStatuses() {
+        for (Epic epic : epics.values()) {
+            if (epic.getParentId() != 0) {
+                if (epics.containsKey(epic.getParentId())) {
+                    attachEpic(epic);
+                } else {
+                    epic.setParentId(0);
+                }
             }
         }
+        for (Epic epic : epics.values()) {
+            EpicStatusCounter children = childCounters.get(epic.getId());
+            if (epicCounters.get(epic.getId()).total() > 0 || children != null && children.total() > 0) {
+                updateEpicStatus(epic.getId());
+            }
+        }
+    }
+
+    // Статус хранимой задачи сменили у самого объекта, минуя update*. Вызывается после переноса
+    // в индексах и пересчета статусов эпиков; сами пересчеты статусов эпиков сюда не попадают
+    protected void storedStatusChanged(Task task) {
+    }
+
+    // Последний выданный id
+    protected int getIdCounter() {
+        return idCounter;
+    }
+
+    protected void setIdCounter(int idCounter) {
+        this.idCounter = idCounter;
+    }
+
+    // Обновляет статус эпика сразу или, внутри пакета, один раз при его фиксации
+    private void refreshEpicStatus(int epicId) {
+        if (batchEpics == null) {
+            updateEpicStatus(epicId);
+            return;
+        }
+        Epic epic = epics.get(epicId);
+        if (epic != null) {
+            batchEpics.put(epicId, epic);
+        }
+    }
+
+    // Зависимости парами (блокер, заблокированная) для снимка
+    IntArrayList dependencyEdges() {
+        return dependencies.edges();
+    }
+
+    // Ранжированная выдача поиска в виде ключей SearchIndex для слияния с выдачами других шардов
+    long[] rank(String query, int limit) {
+        search(query, 0); // Строит индекс при первом обращении
+        return searchIndex.rank(query, limit);
+    }
+
+    // Следующий уникальный id
+    private int nextId() {
+        idCounter += idStep;
+        return idCounter;
+    }
+
+    // Находит задачу любого типа по id без записи в историю
+    final Task findTask(int id) {
+        Task task = tasks.get(id);
+        if (task == null) {
+            task = subtasks.get(id);
+        }
+        if (task == null) {
+            task = epics.get(id);
+        }
+        return task;
+    }
+
+    // Отклоняет задачу, время которой пересекается с другой запланированной задачей
+    private void checkOverlap(Task task, int excludeId) {
+        if (schedule.overlaps(task.getStartTime(), task.getEndTime(), excludeId)) {
+            throw new TimeOverlapException(task);
+        }
+    }
+
+    // Время подзадачи, с которым она учтена в расписании
+    private TaskSchedule.Slot scheduleSlot(Subtask subtask) {
+        return schedule.get(subtask.getId());
+    }
+
+    // Заменяет время подзадачи removed на added во времени эпика (любое из них может быть null).
+    // Продолжительность меняется на разницу, а границы пересчитываются по подзадачам эпика,
+    // только если убранная подзадача определяла начало, завершение или всю продолжительность
+    private void updateEpicTime(Epic epic, TaskSchedule.Slot removed, TaskSchedule.Slot added) {
+        if (epic == null) {
+            return;
+        }
+        if (removed != null && (Objects.equals(removed.duration(), epic.getDuration())
+                || removed.start() != null && (removed.start().equals(epic.getStartTime())
+                || removed.end().equals(epic.getEndTime())))) {
+            recalculateEpicTime(epic); // Расписание уже содержит новое время подзадачи
+            return;
+        }
+        if (removed != null && removed.duration() != null) {
+            epic.setDuration(epic.getDuration().minus(removed.duration()));
+        }
+        addEpicTime(epic, added);
+    }
+
+    // Собирает время эпика заново по времени его подзадач в расписании
+    private void recalculateEpicTime(Epic epic) {
+        resetEpicTime(epic);
+        IntArrayList subtaskIds = epic.getSubtaskIds();
+        for (int i = 0; i < subtaskIds.size(); i++) {
+            addEpicTime(epic, schedule.get(subtaskIds.getInt(i)));
+        }
+    }
+
+    private static void addEpicTime(Epic epic, TaskSchedule.Slot slot) {
+        if (slot == null) {
+            return;
+        }
+        if (slot.duration() != null) {
+            Duration duration = epic.getDuration();
+            epic.setDuration(duration == null ? slot.duration() : duration.plus(slot.duration()));
+        }
+        if (slot.start() != null) {
+            if (epic.getStartTime() == null || slot.start().isBefore(epic.getStartTime())) {
+                epic.setStartTime(slot.start());
+            }
+            if (epic.getEndTime() == null || slot.end().isAfter(epic.getEndTime())) {
+                epic.setEndTime(slot.end());
+            }
+        }
+    }
+
+    private static void resetEpicTime(Epic epic) {
+        epic.setStartTime(null);
+        epic.setDuration(null);
+        epic.setEndTime(null);
+    }
+
+    // Добавляет хранимый эпик в список и счетчики его родителя
+    private void attachEpic(Epic epic) {
+        int parentId = epic.getParentId();
+        if (parentId == 0) {
+            return;
+        }
+        IntArrayList childIds = childEpics.get(parentId);
+        if (childIds == null) {
+            childIds = new IntArrayList();
+            childEpics.put(parentId, childIds);
+            childCounters.put(parentId, new EpicStatusCounter());
+        }
+        childIds.add(epic.getId());
+        childCounters.get(parentId).increment(epic.getStatus());
+    }
+
+    // Убирает эпик из списка и счетчиков его родителя
+    private void detachEpic(Epic epic) {
+        int parentId = epic.getParentId();
+        IntArrayList childIds = childEpics.get(parentId);
+        if (parentId == 0 || childIds == null || !childIds.removeValue(epic.getId())) {
+            return;
+        }
+        if (childIds.isEmpty()) {
+            childEpics.remove(parentId);
+            childCounters.remove(parentId);
+        } else {
+            childCounters.get(parentId).decrement(epic.getStatus());
+        }
+    }
+
+    // Возвращает хранимой подзадаче эпик, в котором она учтена, если epicId сменили у самого объекта
+    private void restoreEpicId(Subtask subtask) {
+        subtask.setEpicId(subtaskEpics.get(subtask.getId(), subtask.getEpicId()));
+    }
+
+    // Удаленный эпик уходит от своего родителя, а его дочерние эпики не удаляются,
+    // а поднимаются на уровень выше — к родителю удаленного эпика (или на верхний уровень)
+    private void promoteChildEpics(Epic epic) {
+        int parentId = epic.getParentId();
+        detachEpic(epic);
+        IntArrayList childIds = childEpics.remove(epic.getId());
+        childCounters.remove(epic.getId());
+        if (childIds != null) {
+            for (int i = 0; i < childIds.size(); i++) {
+                Epic child = epics.get(childIds.getInt(i));
+                child.setParentId(parentId);
+                attachEpic(child);
+            }
+        }
+        if (parentId != 0) {
+            refreshEpicStatus(parentId);
+        }
+    }
+
+    // Учитывает хранимую задачу в индексах (подзадачу — и в счетчиках её эпика)
+    // и начинает следить за сменой её статуса
+    private void track(Task task) {
+        if (indexes != null) {
+            indexes.add(task);
+        }
+        indexText(task);
+        if (task instanceof Subtask subtask) {
+            subtaskEpics.put(subtask.getId(), subtask.getEpicId());
+            EpicStatusCounter counter = epicCounters.get(subtask.getEpicId());
+            if (counter != null) {
+                counter.increment(subtask.getStatus());
+            }
+        }
+        task.setStatusObserver(statusObserver);
+        dependencies.statusChanged(task.getId(), task.getStatus() == Status.DONE); // Объект мог смениться при update
+    }
+
+    // Убирает задачу из индексов и счетчиков и перестает следить за ней
+    private void untrack(Task task) {
+        task.setStatusObserver(null);
+        if (indexes != null) {
+            indexes.remove(task);
+        }
+        unindexText(task.getId());
+        if (task instanceof Subtask subtask) {
+            subtaskEpics.remove(subtask.getId());
+            EpicStatusCounter counter = epicCounters.get(subtask.getEpicId());
+            if (counter != null) {
+                counter.decrement(subtask.getStatus());
+            }
+        }
+    }
+
+    // События публикуются, только если на шину кто-то подписан: иначе снимки задач не нужны
+    private boolean publishing() {
+        return eventBus != null && eventBus.hasSubscribers();
+    }
+
+    private void publishCreated(Task task) {
+        if (publishing()) {
+            publish(new TaskEvent.Created(TaskSnapshot.of(task)));
+        }
+    }
+
+    private void publishUpdated(Task task) {
+        if (publishing()) {
+            publish(new TaskEvent.Updated(TaskSnapshot.of(task)));
+        }
+    }
+
+    private void publishDeleted(int id) {
+        if (publishing()) {
+            publish(new TaskEvent.Deleted(id));
+        }
+    }
+
+    // Внутри пакета событие откладывается до фиксации, иначе сразу уходит в шину
+    private void publish(TaskEvent event) {
+        if (batchEvents != null) {
+            batchEvents.add(event);
+        } else {
+            eventBus.publish(event);
+        }
+    }
+
+    // Вызывается при каждом создании, обновлении и восстановлении задачи
+    private void indexText(Task task) {
+        if (stringPool != null) {
+            task.compactText(stringPool);
+        }
+        if (searchIndex != null) {
+            searchIndex.put(task);
+        }
+    }
+
+    private void unindexText(int id) {
+        if (searchIndex != null) {
+            searchIndex.remove(id);
+        }
+    }
+
+    // Переносит задачу в индексах (подзадачу — и между счетчиками) при смене статуса у хранимого объекта.
+    // Статус эпика пересчитывается сразу, чтобы счетчики и статус не расходились до вызова update
+    private void onStatusChanged(Task task, Status oldStatus, Status newStatus) {
+        if (task instanceof Subtask subtask) {
+            restoreEpicId(subtask); // Переносим подзадачу в индексах и счетчиках того эпика, где она учтена
+        }
+        if (indexes != null) {
+            indexes.move(task, oldStatus, newStatus);
+        }
+        dependencies.statusChanged(task.getId(), newStatus == Status.DONE); // Очередь готовых задач
+        if (task instanceof Epic && publishing()) {
+            publish(new TaskEvent.EpicStatusChanged(task.getId(), oldStatus, newStatus));
+        }
+        if (task instanceof Epic epic && epic.getParentId() != 0) {
+            EpicStatusCounter counter = childCounters.get(epic.getParentId());
+            if (counter != null) {
+                counter.decrement(oldStatus);
+                counter.increment(newStatus);
+                refreshEpicStatus(epic.getParentId()); // Поднимаемся на уровень, только пока статус меняется
+            }
+        }
+        if (task instanceof Subtask subtask) {
+            EpicStatusCounter counter = epicCounters.get(subtask.getEpicId());
+            if (counter != null) {
+                counter.decrement(oldStatus);
+                counter.increment(newStatus);
+                refreshEpicStatus(subtask.getEpicId());
+            }
+        }
+        if (!rollingUp) {
+            storedStatusChanged(task);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,14 @@
+package managers;
+
+// Ошибка сохранения или восстановления состояния менеджера задач из файла
+public class ManagerSaveException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public ManagerSaveException(String message) {
+        super(message);
+    }
+
+    public ManagerSaveException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -1,13 +1,69 @@
 package managers;
 
+import tasks.Task;
+import tasks.TaskSnapshot;
+
+import java.nio.file.Path;
+import java.util.function.IntFunction;
+
 public class Managers {
     // Возвращает реализацию TaskManager
     public static TaskManager getDefault() {
         return new InMemoryTaskManager();
     }
 
+    // Возвращает потокобезопасную реализацию TaskManager
+    public static TaskManager getConcurrent() {
+        return new ConcurrentTaskManager();
+    }
+
+    // Возвращает менеджер, хранящий задачи в столбцах вне кучи, для очень больших досок
+    public static ColumnarTaskManager getColumnar() {
+        return new ColumnarTaskManager();
+    }
+
+    // Возвращает менеджер из shards независимых шардов для масштабирования по ядрам
+    public static ShardedTaskManager getSharded(int shards) {
+        return new ShardedTaskManager(shards);
+    }
+
+    // Возвращает TaskManager, сохраняющий состояние в указанном каталоге
+    public static FileBackedTaskManager getFileBacked(Path directory) {
+        return new FileBackedTaskManager(directory);
+    }
+
+    // Оборачивает менеджер в декоратор, который собирает метрики вызовов
+    public static MetricsTaskManager withMetrics(TaskManager manager) {
+        return MetricsTaskManager.wrap(manager, MetricsTaskManager.DEFAULT_SAMPLE_RATE);
+    }
+
+    // То же с замером задержки в среднем одного вызова из sampleRate
+    public static MetricsTaskManager withMetrics(TaskManager manager, int sampleRate) {
+        return MetricsTaskManager.wrap(manager, sampleRate);
+    }
+
+    // Возвращает сервис историй просмотров по пользователям: задачи берутся из manager
+    // через снимки (без записи в его историю), простаивающие истории выгружаются в spillDirectory
+    public static UserHistoryService getUserHistories(TaskManager manager, Path spillDirectory) {
+        return new UserHistoryService(UserHistoryService.DEFAULT_CAPACITY, id -> {
+            TaskSnapshot snapshot = manager.getSnapshot(id);
+            return snapshot != null ? snapshot.toTask() : null;
+        }, spillDirectory, UserHistoryService.DEFAULT_IDLE_TIMEOUT);
+    }
+
     // Возвращает реализацию HistoryManager
     public static HistoryManager getDefaultHistory() {
         return new InMemoryHistoryManager();
     }
+
+    // Возвращает историю, хранящую не больше capacity последних просмотров
+    public static HistoryManager getDefaultHistory(int capacity) {
+        return new InMemoryHistoryManager(capacity);
+    }
+
+    // Возвращает историю ограниченной емкости, которая хранит только id и версии задач
+    // и получает актуальные задачи через resolver
+    public static HistoryManager getDefaultHistory(int capacity, IntFunction<Task> resolver) {
+        return new InMemoryHistoryManager(capacity, resolver);
+    }
 }
\ No newline at end of file
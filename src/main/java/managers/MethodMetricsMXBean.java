@@ -0,0 +1,18 @@
+package managers;
+
+// Метрики одного метода TaskManager в JMX; задержки в наносекундах
+public interface MethodMetricsMXBean {
+    long getCalls();
+
+    long getErrors();
+
+    double getMeanNanos();
+
+    long getP50Nanos();
+
+    long getP99Nanos();
+
+    long getP999Nanos();
+
+    long getMaxNanos();
+}
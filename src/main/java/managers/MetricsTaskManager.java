@@ -0,0 +1,1026 @@
+package managers;
+
+import tasks.Epic;
+import tasks.Status;
+import tasks.Subtask;
+import tasks.Task;
+import tasks.TaskSnapshot;
+import util.LatencyHistogram;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+// Декоратор TaskManager с метриками: по каждому методу считаются вызовы, ошибки (исключения)
+// и гистограмма задержек по выборке вызовов. Учет на горячем пути — приращение счетчика,
+// а для замеряемых вызовов еще два System.nanoTime() и запись в гистограмму, все без выделения памяти,
+// поэтому метрики можно держать включенными под нагрузкой.
+// Размеры хранилищ, истории и распределение подзадач по эпикам обходят весь менеджер, поэтому считаются
+// не на горячем пути, а в snapshot() и refreshGauges() в потоке вызывающего. Потокобезопасный менеджер
+// (ConcurrentTaskManager, ShardedTaskManager) JMX пересчитывает сам при чтении, не чаще раза в GAUGE_MAX_AGE_MILLIS;
+// к остальным JMX не обращается и отдает последние посчитанные значения вместе с временем подсчета.
+// Метрики доступны снимком (snapshot()) и через JMX (registerMBeans).
+// Вложенные эпики и зависимости задач пробрасываются, если их поддерживает обернутый менеджер
+// (декоратор из wrap и Managers.withMetrics реализует тогда NestedEpics и TaskDependencies)
+public class MetricsTaskManager implements TaskManager {
+    public static final String JMX_DOMAIN = "kanban";
+    // По умолчанию замеряется каждый восьмой вызов: System.nanoTime() стоит десятки наносекунд,
+    // а для перцентилей выборки достаточно. Вызовы и ошибки считаются все
+    public static final int DEFAULT_SAMPLE_RATE = 8;
+    // Сколько JMX отдает размеры потокобезопасного менеджера без пересчета: опрос всех атрибутов MBean
+    // обходит менеджер один раз, а не на каждый атрибут
+    public static final long GAUGE_MAX_AGE_MILLIS = 200;
+    private static final long NOT_SAMPLED = Long.MIN_VALUE;
+
+    // Учитываемые методы TaskManager; перегрузки различаются суффиксом имени
+    public enum Method {
+        CREATE_TASK("createTask"),
+        CREATE_SUBTASK("createSubtask"),
+        CREATE_EPIC("createEpic"),
+        GET_TASK_BY_ID("getTaskById"),
+        GET_EPIC_BY_ID("getEpicById"),
+        GET_SUBTASK_BY_ID("getSubTaskById"),
+        GET_ALL_TASKS("getAllTasks"),
+        GET_ALL_SUBTASKS("getAllSubtasks"),
+        GET_ALL_EPICS("getAllEpics"),
+        GET_SNAPSHOT("getSnapshot"),
+        GET_TASKS_PAGE("getAllTasksPage"),
+        GET_SUBTASKS_PAGE("getAllSubtasksPage"),
+        GET_EPICS_PAGE("getAllEpicsPage"),
+        GET_TASKS_AFTER("getTasksAfter"),
+        GET_SUBTASKS_AFTER("getSubtasksAfter"),
+        GET_EPICS_AFTER("getEpicsAfter"),
+        GET_TASKS_VIEW("getTasksView"),
+        GET_SUBTASKS_VIEW("getSubtasksView"),
+        GET_EPICS_VIEW("getEpicsView"),
+        GET_HISTORY("getHistory"),
+        STREAM_HISTORY("streamHistory"),
+        GET_PRIORITIZED_TASKS("getPrioritizedTasks"),
+        GET_TASKS_BY_STATUS("getTasksByStatus"),
+        GET_SUBTASKS_BY_STATUS("getSubtasksByStatus"),
+        GET_EPICS_BY_STATUS("getEpicsByStatus"),
+        GET_EPIC_SUBTASKS("getEpicSubtasks"),
+        GET_EPIC_SUBTASKS_BY_STATUS("getEpicSubtasksByStatus"),
+        SEARCH("search"),
+        GET_STATISTICS("getStatistics"),
+        GET_STATUS_COUNTS("getStatusCounts"),
+        UPDATE_TASK("updateTask"),
+        UPDATE_TASK_VERSIONED("updateTaskVersioned"),
+        UPDATE_SUBTASK_VERSIONED("updateSubtaskVersioned"),
+        UPDATE_EPIC_VERSIONED("updateEpicVersioned"),
+        UPDATE_EPIC_STATUS("updateEpicStatus"),
+        APPLY_BATCH("applyBatch"),
+        UPDATE_SUBTASK("updateSubtask"),
+        UPDATE_EPIC("updateEpic"),
+        DELETE_TASK("deleteTask"),
+        DELETE_ALL_TASKS("deleteAllTasks"),
+        DELETE_ALL_SUBTASKS("deleteAllSubTasks"),
+        DELETE_ALL_EPICS("deleteAllEpics"),
+        DELETE_SUBTASK("deleteSubtask"),
+        DELETE_EPIC("deleteEpic"),
+        GET_CHILD_EPICS("getChildEpics"),
+        MOVE_EPIC("moveEpic"),
+        ADD_DEPENDENCY("addDependency"),
+        REMOVE_DEPENDENCY("removeDependency"),
+        IS_READY("isReady"),
+        GET_READY_TASKS("getReadyTasks");
+
+        private final String methodName;
+
+        Method(String methodName) {
+            this.methodName = methodName;
+        }
+
+        public String getMethodName() {
+            return methodName;
+        }
+    }
+
+    // Статистика одного метода; задержки в наносекундах по замеренным вызовам
+    public record MethodStats(long calls, long errors, double meanNanos, long p50Nanos, long p90Nanos,
+                              long p99Nanos, long p999Nanos, long maxNanos) {
+    }
+
+    // Снимок метрик. epicFanOut[0] — эпики без подзадач, epicFanOut[k] — эпики,
+    // у которых от 2^(k-1) до 2^k - 1 подзадач
+    public record Snapshot(Map<Method, MethodStats> methods, int taskCount, int subtaskCount, int epicCount,
+                           long historySize, long[] epicFanOut) {
+    }
+
+    private final TaskManager delegate;
+    private final int sampleRate;
+    private final LongAdder[] calls = new LongAdder[Method.values().length];
+    private final LongAdder[] errors = new LongAdder[Method.values().length];
+    private final LatencyHistogram[] latencies = new LatencyHistogram[Method.values().length]; // Только замеренные
+    private final List<ObjectName> registeredBeans = new ArrayList<>();
+    private volatile Gauges gauges; // Последние посчитанные размеры для JMX
+    private final boolean threadSafeDelegate; // Менеджер можно читать из потоков JMX
+
+    // Размеры хранилищ и истории на момент подсчета measuredAt (миллисекунды эпохи)
+    private record Gauges(int taskCount, int subtaskCount, int epicCount, long historySize, long[] epicFanOut,
+                          long measuredAt) {
+    }
+
+    // Декоратор, который реализует те же NestedEpics и TaskDependencies, что и delegate
+    public static MetricsTaskManager wrap(TaskManager delegate, int sampleRate) {
+        boolean nesting = delegate instanceof NestedEpics;
+        boolean dependencies = delegate instanceof TaskDependencies;
+        if (nesting && dependencies) {
+            return new WithNestingAndDependencies(delegate, sampleRate);
+        } else if (nesting) {
+            return new WithNesting(delegate, sampleRate);
+        } else if (dependencies) {
+            return new WithDependencies(delegate, sampleRate);
+        }
+        return new MetricsTaskManager(delegate, sampleRate);
+    }
+
+    public MetricsTaskManager(TaskManager delegate) {
+        this(delegate, DEFAULT_SAMPLE_RATE);
+    }
+
+    // sampleRate — замерять задержку в среднем одного вызова из sampleRate (1 — каждого)
+    public MetricsTaskManager(TaskManager delegate, int sampleRate) {
+        if (sampleRate <= 0) {
+            throw new IllegalArgumentException("Частота замеров должна быть положительной: " + sampleRate);
+        }
+        this.delegate = delegate;
+        this.sampleRate = sampleRate;
+        this.threadSafeDelegate = delegate instanceof ConcurrentTaskManager || delegate instanceof ShardedTaskManager;
+        for (int i = 0; i < latencies.length; i++) {
+            calls[i] = new LongAdder();
+            errors[i] = new LongAdder();
+            latencies[i] = new LatencyHistogram();
+        }
+        gauges = measureGauges();
+    }
+
+    public TaskManager getDelegate() {
+        return delegate;
+    }
+
+    public MethodStats getStats(Method method) {
+        LatencyHistogram histogram = latencies[method.ordinal()];
+        return new MethodStats(calls[method.ordinal()].sum(), errors[method.ordinal()].sum(), histogram.getMean(),
+                histogram.getValueAtPercentile(50), histogram.getValueAtPercentile(90),
+                histogram.getValueAtPercentile(99), histogram.getValueAtPercentile(99.9), histogram.getMax());
+    }
+
+    // Снимок всех метрик. Для менеджера без потокобезопасности вызывается из его потока
+    public Snapshot snapshot() {
+        Map<Method, MethodStats> methods = new EnumMap<>(Method.class);
+        for (Method method : Method.values()) {
+            methods.put(method, getStats(method));
+        }
+        Gauges current = measureGauges();
+        gauges = current;
+        return new Snapshot(methods, current.taskCount(), current.subtaskCount(), current.epicCount(),
+                current.historySize(), current.epicFanOut().clone());
+    }
+
+    // Пересчитывает размеры хранилищ и истории и публикует их для JMX. Обходит весь менеджер (у ShardedTaskManager
+    // копирует хранилища шардов), поэтому вызывается не на каждый запрос, а периодически из потока менеджера.
+    // Потокобезопасный менеджер JMX пересчитывает сам, и вызывать метод для него не нужно
+    public void refreshGauges() {
+        gauges = measureGauges();
+    }
+
+    // Обнуляет счетчики вызовов, ошибок и задержек
+    public void reset() {
+        for (int i = 0; i < latencies.length; i++) {
+            calls[i].reset();
+            errors[i].reset();
+            latencies[i].reset();
+        }
+    }
+
+    // Регистрирует MXBean менеджера (kanban:type=TaskManager,name=<name>) и по MXBean на каждый метод
+    // (с ключом method=<имя метода>) в платформенном MBeanServer
+    public synchronized void registerMBeans(String name) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        String base = JMX_DOMAIN + ":type=TaskManager,name=" + ObjectName.quote(name);
+        try {
+            register(server, new ObjectName(base), new ManagerBean());
+            for (Method method : Method.values()) {
+                register(server, new ObjectName(base + ",method=" + method.getMethodName()), new MethodBean(method));
+            }
+        } catch (JMException e) {
+            unregisterMBeans();
+            throw new IllegalStateException("Не удалось зарегистрировать MBean метрик " + name, e);
+        }
+    }
+
+    public synchronized void unregisterMBeans() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName objectName : registeredBeans) {
+            try {
+                server.unregisterMBean(objectName);
+            } catch (JMException e) {
+                // MBean уже сняли с регистрации снаружи
+            }
+        }
+        registeredBeans.clear();
+    }
+
+    @Override
+    public Task createTask(Task task) {
+        long start = start(Method.CREATE_TASK);
+        try {
+            return delegate.createTask(task);
+        } catch (RuntimeException e) {
+            throw failed(Method.CREATE_TASK, e);
+        } finally {
+            record(Method.CREATE_TASK, start);
+        }
+    }
+
+    @Override
+    public Subtask createSubtask(Subtask subtask) {
+        long start = start(Method.CREATE_SUBTASK);
+        try {
+            return delegate.createSubtask(subtask);
+        } catch (RuntimeException e) {
+            throw failed(Method.CREATE_SUBTASK, e);
+        } finally {
+            record(Method.CREATE_SUBTASK, start);
+        }
+    }
+
+    @Override
+    public Epic createEpic(Epic epic) {
+        long start = start(Method.CREATE_EPIC);
+        try {
+            return delegate.createEpic(epic);
+        } catch (RuntimeException e) {
+            throw failed(Method.CREATE_EPIC, e);
+        } finally {
+            record(Method.CREATE_EPIC, start);
+        }
+    }
+
+    @Override
+    public Task getTaskById(int id) {
+        long start = start(Method.GET_TASK_BY_ID);
+        try {
+            return delegate.getTaskById(id);
+        } catch (RuntimeException e) {
+            throw failed(Method.GET_TASK_BY_ID, e);
+        } finally {
+            record(Method.GET_TASK_BY_ID, start);
+        }
+    }
+
+    @Override
+    public Epic getEpicById(int id) {
+        long start = start(Method.GET_EPIC_BY_ID);
+        try {
+            return delegate.getEpicById(id);
+        } catch (RuntimeException e) {
+            throw failed(Method.GET_EPIC_BY_ID, e);
+        } finally {
+            record(Method.GET_EPIC_BY_ID, start);
+        }
+    }
+
+    @Override
+    public Subtask getSubTaskById(int id) {
+        long start = start(Method.GET_SUBTASK_BY_ID);
+        try {
+            return delegate.getSubTaskById(id);
+        } catch (RuntimeException e) {
+            throw failed(Method.GET_SUBTASK_BY_ID, e);
+        } finally {
+            record(Method.GET_SUBTASK_BY_ID, start);
+        }
+    }
+
+    @Override
+    public List<Task> getAllTasks() {
+        long start = start(Method.GET_ALL_TASKS);
+        try {
+            return delegate.getAllTasks();
+        } catch (RuntimeException e) {
+            throw failed(Method.GET_ALL_TASKS, e);
+        } finally {
+            record(Method.GET_ALL_TASKS, start);
+        }
+    }
+
+    @Override
+    public List<Subtask> getAllSubtasks() {
+        long start = start(Method.GET_ALL_SUBTASKS);
+        try {
+            return delegate.getAllSubtasks();
+        } catch (RuntimeException e) {
+            throw failed(Method.GET_ALL_SUBTASKS, e);
+        } finally {
+            record(Method.GET_ALL_SUBTASKS, start);
+        }
+    }
+
+    @Override
+    public List<Epic> getAllEpics() {
+        long start = start(Method.GET_ALL_EPICS);
+        try {
+            return delegate.getAllEpics();
+        } catch (RuntimeException e) {
+            throw failed(Method.GET_ALL_EPICS, e);
+        } finally {
+            record(Method.GET_ALL_EPICS, start);
+        }
+    }
+
+    @Override
+    public TaskSnapshot getSnapshot(int id) {
+        long start = start(Method.GET_SNAPSHOT);
+        try {
+            return delegate.getSnapshot(id);
+        } catch (RuntimeException e) {
+            throw failed(Method.GET_SNAPSHOT, e);
+        } finally {
+            record(Method.GET_SNAPSHOT, start);
+        }
+    }
+
+    @Override
+    public List<Task> getAllTasks(int offset, int limit) {
+        long start = start(Method.GET_TASKS_PAGE);
+        try {
+            return delegate.getAllTasks(offset, limit);
+        } catch (RuntimeException e) {
+            throw failed(Method.GET_TASKS_PAGE, e);
+        } finally {
+            record(Method.GET_TASKS_PAGE, start);
+        }
+    }
+
+    @Override
+    public List<Subtask> getAllSubtasks(int offset, int limit) {
+        long start = start(Method.GET_SUBTASKS_PAGE);
+        try {
+            return delegate.getAllSubtasks(offset, limit);
+        } catch (RuntimeException e) {
+            throw failed(Method.GET_SUBTASKS_PAGE, e);
+        } finally {
+            record(Method.GET_SUBTASKS_PAGE, start);
+        }
+    }
+
+    @Override
+    public List<Epic> getAllEpics(int offset, int limit) {
+        long start = start(Method.GET_EPICS_PAGE);
+        try {
+            return delegate.getAllEpics(offset, limit);
+        } catch (RuntimeException e) {
+            throw failed(Method.GET_EPICS_PAGE, e);
+        } finally {
+            record(Method.GET_EPICS_PAGE, start);
+        }
+    }
+
+    @Override
+    public List<Task> getTasksAfter(int afterId, int limit) {
+        long start = start(Method.GET_TASKS_AFTER);
+        try {
+            return delegate.getTasksAfter(afterId, limit);
+        } catch (RuntimeException e) {
+            throw failed(Method.GET_TASKS_AFTER, e);
+        } finally {
+            record(Method.GET_TASKS_AFTER, start);
+        }
+    }
+
+    @Override
+    public List<Subtask> getSubtasksAfter(int afterId, int limit) {
+        long start = start(Method.GET_SUBTASKS_AFTER);
+        try {
+            return delegate.getSubtasksAfter(afterId, limit);
+        } catch (RuntimeException e) {
+            throw failed(Method.GET_SUBTASKS_AFTER, e);
+        } finally {
+            record(Method.GET_SUBTASKS_AFTER, start);
+        }
+    }
+
+    @Override
+    public List<Epic> getEpicsAfter(int afterId, int limit) {
+        long start = start(Method.GET_EPICS_AFTER);
+        try {
+            return delegate.getEpicsAfter(afterId, limit);
+        } catch (RuntimeException e) {
+            throw failed(Method.GET_EPICS_AFTER, e);
+        } finally {
+            record(Method.GET_EPICS_AFTER, start);
+        }
+    }
+
+    @Override
+    public Collection<Task> getTasksView() {
+        long start = start(Method.GET_TASKS_VIEW);
+        try {
+            return delegate.getTasksView();
+        } catch (RuntimeException e) {
+            throw failed(Method.GET_TASKS_VIEW, e);
+        } finally {
+            record(Method.GET_TASKS_VIEW, start);
+        }
+    }
+
+    @Override
+    public Collection<Subtask> getSubtasksView() {
+        long start = start(Method.GET_SUBTASKS_VIEW);
+        try {
+            return delegate.getSubtasksView();
+        } catch (RuntimeException e) {
+            throw failed(Method.GET_SUBTASKS_VIEW, e);
+        } finally {
+            record(Method.GET_SUBTASKS_VIEW, start);
+        }
+    }
+
+    @Override
+    public Collection<Epic> getEpicsView() {
+        long start = start(Method.GET_EPICS_VIEW);
+        try {
+            return delegate.getEpicsView();
+        } catch (RuntimeException e) {
+            throw failed(Method.GET_EPICS_VIEW, e);
+        } finally {
+            record(Method.GET_EPICS_VIEW, start);
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        long start = start(Method.GET_HISTORY);
+        try {
+            return delegate.getHistory();
+        } catch (RuntimeException e) {
+            throw failed(Method.GET_HISTORY, e);
+        } finally {
+            record(Method.GET_HISTORY, start);
+        }
+    }
+
+    @Override
+    public Stream<Task> streamHistory() {
+        long start = start(Method.STREAM_HISTORY);
+        try {
+            return delegate.streamHistory();
+        } catch (RuntimeException e) {
+            throw failed(Method.STREAM_HISTORY, e);
+        } finally {
+            record(Method.STREAM_HISTORY, start);
+        }
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        long start = start(Method.GET_PRIORITIZED_TASKS);
+        try {
+            return delegate.getPrioritizedTasks();
+        } catch (RuntimeException e) {
+            throw failed(Method.GET_PRIORITIZED_TASKS, e);
+        } finally {
+            record(Method.GET_PRIORITIZED_TASKS, start);
+        }
+    }
+
+    @Override
+    public List<Task> getTasksByStatus(Status status) {
+        long start = start(Method.GET_TASKS_BY_STATUS);
+        try {
+            return delegate.getTasksByStatus(status);
+        } catch (RuntimeException e) {
+            throw failed(Method.GET_TASKS_BY_STATUS, e);
+        } finally {
+            record(Method.GET_TASKS_BY_STATUS, start);
+        }
+    }
+
+    @Override
+    public List<Subtask> getSubtasksByStatus(Status status) {
+        long start = start(Method.GET_SUBTASKS_BY_STATUS);
+        try {
+            return delegate.getSubtasksByStatus(status);
+        } catch (RuntimeException e) {
+            throw failed(Method.GET_SUBTASKS_BY_STATUS, e);
+        } finally {
+            record(Method.GET_SUBTASKS_BY_STATUS, start);
+        }
+    }
+
+    @Override
+    public List<Epic> getEpicsByStatus(Status status) {
+        long start = start(Method.GET_EPICS_BY_STATUS);
+        try {
+            return delegate.getEpicsByStatus(status);
+        } catch (RuntimeException e) {
+            throw failed(Method.GET_EPICS_BY_STATUS, e);
+        } finally {
+            record(Method.GET_EPICS_BY_STATUS, start);
+        }
+    }
+
+    @Override
+    public List<Subtask> getEpicSubtasks(int epicId) {
+        long start = start(Method.GET_EPIC_SUBTASKS);
+        try {
+            return delegate.getEpicSubtasks(epicId);
+        } catch (RuntimeException e) {
+            throw failed(Method.GET_EPIC_SUBTASKS, e);
+        } finally {
+            record(Method.GET_EPIC_SUBTASKS, start);
+        }
+    }
+
+    @Override
+    public List<Subtask> getEpicSubtasksByStatus(int epicId, Status status) {
+        long start = start(Method.GET_EPIC_SUBTASKS_BY_STATUS);
+        try {
+            return delegate.getEpicSubtasksByStatus(epicId, status);
+        } catch (RuntimeException e) {
+            throw failed(Method.GET_EPIC_SUBTASKS_BY_STATUS, e);
+        } finally {
+            record(Method.GET_EPIC_SUBTASKS_BY_STATUS, start);
+        }
+    }
+
+    @Override
+    public int[] search(String query, int limit) {
+        long start = start(Method.SEARCH);
+        try {
+            return delegate.search(query, limit);
+        } catch (RuntimeException e) {
+            throw failed(Method.SEARCH, e);
+        } finally {
+            record(Method.SEARCH, start);
+        }
+    }
+
+    @Override
+    public BoardStatistics getStatistics(int largestEpics) {
+        long start = start(Method.GET_STATISTICS);
+        try {
+            return delegate.getStatistics(largestEpics);
+        } catch (RuntimeException e) {
+            throw failed(Method.GET_STATISTICS, e);
+        } finally {
+            record(Method.GET_STATISTICS, start);
+        }
+    }
+
+    @Override
+    public StatusCounts getStatusCounts() {
+        long start = start(Method.GET_STATUS_COUNTS);
+        try {
+            return delegate.getStatusCounts();
+        } catch (RuntimeException e) {
+            throw failed(Method.GET_STATUS_COUNTS, e);
+        } finally {
+            record(Method.GET_STATUS_COUNTS, start);
+        }
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        long start = start(Method.UPDATE_TASK);
+        try {
+            delegate.updateTask(task);
+        } catch (RuntimeException e) {
+            throw failed(Method.UPDATE_TASK, e);
+        } finally {
+            record(Method.UPDATE_TASK, start);
+        }
+    }
+
+    @Override
+    public boolean updateTask(Task task, int expectedVersion) {
+        long start = start(Method.UPDATE_TASK_VERSIONED);
+        try {
+            return delegate.updateTask(task, expectedVersion);
+        } catch (RuntimeException e) {
+            throw failed(Method.UPDATE_TASK_VERSIONED, e);
+        } finally {
+            record(Method.UPDATE_TASK_VERSIONED, start);
+        }
+    }
+
+    @Override
+    public boolean updateSubtask(Subtask subtask, int expectedVersion) {
+        long start = start(Method.UPDATE_SUBTASK_VERSIONED);
+        try {
+            return delegate.updateSubtask(subtask, expectedVersion);
+        } catch (RuntimeException e) {
+            throw failed(Method.UPDATE_SUBTASK_VERSIONED, e);
+        } finally {
+            record(Method.UPDATE_SUBTASK_VERSIONED, start);
+        }
+    }
+
+    @Override
+    public boolean updateEpic(Epic epic, int expectedVersion) {
+        long start = start(Method.UPDATE_EPIC_VERSIONED);
+        try {
+            return delegate.updateEpic(epic, expectedVersion);
+        } catch (RuntimeException e) {
+            throw failed(Method.UPDATE_EPIC_VERSIONED, e);
+        } finally {
+            record(Method.UPDATE_EPIC_VERSIONED, start);
+        }
+    }
+
+    @Override
+    public void updateEpicStatus(int epicId) {
+        long start = start(Method.UPDATE_EPIC_STATUS);
+        try {
+            delegate.updateEpicStatus(epicId);
+        } catch (RuntimeException e) {
+            throw failed(Method.UPDATE_EPIC_STATUS, e);
+        } finally {
+            record(Method.UPDATE_EPIC_STATUS, start);
+        }
+    }
+
+    @Override
+    public void applyBatch(TaskBatch batch) {
+        long start = start(Method.APPLY_BATCH);
+        try {
+            delegate.applyBatch(batch);
+        } catch (RuntimeException e) {
+            throw failed(Method.APPLY_BATCH, e);
+        } finally {
+            record(Method.APPLY_BATCH, start);
+        }
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        long start = start(Method.UPDATE_SUBTASK);
+        try {
+            delegate.updateSubtask(subtask);
+        } catch (RuntimeException e) {
+            throw failed(Method.UPDATE_SUBTASK, e);
+        } finally {
+            record(Method.UPDATE_SUBTASK, start);
+        }
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        long start = start(Method.UPDATE_EPIC);
+        try {
+            delegate.updateEpic(epic);
+        } catch (RuntimeException e) {
+            throw failed(Method.UPDATE_EPIC, e);
+        } finally {
+            record(Method.UPDATE_EPIC, start);
+        }
+    }
+
+    @Override
+    public int deleteTask(int id) {
+        long start = start(Method.DELETE_TASK);
+        try {
+            return delegate.deleteTask(id);
+        } catch (RuntimeException e) {
+            throw failed(Method.DELETE_TASK, e);
+        } finally {
+            record(Method.DELETE_TASK, start);
+        }
+    }
+
+    @Override
+    public void deleteAllTasks() {
+        long start = start(Method.DELETE_ALL_TASKS);
+        try {
+            delegate.deleteAllTasks();
+        } catch (RuntimeException e) {
+            throw failed(Method.DELETE_ALL_TASKS, e);
+        } finally {
+            record(Method.DELETE_ALL_TASKS, start);
+        }
+    }
+
+    @Override
+    public void deleteAllSubTasks() {
+        long start = start(Method.DELETE_ALL_SUBTASKS);
+        try {
+            delegate.deleteAllSubTasks();
+        } catch (RuntimeException e) {
+            throw failed(Method.DELETE_ALL_SUBTASKS, e);
+        } finally {
+            record(Method.DELETE_ALL_SUBTASKS, start);
+        }
+    }
+
+    @Override
+    public void deleteAllEpics() {
+        long start = start(Method.DELETE_ALL_EPICS);
+        try {
+            delegate.deleteAllEpics();
+        } catch (RuntimeException e) {
+            throw failed(Method.DELETE_ALL_EPICS, e);
+        } finally {
+            record(Method.DELETE_ALL_EPICS, start);
+        }
+    }
+
+    @Override
+    public int deleteSubtask(int id) {
+        long start = start(Method.DELETE_SUBTASK);
+        try {
+            return delegate.deleteSubtask(id);
+        } catch (RuntimeException e) {
+            throw failed(Method.DELETE_SUBTASK, e);
+        } finally {
+            record(Method.DELETE_SUBTASK, start);
+        }
+    }
+
+    @Override
+    public int deleteEpic(int id) {
+        long start = start(Method.DELETE_EPIC);
+        try {
+            return delegate.deleteEpic(id);
+        } catch (RuntimeException e) {
+            throw failed(Method.DELETE_EPIC, e);
+        } finally {
+            record(Method.DELETE_EPIC, start);
+        }
+    }
+
+    // NestedEpics и TaskDependencies с метриками; вызываются только подклассами из wrap, когда delegate их реализует
+    private List<Epic> childEpics(int epicId) {
+        long start = start(Method.GET_CHILD_EPICS);
+        try {
+            return ((NestedEpics) delegate).getChildEpics(epicId);
+        } catch (RuntimeException e) {
+            throw failed(Method.GET_CHILD_EPICS, e);
+        } finally {
+            record(Method.GET_CHILD_EPICS, start);
+        }
+    }
+
+    private boolean epicMoved(int epicId, int parentId) {
+        long start = start(Method.MOVE_EPIC);
+        try {
+            return ((NestedEpics) delegate).moveEpic(epicId, parentId);
+        } catch (RuntimeException e) {
+            throw failed(Method.MOVE_EPIC, e);
+        } finally {
+            record(Method.MOVE_EPIC, start);
+        }
+    }
+
+    private boolean dependencyAdded(int blockerId, int blockedId) {
+        long start = start(Method.ADD_DEPENDENCY);
+        try {
+            return ((TaskDependencies) delegate).addDependency(blockerId, blockedId);
+        } catch (RuntimeException e) {
+            throw failed(Method.ADD_DEPENDENCY, e);
+        } finally {
+            record(Method.ADD_DEPENDENCY, start);
+        }
+    }
+
+    private boolean dependencyRemoved(int blockerId, int blockedId) {
+        long start = start(Method.REMOVE_DEPENDENCY);
+        try {
+            return ((TaskDependencies) delegate).removeDependency(blockerId, blockedId);
+        } catch (RuntimeException e) {
+            throw failed(Method.REMOVE_DEPENDENCY, e);
+        } finally {
+            record(Method.REMOVE_DEPENDENCY, start);
+        }
+    }
+
+    private boolean ready(int id) {
+        long start = start(Method.IS_READY);
+        try {
+            return ((TaskDependencies) delegate).isReady(id);
+        } catch (RuntimeException e) {
+            throw failed(Method.IS_READY, e);
+        } finally {
+            record(Method.IS_READY, start);
+        }
+    }
+
+    private List<Task> readyTasks() {
+        long start = start(Method.GET_READY_TASKS);
+        try {
+            return ((TaskDependencies) delegate).getReadyTasks();
+        } catch (RuntimeException e) {
+            throw failed(Method.GET_READY_TASKS, e);
+        } finally {
+            record(Method.GET_READY_TASKS, start);
+        }
+    }
+
+    // Считает вызов и решает, замерять ли его: возвращает время начала или NOT_SAMPLED
+    private long start(Method method) {
+        calls[method.ordinal()].increment();
+        if (sampleRate > 1 && ThreadLocalRandom.current().nextInt(sampleRate) != 0) {
+            return NOT_SAMPLED;
+        }
+        return System.nanoTime();
+    }
+
+    private void record(Method method, long start) {
+        if (start != NOT_SAMPLED) {
+            latencies[method.ordinal()].record(System.nanoTime() - start);
+        }
+    }
+
+    private RuntimeException failed(Method method, RuntimeException e) {
+        errors[method.ordinal()].increment();
+        return e;
+    }
+
+    private void register(MBeanServer server, ObjectName objectName, Object bean) throws JMException {
+        server.registerMBean(bean, objectName);
+        registeredBeans.add(objectName);
+    }
+
+    // Размеры хранилищ и истории; вызывается в потоке, которому разрешено читать менеджер
+    private Gauges measureGauges() {
+        long history;
+        try (Stream<Task> stream = delegate.streamHistory()) {
+            history = stream.count();
+        }
+        return new Gauges(delegate.getTasksView().size(), delegate.getSubtasksView().size(),
+                delegate.getEpicsView().size(), history, epicFanOut(), System.currentTimeMillis());
+    }
+
+    // Размеры для JMX: у потокобезопасного менеджера устаревшие пересчитываются в потоке JMX
+    private Gauges currentGauges() {
+        Gauges current = gauges;
+        if (threadSafeDelegate && System.currentTimeMillis() - current.measuredAt() >= GAUGE_MAX_AGE_MILLIS) {
+            current = measureGauges();
+            gauges = current;
+        }
+        return current;
+    }
+
+    // Распределение эпиков по числу подзадач; обход хранилища занимает O(эпиков)
+    private long[] epicFanOut() {
+        long[] buckets = new long[33];
+        int used = 1;
+        for (Epic epic : delegate.getEpicsView()) {
+            int size = epic.getSubtaskIds().size();
+            int bucket = 32 - Integer.numberOfLeadingZeros(size); // 0 -> 0, 1 -> 1, 2..3 -> 2, 4..7 -> 3
+            buckets[bucket]++;
+            used = Math.max(used, bucket + 1);
+        }
+        return Arrays.copyOf(buckets, used);
+    }
+
+    private class ManagerBean implements TaskManagerMetricsMXBean {
+        @Override
+        public int getTaskCount() {
+            return currentGauges().taskCount();
+        }
+
+        @Override
+        public int getSubtaskCount() {
+            return currentGauges().subtaskCount();
+        }
+
+        @Override
+        public int getEpicCount() {
+            return currentGauges().epicCount();
+        }
+
+        @Override
+        public long getHistorySize() {
+            return currentGauges().historySize();
+        }
+
+        @Override
+        public long[] getEpicFanOut() {
+            return currentGauges().epicFanOut().clone();
+        }
+
+        @Override
+        public long getGaugesMeasuredAt() {
+            return currentGauges().measuredAt();
+        }
+
+        @Override
+        public void resetMethodStats() {
+            reset();
+        }
+    }
+
+    private class MethodBean implements MethodMetricsMXBean {
+        private final Method method;
+
+        MethodBean(Method method) {
+            this.method = method;
+        }
+
+        @Override
+        public long getCalls() {
+            return calls[method.ordinal()].sum();
+        }
+
+        @Override
+        public long getErrors() {
+            return errors[method.ordinal()].sum();
+        }
+
+        @Override
+        public double getMeanNanos() {
+            return latencies[method.ordinal()].getMean();
+        }
+
+        @Override
+        public long getP50Nanos() {
+            return latencies[method.ordinal()].getValueAtPercentile(50);
+        }
+
+        @Override
+        public long getP99Nanos() {
+            return latencies[method.ordinal()].getValueAtPercentile(99);
+        }
+
+        @Override
+        public long getP999Nanos() {
+            return latencies[method.ordinal()].getValueAtPercentile(99.9);
+        }
+
+        @Override
+        public long getMaxNanos() {
+            return latencies[method.ordinal()].getMax();
+        }
+    }
+
+    private static class WithNesting extends MetricsTaskManager implements NestedEpics {
+        WithNesting(TaskManager delegate, int sampleRate) {
+            super(delegate, sampleRate);
+        }
+
+        @Override
+        public List<Epic> getChildEpics(int epicId) {
+            return super.childEpics(epicId);
+        }
+
+        @Override
+        public boolean moveEpic(int epicId, int parentId) {
+            return super.epicMoved(epicId, parentId);
+        }
+    }
+
+    private static class WithDependencies extends MetricsTaskManager implements TaskDependencies {
+        WithDependencies(TaskManager delegate, int sampleRate) {
+            super(delegate, sampleRate);
+        }
+
+        @Override
+        public boolean addDependency(int blockerId, int blockedId) {
+            return super.dependencyAdded(blockerId, blockedId);
+        }
+
+        @Override
+        public boolean removeDependency(int blockerId, int blockedId) {
+            return super.dependencyRemoved(blockerId, blockedId);
+        }
+
+        @Override
+        public boolean isReady(int id) {
+            return super.ready(id);
+        }
+
+        @Override
+        public List<Task> getReadyTasks() {
+            return super.readyTasks();
+        }
+    }
+
+    private static class WithNestingAndDependencies extends WithDependencies implements NestedEpics {
+        WithNestingAndDependencies(TaskManager delegate, int sampleRate) {
+            super(delegate, sampleRate);
+        }
+
+        // Закрытые методы MetricsTaskManager не видны через super промежуточного класса, отсюда приведение
+        @Override
+        public List<Epic> getChildEpics(int epicId) {
+            return ((MetricsTaskManager) this).childEpics(epicId);
+        }
+
+        @Override
+        public boolean moveEpic(int epicId, int parentId) {
+            return ((MetricsTaskManager) this).epicMoved(epicId, parentId);
+        }
+    }
+}
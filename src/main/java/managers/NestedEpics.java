@@ -0,0 +1,16 @@
+package managers;
+
+import tasks.Epic;
+
+import java.util.List;
+
+// Вложенные эпики (инициатива -> эпики -> подзадачи) — отдельная возможность менеджера, а не часть TaskManager.
+// Эпик с getParentId() != 0 создается через createEpic внутри этого эпика (null, если родителя нет).
+// Статус вложенного эпика учитывается в статусе родителя так же, как статус подзадачи
+public interface NestedEpics {
+    List<Epic> getChildEpics(int epicId);
+
+    // Переносит эпик в parentId (0 — на верхний уровень); false — эпик или родитель не найден.
+    // Вложение эпика в самого себя или своего потомка — IllegalArgumentException
+    boolean moveEpic(int epicId, int parentId);
+}
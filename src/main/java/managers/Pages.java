@@ -0,0 +1,77 @@
+package managers;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+
+// Постраничная выдача из живых представлений хранилищ
+final class Pages {
+    private Pages() {
+    }
+
+    // Возвращает не больше limit элементов после первых offset; копируется только сама страница
+    static <T> List<T> of(Collection<T> view, int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException(
+                    "Смещение и размер страницы не могут быть отрицательными: " + offset + ", " + limit);
+        }
+        List<T> page = new ArrayList<>(Math.min(limit, Math.max(view.size() - offset, 0)));
+        Iterator<T> iterator = view.iterator();
+        for (int i = 0; i < offset && iterator.hasNext(); i++) {
+            iterator.next(); // Пропускаем элементы предыдущих страниц без копирования
+        }
+        while (page.size() < limit && iterator.hasNext()) {
+            page.add(iterator.next());
+        }
+        return page;
+    }
+
+    // Страница по курсору: не больше limit элементов с id больше afterId по возрастанию id. size — размер
+    // хранилища, lastId — наибольший выданный id, lookup ищет элемент по id (null — нет), ids перебирает id
+    // хранилища. Если id после курсора не больше, чем элементов, они проверяются по одному поиском по id,
+    // иначе хранилище обходится один раз с отбором limit наименьших id: страница стоит
+    // O(min(lastId - afterId, size)), а не O(смещения), и не сдвигается, когда хранилище переставляет элементы
+    static <T> List<T> after(int size, int lastId, int afterId, int limit, IntFunction<T> lookup,
+                             Consumer<IntConsumer> ids) {
+        if (afterId < 0 || limit < 0) {
+            throw new IllegalArgumentException(
+                    "Курсор и размер страницы не могут быть отрицательными: " + afterId + ", " + limit);
+        }
+        List<T> page = new ArrayList<>(Math.min(limit, size));
+        if (limit == 0) {
+            return page;
+        }
+        if ((long) lastId - afterId <= size) {
+            for (long id = afterId + 1L; id <= lastId && page.size() < limit; id++) {
+                T item = lookup.apply((int) id);
+                if (item != null) {
+                    page.add(item);
+                }
+            }
+            return page;
+        }
+        PriorityQueue<Integer> smallest = new PriorityQueue<>(Comparator.reverseOrder()); // Наибольший — в вершине
+        ids.accept(id -> {
+            if (id > afterId && (smallest.size() < limit || id < smallest.peek())) {
+                smallest.add(id);
+                if (smallest.size() > limit) {
+                    smallest.poll();
+                }
+            }
+        });
+        int[] selected = smallest.stream().mapToInt(Integer::intValue).sorted().toArray();
+        for (int id : selected) {
+            T item = lookup.apply(id);
+            if (item != null) { // Параллельно удаленный элемент пропускается
+                page.add(item);
+            }
+        }
+        return page;
+    }
+}
@@ -0,0 +1,186 @@
+package managers;
+
+import tasks.Task;
+import util.IntIntHashMap;
+import util.IntObjectHashMap;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+// Инвертированный индекс по названиям и описаниям задач для поиска по словам и их началу.
+// Слово — непрерывная последовательность букв и цифр любого алфавита (кириллица, латиница),
+// приведенная к нижнему регистру, "ё" приравнена к "е". Вес слова в задаче — 3 за каждое
+// вхождение в название и 1 за вхождение в описание; ранг задачи — сумма весов найденных слов
+final class SearchIndex {
+    private static final int TITLE_WEIGHT = 3;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    // Проиндексированная задача: слова для удаления и ссылки на проиндексированные название и описание.
+    // Ссылки ведут на тексты самого хранилища (строки или сжатые описания пула), поэтому текст в индексе
+    // не дублируется. Хранилище, которое держит текст вне кучи, ссылок не оставляет (textKept == false)
+    private record Document(CharSequence title, CharSequence description, boolean textKept, String[] terms) {
+    }
+
+    // Обработчик слова; prefix — за словом в запросе стоит '*'
+    @FunctionalInterface
+    private interface TokenConsumer {
+        void accept(String token, boolean prefix);
+    }
+
+    private final NavigableMap<String, IntIntHashMap> postings = new TreeMap<>(); // Слово -> (id -> вес)
+    private final IntObjectHashMap<Document> documents = new IntObjectHashMap<>();
+
+    // Индексирует хранимую задачу или обновляет её слова, если название или описание изменились.
+    // Индекс запоминает ссылки на тексты задачи, поэтому вызывается для объектов, которые держит хранилище
+    void put(Task task) {
+        Document previous = documents.get(task.getId());
+        if (previous != null && previous.textKept() && sameText(previous.title(), task.getTitle())
+                && sameText(previous.description(), task.getDescriptionText())) {
+            return; // Текст не менялся
+        }
+        index(task, true);
+    }
+
+    // Переиндексирует задачу без сравнения и не запоминает её тексты: для хранилищ, где текст лежит
+    // вне кучи и объект задачи собирается на время вызова
+    void replace(Task task) {
+        index(task, false);
+    }
+
+    private void index(Task task, boolean keepText) {
+        remove(task.getId());
+        Map<String, Integer> weights = new HashMap<>();
+        tokenize(task.getTitle(), (token, prefix) -> weights.merge(token, TITLE_WEIGHT, Integer::sum));
+        tokenize(task.getDescription(), (token, prefix) -> weights.merge(token, DESCRIPTION_WEIGHT, Integer::sum));
+        for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), term -> new IntIntHashMap(4)).put(task.getId(), entry.getValue());
+        }
+        String[] terms = weights.keySet().toArray(new String[0]);
+        documents.put(task.getId(), keepText
+                ? new Document(task.getTitle(), task.getDescriptionText(), true, terms)
+                : new Document(null, null, false, terms));
+    }
+
+    void remove(int id) {
+        Document document = documents.remove(id);
+        if (document == null) {
+            return;
+        }
+        for (String term : document.terms()) {
+            IntIntHashMap ids = postings.get(term);
+            if (ids != null && ids.remove(id) && ids.isEmpty()) {
+                postings.remove(term); // Словарь не хранит слова без задач
+            }
+        }
+    }
+
+    // Количество проиндексированных задач
+    int size() {
+        return documents.size();
+    }
+
+    // Ищет задачи, содержащие все слова запроса; слово со звездочкой на конце ("прое*") ищется
+    // как начало слова. Возвращает не больше limit id по убыванию ранга, при равенстве — по возрастанию id
+    int[] search(String query, int limit) {
+        long[] ranked = rank(query, limit);
+        int[] result = new int[ranked.length];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = idOf(ranked[i]);
+        }
+        return result;
+    }
+
+    // Те же результаты в виде ключей ранга по убыванию: ранг в старших битах, перевернутый id в младших.
+    // Ключи разных индексов сравнимы между собой, поэтому выдачи нескольких индексов сливаются по ключам
+    long[] rank(String query, int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Размер выдачи не может быть отрицательным: " + limit);
+        }
+        IntIntHashMap[] scores = new IntIntHashMap[1]; // Кандидаты и их ранги (null — слов еще не было)
+        tokenize(query, (token, prefix) -> {
+            IntIntHashMap matches = new IntIntHashMap();
+            Map<String, IntIntHashMap> terms = prefix
+                    ? postings.subMap(token, true, token + Character.MAX_VALUE, false)
+                    : postings.subMap(token, true, token, true);
+            for (IntIntHashMap ids : terms.values()) {
+                ids.forEach(matches::addTo);
+            }
+            if (scores[0] == null) {
+                scores[0] = matches;
+                return;
+            }
+            IntIntHashMap retained = new IntIntHashMap(Math.min(scores[0].size(), matches.size()));
+            scores[0].forEach((id, score) -> {
+                int weight = matches.get(id, 0);
+                if (weight > 0) {
+                    retained.put(id, score + weight); // Остаются задачи со всеми словами запроса
+                }
+            });
+            scores[0] = retained;
+        });
+        if (scores[0] == null || limit == 0) {
+            return new long[0];
+        }
+
+        // Ранг в старших битах, перевернутый id в младших: по возрастанию ключей идут худшие результаты
+        long[] ranked = new long[scores[0].size()];
+        int[] count = new int[1];
+        scores[0].forEach((id, score) -> ranked[count[0]++] = ((long) score << 32) | (Integer.MAX_VALUE - id));
+        Arrays.sort(ranked);
+        long[] result = new long[Math.min(limit, ranked.length)];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = ranked[ranked.length - 1 - i];
+        }
+        return result;
+    }
+
+    // Id задачи по ключу ранга
+    static int idOf(long rankKey) {
+        return Integer.MAX_VALUE - (int) rankKey;
+    }
+
+    void clear() {
+        postings.clear();
+        documents.clear();
+    }
+
+    // Совпадает ли текст. Тот же объект (строка пула) сравнивается по ссылке; разные тексты обычно
+    // отличаются длиной или хешем, которые у сжатого описания известны без распаковки. Одинаковые длина
+    // и хеш еще не означают один текст, поэтому тогда тексты сравниваются целиком
+    private static boolean sameText(CharSequence indexed, CharSequence current) {
+        if (indexed == current) {
+            return true;
+        }
+        if (indexed == null || current == null || indexed.length() != current.length()
+                || indexed.hashCode() != current.hashCode()) {
+            return false;
+        }
+        return indexed.toString().equals(current.toString());
+    }
+
+    // Разбивает текст на слова в нижнем регистре
+    private static void tokenize(String text, TokenConsumer consumer) {
+        if (text == null) {
+            return;
+        }
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            while (i < length && !Character.isLetterOrDigit(text.codePointAt(i))) {
+                i += Character.charCount(text.codePointAt(i));
+            }
+            int start = i;
+            while (i < length && Character.isLetterOrDigit(text.codePointAt(i))) {
+                i += Character.charCount(text.codePointAt(i));
+            }
+            if (start < i) {
+                String token = text.substring(start, i).toLowerCase(Locale.ROOT).replace('ё', 'е');
+                consumer.accept(token, i < length && text.charAt(i) == '*');
+            }
+        }
+    }
+}
@@ -0,0 +1,629 @@
+package managers;
+
+import tasks.Epic;
+import tasks.Status;
+import tasks.Subtask;
+import tasks.Task;
+import tasks.TaskSnapshot;
+import tasks.TaskType;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+// Менеджер из N независимых шардов (InMemoryTaskManager под своей блокировкой каждый) для
+// масштабирования по ядрам. Шард владеет задачами и эпиками вместе с их подзадачами, поэтому
+// пересчет статуса эпика и проверка пересечений по времени не выходят за пределы шарда.
+// Шард k выдает id k + m * N, так что id уникальны без общего счетчика, а шард задачи — это id % N.
+// Новые задачи и эпики попадают в шард доски (по ключу board), а без доски — в шард DEFAULT_SHARD,
+// чтобы пересечения по времени и зависимости между ними проверялись так же, как в одном менеджере;
+// выборки по всем задачам и поиск опрашивают шарды параллельно.
+// Хранимые объекты шардов наружу не выходят: их наблюдатель статуса меняет индексы, счетчики и граф
+// зависимостей шарда, и сеттер, вызванный без блокировки шарда, испортил бы их. Поэтому шард хранит
+// копии переданных задач, а чтения возвращают копии, снятые под блокировкой
+public class ShardedTaskManager implements TaskManager, NestedEpics, TaskDependencies {
+    // Шард задач и эпиков, созданных без доски, и пакетов, не ссылающихся на существующие задачи
+    public static final int DEFAULT_SHARD = 0;
+
+    // Порядок задач в getPrioritizedTasks(): по началу, при равенстве — по id
+    private static final Comparator<Scheduled> BY_START =
+            Comparator.comparing(Scheduled::start).thenComparingInt(Scheduled::id);
+
+    // Задача расписания с началом, снятым под блокировкой шарда
+    private record Scheduled(LocalDateTime start, int id, Task task) {
+    }
+
+    private final InMemoryTaskManager[] shards;
+    private final ReentrantLock[] locks;
+
+    // Общая история просмотров; доступ под ее монитором, который берется после блокировки шарда
+    private final HistoryManager historyManager = Managers.getDefaultHistory();
+
+    // По шарду на ядро
+    public ShardedTaskManager() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public ShardedTaskManager(int shardCount) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Количество шардов должно быть положительным: " + shardCount);
+        }
+        shards = new InMemoryTaskManager[shardCount];
+        locks = new ReentrantLock[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new InMemoryTaskManager(i, shardCount);
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    // Шард, которому принадлежит задача с этим id
+    public int shardOf(int id) {
+        return Math.floorMod(id, shards.length);
+    }
+
+    // Шард доски: все задачи и эпики одной доски попадают в один шард
+    public int shardOfBoard(Object board) {
+        return Math.floorMod(board.hashCode(), shards.length);
+    }
+
+    @Override
+    public Task createTask(Task task) {
+        return createTask(task, DEFAULT_SHARD);
+    }
+
+    // Создает задачу в шарде доски board
+    public Task createTask(Task task, Object board) {
+        return createTask(task, shardOfBoard(board));
+    }
+
+    @Override
+    public Subtask createSubtask(Subtask subtask) {
+        int shard = shardOf(subtask.getEpicId()); // Подзадача живет в шарде своего эпика
+        return inShard(shard, manager -> adopt(subtask, manager.createSubtask(copyOf(subtask))));
+    }
+
+    @Override
+    public Epic createEpic(Epic epic) {
+        return createEpic(epic, DEFAULT_SHARD);
+    }
+
+    // Создает эпик в шарде доски board; его подзадачи попадут туда же.
+    // Вложенный эпик всегда создается в шарде родителя
+    public Epic createEpic(Epic epic, Object board) {
+        return createEpic(epic, shardOfBoard(board));
+    }
+
+    @Override
+    public Task getTaskById(int id) {
+        return view(id, task -> !(task instanceof Subtask) && !(task instanceof Epic) ? task : null);
+    }
+
+    @Override
+    public Epic getEpicById(int id) {
+        return view(id, task -> task instanceof Epic epic ? epic : null);
+    }
+
+    @Override
+    public Subtask getSubTaskById(int id) {
+        return view(id, task -> task instanceof Subtask subtask ? subtask : null);
+    }
+
+    @Override
+    public List<Task> getAllTasks() {
+        return concat(fanOut(manager -> copies(manager.getAllTasks())));
+    }
+
+    @Override
+    public List<Subtask> getAllSubtasks() {
+        return concat(fanOut(manager -> copies(manager.getAllSubtasks())));
+    }
+
+    @Override
+    public List<Epic> getAllEpics() {
+        return concat(fanOut(manager -> copies(manager.getAllEpics())));
+    }
+
+    @Override
+    public TaskSnapshot getSnapshot(int id) {
+        return inShard(shardOf(id), manager -> manager.getSnapshot(id));
+    }
+
+    // Страницы идут по шардам по порядку: шарды целиком до offset пропускаются по размеру
+    @Override
+    public List<Task> getAllTasks(int offset, int limit) {
+        return page(offset, limit, InMemoryTaskManager::getTasksView);
+    }
+
+    @Override
+    public List<Subtask> getAllSubtasks(int offset, int limit) {
+        return page(offset, limit, InMemoryTaskManager::getSubtasksView);
+    }
+
+    @Override
+    public List<Epic> getAllEpics(int offset, int limit) {
+        return page(offset, limit, InMemoryTaskManager::getEpicsView);
+    }
+
+    // Страница по курсору сливается из страниц шардов: каждый отдает до limit задач после курсора
+    @Override
+    public List<Task> getTasksAfter(int afterId, int limit) {
+        return pageAfter(limit, manager -> manager.getTasksAfter(afterId, limit));
+    }
+
+    @Override
+    public List<Subtask> getSubtasksAfter(int afterId, int limit) {
+        return pageAfter(limit, manager -> manager.getSubtasksAfter(afterId, limit));
+    }
+
+    @Override
+    public List<Epic> getEpicsAfter(int afterId, int limit) {
+        return pageAfter(limit, manager -> manager.getEpicsAfter(afterId, limit));
+    }
+
+    // Живые представления шардов нельзя читать без их блокировок, поэтому здесь это снимки
+    @Override
+    public Collection<Task> getTasksView() {
+        return Collections.unmodifiableList(getAllTasks());
+    }
+
+    @Override
+    public Collection<Subtask> getSubtasksView() {
+        return Collections.unmodifiableList(getAllSubtasks());
+    }
+
+    @Override
+    public Collection<Epic> getEpicsView() {
+        return Collections.unmodifiableList(getAllEpics());
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        synchronized (historyManager) {
+            return historyManager.getHistory();
+        }
+    }
+
+    @Override
+    public Stream<Task> streamHistory() {
+        return getHistory().stream();
+    }
+
+    // Расписания шардов уже упорядочены, поэтому сортировка сводится к слиянию готовых серий
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        List<Scheduled> merged = concat(fanOut(manager -> {
+            List<Task> prioritized = manager.getPrioritizedTasks();
+            List<Scheduled> scheduled = new ArrayList<>(prioritized.size());
+            for (Task task : prioritized) {
+                scheduled.add(new Scheduled(task.getStartTime(), task.getId(), copyOf(task)));
+            }
+            return scheduled;
+        }));
+        merged.sort(BY_START);
+        List<Task> result = new ArrayList<>(merged.size());
+        for (Scheduled scheduled : merged) {
+            result.add(scheduled.task());
+        }
+        return result;
+    }
+
+    @Override
+    public List<Task> getTasksByStatus(Status status) {
+        return concat(fanOut(manager -> copies(manager.getTasksByStatus(status))));
+    }
+
+    @Override
+    public List<Subtask> getSubtasksByStatus(Status status) {
+        return concat(fanOut(manager -> copies(manager.getSubtasksByStatus(status))));
+    }
+
+    @Override
+    public List<Epic> getEpicsByStatus(Status status) {
+        return concat(fanOut(manager -> copies(manager.getEpicsByStatus(status))));
+    }
+
+    @Override
+    public List<Subtask> getEpicSubtasks(int epicId) {
+        return inShard(shardOf(epicId), manager -> copies(manager.getEpicSubtasks(epicId)));
+    }
+
+    @Override
+    public List<Subtask> getEpicSubtasksByStatus(int epicId, Status status) {
+        return inShard(shardOf(epicId), manager -> copies(manager.getEpicSubtasksByStatus(epicId, status)));
+    }
+
+    @Override
+    public List<Epic> getChildEpics(int epicId) {
+        return inShard(shardOf(epicId), manager -> copies(manager.getChildEpics(epicId)));
+    }
+
+    // Дерево эпиков живет в одном шарде: перенести эпик в эпик другого шарда нельзя
+    @Override
+    public boolean moveEpic(int epicId, int parentId) {
+        int shard = shardOf(epicId);
+        if (parentId != 0 && shardOf(parentId) != shard) {
+            throw new IllegalArgumentException("Эпики " + epicId + " и " + parentId + " лежат в разных шардах");
+        }
+        return inShard(shard, manager -> manager.moveEpic(epicId, parentId));
+    }
+
+    // Зависимости живут в графе шарда, поэтому связанные задачи создаются на одной доске
+    // (подзадачи — в шарде своего эпика); зависимость между шардами — IllegalArgumentException
+    @Override
+    public boolean addDependency(int blockerId, int blockedId) {
+        int shard = shardOf(blockerId);
+        if (shardOf(blockedId) != shard) {
+            throw new IllegalArgumentException("Задачи " + blockerId + " и " + blockedId + " лежат в разных шардах");
+        }
+        return inShard(shard, manager -> manager.addDependency(blockerId, blockedId));
+    }
+
+    @Override
+    public boolean removeDependency(int blockerId, int blockedId) {
+        int shard = shardOf(blockerId);
+        return shardOf(blockedId) == shard && inShard(shard, manager -> manager.removeDependency(blockerId, blockedId));
+    }
+
+    @Override
+    public boolean isReady(int id) {
+        return inShard(shardOf(id), manager -> manager.isReady(id));
+    }
+
+    // Очереди шардов идут подряд в порядке шардов
+    @Override
+    public List<Task> getReadyTasks() {
+        return concat(fanOut(manager -> copies(manager.getReadyTasks())));
+    }
+
+    // Каждый шард отдает свои limit лучших ключей ранга, общая выдача — лучшие limit из них
+    @Override
+    public int[] search(String query, int limit) {
+        List<long[]> ranked = fanOut(manager -> manager.rank(query, limit));
+        long[] merged = new long[ranked.stream().mapToInt(keys -> keys.length).sum()];
+        int size = 0;
+        for (long[] keys : ranked) {
+            System.arraycopy(keys, 0, merged, size, keys.length);
+            size += keys.length;
+        }
+        Arrays.sort(merged);
+        int[] result = new int[Math.min(limit, merged.length)];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = SearchIndex.idOf(merged[merged.length - 1 - i]);
+        }
+        return result;
+    }
+
+    // Шарды считают статистику параллельно; эпик целиком лежит в одном шарде, поэтому его выполнение
+    // берется из шарда как есть, а самые большие эпики выбираются заново из всех
+    @Override
+    public BoardStatistics getStatistics(int largestEpics) {
+        List<BoardStatistics> parts = fanOut(manager -> manager.getStatistics(0));
+        StatusCounts counts = new StatusCounts();
+        List<BoardStatistics.EpicProgress> progress = new ArrayList<>();
+        for (BoardStatistics part : parts) {
+            counts.addAll(part.counts());
+            progress.addAll(part.epics());
+        }
+        return TaskStatistics.of(counts, progress, largestEpics);
+    }
+
+    @Override
+    public StatusCounts getStatusCounts() {
+        StatusCounts counts = new StatusCounts();
+        for (StatusCounts part : fanOut(InMemoryTaskManager::getStatusCounts)) {
+            counts.addAll(part);
+        }
+        return counts;
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        update(task, (manager, copy) -> {
+            manager.updateTask(copy);
+            return true;
+        });
+    }
+
+    @Override
+    public boolean updateTask(Task task, int expectedVersion) {
+        return update(task, (manager, copy) -> manager.updateTask(copy, expectedVersion));
+    }
+
+    @Override
+    public boolean updateSubtask(Subtask subtask, int expectedVersion) {
+        return update(subtask, (manager, copy) -> manager.updateSubtask(copy, expectedVersion));
+    }
+
+    @Override
+    public boolean updateEpic(Epic epic, int expectedVersion) {
+        return update(epic, (manager, copy) -> manager.updateEpic(copy, expectedVersion));
+    }
+
+    @Override
+    public void updateEpicStatus(int epicId) {
+        inShard(shardOf(epicId), manager -> {
+            manager.updateEpicStatus(epicId);
+            return null;
+        });
+    }
+
+    // Пакет применяется атомарно в одном шарде: все существующие задачи, на которые он ссылается,
+    // должны быть в одном шарде, и новые задачи пакета создаются там же
+    @Override
+    public void applyBatch(TaskBatch batch) {
+        int shard = -1;
+        for (TaskBatch.Operation operation : batch.operations()) {
+            int id = referencedId(operation);
+            if (id <= 0) {
+                continue; // Задача создается этим же пакетом
+            }
+            if (shard >= 0 && shard != shardOf(id)) {
+                throw new IllegalArgumentException("Пакет затрагивает задачи разных шардов");
+            }
+            shard = shardOf(id);
+        }
+        int target = shard >= 0 ? shard : DEFAULT_SHARD;
+        InMemoryTaskManager manager = shards[target];
+        ReentrantLock lock = locks[target];
+        lock.lock();
+        try {
+            List<Integer> removed = new ArrayList<>(); // Удаляемые пакетом id, включая подзадачи эпиков
+            for (TaskBatch.Operation operation : batch.operations()) {
+                switch (operation.kind()) {
+                    case DELETE_TASK, DELETE_SUBTASK -> removed.add(operation.id());
+                    case DELETE_EPIC -> {
+                        removed.add(operation.id());
+                        for (Subtask subtask : manager.getEpicSubtasks(operation.id())) {
+                            removed.add(subtask.getId());
+                        }
+                    }
+                    default -> {
+                    }
+                }
+            }
+            Map<Task, Task> copies = new IdentityHashMap<>(); // Задачи пакета и их копии в шарде
+            manager.applyBatch(batch.map(task -> copies.computeIfAbsent(task, ShardedTaskManager::copyOf)));
+            copies.forEach(ShardedTaskManager::adopt);
+            synchronized (historyManager) {
+                for (int id : removed) {
+                    historyManager.remove(id);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        update(subtask, (manager, copy) -> {
+            manager.updateSubtask(copy);
+            return true;
+        });
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        update(epic, (manager, copy) -> {
+            manager.updateEpic(copy);
+            return true;
+        });
+    }
+
+    @Override
+    public int deleteTask(int id) {
+        return inShard(shardOf(id), manager -> {
+            int deleted = manager.deleteTask(id);
+            synchronized (historyManager) {
+                historyManager.remove(id);
+            }
+            return deleted;
+        });
+    }
+
+    @Override
+    public void deleteAllTasks() {
+        deleteAll(InMemoryTaskManager::deleteAllTasks, TaskType.TASK);
+    }
+
+    @Override
+    public void deleteAllSubTasks() {
+        deleteAll(InMemoryTaskManager::deleteAllSubTasks, TaskType.SUBTASK);
+    }
+
+    @Override
+    public void deleteAllEpics() {
+        deleteAll(InMemoryTaskManager::deleteAllEpics, TaskType.EPIC, TaskType.SUBTASK); // С эпиками уходят и подзадачи
+    }
+
+    @Override
+    public int deleteSubtask(int id) {
+        return inShard(shardOf(id), manager -> {
+            int deleted = manager.deleteSubtask(id);
+            synchronized (historyManager) {
+                historyManager.remove(id);
+            }
+            return deleted;
+        });
+    }
+
+    @Override
+    public int deleteEpic(int id) {
+        return inShard(shardOf(id), manager -> {
+            List<Subtask> subtasks = manager.getEpicSubtasks(id);
+            int deleted = manager.deleteEpic(id);
+            synchronized (historyManager) {
+                historyManager.remove(id);
+                for (Subtask subtask : subtasks) {
+                    historyManager.remove(subtask.getId());
+                }
+            }
+            return deleted;
+        });
+    }
+
+    private Task createTask(Task task, int shard) {
+        return inShard(shard, manager -> adopt(task, manager.createTask(copyOf(task))));
+    }
+
+    private Epic createEpic(Epic epic, int shard) {
+        int target = epic.getParentId() != 0 ? shardOf(epic.getParentId()) : shard;
+        return inShard(target, manager -> adopt(epic, manager.createEpic(copyOf(epic))));
+    }
+
+    // Читает задачу в шарде и записывает ее в историю, пока задачу не может изменить другой поток
+    private <T extends Task> T view(int id, Function<Task, T> typed) {
+        ReentrantLock lock = locks[shardOf(id)];
+        lock.lock();
+        try {
+            T task = copyOf(typed.apply(shards[shardOf(id)].findTask(id)));
+            if (task != null) {
+                synchronized (historyManager) {
+                    historyManager.add(task); // История хранит копию
+                }
+            }
+            return task;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Обновляет задачу в шарде ее копией и возвращает вызывающему новую версию
+    private <T extends Task> boolean update(T task, BiPredicate<InMemoryTaskManager, T> action) {
+        return inShard(shardOf(task.getId()), manager -> {
+            T copy = copyOf(task);
+            boolean updated = action.test(manager, copy);
+            task.setVersion(copy.getVersion());
+            if (task instanceof Subtask subtask) {
+                subtask.setEpicId(((Subtask) copy).getEpicId()); // Шард мог оставить подзадачу в прежнем эпике
+            }
+            return updated;
+        });
+    }
+
+    // Выполняет действие над шардом под его блокировкой
+    private <T> T inShard(int shard, Function<InMemoryTaskManager, T> action) {
+        ReentrantLock lock = locks[shard];
+        lock.lock();
+        try {
+            return action.apply(shards[shard]);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Выполняет действие над всеми шардами параллельно; результаты идут в порядке шардов
+    private <T> List<T> fanOut(Function<InMemoryTaskManager, T> action) {
+        if (shards.length == 1) {
+            return List.of(inShard(0, action));
+        }
+        return IntStream.range(0, shards.length).parallel().mapToObj(shard -> inShard(shard, action)).toList();
+    }
+
+    // Очищает хранилища шардов и убирает из общей истории задачи всех удаленных типов
+    private void deleteAll(Consumer<InMemoryTaskManager> action, TaskType... types) {
+        fanOut(manager -> {
+            action.accept(manager);
+            return Boolean.TRUE;
+        });
+        synchronized (historyManager) {
+            for (TaskType type : types) {
+                historyManager.removeAll(type); // Удаления в шардах уже видны: новых просмотров этого типа нет
+            }
+        }
+    }
+
+    private <T extends Task> List<T> page(int offset, int limit,
+                                          Function<InMemoryTaskManager, Collection<T>> view) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException(
+                    "Смещение и размер страницы не могут быть отрицательными: " + offset + ", " + limit);
+        }
+        List<T> page = new ArrayList<>();
+        int skip = offset;
+        for (int shard = 0; shard < shards.length && page.size() < limit; shard++) {
+            ReentrantLock lock = locks[shard];
+            lock.lock();
+            try {
+                Collection<T> items = view.apply(shards[shard]);
+                if (skip >= items.size()) {
+                    skip -= items.size(); // Шард целиком до начала страницы
+                    continue;
+                }
+                page.addAll(copies(Pages.of(items, skip, limit - page.size())));
+                skip = 0;
+            } finally {
+                lock.unlock();
+            }
+        }
+        return page;
+    }
+
+    // Id существующей задачи, на которую ссылается операция пакета (0 — такой нет)
+    private static int referencedId(TaskBatch.Operation operation) {
+        return switch (operation.kind()) {
+            case CREATE_TASK, CREATE_EPIC -> 0;
+            case CREATE_SUBTASK -> operation.parent() != null ? 0 : ((Subtask) operation.task()).getEpicId();
+            case UPDATE_TASK, UPDATE_EPIC, UPDATE_SUBTASK -> operation.task().getId();
+            case DELETE_TASK, DELETE_EPIC, DELETE_SUBTASK -> operation.id();
+        };
+    }
+
+    // Копия задачи для вызывающего; снимается под блокировкой шарда
+    @SuppressWarnings("unchecked")
+    private static <T extends Task> T copyOf(T task) {
+        return task != null ? (T) InMemoryHistoryManager.copyOf(task) : null;
+    }
+
+    private <T extends Task> List<T> pageAfter(int limit, Function<InMemoryTaskManager, List<T>> shardPage) {
+        List<T> merged = concat(fanOut(manager -> copies(shardPage.apply(manager))));
+        merged.sort(Comparator.comparingInt(Task::getId));
+        return merged.size() > limit ? new ArrayList<>(merged.subList(0, limit)) : merged;
+    }
+
+    private static <T extends Task> List<T> copies(Collection<T> tasks) {
+        List<T> result = new ArrayList<>(tasks.size());
+        for (T task : tasks) {
+            result.add(copyOf(task));
+        }
+        return result;
+    }
+
+    // Переносит на задачу вызывающего то, что шард назначил ее копии: id, версию и эпик подзадачи.
+    // null — шард задачу не создал
+    private static <T extends Task> T adopt(T task, Task stored) {
+        if (stored == null) {
+            return null;
+        }
+        task.setId(stored.getId());
+        task.setVersion(stored.getVersion());
+        if (task instanceof Subtask subtask) {
+            subtask.setEpicId(((Subtask) stored).getEpicId());
+        }
+        return task;
+    }
+
+    private static <T> List<T> concat(List<? extends Collection<T>> parts) {
+        List<T> result = new ArrayList<>(parts.stream().mapToInt(Collection::size).sum());
+        for (Collection<T> part : parts) {
+            result.addAll(part);
+        }
+        return result;
+    }
+}
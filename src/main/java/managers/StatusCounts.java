@@ -0,0 +1,68 @@
+package managers;
+
+import tasks.Status;
+import tasks.TaskType;
+
+import java.util.Arrays;
+
+// Количество задач каждого типа в каждом статусе; задача без статуса считается NEW
+public final class StatusCounts {
+    private static final int STATUSES = Status.values().length;
+
+    private final int[] counts = new int[TaskType.values().length * STATUSES];
+
+    StatusCounts() {
+    }
+
+    public int get(TaskType type, Status status) {
+        return counts[index(type, status)];
+    }
+
+    // Все задачи типа
+    public int total(TaskType type) {
+        int total = 0;
+        for (int i = 0; i < STATUSES; i++) {
+            total += counts[type.ordinal() * STATUSES + i];
+        }
+        return total;
+    }
+
+    // Изменяется только при подсчете, до выдачи наружу
+    void add(TaskType type, Status status, int delta) {
+        counts[index(type, status)] += delta;
+    }
+
+    // Добавляет счетчики другой части доски (другого шарда или фрагмента обхода)
+    void addAll(StatusCounts other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+    }
+
+    private static int index(TaskType type, Status status) {
+        return type.ordinal() * STATUSES + (status == null ? Status.NEW : status).ordinal();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return Arrays.equals(counts, ((StatusCounts) o).counts);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(counts);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("StatusCounts{");
+        for (TaskType type : TaskType.values()) {
+            builder.append(type).append('=').append(Arrays.toString(
+                    Arrays.copyOfRange(counts, type.ordinal() * STATUSES, (type.ordinal() + 1) * STATUSES)));
+            builder.append(type.ordinal() + 1 < TaskType.values().length ? ", " : "}");
+        }
+        return builder.toString();
+    }
+}
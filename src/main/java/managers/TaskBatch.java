@@ -0,0 +1,276 @@
+package managers;
+
+import tasks.Epic;
+import tasks.Subtask;
+import tasks.Task;
+import util.IntArrayList;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+
+// Пакет изменений для TaskManager.applyBatch. Операции применяются по порядку и все вместе:
+// если хоть одна из них неприменима, хранилища не меняются. Статус каждого затронутого
+// эпика пересчитывается один раз при фиксации пакета, а не после каждой подзадачи.
+// Отката нет: validate проверяет все, на чем операция менеджера может завершиться исключением
+// (пересечения по времени, отсутствующие и удаленные пакетом задачи, эпик подзадачи, вложенность),
+// а на время applyTo менеджер откладывает все, что может бросить помимо хранилищ: события шины
+// и записи журнала. Новая проверка в create*/update* должна попадать и в validate
+public class TaskBatch {
+    enum Kind {
+        CREATE_TASK, CREATE_EPIC, CREATE_SUBTASK,
+        UPDATE_TASK, UPDATE_EPIC, UPDATE_SUBTASK,
+        DELETE_TASK, DELETE_EPIC, DELETE_SUBTASK
+    }
+
+    // Операция пакета: задача для создания и обновления или id для удаления.
+    // parent — эпик, созданный раньше в этом же пакете, к которому относится новая подзадача
+    record Operation(Kind kind, Task task, int id, Epic parent) {
+    }
+
+    // Хранилище, с которым сверяется пакет перед применением
+    interface Store {
+        boolean containsTask(int id);
+
+        // Id эпика подзадачи или 0, если подзадачи нет
+        int getSubtaskEpicId(int id);
+
+        Epic getEpic(int id);
+
+        // Может ли хранилище создавать вложенные эпики (реализует ли менеджер NestedEpics)
+        boolean supportsNesting();
+
+        TaskSchedule schedule();
+    }
+
+    // Изменение пробного расписания, которое отменяется после проверки
+    private record ScheduleChange(int id, TaskSchedule.Slot previous) {
+    }
+
+    private final List<Operation> operations = new ArrayList<>();
+
+    public TaskBatch createTask(Task task) {
+        return add(Kind.CREATE_TASK, Objects.requireNonNull(task), 0, null);
+    }
+
+    public TaskBatch createEpic(Epic epic) {
+        return add(Kind.CREATE_EPIC, Objects.requireNonNull(epic), 0, null);
+    }
+
+    // Подзадача существующего эпика (по epicId подзадачи)
+    public TaskBatch createSubtask(Subtask subtask) {
+        return add(Kind.CREATE_SUBTASK, Objects.requireNonNull(subtask), 0, null);
+    }
+
+    // Подзадача эпика, созданного раньше в этом же пакете: его id станет известен только при применении
+    public TaskBatch createSubtask(Epic epic, Subtask subtask) {
+        return add(Kind.CREATE_SUBTASK, Objects.requireNonNull(subtask), 0, epic);
+    }
+
+    public TaskBatch updateTask(Task task) {
+        return add(Kind.UPDATE_TASK, Objects.requireNonNull(task), 0, null);
+    }
+
+    public TaskBatch updateEpic(Epic epic) {
+        return add(Kind.UPDATE_EPIC, Objects.requireNonNull(epic), 0, null);
+    }
+
+    public TaskBatch updateSubtask(Subtask subtask) {
+        return add(Kind.UPDATE_SUBTASK, Objects.requireNonNull(subtask), 0, null);
+    }
+
+    public TaskBatch deleteTask(int id) {
+        return add(Kind.DELETE_TASK, null, id, null);
+    }
+
+    public TaskBatch deleteEpic(int id) {
+        return add(Kind.DELETE_EPIC, null, id, null);
+    }
+
+    public TaskBatch deleteSubtask(int id) {
+        return add(Kind.DELETE_SUBTASK, null, id, null);
+    }
+
+    // Количество операций в пакете
+    public int size() {
+        return operations.size();
+    }
+
+    // Количество создаваемых задач: столько id менеджер выделяет пакету одним блоком
+    int creations() {
+        int count = 0;
+        for (Operation operation : operations) {
+            switch (operation.kind()) {
+                case CREATE_TASK, CREATE_EPIC, CREATE_SUBTASK -> count++;
+                default -> {
+                }
+            }
+        }
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return operations.isEmpty();
+    }
+
+    List<Operation> operations() {
+        return Collections.unmodifiableList(operations);
+    }
+
+    // Проверяет, что операции применимы по порядку к хранилищу, ничего в нем не меняя.
+    // Пересечения по времени проверяются на пробном расписании, которое затем откатывается
+    void validate(Store store) {
+        TaskSchedule schedule = store.schedule();
+        Map<Task, Integer> created = new IdentityHashMap<>(); // Созданные пакетом объекты и их пробные id
+        Set<Integer> deleted = new HashSet<>(); // Id, удаленные пакетом (пробные id отрицательны)
+        Map<Integer, IntArrayList> createdSubtasks = new HashMap<>(); // Пробные id новых подзадач по эпикам
+        List<ScheduleChange> changes = new ArrayList<>();
+        try {
+            for (int i = 0; i < operations.size(); i++) {
+                Operation operation = operations.get(i);
+                Task task = operation.task();
+                int trialId = -(i + 1);
+                switch (operation.kind()) {
+                    case CREATE_TASK -> {
+                        requireNew(task, created);
+                        schedule(schedule, trialId, task, changes);
+                        created.put(task, trialId);
+                    }
+                    case CREATE_EPIC -> {
+                        requireNew(task, created);
+                        int parentId = ((Epic) task).getParentId();
+                        if (parentId != 0 && !store.supportsNesting()) {
+                            throw new IllegalArgumentException(
+                                    "Вложенный эпик \"" + task.getTitle() + "\" не поддерживается");
+                        }
+                        if (parentId != 0 && (store.getEpic(parentId) == null || deleted.contains(parentId))) {
+                            throw new IllegalArgumentException("Родительский эпик \"" + task.getTitle() + "\" не найден");
+                        }
+                        created.put(task, trialId);
+                    }
+                    case CREATE_SUBTASK -> {
+                        requireNew(task, created);
+                        Epic parent = operation.parent();
+                        int epicId = parent != null ? created.getOrDefault(parent, 0) : ((Subtask) task).getEpicId();
+                        if (parent != null ? epicId == 0 : store.getEpic(epicId) == null || deleted.contains(epicId)) {
+                            throw new IllegalArgumentException("Эпик подзадачи \"" + task.getTitle() + "\" не найден");
+                        }
+                        if (parent == null && epicId == task.getId()) {
+                            throw new IllegalArgumentException(
+                                    "Подзадача \"" + task.getTitle() + "\" не может быть своим эпиком");
+                        }
+                        schedule(schedule, trialId, task, changes);
+                        created.put(task, trialId);
+                        createdSubtasks.computeIfAbsent(epicId, id -> new IntArrayList()).add(trialId);
+                    }
+                    case UPDATE_TASK, UPDATE_EPIC, UPDATE_SUBTASK -> {
+                        Integer createdId = created.get(task);
+                        int id = createdId != null ? createdId : task.getId();
+                        boolean exists = createdId != null || switch (operation.kind()) {
+                            case UPDATE_TASK -> store.containsTask(id);
+                            case UPDATE_SUBTASK -> store.getSubtaskEpicId(id) != 0;
+                            default -> store.getEpic(id) != null;
+                        };
+                        if (!exists || deleted.contains(id)) {
+                            throw new IllegalArgumentException("Обновляемая задача " + id + " не найдена");
+                        }
+                        // Обновление оставляет подзадачу в ее эпике, поэтому пакет не принимает другой epicId
+                        if (createdId == null && operation.kind() == Kind.UPDATE_SUBTASK
+                                && ((Subtask) task).getEpicId() != store.getSubtaskEpicId(id)) {
+                            throw new IllegalArgumentException("Подзадачу " + id + " нельзя перенести в другой эпик");
+                        }
+                        if (operation.kind() != Kind.UPDATE_EPIC) {
+                            schedule(schedule, id, task, changes);
+                        }
+                    }
+                    case DELETE_TASK, DELETE_SUBTASK -> unschedule(schedule, operation.id(), deleted, changes);
+                    case DELETE_EPIC -> {
+                        Epic epic = store.getEpic(operation.id());
+                        if (epic == null || !deleted.add(operation.id())) {
+                            continue; // Удаление отсутствующего эпика ничего не меняет
+                        }
+                        IntArrayList subtaskIds = epic.getSubtaskIds();
+                        for (int j = 0; j < subtaskIds.size(); j++) {
+                            unschedule(schedule, subtaskIds.getInt(j), deleted, changes);
+                        }
+                        IntArrayList newSubtaskIds = createdSubtasks.getOrDefault(operation.id(), new IntArrayList());
+                        for (int j = 0; j < newSubtaskIds.size(); j++) {
+                            unschedule(schedule, newSubtaskIds.getInt(j), deleted, changes);
+                        }
+                    }
+                }
+            }
+        } finally {
+            for (int i = changes.size() - 1; i >= 0; i--) {
+                schedule.restore(changes.get(i).id(), changes.get(i).previous()); // Откатываем пробное расписание
+            }
+        }
+    }
+
+    // Применяет проверенный пакет через методы менеджера по порядку операций
+    void applyTo(TaskManager manager) {
+        for (Operation operation : operations) {
+            switch (operation.kind()) {
+                case CREATE_TASK -> manager.createTask(operation.task());
+                case CREATE_EPIC -> manager.createEpic((Epic) operation.task());
+                case CREATE_SUBTASK -> {
+                    Subtask subtask = (Subtask) operation.task();
+                    if (operation.parent() != null) {
+                        subtask.setEpicId(operation.parent().getId()); // Эпик уже создан и получил id
+                    }
+                    manager.createSubtask(subtask);
+                }
+                case UPDATE_TASK -> manager.updateTask(operation.task());
+                case UPDATE_EPIC -> manager.updateEpic((Epic) operation.task());
+                case UPDATE_SUBTASK -> manager.updateSubtask((Subtask) operation.task());
+                case DELETE_TASK -> manager.deleteTask(operation.id());
+                case DELETE_EPIC -> manager.deleteEpic(operation.id());
+                case DELETE_SUBTASK -> manager.deleteSubtask(operation.id());
+            }
+        }
+    }
+
+    // Тот же пакет над другими объектами задач (например, копиями). copier должен отдавать для одной задачи
+    // один и тот же объект, иначе операции пакета над ней и ссылки на созданный пакетом эпик разойдутся
+    TaskBatch map(UnaryOperator<Task> copier) {
+        TaskBatch mapped = new TaskBatch();
+        for (Operation operation : operations) {
+            Task task = operation.task() != null ? copier.apply(operation.task()) : null;
+            Epic parent = operation.parent() != null ? (Epic) copier.apply(operation.parent()) : null;
+            mapped.add(operation.kind(), task, operation.id(), parent);
+        }
+        return mapped;
+    }
+
+    private TaskBatch add(Kind kind, Task task, int id, Epic parent) {
+        operations.add(new Operation(kind, task, id, parent));
+        return this;
+    }
+
+    private static void requireNew(Task task, Map<Task, Integer> created) {
+        if (created.containsKey(task)) {
+            throw new IllegalArgumentException("Задача \"" + task.getTitle() + "\" уже создается в этом пакете");
+        }
+    }
+
+    // Проверяет время задачи по пробному расписанию и занимает его
+    private static void schedule(TaskSchedule schedule, int id, Task task, List<ScheduleChange> changes) {
+        if (schedule.overlaps(task.getStartTime(), task.getEndTime(), id)) {
+            throw new TimeOverlapException(task);
+        }
+        changes.add(new ScheduleChange(id, schedule.put(id, task)));
+    }
+
+    private static void unschedule(TaskSchedule schedule, int id, Set<Integer> deleted,
+                                   List<ScheduleChange> changes) {
+        deleted.add(id);
+        changes.add(new ScheduleChange(id, schedule.remove(id)));
+    }
+}
@@ -0,0 +1,21 @@
+package managers;
+
+import tasks.Task;
+
+import java.util.List;
+
+// Зависимости "blockerId блокирует blockedId" между задачами любого типа — отдельная возможность менеджера,
+// а не часть TaskManager
+public interface TaskDependencies {
+    // false — задачи нет или зависимость уже есть; зависимость, замыкающая цикл, — IllegalArgumentException
+    boolean addDependency(int blockerId, int blockedId);
+
+    boolean removeDependency(int blockerId, int blockedId);
+
+    // Готова ли задача: все ее блокеры в статусе DONE (задача без блокеров готова; нет задачи — false)
+    boolean isReady(int id);
+
+    // Очередь готовых задач: невыполненные задачи с зависимостями, все блокеры которых выполнены,
+    // в порядке, в котором они стали готовыми. Обновляется при смене статусов и удалении задач
+    List<Task> getReadyTasks();
+}
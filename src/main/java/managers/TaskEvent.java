@@ -0,0 +1,24 @@
+package managers;
+
+import tasks.Status;
+import tasks.TaskSnapshot;
+
+// События об изменении задач, которые менеджер публикует в шину событий (EventBus).
+// Задачи передаются неизменяемыми снимками, поэтому подписчики читают их в своих потоках без блокировок
+public sealed interface TaskEvent {
+    // Создана задача, подзадача или эпик
+    record Created(TaskSnapshot task) implements TaskEvent {
+    }
+
+    // Задача заменена новой версией
+    record Updated(TaskSnapshot task) implements TaskEvent {
+    }
+
+    // Задача удалена (в том числе вместе с эпиком или при очистке хранилища)
+    record Deleted(int id) implements TaskEvent {
+    }
+
+    // Статус эпика пересчитан и изменился
+    record EpicStatusChanged(int epicId, Status oldStatus, Status newStatus) implements TaskEvent {
+    }
+}
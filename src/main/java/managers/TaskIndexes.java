@@ -0,0 +1,126 @@
+package managers;
+
+import tasks.Epic;
+import tasks.Status;
+import tasks.Subtask;
+import tasks.Task;
+import tasks.TaskType;
+import util.IntObjectHashMap;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+// Вторичные индексы хранилищ: задачи каждого типа по статусу и подзадачи по эпику и статусу.
+// Задача без статуса учитывается как NEW, так же как в счетчиках статусов эпиков
+final class TaskIndexes {
+    private static final Status[] STATUSES = Status.values();
+
+    private final Map<Status, TaskSet<Task>> tasks = new EnumMap<>(Status.class);
+    private final Map<Status, TaskSet<Subtask>> subtasks = new EnumMap<>(Status.class);
+    private final Map<Status, TaskSet<Epic>> epics = new EnumMap<>(Status.class);
+    // Подзадачи по статусу и id эпика; наборы заводятся при первой подзадаче и удаляются пустыми
+    private final Map<Status, IntObjectHashMap<TaskSet<Subtask>>> subtasksByEpic = new EnumMap<>(Status.class);
+
+    TaskIndexes() {
+        for (Status status : STATUSES) {
+            tasks.put(status, new TaskSet<>());
+            subtasks.put(status, new TaskSet<>());
+            epics.put(status, new TaskSet<>());
+            subtasksByEpic.put(status, new IntObjectHashMap<>());
+        }
+    }
+
+    // Учитывает хранимую задачу с её текущим статусом
+    void add(Task task) {
+        add(task, key(task.getStatus()));
+    }
+
+    // Убирает хранимую задачу, учтенную с её текущим статусом
+    void remove(Task task) {
+        remove(task, key(task.getStatus()));
+    }
+
+    // Переносит задачу при смене статуса у хранимого объекта
+    void move(Task task, Status oldStatus, Status newStatus) {
+        if (key(oldStatus) != key(newStatus)) {
+            remove(task, key(oldStatus));
+            add(task, key(newStatus));
+        }
+    }
+
+    List<Task> tasks(Status status) {
+        return tasks.get(key(status)).toList();
+    }
+
+    List<Subtask> subtasks(Status status) {
+        return subtasks.get(key(status)).toList();
+    }
+
+    List<Epic> epics(Status status) {
+        return epics.get(key(status)).toList();
+    }
+
+    List<Subtask> subtasks(int epicId, Status status) {
+        TaskSet<Subtask> set = subtasksByEpic.get(key(status)).get(epicId);
+        return set == null ? List.of() : set.toList();
+    }
+
+    // Количество задач типа в статусе — размер набора индекса, без обхода
+    int count(TaskType type, Status status) {
+        return switch (type) {
+            case TASK -> tasks.get(key(status)).size();
+            case SUBTASK -> subtasks.get(key(status)).size();
+            case EPIC -> epics.get(key(status)).size();
+        };
+    }
+
+    void clearTasks() {
+        tasks.replaceAll((status, set) -> new TaskSet<>());
+    }
+
+    void clearSubtasks() {
+        subtasks.replaceAll((status, set) -> new TaskSet<>());
+        subtasksByEpic.replaceAll((status, map) -> new IntObjectHashMap<>());
+    }
+
+    void clearEpics() {
+        epics.replaceAll((status, set) -> new TaskSet<>());
+    }
+
+    private void add(Task task, Status status) {
+        if (task instanceof Epic epic) {
+            epics.get(status).add(epic);
+        } else if (task instanceof Subtask subtask) {
+            subtasks.get(status).add(subtask);
+            IntObjectHashMap<TaskSet<Subtask>> byEpic = subtasksByEpic.get(status);
+            TaskSet<Subtask> set = byEpic.get(subtask.getEpicId());
+            if (set == null) {
+                set = new TaskSet<>();
+                byEpic.put(subtask.getEpicId(), set);
+            }
+            set.add(subtask);
+        } else {
+            tasks.get(status).add(task);
+        }
+    }
+
+    private void remove(Task task, Status status) {
+        if (task instanceof Epic) {
+            epics.get(status).remove(task.getId());
+        } else if (task instanceof Subtask subtask) {
+            subtasks.get(status).remove(subtask.getId());
+            IntObjectHashMap<TaskSet<Subtask>> byEpic = subtasksByEpic.get(status);
+            TaskSet<Subtask> set = byEpic.get(subtask.getEpicId());
+            if (set != null && set.remove(subtask.getId()) && set.isEmpty()) {
+                byEpic.remove(subtask.getEpicId()); // Не держим пустые наборы удаленных эпиков
+            }
+        } else {
+            tasks.get(status).remove(task.getId());
+        }
+    }
+
+    private static Status key(Status status) {
+        return status == null ? Status.NEW : status;
+    }
+}
@@ -1,16 +1,22 @@
 package managers;
 
 import tasks.Epic;
+import tasks.Status;
 import tasks.Subtask;
 import tasks.Task;
+import tasks.TaskSnapshot;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface TaskManager {
     Task createTask(Task task);
 
     Subtask createSubtask(Subtask subtask);
 
+    // Эпик с getParentId() != 0 создается внутри родителя (см. NestedEpics); null — родителя нет,
+    // а у менеджера без вложенных эпиков родителем не может быть ни один эпик
     Epic createEpic(Epic epic);
 
     Task getTaskById(int id);
@@ -25,12 +31,75 @@ public interface TaskManager {
 
     List<Epic> getAllEpics();
 
+    // Неизменяемый снимок задачи любого типа с ее версией; в историю не попадает (null — задачи нет)
+    TaskSnapshot getSnapshot(int id);
+
+    // Страницы хранилищ: не больше limit задач после первых offset в порядке обхода представления
+    List<Task> getAllTasks(int offset, int limit);
+
+    List<Subtask> getAllSubtasks(int offset, int limit);
+
+    List<Epic> getAllEpics(int offset, int limit);
+
+    // Страницы по курсору для последовательного обхода: не больше limit задач с id больше afterId
+    // по возрастанию id (afterId = 0 — с начала, дальше — id последней задачи страницы). В отличие
+    // от смещения, курсор не сдвигается при удалениях и не требует пропускать предыдущие страницы
+    List<Task> getTasksAfter(int afterId, int limit);
+
+    List<Subtask> getSubtasksAfter(int afterId, int limit);
+
+    List<Epic> getEpicsAfter(int afterId, int limit);
+
+    // Живые представления хранилищ только для чтения, без копирования
+    Collection<Task> getTasksView();
+
+    Collection<Subtask> getSubtasksView();
+
+    Collection<Epic> getEpicsView();
+
     List<Task> getHistory();
 
+    Stream<Task> streamHistory();
+
+    List<Task> getPrioritizedTasks();
+
+    // Выборки по статусу (задача без статуса считается NEW) и по эпику
+    List<Task> getTasksByStatus(Status status);
+
+    List<Subtask> getSubtasksByStatus(Status status);
+
+    List<Epic> getEpicsByStatus(Status status);
+
+    List<Subtask> getEpicSubtasks(int epicId);
+
+    List<Subtask> getEpicSubtasksByStatus(int epicId, Status status);
+
+    // Id задач всех типов, в названии или описании которых есть все слова запроса
+    // ("слово*" — по началу слова), не больше limit, по убыванию ранга
+    int[] search(String query, int limit);
+
+    // Статистика доски: задачи по статусам, выполнение каждого эпика и largestEpics эпиков с наибольшим
+    // числом подзадач. Большие хранилища обходятся параллельно
+    BoardStatistics getStatistics(int largestEpics);
+
+    // Только количество задач по статусам; там, где счетчики поддерживаются при изменениях, — без обхода
+    StatusCounts getStatusCounts();
+
     void updateTask(Task task);
 
+    // Обновления с проверкой версии: задача заменяется, только если хранимая версия равна expectedVersion,
+    // и получает следующую версию. Иначе (в том числе когда задачи нет) ничего не меняется и возвращается false
+    boolean updateTask(Task task, int expectedVersion);
+
+    boolean updateSubtask(Subtask subtask, int expectedVersion);
+
+    boolean updateEpic(Epic epic, int expectedVersion);
+
     void updateEpicStatus(int epicId);
 
+    // Применяет пакет создания, обновления и удаления задач целиком или не применяет вовсе
+    void applyBatch(TaskBatch batch);
+
     void updateSubtask(Subtask subtask);
 
     void updateEpic(Epic epic);
@@ -43,7 +112,7 @@ public interface TaskManager {
 
     void deleteAllEpics();
 
-    void deleteSubtask(int id);
+    int deleteSubtask(int id);
 
     int deleteEpic(int id);
 }
@@ -0,0 +1,21 @@
+package managers;
+
+// Метрики менеджера задач в JMX: размеры хранилищ и истории, распределение подзадач по эпикам
+public interface TaskManagerMetricsMXBean {
+    int getTaskCount();
+
+    int getSubtaskCount();
+
+    int getEpicCount();
+
+    long getHistorySize();
+
+    // Элемент 0 — эпики без подзадач, элемент k — эпики, у которых от 2^(k-1) до 2^k - 1 подзадач
+    long[] getEpicFanOut();
+
+    // Время подсчета размеров (миллисекунды эпохи): по нему видно, насколько устарели значения
+    long getGaugesMeasuredAt();
+
+    // Обнуляет счетчики и гистограммы всех методов
+    void resetMethodStats();
+}
@@ -0,0 +1,119 @@
+package managers;
+
+import tasks.Epic;
+import tasks.Status;
+import tasks.Subtask;
+import tasks.Task;
+import util.IntArrayList;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+// Компактная двоичная запись задач для журнала и снимков FileBackedTaskManager
+final class TaskRecords {
+    static final byte TASK = 0;
+    static final byte EPIC = 1;
+    static final byte SUBTASK = 2;
+
+    static final long NO_TIME = Long.MIN_VALUE; // Секунды отсутствующего времени или продолжительности
+
+    private static final Status[] STATUSES = Status.values();
+
+    private TaskRecords() {
+    }
+
+    // Записывает задачу любого типа: тип, id, статус, строки, время, поля подтипа и версию
+    static void write(DataOutput out, Task task) throws IOException {
+        byte type = task instanceof Epic ? EPIC : task instanceof Subtask ? SUBTASK : TASK;
+        out.writeByte(type);
+        out.writeInt(task.getId());
+        out.writeByte(task.getStatus() == null ? -1 : task.getStatus().ordinal());
+        writeString(out, task.getTitle());
+        writeString(out, task.getDescription());
+        out.writeLong(startSeconds(task.getStartTime()));
+        out.writeInt(task.getStartTime() == null ? 0 : task.getStartTime().getNano());
+        out.writeLong(task.getDuration() == null ? NO_TIME : task.getDuration().getSeconds());
+        out.writeInt(task.getDuration() == null ? 0 : task.getDuration().getNano());
+        if (task instanceof Epic epic) {
+            IntArrayList subtaskIds = epic.getSubtaskIds();
+            out.writeInt(subtaskIds.size());
+            for (int i = 0; i < subtaskIds.size(); i++) {
+                out.writeInt(subtaskIds.getInt(i));
+            }
+        } else if (task instanceof Subtask subtask) {
+            out.writeInt(subtask.getEpicId());
+        }
+        out.writeInt(task.getVersion());
+    }
+
+    // Читает задачу, записанную методом write
+    static Task read(DataInput in) throws IOException {
+        byte type = in.readByte();
+        int id = in.readInt();
+        byte status = in.readByte();
+        String title = readString(in);
+        String description = readString(in);
+        LocalDateTime startTime = startTime(in.readLong(), in.readInt());
+        Duration duration = duration(in.readLong(), in.readInt());
+
+        Task task;
+        switch (type) {
+            case EPIC -> {
+                Epic epic = new Epic(title, description);
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    epic.addSubtask(in.readInt());
+                }
+                task = epic;
+            }
+            case SUBTASK -> task = new Subtask(title, description, in.readInt());
+            case TASK -> task = new Task(title, description);
+            default -> throw new IOException("Неизвестный тип задачи: " + type);
+        }
+        task.setId(id);
+        task.setStatus(status < 0 ? null : STATUSES[status]);
+        task.setStartTime(startTime);
+        task.setDuration(duration);
+        task.setVersion(in.readInt());
+        return task;
+    }
+
+    // Время начала хранится секундами от эпохи (в UTC, без часового пояса) и наносекундами
+    static long startSeconds(LocalDateTime startTime) {
+        return startTime == null ? NO_TIME : startTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    static LocalDateTime startTime(long seconds, int nanos) {
+        return seconds == NO_TIME ? null : LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+    }
+
+    static Duration duration(long seconds, int nanos) {
+        return seconds == NO_TIME ? null : Duration.ofSeconds(seconds, nanos);
+    }
+
+    // Строка в UTF-8 с длиной впереди (-1 — null); в отличие от writeUTF не ограничена 64 КБ
+    static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
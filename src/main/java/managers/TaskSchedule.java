@@ -0,0 +1,110 @@
+package managers;
+
+import tasks.Task;
+import util.IntObjectHashMap;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+// Расписание задач: интервалы [начало, завершение), упорядоченные по началу.
+// Интервал запоминается при добавлении, поэтому изменение задачи снаружи не ломает порядок,
+// а пересечение с уже запланированными задачами проверяется по соседям за O(log n)
+class TaskSchedule {
+    // Время задачи, запомненное расписанием (start == null — задана только продолжительность)
+    record Slot(int id, LocalDateTime start, LocalDateTime end, Duration duration) {
+    }
+
+    private static final Comparator<Slot> BY_START = Comparator.comparing(Slot::start).thenComparingInt(Slot::id);
+
+    private final IntObjectHashMap<Slot> slots = new IntObjectHashMap<>(); // Время всех задач по id
+    private final NavigableSet<Slot> byStart = new TreeSet<>(BY_START);   // Только задачи с началом
+
+    // Время задачи, с которым она учтена в расписании (null — задача без времени)
+    Slot get(int id) {
+        return slots.get(id);
+    }
+
+    // Пересекается ли интервал с запланированными задачами, кроме задачи excludeId
+    boolean overlaps(LocalDateTime start, LocalDateTime end, int excludeId) {
+        if (start == null) {
+            return false; // Незапланированные задачи ни с чем не пересекаются
+        }
+        Slot probe = new Slot(Integer.MAX_VALUE, start, start, null);
+
+        // Запланированные задачи не пересекаются между собой, поэтому достаточно проверить
+        // задачи с тем же началом и ближайших соседей слева и справа
+        LocalDateTime previousStart = null;
+        for (Slot slot : byStart.headSet(probe, true).descendingSet()) {
+            if (slot.id() == excludeId) {
+                continue;
+            }
+            if (previousStart != null && slot.start().isBefore(previousStart)) {
+                break;
+            }
+            if (slot.start().isBefore(end) && start.isBefore(slot.end())) {
+                return true;
+            }
+            if (slot.start().isBefore(start)) {
+                previousStart = slot.start();
+            }
+        }
+        for (Slot slot : byStart.tailSet(probe, false)) {
+            if (slot.id() != excludeId) {
+                return slot.start().isBefore(end);
+            }
+        }
+        return false;
+    }
+
+    // Запоминает текущее время задачи и возвращает прежнее
+    Slot put(Task task) {
+        return put(task.getId(), task);
+    }
+
+    // Запоминает время задачи под заданным id (пробное расписание пакета до назначения id)
+    Slot put(int id, Task task) {
+        Slot previous = remove(id);
+        if (task.getStartTime() != null || task.getDuration() != null) {
+            add(new Slot(id, task.getStartTime(), task.getEndTime(), task.getDuration()));
+        }
+        return previous;
+    }
+
+    // Возвращает задаче id прежнее время (отмена пробного изменения)
+    void restore(int id, Slot previous) {
+        remove(id);
+        if (previous != null) {
+            add(previous);
+        }
+    }
+
+    private void add(Slot slot) {
+        slots.put(slot.id(), slot);
+        if (slot.start() != null) {
+            byStart.add(slot);
+        }
+    }
+
+    // Убирает задачу из расписания и возвращает её прежнее время
+    Slot remove(int id) {
+        Slot previous = slots.remove(id);
+        if (previous != null && previous.start() != null) {
+            byStart.remove(previous);
+        }
+        return previous;
+    }
+
+    // Запланированные задачи в порядке начала
+    NavigableSet<Slot> ordered() {
+        return Collections.unmodifiableNavigableSet(byStart);
+    }
+
+    void clear() {
+        slots.clear();
+        byStart.clear();
+    }
+}
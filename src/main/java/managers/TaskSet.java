@@ -0,0 +1,67 @@
+package managers;
+
+import tasks.Task;
+import util.IntObjectHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Множество задач с добавлением и удалением по id за O(1) и обходом за время, пропорциональное
+// его размеру: задачи лежат в плотном массиве, а позиции в нем — в хеш-таблице по id
+final class TaskSet<T extends Task> {
+    private static final class Entry<T> {
+        T task;       // Задача
+        int position; // Позиция задачи в плотном массиве
+    }
+
+    private final IntObjectHashMap<Entry<T>> entries = new IntObjectHashMap<>();
+    private Object[] dense = new Object[4]; // Записи подряд, без дыр
+    private int size;
+
+    // Добавляет задачу или заменяет задачу с тем же id
+    void add(T task) {
+        Entry<T> entry = entries.get(task.getId());
+        if (entry == null) {
+            entry = new Entry<>();
+            entry.position = size;
+            entries.put(task.getId(), entry);
+            if (size == dense.length) {
+                dense = Arrays.copyOf(dense, size << 1);
+            }
+            dense[size++] = entry;
+        }
+        entry.task = task;
+    }
+
+    // Удаляет задачу по id: на её место переносится последняя запись
+    @SuppressWarnings("unchecked")
+    boolean remove(int id) {
+        Entry<T> entry = entries.remove(id);
+        if (entry == null) {
+            return false;
+        }
+        Entry<T> last = (Entry<T>) dense[--size];
+        dense[entry.position] = last;
+        last.position = entry.position;
+        dense[size] = null;
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    List<T> toList() {
+        List<T> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(((Entry<T>) dense[i]).task);
+        }
+        return list;
+    }
+}
@@ -0,0 +1,107 @@
+package managers;
+
+import tasks.Epic;
+import tasks.Status;
+import tasks.Subtask;
+import tasks.Task;
+import tasks.TaskType;
+import util.IntIntHashMap;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// Подсчет статистики доски одним проходом по каждому хранилищу. Хранилища от PARALLEL_THRESHOLD
+// задач обходятся параллельным потоком: сплитератор делит хранилище на части для fork/join,
+// каждая часть считается в своем накопителе, а накопители потом складываются
+final class TaskStatistics {
+    static final int PARALLEL_THRESHOLD = 10_000;
+
+    private static final Comparator<BoardStatistics.EpicProgress> BY_ID =
+            Comparator.comparingInt(BoardStatistics.EpicProgress::epicId);
+    // Самые большие эпики: по убыванию числа подзадач, при равенстве — по возрастанию id
+    private static final Comparator<BoardStatistics.EpicProgress> BY_SIZE =
+            Comparator.comparingInt(BoardStatistics.EpicProgress::subtaskCount).reversed().thenComparing(BY_ID);
+
+    private TaskStatistics() {
+    }
+
+    // Поток по хранилищу, параллельный для больших хранилищ
+    static <T> Stream<T> stream(Collection<T> store) {
+        return StreamSupport.stream(store.spliterator(), store.size() >= PARALLEL_THRESHOLD);
+    }
+
+    // Полный подсчет по хранилищам, у которых нет готовых счетчиков
+    static BoardStatistics compute(Collection<Task> tasks, Collection<Subtask> subtasks, Collection<Epic> epics,
+                                   int largestEpics) {
+        checkLargest(largestEpics);
+        Tally tally = stream(tasks).collect(Tally::new, Tally::add, Tally::merge);
+        tally.merge(stream(subtasks).collect(Tally::new, Tally::add, Tally::merge));
+        tally.merge(stream(epics).collect(Tally::new, Tally::add, Tally::merge));
+        List<BoardStatistics.EpicProgress> progress = stream(epics)
+                .map(epic -> new BoardStatistics.EpicProgress(epic.getId(), epic.getTitle(),
+                        tally.subtasks.get(epic.getId(), 0), tally.done.get(epic.getId(), 0)))
+                .toList();
+        return of(tally.counts, progress, largestEpics);
+    }
+
+    // Количество задач по статусам без выполнения эпиков
+    static StatusCounts countStatuses(Collection<Task> tasks, Collection<Subtask> subtasks, Collection<Epic> epics) {
+        StatusCounts counts = new StatusCounts();
+        counts.addAll(stream(tasks).collect(Tally::new, Tally::add, Tally::merge).counts);
+        counts.addAll(stream(subtasks).collect(Tally::new, Tally::add, Tally::merge).counts);
+        counts.addAll(stream(epics).collect(Tally::new, Tally::add, Tally::merge).counts);
+        return counts;
+    }
+
+    // Собирает статистику: эпики по возрастанию id и largestEpics самых больших из них
+    static BoardStatistics of(StatusCounts counts, Collection<BoardStatistics.EpicProgress> epics, int largestEpics) {
+        checkLargest(largestEpics);
+        List<BoardStatistics.EpicProgress> sorted = new ArrayList<>(epics);
+        sorted.sort(BY_ID);
+        // Куча из largestEpics элементов: верхушка — самый маленький из отобранных, он и вытесняется
+        PriorityQueue<BoardStatistics.EpicProgress> largest = new PriorityQueue<>(BY_SIZE.reversed());
+        for (BoardStatistics.EpicProgress epic : sorted) {
+            largest.add(epic);
+            if (largest.size() > largestEpics) {
+                largest.poll();
+            }
+        }
+        List<BoardStatistics.EpicProgress> top = new ArrayList<>(largest);
+        top.sort(BY_SIZE);
+        return new BoardStatistics(counts, sorted, top);
+    }
+
+    private static void checkLargest(int largestEpics) {
+        if (largestEpics < 0) {
+            throw new IllegalArgumentException("Количество эпиков не может быть отрицательным: " + largestEpics);
+        }
+    }
+
+    // Накопитель одной части обхода: статусы и, для подзадач, их количество и выполненные по эпикам
+    private static final class Tally {
+        private final StatusCounts counts = new StatusCounts();
+        private final IntIntHashMap subtasks = new IntIntHashMap();
+        private final IntIntHashMap done = new IntIntHashMap();
+
+        void add(Task task) {
+            counts.add(TaskType.of(task), task.getStatus(), 1);
+            if (task instanceof Subtask subtask) {
+                subtasks.addTo(subtask.getEpicId(), 1);
+                if (subtask.getStatus() == Status.DONE) {
+                    done.addTo(subtask.getEpicId(), 1);
+                }
+            }
+        }
+
+        void merge(Tally other) {
+            counts.addAll(other.counts);
+            other.subtasks.forEach(subtasks::addTo);
+            other.done.forEach(done::addTo);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package managers;
+
+import tasks.Task;
+
+// Время задачи пересекается с уже запланированной задачей
+public class TimeOverlapException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public TimeOverlapException(String message) {
+        super(message);
+    }
+
+    public TimeOverlapException(Task task) {
+        this("Задача \"" + task.getTitle() + "\" с " + task.getStartTime()
+                + " по " + task.getEndTime() + " пересекается по времени с другой задачей");
+    }
+}
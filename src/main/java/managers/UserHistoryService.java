@@ -0,0 +1,284 @@
+package managers;
+
+import tasks.Task;
+import tasks.TaskType;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+
+// Истории просмотров всех пользователей в одном сервисе. История пользователя — кольцевой буфер
+// из capacity id задач (без клонов), задачи берутся из хранилища через resolver при чтении,
+// удаленные задачи при этом пропускаются. Истории пользователей, к которым не обращались дольше
+// idleTimeout, evictIdle() выгружает в файлы spillDirectory; следующее обращение загружает их обратно.
+// Потокобезопасен: каждая история меняется под своим монитором
+public class UserHistoryService {
+    public static final int DEFAULT_CAPACITY = 10;
+    public static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofMinutes(10);
+
+    // Кольцевой буфер id от давних просмотров к последним без повторов
+    private static final class Ring {
+        private final int[] ids;
+        private int start;
+        private int size;
+        private long lastAccess = System.nanoTime();
+        private boolean evicted; // Выгружен в файл и убран из карты: обращаться нужно к новой копии
+
+        Ring(int capacity) {
+            ids = new int[capacity];
+        }
+
+        // Повторный просмотр переносит id в конец; в заполненном буфере вытесняется самый давний
+        void add(int id) {
+            remove(id);
+            if (size == ids.length) {
+                start = next(start);
+                size--;
+            }
+            ids[index(size++)] = id;
+        }
+
+        // Сдвигает более поздние id на место удаленного: O(capacity), буфер небольшой
+        void remove(int id) {
+            for (int i = 0; i < size; i++) {
+                if (ids[index(i)] == id) {
+                    for (int j = i + 1; j < size; j++) {
+                        ids[index(j - 1)] = ids[index(j)];
+                    }
+                    size--;
+                    return;
+                }
+            }
+        }
+
+        int[] toArray() {
+            int[] result = new int[size];
+            for (int i = 0; i < size; i++) {
+                result[i] = ids[index(i)];
+            }
+            return result;
+        }
+
+        private int index(int i) {
+            int index = start + i;
+            return index < ids.length ? index : index - ids.length;
+        }
+
+        private int next(int index) {
+            return index + 1 == ids.length ? 0 : index + 1;
+        }
+    }
+
+    // Действие над историей пользователя под ее монитором
+    @FunctionalInterface
+    private interface RingAction<T> {
+        T apply(Ring ring);
+    }
+
+    private final Map<Integer, Ring> users = new ConcurrentHashMap<>();
+    private final int capacity;
+    private final IntFunction<Task> resolver;
+    private final Path spillDirectory;
+    private final long idleNanos;
+
+    public UserHistoryService(int capacity, IntFunction<Task> resolver, Path spillDirectory, Duration idleTimeout) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Емкость истории должна быть положительной: " + capacity);
+        }
+        this.capacity = capacity;
+        this.resolver = resolver;
+        this.spillDirectory = spillDirectory;
+        this.idleNanos = idleTimeout.toNanos();
+        try {
+            Files.createDirectories(spillDirectory);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Не удалось создать каталог историй " + spillDirectory, e);
+        }
+    }
+
+    public void add(int userId, Task task) {
+        if (task == null) {
+            return; // Игнорируем null-задачи, как и InMemoryHistoryManager
+        }
+        int taskId = task.getId();
+        withRing(userId, true, ring -> {
+            ring.add(taskId);
+            return null;
+        });
+    }
+
+    public void remove(int userId, int taskId) {
+        withRing(userId, false, ring -> {
+            ring.remove(taskId);
+            return null;
+        });
+    }
+
+    // Очищает историю пользователя; выгруженный файл при этом загружается и удаляется
+    public void clear(int userId) {
+        withRing(userId, false, ring -> {
+            ring.size = 0;
+            return null;
+        });
+    }
+
+    // Id задач истории пользователя по порядку просмотров, включая уже удаленные задачи
+    public int[] getHistoryIds(int userId) {
+        int[] ids = withRing(userId, false, Ring::toArray);
+        return ids != null ? ids : new int[0];
+    }
+
+    // Актуальные задачи истории пользователя; resolver вызывается без монитора истории
+    public List<Task> getHistory(int userId) {
+        int[] ids = getHistoryIds(userId);
+        List<Task> history = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            Task task = resolver.apply(id);
+            if (task != null) {
+                history.add(task); // Удаленные задачи пропускаются
+            }
+        }
+        return history;
+    }
+
+    // История одного пользователя в виде HistoryManager
+    public HistoryManager forUser(int userId) {
+        return new HistoryManager() {
+            @Override
+            public void add(Task task) {
+                UserHistoryService.this.add(userId, task);
+            }
+
+            @Override
+            public void remove(int id) {
+                UserHistoryService.this.remove(userId, id);
+            }
+
+            // Тип задачи по id известен только хранилищу: удаляются найденные задачи этого типа и удаленные
+            @Override
+            public void removeAll(TaskType type) {
+                for (int id : getHistoryIds(userId)) {
+                    Task task = resolver.apply(id);
+                    if (task == null || TaskType.of(task) == type) {
+                        UserHistoryService.this.remove(userId, id);
+                    }
+                }
+            }
+
+            @Override
+            public void clear() {
+                UserHistoryService.this.clear(userId);
+            }
+
+            @Override
+            public List<Task> getHistory() {
+                return UserHistoryService.this.getHistory(userId);
+            }
+
+            @Override
+            public Stream<Task> streamHistory() {
+                return getHistory().stream();
+            }
+        };
+    }
+
+    // Выгружает на диск истории пользователей, к которым не обращались дольше idleTimeout.
+    // Возвращает количество выгруженных историй; вызывается периодически, например по расписанию
+    public int evictIdle() {
+        long now = System.nanoTime();
+        int evicted = 0;
+        for (Map.Entry<Integer, Ring> entry : users.entrySet()) {
+            Ring ring = entry.getValue();
+            synchronized (ring) {
+                if (ring.evicted || now - ring.lastAccess < idleNanos) {
+                    continue;
+                }
+                if (ring.size > 0) {
+                    spill(entry.getKey(), ring);
+                }
+                ring.evicted = true; // Файл уже записан: следующее обращение загрузит его
+                users.remove(entry.getKey(), ring);
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    // Количество историй в памяти
+    public int getResidentCount() {
+        return users.size();
+    }
+
+    // Выполняет действие над историей пользователя, при необходимости загружая ее с диска.
+    // Без create отсутствующая история не заводится, и возвращается null
+    private <T> T withRing(int userId, boolean create, RingAction<T> action) {
+        while (true) {
+            // Загрузка с диска атомарна для ключа: файл пользователя читает только один поток
+            Ring ring = users.computeIfAbsent(userId, id -> {
+                Ring loaded = load(id);
+                return loaded != null || !create ? loaded : new Ring(capacity);
+            });
+            if (ring == null) {
+                return null;
+            }
+            synchronized (ring) {
+                if (ring.evicted) {
+                    continue; // История выгружена, пока мы ждали монитор
+                }
+                ring.lastAccess = System.nanoTime();
+                return action.apply(ring);
+            }
+        }
+    }
+
+    private Path spillPath(int userId) {
+        return spillDirectory.resolve(userId + ".history");
+    }
+
+    private void spill(int userId, Ring ring) {
+        Path path = spillPath(userId);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            int[] ids = ring.toArray();
+            out.writeInt(ids.length);
+            for (int id : ids) {
+                out.writeInt(id);
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Не удалось выгрузить историю в " + path, e);
+        }
+    }
+
+    // Загружает выгруженную историю и удаляет файл (null — файла нет)
+    private Ring load(int userId) {
+        Path path = spillPath(userId);
+        if (!Files.exists(path)) {
+            return null;
+        }
+        Ring ring = new Ring(capacity);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                ring.add(in.readInt()); // При меньшей емкости остаются последние просмотры
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Не удалось загрузить историю из " + path, e);
+        }
+        try {
+            Files.delete(path);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Не удалось удалить файл истории " + path, e);
+        }
+        return ring;
+    }
+}
@@ -1,30 +1,110 @@
 package tasks;
 
-import java.util.ArrayList;
-import java.util.List;
+import util.IntArrayList;
+import util.IntIntHashMap;
+
+import java.time.LocalDateTime;
 
 public class Epic extends Task {
-    private List<Integer> subtaskIds = new ArrayList<>(); // Список id подзадач
+    // Список id подзадач; задается в конструкторах: копия эпика берет общий список copyOnWrite()
+    private IntArrayList subtaskIds;
+    private LocalDateTime endTime; // Время завершения самой поздней подзадачи
+    private IntIntHashMap positions; // Позиции id в списке подзадач; строится при первом удалении
+    private int parentId; // Id эпика, в который вложен этот эпик (0 — эпик верхнего уровня)
 
     public Epic(String title, String description) {
         super(title, description);
+        this.subtaskIds = new IntArrayList();
+    }
+
+    // Эпик, вложенный в эпик parentId (например, эпик инициативы)
+    public Epic(String title, String description, int parentId) {
+        super(title, description);
+        this.subtaskIds = new IntArrayList();
+        this.parentId = parentId;
     }
 
     public Epic(Epic epic) {
         super(epic); // Копируем поля задачи
-        this.subtaskIds = new ArrayList<>(epic.subtaskIds); // Копируем список подзадач
+        this.subtaskIds = epic.subtaskIds.copyOnWrite(); // Список подзадач копируется только при изменении
+        this.endTime = epic.endTime;
+        this.parentId = epic.parentId;
     }
 
     // Добавляет id подзадачи в список
     public void addSubtask(int subtaskId) {
         subtaskIds.add(subtaskId);
+        if (positions != null) {
+            positions.put(subtaskId, subtaskIds.size() - 1);
+        }
+    }
+
+    // Удаляет id подзадачи за O(1): на его место переносится последний id списка.
+    // Возвращает true, если подзадача была в эпике
+    public boolean removeSubtask(int subtaskId) {
+        IntIntHashMap index = positions();
+        int position = index.get(subtaskId, -1);
+        if (position < 0) {
+            return false;
+        }
+        int last = subtaskIds.getInt(subtaskIds.size() - 1);
+        subtaskIds.removeSwap(position);
+        index.remove(subtaskId);
+        if (last != subtaskId) {
+            index.put(last, position);
+        }
+        return true;
     }
 
-    // Возвращает список id подзадач
-    public List<Integer> getSubtaskIds() {
+    // Удаляет все подзадачи из эпика
+    public void clearSubtasks() {
+        subtaskIds.clear();
+        positions = null;
+    }
+
+    // Берет список подзадач эпика other, например хранимого эпика при обновлении; массив id
+    // общий до первого изменения любого из списков
+    public void copySubtasksFrom(Epic other) {
+        subtaskIds = other.subtaskIds.copyOnWrite();
+        positions = null;
+    }
+
+    // Возвращает список id подзадач; менять его следует через методы эпика
+    public IntArrayList getSubtaskIds() {
         return subtaskIds;
     }
 
+    // Время эпика рассчитывает менеджер по подзадачам: начало — самое раннее начало,
+    // продолжительность — сумма продолжительностей, завершение — самое позднее завершение
+    @Override
+    public LocalDateTime getEndTime() {
+        return endTime;
+    }
+
+    public void setEndTime(LocalDateTime endTime) {
+        this.endTime = endTime;
+    }
+
+    // Родительский эпик задается при создании; у хранимого эпика его меняет только TaskManager.moveEpic
+    public int getParentId() {
+        return parentId;
+    }
+
+    public void setParentId(int parentId) {
+        this.parentId = parentId;
+    }
+
+    // Индекс позиций; перестраивается, если список меняли в обход методов эпика
+    private IntIntHashMap positions() {
+        if (positions == null || positions.size() != subtaskIds.size()) {
+            positions = new IntIntHashMap(subtaskIds.size());
+            for (int i = 0; i < subtaskIds.size(); i++) {
+                positions.put(subtaskIds.getInt(i), i);
+            }
+        }
+        return positions;
+    }
+
     @Override
     public String toString() {
         return "tasks.Epic{" +
@@ -32,7 +112,11 @@ public class Epic extends Task {
                 ", description='" + getDescription() + '\'' +
                 ", id=" + getId() +
                 ", status=" + getStatus() +
+                ", startTime=" + getStartTime() +
+                ", duration=" + getDuration() +
+                ", endTime=" + endTime +
                 ", subtaskIds=" + subtaskIds +
+                ", parentId=" + parentId +
                 '}';
     }
 }
\ No newline at end of file
@@ -0,0 +1,6 @@
+package tasks;
+
+// Наблюдатель за сменой статуса задачи
+public interface StatusObserver {
+    void onStatusChanged(Task task, Status oldStatus, Status newStatus);
+}
@@ -1,5 +1,8 @@
 package tasks;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+
 public class Subtask extends Task {
     private int epicId; // Id эпика, к которому относится подзадача
 
@@ -8,6 +11,11 @@ public class Subtask extends Task {
         this.epicId = epicId;
     }
 
+    public Subtask(String title, String description, int epicId, LocalDateTime startTime, Duration duration) {
+        super(title, description, startTime, duration);
+        this.epicId = epicId;
+    }
+
     public Subtask(Subtask subtask) {
         super(subtask); // Копируем поля задачи
         this.epicId = subtask.epicId; // Копируем id эпика
@@ -30,6 +38,8 @@ public class Subtask extends Task {
                 ", description='" + getDescription() + '\'' +
                 ", id=" + getId() +
                 ", status=" + getStatus() +
+                ", startTime=" + getStartTime() +
+                ", duration=" + getDuration() +
                 ", epicId=" + epicId +
                 '}';
     }
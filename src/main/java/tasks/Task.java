@@ -1,19 +1,34 @@
 package tasks;
 
+import util.StringPool;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.Objects;
 
 public class Task {
     // Поля класса
     private String title;       // Название задачи
-    private String description; // Описание задачи
+    private CharSequence description; // Описание задачи: строка или сжатый текст вне кучи
     private int id;             // Уникальный идентификатор задачи
     private Status status;      // Текущий статус задачи (NEW, IN_PROGRESS, DONE)
+    private int version;        // Версия задачи, менеджер увеличивает её при каждом обновлении
+    private LocalDateTime startTime; // Время начала выполнения (null — задача не запланирована)
+    private Duration duration;       // Продолжительность выполнения (null — не указана)
+    private StatusObserver statusObserver; // Наблюдатель за сменой статуса (не копируется)
 
     // Конструктор для создания новой задачи
     public Task(String title, String description) {
         this.title = title;
         this.description = description;
-        this.setStatus(Status.NEW); // По умолчанию статус NEW
+        this.status = Status.NEW; // По умолчанию статус NEW; наблюдателя у новой задачи еще нет
+    }
+
+    // Конструктор для создания запланированной задачи
+    public Task(String title, String description, LocalDateTime startTime, Duration duration) {
+        this(title, description);
+        this.startTime = startTime;
+        this.duration = duration;
     }
 
     // Конструктор для копирования задачи
@@ -22,6 +37,9 @@ public class Task {
         this.description = task.description;
         this.id = task.id;
         this.status = task.status;
+        this.version = task.version;
+        this.startTime = task.startTime;
+        this.duration = task.duration;
     }
 
     // Геттер для названия задачи
@@ -29,8 +47,13 @@ public class Task {
         return title;
     }
 
-    // Геттер для описания задачи
+    // Геттер для описания задачи (сжатое описание распаковывается при каждом чтении)
     public String getDescription() {
+        return description != null ? description.toString() : null;
+    }
+
+    // Описание без распаковки: строка или сжатый текст; длина и хеш у них те же, что у исходной строки
+    public CharSequence getDescriptionText() {
         return description;
     }
 
@@ -44,6 +67,44 @@ public class Task {
         return status;
     }
 
+    // Геттер для версии задачи
+    public int getVersion() {
+        return version;
+    }
+
+    // Сеттер для версии задачи
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
+    // Геттер для времени начала задачи
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+
+    // Геттер для продолжительности задачи
+    public Duration getDuration() {
+        return duration;
+    }
+
+    // Время завершения задачи: начало плюс продолжительность (null, если начало не задано)
+    public LocalDateTime getEndTime() {
+        if (startTime == null) {
+            return null;
+        }
+        return duration == null ? startTime : startTime.plus(duration);
+    }
+
+    // Сеттер для времени начала задачи
+    public void setStartTime(LocalDateTime startTime) {
+        this.startTime = startTime;
+    }
+
+    // Сеттер для продолжительности задачи
+    public void setDuration(Duration duration) {
+        this.duration = duration;
+    }
+
     // Сеттер для идентификатора задачи
     public void setId(int id) {
         this.id = id;
@@ -59,9 +120,24 @@ public class Task {
         this.description = description;
     }
 
+    // Заменяет название и описание экземплярами из пула: одинаковые тексты разных задач хранятся один раз
+    public void compactText(StringPool pool) {
+        title = pool.intern(title);
+        description = pool.text(description);
+    }
+
     // Сеттер для статуса задачи
     public void setStatus(Status status) {
+        Status oldStatus = this.status;
         this.status = status;
+        if (statusObserver != null && oldStatus != status) {
+            statusObserver.onStatusChanged(this, oldStatus, status); // Сообщаем о смене статуса
+        }
+    }
+
+    // Устанавливает наблюдателя за сменой статуса (null — отключить)
+    public void setStatusObserver(StatusObserver statusObserver) {
+        this.statusObserver = statusObserver;
     }
 
     // Переопределение метода equals для сравнения задач
@@ -71,19 +147,23 @@ public class Task {
         if (o == null || getClass() != o.getClass()) return false; // Проверка на null и класс
 
         Task task = (Task) o;
-        // Сравнение по id, названию, описанию и статусу
+        // Сравнение по id, названию, описанию, статусу и времени
         return id == task.id && Objects.equals(title, task.title)
-                && Objects.equals(description, task.description)
-                && status == task.status;
+                && Objects.equals(getDescription(), task.getDescription())
+                && status == task.status
+                && Objects.equals(startTime, task.startTime)
+                && Objects.equals(duration, task.duration);
     }
 
     // Переопределение метода hashCode для корректной работы с коллекциями
     @Override
     public int hashCode() {
         int result = Objects.hashCode(title);
-        result = 31 * result + Objects.hashCode(description);
+        result = 31 * result + Objects.hashCode(description); // У сжатого текста хеш исходной строки
         result = 31 * result + id;
         result = 31 * result + Objects.hashCode(status);
+        result = 31 * result + Objects.hashCode(startTime);
+        result = 31 * result + Objects.hashCode(duration);
         return result;
     }
 
@@ -95,6 +175,8 @@ public class Task {
                 ", description='" + description + '\'' +
                 ", id=" + id +
                 ", status=" + status +
+                ", startTime=" + startTime +
+                ", duration=" + duration +
                 '}';
     }
 }
\ No newline at end of file
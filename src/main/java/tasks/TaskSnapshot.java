@@ -0,0 +1,96 @@
+package tasks;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Objects;
+
+// Неизменяемый снимок задачи любого типа с ее версией на момент чтения.
+// В отличие от объекта из хранилища, снимок нельзя поменять в обход менеджера: для правки из него
+// делается новая задача (toTask), которая передается в обновление с проверкой версии.
+// epicId — эпик подзадачи, а у эпика — родительский эпик (0 — эпик верхнего уровня)
+public record TaskSnapshot(TaskType type, int id, int version, String title, String description, Status status,
+                           LocalDateTime startTime, Duration duration, LocalDateTime endTime,
+                           int epicId, int[] subtaskIds) {
+    private static final int[] NO_SUBTASKS = new int[0];
+
+    public TaskSnapshot {
+        subtaskIds = subtaskIds == null || subtaskIds.length == 0 ? NO_SUBTASKS : subtaskIds.clone();
+    }
+
+    // Снимок текущего состояния задачи; подзадачи эпика копируются
+    public static TaskSnapshot of(Task task) {
+        int epicId = 0;
+        int[] subtaskIds = null;
+        if (task instanceof Subtask subtask) {
+            epicId = subtask.getEpicId();
+        } else if (task instanceof Epic epic) {
+            epicId = epic.getParentId();
+            subtaskIds = epic.getSubtaskIds().toArray();
+        }
+        return new TaskSnapshot(TaskType.of(task), task.getId(), task.getVersion(), task.getTitle(),
+                task.getDescription(), task.getStatus(), task.getStartTime(), task.getDuration(), task.getEndTime(), epicId, subtaskIds);
+    }
+
+    // Копия списка подзадач эпика (для задач и подзадач — пустой массив)
+    @Override
+    public int[] subtaskIds() {
+        return subtaskIds.length == 0 ? NO_SUBTASKS : subtaskIds.clone();
+    }
+
+    // Новая изменяемая задача того же типа с полями и версией снимка
+    public Task toTask() {
+        Task task = switch (type) {
+            case TASK -> new Task(title, description, startTime, duration);
+            case SUBTASK -> new Subtask(title, description, epicId, startTime, duration);
+            case EPIC -> {
+                Epic epic = new Epic(title, description, epicId);
+                for (int subtaskId : subtaskIds) {
+                    epic.addSubtask(subtaskId);
+                }
+                epic.setStartTime(startTime);
+                epic.setDuration(duration);
+                epic.setEndTime(endTime);
+                yield epic;
+            }
+        };
+        task.setId(id);
+        task.setStatus(status);
+        task.setVersion(version);
+        return task;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof TaskSnapshot that)) return false;
+
+        return type == that.type && id == that.id && version == that.version && epicId == that.epicId
+                && Objects.equals(title, that.title) && Objects.equals(description, that.description)
+                && status == that.status && Objects.equals(startTime, that.startTime)
+                && Objects.equals(duration, that.duration) && Objects.equals(endTime, that.endTime)
+                && Arrays.equals(subtaskIds, that.subtaskIds);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Objects.hash(type, id, version, title, description, status, startTime, duration, endTime, epicId);
+        return 31 * result + Arrays.hashCode(subtaskIds);
+    }
+
+    @Override
+    public String toString() {
+        return "tasks.TaskSnapshot{" +
+                "type=" + type +
+                ", id=" + id +
+                ", version=" + version +
+                ", title='" + title + '\'' +
+                ", description='" + description + '\'' +
+                ", status=" + status +
+                ", startTime=" + startTime +
+                ", duration=" + duration +
+                ", epicId=" + epicId +
+                ", subtaskIds=" + Arrays.toString(subtaskIds) +
+                '}';
+    }
+}
@@ -0,0 +1,15 @@
+package tasks;
+
+// Тип задачи
+public enum TaskType {
+    TASK,
+    SUBTASK,
+    EPIC;
+
+    public static TaskType of(Task task) {
+        if (task instanceof Epic) {
+            return EPIC;
+        }
+        return task instanceof Subtask ? SUBTASK : TASK;
+    }
+}
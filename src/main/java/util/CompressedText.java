@@ -0,0 +1,85 @@
+package util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+// Текст, сжатый Deflate и лежащий вне кучи в общем буфере StringPool. В куче остается только
+// этот объект; строка распаковывается при каждом чтении и нигде не кешируется
+public final class CompressedText implements CharSequence {
+    // Распаковщик на поток: создание Inflater выделяет нативную память
+    private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(Inflater::new);
+
+    private final ByteBuffer chunk; // Буфер вне кучи, общий для многих текстов
+    private final int offset;
+    private final int compressedLength;
+    private final int byteLength;   // Длина текста в UTF-8
+    private final int length;       // Длина текста в символах
+    private final int hash;         // Хеш исходной строки: сравнение и поиск в пуле без распаковки
+
+    CompressedText(ByteBuffer chunk, int offset, int compressedLength, int byteLength, String text) {
+        this.chunk = chunk;
+        this.offset = offset;
+        this.compressedLength = compressedLength;
+        this.byteLength = byteLength;
+        this.length = text.length();
+        this.hash = text.hashCode();
+    }
+
+    // Размер сжатых данных вне кучи
+    public int getCompressedLength() {
+        return compressedLength;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        return toString().charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return toString().subSequence(start, end);
+    }
+
+    // Совпадает ли текст со строкой; распаковывается, только если совпали длина и хеш
+    public boolean contentEquals(String text) {
+        return text != null && text.length() == length && text.hashCode() == hash && text.equals(toString());
+    }
+
+    // Распаковывает текст
+    @Override
+    public String toString() {
+        Inflater inflater = INFLATER.get();
+        inflater.reset();
+        inflater.setInput(chunk.slice(offset, compressedLength));
+        byte[] bytes = new byte[byteLength];
+        try {
+            int inflated = 0;
+            while (inflated < byteLength && !inflater.finished()) {
+                inflated += inflater.inflate(bytes, inflated, byteLength - inflated);
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Поврежден сжатый текст", e);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CompressedText other)) return false;
+        return hash == other.hash && length == other.length && toString().equals(other.toString());
+    }
+
+    // Тот же хеш, что у исходной строки
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
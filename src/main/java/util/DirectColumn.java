@@ -0,0 +1,71 @@
+package util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+// Столбец значений фиксированной ширины (1, 4 или 8 байт) вне кучи, растущий удвоением.
+// Значения читаются и пишутся по номеру строки без объектов-оберток; в куче остается только буфер
+public class DirectColumn {
+    private final int shift; // log2 ширины значения
+    private ByteBuffer buffer;
+
+    public DirectColumn(int width, int capacity) {
+        if (width != 1 && width != 4 && width != 8) {
+            throw new IllegalArgumentException("Ширина значения должна быть 1, 4 или 8 байт: " + width);
+        }
+        this.shift = Integer.numberOfTrailingZeros(width);
+        this.buffer = allocate(Math.max(capacity, 1));
+    }
+
+    // Количество строк, которое помещается без расширения
+    public int capacity() {
+        return buffer.capacity() >> shift;
+    }
+
+    // Расширяет столбец так, чтобы в нем помещалось не меньше size строк
+    public void ensureCapacity(int size) {
+        if (size <= capacity()) {
+            return;
+        }
+        int capacity = capacity();
+        while (capacity < size) {
+            capacity = capacity > (Integer.MAX_VALUE >> (shift + 1)) ? Integer.MAX_VALUE >> shift : capacity << 1;
+        }
+        ByteBuffer grown = allocate(capacity);
+        grown.put(0, buffer, 0, buffer.capacity()); // Прежний буфер освободится вместе с объектом
+        buffer = grown;
+    }
+
+    // Размер столбца вне кучи в байтах
+    public long sizeInBytes() {
+        return buffer.capacity();
+    }
+
+    public byte getByte(int index) {
+        return buffer.get(index);
+    }
+
+    public void putByte(int index, byte value) {
+        buffer.put(index, value);
+    }
+
+    public int getInt(int index) {
+        return buffer.getInt(index << 2);
+    }
+
+    public void putInt(int index, int value) {
+        buffer.putInt(index << 2, value);
+    }
+
+    public long getLong(int index) {
+        return buffer.getLong(index << 3);
+    }
+
+    public void putLong(int index, long value) {
+        buffer.putLong(index << 3, value);
+    }
+
+    private ByteBuffer allocate(int rows) {
+        return ByteBuffer.allocateDirect(rows << shift).order(ByteOrder.nativeOrder());
+    }
+}
@@ -0,0 +1,153 @@
+package util;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+// Растущий список примитивных int без упаковки элементов
+public class IntArrayList {
+    private static final int DEFAULT_CAPACITY = 4;
+
+    private int[] data;     // Элементы списка
+    private int size;       // Количество элементов
+    private boolean shared; // Массив разделяется с другим списком и копируется перед первым изменением
+
+    public IntArrayList() {
+        data = new int[DEFAULT_CAPACITY];
+    }
+
+    public IntArrayList(IntArrayList other) {
+        data = Arrays.copyOf(other.data, Math.max(other.size, DEFAULT_CAPACITY));
+        size = other.size;
+    }
+
+    // Возвращает копию, которая разделяет с этим списком массив элементов до первого изменения
+    // любого из них (копирование при записи): копия стоит одного небольшого объекта
+    public IntArrayList copyOnWrite() {
+        IntArrayList copy = new IntArrayList(data, size);
+        copy.shared = true;
+        shared = true;
+        return copy;
+    }
+
+    private IntArrayList(int[] data, int size) {
+        this.data = data;
+        this.size = size;
+    }
+
+    // Добавляет элемент в конец списка
+    public void add(int value) {
+        beforeWrite();
+        if (size == data.length) {
+            data = Arrays.copyOf(data, data.length + (data.length >> 1) + 1); // Растем в 1.5 раза
+        }
+        data[size++] = value;
+    }
+
+    // Возвращает элемент по индексу
+    public int getInt(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return data[index];
+    }
+
+    // Индекс первого вхождения значения или -1
+    public int indexOf(int value) {
+        for (int i = 0; i < size; i++) {
+            if (data[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public boolean contains(int value) {
+        return indexOf(value) >= 0;
+    }
+
+    // Удаляет первое вхождение значения; возвращает true, если оно было в списке
+    public boolean removeValue(int value) {
+        int index = indexOf(value);
+        if (index < 0) {
+            return false;
+        }
+        beforeWrite();
+        System.arraycopy(data, index + 1, data, index, size - index - 1);
+        size--;
+        return true;
+    }
+
+    // Удаляет элемент по индексу за O(1), перенося на его место последний элемент (порядок не сохраняется)
+    public void removeSwap(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        beforeWrite();
+        data[index] = data[--size];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        if (shared) {
+            data = new int[DEFAULT_CAPACITY]; // Разделяемый массив не трогаем
+            shared = false;
+        }
+        size = 0;
+    }
+
+    // Обходит элементы без упаковки
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(data[i]);
+        }
+    }
+
+    // Получает собственную копию массива, если он разделяется с другим списком
+    private void beforeWrite() {
+        if (shared) {
+            data = Arrays.copyOf(data, Math.max(size + (size >> 1) + 1, DEFAULT_CAPACITY));
+            shared = false;
+        }
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(data, size);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        IntArrayList that = (IntArrayList) o;
+        return Arrays.equals(data, 0, size, that.data, 0, that.size);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 1;
+        for (int i = 0; i < size; i++) {
+            result = 31 * result + data[i];
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(data[i]);
+        }
+        return builder.append(']').toString();
+    }
+}
@@ -0,0 +1,170 @@
+package util;
+
+import java.util.Arrays;
+
+// Хеш-таблица int -> int с открытой адресацией: без упаковки ключей и значений и без объектов-узлов
+public class IntIntHashMap {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    // Обход пар ключ-значение без упаковки
+    @FunctionalInterface
+    public interface Visitor {
+        void accept(int key, int value);
+    }
+
+    private int[] keys;      // Ключи ячеек
+    private int[] values;    // Значения ячеек
+    private boolean[] used;  // Занята ли ячейка
+    private int size;        // Количество занятых ячеек
+    private int mask;        // Маска для взятия индекса по хешу (емкость - 1)
+    private int threshold;   // Порог заполнения, после которого таблица расширяется
+
+    public IntIntHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public IntIntHashMap(int expectedSize) {
+        int capacity = DEFAULT_CAPACITY;
+        while (capacity * LOAD_FACTOR < expectedSize) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    // Возвращает значение по ключу или defaultValue, если ключа нет
+    public int get(int key, int defaultValue) {
+        int index = indexOf(key);
+        return index < 0 ? defaultValue : values[index];
+    }
+
+    public boolean containsKey(int key) {
+        return indexOf(key) >= 0;
+    }
+
+    // Кладет значение по ключу
+    public void put(int key, int value) {
+        int index = slotFor(key);
+        if (used[index]) {
+            values[index] = value;
+            return;
+        }
+        insert(index, key, value);
+    }
+
+    // Прибавляет delta к значению ключа (отсутствующий ключ считается нулем) и возвращает результат
+    public int addTo(int key, int delta) {
+        int index = slotFor(key);
+        if (used[index]) {
+            return values[index] += delta;
+        }
+        insert(index, key, delta);
+        return delta;
+    }
+
+    // Удаляет ключ; возвращает true, если он был в таблице
+    public boolean remove(int key) {
+        int index = indexOf(key);
+        if (index < 0) {
+            return false;
+        }
+        shiftBack(index);
+        size--;
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(used, false);
+        size = 0;
+    }
+
+    // Обходит пары в порядке ячеек (порядок не определен); таблицу нельзя менять во время обхода
+    public void forEach(Visitor visitor) {
+        for (int i = 0; i < used.length; i++) {
+            if (used[i]) {
+                visitor.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    // Ячейка с ключом или свободная ячейка, куда его можно положить
+    private int slotFor(int key) {
+        int index = hash(key) & mask;
+        while (used[index] && keys[index] != key) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    private int indexOf(int key) {
+        int index = slotFor(key);
+        return used[index] ? index : -1;
+    }
+
+    private void insert(int index, int key, int value) {
+        keys[index] = key;
+        values[index] = value;
+        used[index] = true;
+        if (++size > threshold) {
+            resize(keys.length << 1);
+        }
+    }
+
+    // Удаление без "надгробий": сдвигаем назад элементы той же цепочки пробирования
+    private void shiftBack(int hole) {
+        int index = hole;
+        while (true) {
+            index = (index + 1) & mask;
+            if (!used[index]) {
+                break;
+            }
+            int home = hash(keys[index]) & mask;
+            if (((index - home) & mask) >= ((index - hole) & mask)) {
+                keys[hole] = keys[index];
+                values[hole] = values[index];
+                hole = index;
+            }
+        }
+        used[hole] = false;
+    }
+
+    private void resize(int newCapacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        boolean[] oldUsed = used;
+        allocate(newCapacity);
+        for (int i = 0; i < oldUsed.length; i++) {
+            if (oldUsed[i]) {
+                int index = hash(oldKeys[i]) & mask;
+                while (used[index]) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+                used[index] = true;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    // Перемешивание битов, чтобы последовательные ключи не образовывали длинных цепочек
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,317 @@
+package util;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+// Хеш-таблица с открытой адресацией и примитивными int-ключами: без упаковки ключей и объектов-узлов.
+// Пустая ячейка определяется по значению null, поэтому null-значения не допускаются
+public class IntObjectHashMap<V> {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private int[] keys;      // Ключи ячеек
+    private Object[] values; // Значения ячеек (null — ячейка свободна)
+    private int size;        // Количество занятых ячеек
+    private int mask;        // Маска для взятия индекса по хешу (емкость - 1)
+    private int threshold;   // Порог заполнения, после которого таблица расширяется
+    private int modCount;    // Счетчик структурных изменений для обнаружения изменения во время обхода
+
+    public IntObjectHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public IntObjectHashMap(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    // Возвращает значение по ключу или null, если ключа нет
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int index = indexOf(key);
+        return index < 0 ? null : (V) values[index];
+    }
+
+    public V getOrDefault(int key, V defaultValue) {
+        V value = get(key);
+        return value != null ? value : defaultValue;
+    }
+
+    public boolean containsKey(int key) {
+        return indexOf(key) >= 0;
+    }
+
+    // Кладет значение по ключу и возвращает предыдущее значение или null
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (value == null) {
+            throw new NullPointerException("IntObjectHashMap не хранит null-значения");
+        }
+        int index = hash(key) & mask;
+        while (values[index] != null) {
+            if (keys[index] == key) {
+                V previous = (V) values[index];
+                values[index] = value;
+                return previous;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        values[index] = value;
+        modCount++;
+        if (++size > threshold) {
+            resize(keys.length << 1);
+        }
+        return null;
+    }
+
+    // Удаляет ключ и возвращает удаленное значение или null
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int index = indexOf(key);
+        if (index < 0) {
+            return null;
+        }
+        V previous = (V) values[index];
+        shiftBack(index);
+        size--;
+        modCount++;
+        return previous;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Заранее расширяет таблицу под ожидаемое количество элементов (массовая загрузка без перестроек)
+    public void ensureCapacity(int expectedSize) {
+        int capacity = tableSizeFor(expectedSize);
+        if (capacity > keys.length) {
+            resize(capacity);
+        }
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(values, null); // Обнуляем ссылки, чтобы значения стали доступны сборщику мусора
+        size = 0;
+        modCount++;
+    }
+
+    // Живое представление значений без копирования (порядок обхода не определен).
+    // Обход, во время которого таблицу изменили, завершается ConcurrentModificationException
+    public Collection<V> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new ValueIterator();
+            }
+
+            // Делится пополам по диапазону ячеек, поэтому параллельный поток обходит таблицу частями
+            @Override
+            public Spliterator<V> spliterator() {
+                return new ValueSpliterator(0, -1);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    // Индекс ячейки с ключом или -1
+    private int indexOf(int key) {
+        int index = hash(key) & mask;
+        while (values[index] != null) {
+            if (keys[index] == key) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    // Удаление без "надгробий": сдвигаем назад элементы той же цепочки пробирования
+    private void shiftBack(int hole) {
+        int index = hole;
+        while (true) {
+            index = (index + 1) & mask;
+            if (values[index] == null) {
+                break;
+            }
+            int home = hash(keys[index]) & mask;
+            // Элемент можно перенести в дыру, если его исходная ячейка не лежит между дырой и ним
+            if (((index - home) & mask) >= ((index - hole) & mask)) {
+                keys[hole] = keys[index];
+                values[hole] = values[index];
+                hole = index;
+            }
+        }
+        values[hole] = null;
+    }
+
+    private void resize(int newCapacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(newCapacity);
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                int index = hash(oldKeys[i]) & mask;
+                while (values[index] != null) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    // Перемешивание битов, чтобы последовательные id не образовывали длинных цепочек
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        int capacity = DEFAULT_CAPACITY;
+        while (capacity * LOAD_FACTOR < expectedSize) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private class ValueIterator implements Iterator<V> {
+        private final int expectedModCount = modCount;
+        private int next = advance(0);
+
+        @Override
+        public boolean hasNext() {
+            return next < values.length;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (next >= values.length) {
+                throw new NoSuchElementException();
+            }
+            V value = (V) values[next];
+            next = advance(next + 1);
+            return value;
+        }
+
+        private int advance(int from) {
+            while (from < values.length && values[from] == null) {
+                from++;
+            }
+            return from;
+        }
+    }
+
+    // Обход диапазона ячеек [index, fence). Таблица и граница берутся при первом обращении (fence = -1),
+    // чтобы поток, созданный до изменения таблицы, обходил ее актуальное состояние
+    private class ValueSpliterator implements Spliterator<V> {
+        private Object[] table;
+        private int index;
+        private int fence;
+        private int expectedModCount;
+
+        ValueSpliterator(int index, int fence) {
+            this.index = index;
+            this.fence = fence;
+        }
+
+        private ValueSpliterator(Object[] table, int index, int fence, int expectedModCount) {
+            this.table = table;
+            this.index = index;
+            this.fence = fence;
+            this.expectedModCount = expectedModCount;
+        }
+
+        private int fence() {
+            if (fence < 0) {
+                table = values;
+                fence = table.length;
+                expectedModCount = modCount;
+            }
+            return fence;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean tryAdvance(Consumer<? super V> action) {
+            int hi = fence();
+            while (index < hi) {
+                Object value = table[index++];
+                if (value != null) {
+                    action.accept((V) value);
+                    checkModCount();
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void forEachRemaining(Consumer<? super V> action) {
+            int hi = fence();
+            for (int i = index; i < hi; i++) {
+                if (table[i] != null) {
+                    action.accept((V) table[i]);
+                }
+            }
+            index = hi;
+            checkModCount();
+        }
+
+        @Override
+        public Spliterator<V> trySplit() {
+            int hi = fence();
+            int mid = (index + hi) >>> 1;
+            if (mid <= index) {
+                return null;
+            }
+            ValueSpliterator prefix = new ValueSpliterator(table, index, mid, expectedModCount);
+            index = mid;
+            return prefix;
+        }
+
+        // Оценка по доле занятых ячеек: ключи распределены по таблице равномерно
+        @Override
+        public long estimateSize() {
+            int hi = fence();
+            return table.length == 0 ? 0 : (long) size * (hi - index) / table.length;
+        }
+
+        @Override
+        public int characteristics() {
+            return NONNULL;
+        }
+
+        private void checkModCount() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+}
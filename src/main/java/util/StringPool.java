@@ -0,0 +1,106 @@
+package util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+
+// Пул для дедупликации названий и описаний задач: одинаковые тексты разных задач (шаблонные названия,
+// типовые описания) хранятся одним экземпляром. Пул — таблица с прямым отображением по хешу фиксированного
+// размера: при коллизии старая строка вытесняется, поэтому память пула ограничена, а сами строки
+// не удерживаются дольше задач. Длинные тексты (от compressThreshold символов) по желанию сжимаются
+// и хранятся вне кучи в виде CompressedText. Запись в таблицу без блокировок безопасна: строки неизменяемы
+public class StringPool {
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+    public static final int NO_COMPRESSION = Integer.MAX_VALUE;
+    private static final int CHUNK_SIZE = 1 << 20; // Размер общего буфера вне кучи для сжатых текстов
+
+    private final String[] strings;
+    private final CompressedText[] texts;
+    private final int mask;
+    private final int compressThreshold;
+
+    // Текущий буфер для сжатых текстов; буфер освобождается, когда на него не ссылается ни один текст
+    private ByteBuffer chunk;
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private long compressedBytes;
+
+    public StringPool() {
+        this(DEFAULT_CAPACITY, NO_COMPRESSION);
+    }
+
+    public StringPool(int capacity, int compressThreshold) {
+        if (capacity <= 0 || compressThreshold <= 0) {
+            throw new IllegalArgumentException(
+                    "Емкость пула и порог сжатия должны быть положительными: " + capacity + ", " + compressThreshold);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1; // Округляем вверх до степени двойки
+        }
+        strings = new String[size];
+        texts = compressThreshold == NO_COMPRESSION ? null : new CompressedText[size];
+        mask = size - 1;
+        this.compressThreshold = compressThreshold;
+    }
+
+    // Возвращает экземпляр из пула, равный строке, или запоминает саму строку
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        int index = indexOf(value.hashCode());
+        String pooled = strings[index];
+        if (value.equals(pooled)) {
+            return pooled;
+        }
+        strings[index] = value;
+        return value;
+    }
+
+    // Текст для хранения в задаче: строка из пула или, для длинного текста, сжатый текст вне кучи
+    public CharSequence text(CharSequence value) {
+        if (!(value instanceof String string)) {
+            return value; // null или уже сжатый текст
+        }
+        if (texts == null || string.length() < compressThreshold) {
+            return intern(string);
+        }
+        return compress(string);
+    }
+
+    // Сколько байт вне кучи занимают сжатые тексты
+    public synchronized long getCompressedBytes() {
+        return compressedBytes;
+    }
+
+    private synchronized CharSequence compress(String value) {
+        int index = indexOf(value.hashCode());
+        CompressedText pooled = texts[index];
+        if (pooled != null && pooled.contentEquals(value)) {
+            return pooled;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        byte[] buffer = new byte[bytes.length];
+        deflater.reset();
+        deflater.setInput(bytes);
+        deflater.finish();
+        int length = deflater.deflate(buffer);
+        if (!deflater.finished()) {
+            return intern(value); // Текст не сжимается: хранить его сжатым невыгодно
+        }
+        if (chunk == null || chunk.remaining() < length) {
+            chunk = ByteBuffer.allocateDirect(Math.max(CHUNK_SIZE, length));
+        }
+        int offset = chunk.position();
+        chunk.put(buffer, 0, length);
+        compressedBytes += length;
+        CompressedText text = new CompressedText(chunk, offset, length, bytes.length, value);
+        texts[index] = text;
+        return text;
+    }
+
+    // Перемешивает биты хеша, чтобы похожие строки не попадали в соседние ячейки
+    private int indexOf(int hash) {
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
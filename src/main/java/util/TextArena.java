@@ -0,0 +1,75 @@
+package util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// Строки в UTF-8 вне кучи. Строка дописывается в конец текущего фрагмента вместе с длиной;
+// ссылка на нее — номер фрагмента в старших 32 битах и смещение в младших. Освобожденные строки
+// только учитываются: место возвращается, когда владелец переписывает живые строки в новую арену
+public class TextArena {
+    public static final long NULL = -1; // Ссылка на null
+    private static final int CHUNK_SIZE = 1 << 24;
+
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private ByteBuffer current;
+    private long liveBytes;
+    private long garbageBytes;
+
+    // Сохраняет строку и возвращает ссылку на нее
+    public long add(String text) {
+        if (text == null) {
+            return NULL;
+        }
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        int size = Integer.BYTES + bytes.length;
+        if (current == null || current.remaining() < size) {
+            current = ByteBuffer.allocateDirect(Math.max(CHUNK_SIZE, size)); // Длинная строка — в своем фрагменте
+            chunks.add(current);
+        }
+        int offset = current.position();
+        current.putInt(bytes.length).put(bytes);
+        liveBytes += size;
+        return ((long) (chunks.size() - 1) << 32) | offset;
+    }
+
+    public String get(long ref) {
+        if (ref == NULL) {
+            return null;
+        }
+        ByteBuffer chunk = chunks.get((int) (ref >>> 32));
+        int offset = (int) ref;
+        byte[] bytes = new byte[chunk.getInt(offset)];
+        chunk.get(offset + Integer.BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Помечает строку освобожденной
+    public void release(long ref) {
+        if (ref == NULL) {
+            return;
+        }
+        int size = Integer.BYTES + chunks.get((int) (ref >>> 32)).getInt((int) ref);
+        liveBytes -= size;
+        garbageBytes += size;
+    }
+
+    // Стоит ли переписать живые строки в новую арену: мусора больше, чем живых данных, и хотя бы на фрагмент
+    public boolean needsCompaction() {
+        return garbageBytes > liveBytes && garbageBytes > CHUNK_SIZE;
+    }
+
+    public long getLiveBytes() {
+        return liveBytes;
+    }
+
+    // Размер выделенных фрагментов вне кучи
+    public long getAllocatedBytes() {
+        long allocated = 0;
+        for (ByteBuffer chunk : chunks) {
+            allocated += chunk.capacity();
+        }
+        return allocated;
+    }
+}
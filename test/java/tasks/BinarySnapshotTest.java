@@ -0,0 +1,86 @@
+package tasks;
+
+import managers.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinarySnapshotTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testSnapshotRoundTrip() {
+        // Создаем доску с задачами всех типов, в том числе с кириллицей и без описания
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        Task task = manager.createTask(new Task("Задача", null));
+        Epic epic = manager.createEpic(new Epic("Эпик", "Общее описание"));
+        Subtask subtask1 = manager.createSubtask(new Subtask("Подзадача 1", "Общее описание", epic.getId()));
+        Subtask subtask2 = manager.createSubtask(new Subtask("Подзадача 2", "Общее описание", epic.getId()));
+        subtask1.setStatus(Status.DONE);
+        subtask2.setStatus(Status.DONE);
+        manager.updateSubtask(subtask2);
+
+        Path file = directory.resolve("board.snapshot");
+        BinarySnapshot.write(manager, file);
+
+        // Загружаем снимок и сверяем задачи и пересчитанный статус эпика
+        InMemoryTaskManager loaded = BinarySnapshot.load(file);
+        assertEquals(task, loaded.getTaskById(task.getId()), "Задача должна восстановиться.");
+        assertEquals(subtask1, loaded.getSubTaskById(subtask1.getId()), "Подзадача должна восстановиться.");
+        Epic loadedEpic = loaded.getEpicById(epic.getId());
+        assertEquals(epic.getSubtaskIds(), loadedEpic.getSubtaskIds(), "Подзадачи эпика должны сохраниться.");
+        assertEquals(Status.DONE, loadedEpic.getStatus(), "Статус эпика должен быть пересчитан.");
+        assertTrue(loaded.isEpicStatusConsistent(), "Счетчики статусов должны быть согласованы.");
+
+        // Новые id продолжают нумерацию снимка
+        Task next = loaded.createTask(new Task("Новая", "Описание"));
+        assertTrue(next.getId() > subtask2.getId(), "Новый id должен быть больше восстановленных.");
+    }
+
+    @Test
+    public void testFindByIdUsesIndex() {
+        // Сохраняем несколько задач и ищем их по id без загрузки доски
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        Epic epic = manager.createEpic(new Epic("Epic", "Description"));
+        Subtask subtask = manager.createSubtask(new Subtask("Subtask", "Description", epic.getId()));
+        Task task = manager.createTask(new Task("Task", "Description"));
+
+        Path file = directory.resolve("board.snapshot");
+        BinarySnapshot.write(manager, file);
+        BinarySnapshot.Reader reader = BinarySnapshot.open(file);
+
+        assertEquals(3, reader.size());
+        assertEquals(task, reader.find(task.getId()), "Задача должна находиться по индексу.");
+        assertEquals(subtask, reader.find(subtask.getId()), "Подзадача должна находиться по индексу.");
+        assertEquals(epic.getSubtaskIds(), ((Epic) reader.find(epic.getId())).getSubtaskIds());
+        assertNull(reader.find(12345), "Отсутствующий id не должен находиться.");
+    }
+
+    @Test
+    public void testMillionTaskBoardColdStart() {
+        // Доска на миллион задач: эпики по 100 подзадач с шаблонными названиями.
+        // Время загрузки меряет SnapshotLoadBenchmark, здесь проверяется только результат
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        for (int e = 0; e < 10_000; e++) {
+            Epic epic = manager.createEpic(new Epic("Эпик " + (e % 100), "Шаблонное описание эпика"));
+            for (int s = 0; s < 99; s++) {
+                Subtask subtask = new Subtask("Подзадача " + s, "Шаблонное описание подзадачи", epic.getId());
+                subtask.setStatus(Status.values()[s % 3]);
+                manager.createSubtask(subtask);
+            }
+        }
+        Path file = directory.resolve("board.snapshot");
+        BinarySnapshot.write(manager, file);
+        manager = null;
+
+        InMemoryTaskManager loaded = BinarySnapshot.load(file);
+
+        assertEquals(10_000, loaded.getAllEpics().size());
+        assertEquals(990_000, loaded.getAllSubtasks().size());
+        assertTrue(loaded.isEpicStatusConsistent(), "Счетчики статусов должны быть согласованы.");
+    }
+}
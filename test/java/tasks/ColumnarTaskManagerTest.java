@@ -0,0 +1,146 @@
+package tasks;
+
+import managers.ColumnarTaskManager;
+import managers.InMemoryTaskManager;
+import managers.TaskBatch;
+import managers.TaskManager;
+import managers.TimeOverlapException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnarTaskManagerTest {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 9, 0);
+
+    @Test
+    public void testTasksAreMaterializedOnRead() {
+        ColumnarTaskManager manager = new ColumnarTaskManager();
+        Epic epic = manager.createEpic(new Epic("Эпик", "Описание эпика"));
+        Subtask first = manager.createSubtask(new Subtask("Первая", "Описание", epic.getId(),
+                START, Duration.ofHours(1)));
+        Subtask second = manager.createSubtask(new Subtask("Вторая", null, epic.getId(),
+                START.plusHours(3), Duration.ofMinutes(30)));
+
+        // Прочитанная задача — новый объект с теми же полями; время эпика собрано по подзадачам
+        Subtask read = manager.getSubTaskById(first.getId());
+        assertNotSame(first, read);
+        assertEquals(first, read, "Поля подзадачи должны читаться без потерь.");
+        assertNull(manager.getSubTaskById(second.getId()).getDescription(), "null-описание сохраняется.");
+        Epic readEpic = manager.getEpicById(epic.getId());
+        assertEquals(START, readEpic.getStartTime());
+        assertEquals(START.plusHours(3).plusMinutes(30), readEpic.getEndTime());
+        assertEquals(Duration.ofMinutes(90), readEpic.getDuration());
+        assertEquals(List.of(first.getId(), second.getId()), List.of(readEpic.getSubtaskIds().getInt(0),
+                readEpic.getSubtaskIds().getInt(1)));
+
+        // Изменения объекта не видны, пока он не передан в update
+        read.setStatus(Status.DONE);
+        assertEquals(Status.NEW, manager.getSubTaskById(first.getId()).getStatus());
+        manager.updateSubtask(read);
+        assertEquals(Status.NEW, manager.getEpicById(epic.getId()).getStatus(), "Вторая подзадача еще NEW.");
+        assertEquals(1, manager.countByStatus(TaskType.SUBTASK, Status.DONE));
+        assertThrows(TimeOverlapException.class, () -> manager.createTask(new Task("Пересечение", "Описание",
+                START.plusMinutes(30), Duration.ofHours(1))));
+
+        // История хранит только id и собирает задачи при чтении, удаленные задачи из нее уходят
+        manager.deleteSubtask(second.getId());
+        assertEquals(Status.DONE, manager.getEpicById(epic.getId()).getStatus());
+        assertEquals(List.of(epic.getId(), first.getId()),
+                manager.getHistory().stream().map(Task::getId).sorted().toList());
+        assertTrue(manager.isEpicStatusConsistent());
+    }
+
+    @Test
+    public void testFreeSlotsAreReused() {
+        ColumnarTaskManager manager = new ColumnarTaskManager();
+        for (int i = 0; i < 1000; i++) {
+            manager.createTask(new Task("Задача " + i, "Описание"));
+        }
+        long allocated = manager.getOffHeapBytes();
+
+        // Удаленные строки переиспользуются, поэтому столбцы не растут
+        for (int round = 0; round < 10; round++) {
+            manager.deleteAllTasks();
+            for (int i = 0; i < 1000; i++) {
+                manager.createTask(new Task("Задача " + i, "Описание"));
+            }
+        }
+        assertEquals(1000, manager.getAllTasks().size());
+        assertEquals(allocated, manager.getOffHeapBytes(), "Столбцы не должны расти при переиспользовании строк.");
+        assertEquals(List.of(manager.getAllTasks().get(10)), manager.getAllTasks(10, 1));
+    }
+
+    @Test
+    public void testMatchesInMemoryManager() {
+        // Одинаковые случайные операции над обычным и столбцовым менеджером
+        TaskManager expected = new InMemoryTaskManager();
+        ColumnarTaskManager actual = new ColumnarTaskManager();
+        Random random = new Random(21);
+        List<Integer> taskIds = new ArrayList<>();
+        List<Integer> epicIds = new ArrayList<>();
+        List<Integer> subtaskIds = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            int action = random.nextInt(8);
+            if (action == 0) {
+                Task task = new Task("Задача " + i, "Описание", START.plusHours(i), Duration.ofMinutes(30));
+                expected.createTask(new Task(task));
+                taskIds.add(actual.createTask(task).getId());
+            } else if (action == 1) {
+                epicIds.add(actual.createEpic(new Epic("Эпик " + i, "Описание")).getId());
+                expected.createEpic(new Epic("Эпик " + i, "Описание"));
+            } else if (action <= 3 && !epicIds.isEmpty()) {
+                int epicId = epicIds.get(random.nextInt(epicIds.size()));
+                Subtask subtask = new Subtask("Подзадача " + i, "Описание", epicId,
+                        random.nextBoolean() ? START.plusHours(i) : null, Duration.ofMinutes(random.nextInt(50) + 1));
+                expected.createSubtask(new Subtask(subtask));
+                subtaskIds.add(actual.createSubtask(subtask).getId());
+            } else if (action <= 5 && !subtaskIds.isEmpty()) {
+                Subtask subtask = actual.getSubTaskById(subtaskIds.get(random.nextInt(subtaskIds.size())));
+                subtask.setStatus(Status.values()[random.nextInt(3)]);
+                expected.updateSubtask(new Subtask(subtask));
+                actual.updateSubtask(subtask);
+            } else if (action == 6 && !subtaskIds.isEmpty()) {
+                int id = subtaskIds.remove(random.nextInt(subtaskIds.size()));
+                expected.deleteSubtask(id);
+                actual.deleteSubtask(id);
+            } else if (action == 7 && !epicIds.isEmpty()) {
+                int id = epicIds.remove(random.nextInt(epicIds.size()));
+                subtaskIds.removeAll(actual.getEpicSubtasks(id).stream().map(Subtask::getId).toList());
+                expected.deleteEpic(id);
+                actual.deleteEpic(id);
+            }
+        }
+        actual.applyBatch(new TaskBatch().deleteTask(taskIds.get(0)).createEpic(new Epic("Пакет", "Описание")));
+        expected.applyBatch(new TaskBatch().deleteTask(taskIds.get(0)).createEpic(new Epic("Пакет", "Описание")));
+
+        for (Status status : Status.values()) {
+            assertEquals(describe(expected.getSubtasksByStatus(status)), describe(actual.getSubtasksByStatus(status)));
+            assertEquals(describe(expected.getEpicsByStatus(status)), describe(actual.getEpicsByStatus(status)));
+        }
+        assertEquals(describe(expected.getAllTasks()), describe(actual.getAllTasks()));
+        assertEquals(describe(expected.getPrioritizedTasks()), describe(actual.getPrioritizedTasks()));
+        assertTrue(actual.isEpicStatusConsistent());
+    }
+
+    // Поля задач по возрастанию id; подзадачи эпика — как множество
+    private static List<String> describe(List<? extends Task> tasks) {
+        return tasks.stream()
+                .sorted((a, b) -> Integer.compare(a.getId(), b.getId()))
+                .map(task -> {
+                    TaskSnapshot snapshot = TaskSnapshot.of(task);
+                    int[] subtaskIds = snapshot.subtaskIds();
+                    Arrays.sort(subtaskIds);
+                    return snapshot.id() + " " + snapshot.title() + " " + snapshot.status() + " v" + snapshot.version()
+                            + " " + snapshot.startTime() + " " + snapshot.duration() + " " + snapshot.endTime()
+                            + " " + Arrays.toString(subtaskIds);
+                })
+                .toList();
+    }
+}
@@ -0,0 +1,312 @@
+package tasks;
+
+import managers.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentTaskManagerTest {
+    private static final int THREADS = 16;
+
+    @Test
+    public void testConcurrentCreationProducesUniqueIds() throws Exception {
+        TaskManager manager = Managers.getConcurrent();
+        int perThread = 2_000;
+
+        // Все потоки одновременно создают задачи и эпики
+        List<Integer> ids = runInParallel(thread -> {
+            List<Integer> created = new ArrayList<>();
+            for (int i = 0; i < perThread; i++) {
+                created.add(manager.createTask(new Task("Task " + i, "Description")).getId());
+                created.add(manager.createEpic(new Epic("Epic " + i, "Description")).getId());
+            }
+            return created;
+        });
+
+        // Проверяем, что ни один id не выдан дважды и ничего не потеряно
+        assertEquals(THREADS * perThread * 2, new HashSet<>(ids).size(), "Все id должны быть уникальными.");
+        assertEquals(THREADS * perThread, manager.getAllTasks().size(), "Ни одна задача не должна потеряться.");
+        assertEquals(THREADS * perThread, manager.getAllEpics().size(), "Ни один эпик не должен потеряться.");
+    }
+
+    @Test
+    public void testEpicStatusIsConsistentAfterConcurrentSubtaskUpdates() throws Exception {
+        TaskManager manager = Managers.getConcurrent();
+        int epicCount = 8;
+        int subtasksPerEpic = 50;
+        int operationsPerThread = 5_000;
+
+        List<Epic> epics = new ArrayList<>();
+        List<Subtask> initial = new ArrayList<>();
+        for (int e = 0; e < epicCount; e++) {
+            Epic epic = manager.createEpic(new Epic("Epic " + e, "Description"));
+            epics.add(epic);
+            for (int s = 0; s < subtasksPerEpic; s++) {
+                initial.add(manager.createSubtask(new Subtask("Subtask " + s, "Description", epic.getId())));
+            }
+        }
+
+        // Потоки обновляют, удаляют и создают подзадачи в общих эпиках
+        runInParallel(thread -> {
+            Random random = new Random(thread);
+            Status[] statuses = Status.values();
+            for (int i = 0; i < operationsPerThread; i++) {
+                Subtask target = initial.get(random.nextInt(initial.size()));
+                int action = random.nextInt(10);
+                if (action < 7) {
+                    Subtask update = new Subtask(target);
+                    update.setStatus(statuses[random.nextInt(statuses.length)]);
+                    manager.updateSubtask(update);
+                } else if (action < 8) {
+                    manager.deleteSubtask(target.getId());
+                } else {
+                    Epic epic = epics.get(random.nextInt(epics.size()));
+                    manager.createSubtask(new Subtask("Extra", "Description", epic.getId()));
+                }
+            }
+            return List.of();
+        });
+
+        // Итоговое состояние должно совпадать с последовательным пересчетом по каждому эпику
+        Map<Integer, List<Subtask>> byEpic = new HashMap<>();
+        for (Subtask subtask : manager.getAllSubtasks()) {
+            byEpic.computeIfAbsent(subtask.getEpicId(), id -> new ArrayList<>()).add(subtask);
+        }
+        for (Epic epic : manager.getAllEpics()) {
+            List<Subtask> own = byEpic.getOrDefault(epic.getId(), List.of());
+            Set<Integer> expectedIds = new HashSet<>();
+            own.forEach(subtask -> expectedIds.add(subtask.getId()));
+
+            Set<Integer> actualIds = new HashSet<>();
+            epic.getSubtaskIds().forEach(actualIds::add);
+            assertEquals(expectedIds, actualIds,
+                    "Список подзадач эпика должен совпадать с хранилищем подзадач.");
+            assertEquals(expectedIds.size(), epic.getSubtaskIds().size(), "В эпике не должно быть дубликатов id.");
+            assertEquals(expectedStatus(own), epic.getStatus(), "Статус эпика должен соответствовать подзадачам.");
+        }
+    }
+
+    @Test
+    public void testDeleteEpicRacingWithCreateSubtaskLeavesNoOrphans() throws Exception {
+        TaskManager manager = Managers.getConcurrent();
+        int rounds = 500;
+
+        for (int round = 0; round < rounds; round++) {
+            Epic epic = manager.createEpic(new Epic("Epic", "Description"));
+            CountDownLatch start = new CountDownLatch(1);
+            ExecutorService executor = Executors.newFixedThreadPool(2);
+            try {
+                Future<?> creator = executor.submit(() -> {
+                    await(start);
+                    for (int i = 0; i < 20; i++) {
+                        manager.createSubtask(new Subtask("Subtask", "Description", epic.getId()));
+                    }
+                });
+                Future<?> deleter = executor.submit(() -> {
+                    await(start);
+                    manager.deleteEpic(epic.getId());
+                });
+                start.countDown();
+                creator.get();
+                deleter.get();
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        // После удаления всех эпиков не должно остаться подзадач без эпика
+        assertTrue(manager.getAllEpics().isEmpty(), "Все эпики должны быть удалены.");
+        assertTrue(manager.getAllSubtasks().isEmpty(), "Не должно остаться подзадач удаленных эпиков.");
+    }
+
+    @Test
+    public void testOperationsOnEpicAreLinearizable() throws Exception {
+        // Короткие истории операций над одним эпиком: для каждой должен найтись последовательный порядок,
+        // который не нарушает порядок непересекающихся во времени вызовов и объясняет все прочитанное
+        for (int round = 0; round < 200; round++) {
+            TaskManager manager = Managers.getConcurrent();
+            Epic epic = manager.createEpic(new Epic("Epic", "Description"));
+            int[] subtaskIds = new int[3];
+            for (int i = 0; i < subtaskIds.length; i++) {
+                subtaskIds[i] = manager.createSubtask(new Subtask("Subtask", "Description", epic.getId())).getId();
+            }
+            int seed = round;
+            List<Operation> history = runInParallel(4, thread -> {
+                Random random = new Random(seed * 31L + thread);
+                List<Operation> operations = new ArrayList<>();
+                for (int i = 0; i < 5; i++) {
+                    operations.add(perform(manager, epic.getId(), subtaskIds, random));
+                }
+                return operations;
+            });
+
+            Status[] initial = {Status.NEW, Status.NEW, Status.NEW};
+            assertTrue(linearize(history, 0, initial, new HashSet<>()),
+                    "История раунда " + round + " не объясняется последовательным порядком: " + history);
+        }
+    }
+
+    @Test
+    public void testDeleteAllTasksRacingWithCreateLeavesNoStaleSearchHits() throws Exception {
+        TaskManager manager = Managers.getConcurrent();
+
+        // Половина потоков создает задачи, половина удаляет все задачи
+        runInParallel(thread -> {
+            for (int i = 0; i < 500; i++) {
+                if (thread % 2 == 0) {
+                    manager.createTask(new Task("Задача " + i, "Описание"));
+                } else {
+                    manager.deleteAllTasks();
+                }
+            }
+            return List.of();
+        });
+        manager.deleteAllTasks();
+
+        assertArrayEquals(new int[0], manager.search("задача", 10), "В индексе не должно остаться удаленных задач.");
+    }
+
+    // Операция истории: время вызова и возврата, вид, номер подзадачи, новый статус и прочитанное
+    private record Operation(long invoked, long returned, char kind, int subtask, Status status, String result) {
+        @Override
+        public String toString() {
+            return kind + "" + subtask + (status == null ? "" : "=" + status) + (result == null ? "" : "->" + result);
+        }
+    }
+
+    // Случайная операция: обновление статуса подзадачи, удаление подзадачи, чтение подзадачи или эпика
+    private static Operation perform(TaskManager manager, int epicId, int[] subtaskIds, Random random) {
+        int subtask = random.nextInt(subtaskIds.length);
+        int action = random.nextInt(10);
+        long invoked = System.nanoTime();
+        if (action < 4) {
+            Subtask update = new Subtask("Subtask", "Description", epicId);
+            update.setId(subtaskIds[subtask]);
+            update.setStatus(Status.values()[random.nextInt(3)]);
+            manager.updateSubtask(update);
+            return new Operation(invoked, System.nanoTime(), 'U', subtask, update.getStatus(), null);
+        } else if (action < 5) {
+            manager.deleteSubtask(subtaskIds[subtask]);
+            return new Operation(invoked, System.nanoTime(), 'D', subtask, null, null);
+        } else if (action < 7) {
+            TaskSnapshot snapshot = manager.getSnapshot(subtaskIds[subtask]);
+            String result = snapshot == null ? "null" : snapshot.status().name();
+            return new Operation(invoked, System.nanoTime(), 'S', subtask, null, result);
+        }
+        TaskSnapshot snapshot = manager.getSnapshot(epicId);
+        String result = snapshot.status() + "/" + snapshot.subtaskIds().length;
+        return new Operation(invoked, System.nanoTime(), 'E', 0, null, result);
+    }
+
+    // Поиск линеаризации перебором: следующей может стать любая операция, вызванная раньше, чем вернулась
+    // первая из оставшихся. state — статусы подзадач модели (null — удалена); тупиковые состояния запоминаются
+    private static boolean linearize(List<Operation> history, long done, Status[] state, Set<String> deadEnds) {
+        if (Long.bitCount(done) == history.size()) {
+            return true;
+        }
+        if (!deadEnds.add(done + Arrays.toString(state))) {
+            return false;
+        }
+        long firstReturn = Long.MAX_VALUE;
+        for (int i = 0; i < history.size(); i++) {
+            if ((done & 1L << i) == 0) {
+                firstReturn = Math.min(firstReturn, history.get(i).returned());
+            }
+        }
+        for (int i = 0; i < history.size(); i++) {
+            Operation operation = history.get(i);
+            if ((done & 1L << i) != 0 || operation.invoked() > firstReturn) {
+                continue;
+            }
+            Status[] next = state.clone();
+            if (apply(operation, next) && linearize(history, done | 1L << i, next, deadEnds)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Применяет операцию к модели; false — прочитанное не совпадает с моделью
+    private static boolean apply(Operation operation, Status[] state) {
+        switch (operation.kind()) {
+            case 'U' -> {
+                if (state[operation.subtask()] != null) {
+                    state[operation.subtask()] = operation.status();
+                }
+                return true;
+            }
+            case 'D' -> {
+                state[operation.subtask()] = null;
+                return true;
+            }
+            case 'S' -> {
+                return operation.result().equals(String.valueOf(state[operation.subtask()]));
+            }
+            default -> {
+                List<Subtask> own = new ArrayList<>();
+                for (Status status : state) {
+                    if (status != null) {
+                        Subtask subtask = new Subtask("Subtask", "Description", 0);
+                        subtask.setStatus(status);
+                        own.add(subtask);
+                    }
+                }
+                return operation.result().equals(expectedStatus(own) + "/" + own.size());
+            }
+        }
+    }
+
+    // Статус эпика по тем же правилам, что и в менеджере, но вычисленный последовательно
+    private static Status expectedStatus(List<Subtask> subtasks) {
+        boolean allDone = subtasks.stream().allMatch(subtask -> subtask.getStatus() == Status.DONE);
+        boolean anyInProgress = subtasks.stream().anyMatch(subtask -> subtask.getStatus() == Status.IN_PROGRESS);
+        if (allDone) {
+            return Status.DONE;
+        }
+        return anyInProgress ? Status.IN_PROGRESS : Status.NEW;
+    }
+
+    // Запускает работу во всех потоках одновременно и собирает результаты
+    private static <T> List<T> runInParallel(ThreadWork<T> work) throws Exception {
+        return runInParallel(THREADS, work);
+    }
+
+    private static <T> List<T> runInParallel(int threads, ThreadWork<T> work) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<List<T>>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    await(start);
+                    return work.run(thread);
+                }));
+            }
+            start.countDown();
+            List<T> results = new ArrayList<>();
+            for (Future<List<T>> future : futures) {
+                results.addAll(future.get(60, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private interface ThreadWork<T> {
+        List<T> run(int thread) throws Exception;
+    }
+}
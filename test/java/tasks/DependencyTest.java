@@ -0,0 +1,140 @@
+package tasks;
+
+import managers.ColumnarTaskManager;
+import managers.ConcurrentTaskManager;
+import managers.FileBackedTaskManager;
+import managers.InMemoryTaskManager;
+import managers.Managers;
+import managers.TaskDependencies;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DependencyTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testReadyQueueFollowsStatuses() {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        Task design = manager.createTask(new Task("Дизайн", "Описание"));
+        Epic epic = manager.createEpic(new Epic("Эпик", "Описание"));
+        Subtask backend = manager.createSubtask(new Subtask("Бэкенд", "Описание", epic.getId()));
+        Task release = manager.createTask(new Task("Релиз", "Описание"));
+
+        assertTrue(manager.addDependency(design.getId(), backend.getId()));
+        assertTrue(manager.addDependency(epic.getId(), release.getId()));
+        assertFalse(manager.addDependency(design.getId(), backend.getId()), "Зависимость уже есть.");
+        assertFalse(manager.addDependency(design.getId(), 1000), "Задачи нет.");
+        assertThrows(IllegalArgumentException.class, () -> manager.addDependency(backend.getId(), design.getId()));
+        assertThrows(IllegalArgumentException.class, () -> manager.addDependency(design.getId(), design.getId()));
+        assertEquals(List.of(design, epic), manager.getReadyTasks(), "Блокеры без своих блокеров готовы.");
+        assertFalse(manager.isReady(backend.getId()));
+
+        // Выполненный блокер открывает подзадачу, а выполненная подзадача закрывает эпик и открывает релиз
+        design.setStatus(Status.DONE);
+        manager.updateTask(design);
+        assertEquals(List.of(epic, backend), manager.getReadyTasks());
+        backend.setStatus(Status.DONE);
+        manager.updateSubtask(backend);
+        assertTrue(manager.isReady(release.getId()));
+        assertEquals(List.of(release), manager.getReadyTasks());
+
+        // Возврат блокера в работу снова блокирует задачи, удаление блокера — снимает зависимость
+        design.setStatus(Status.IN_PROGRESS);
+        manager.updateTask(design);
+        assertEquals(List.of(release, design), manager.getReadyTasks());
+        assertFalse(manager.isReady(backend.getId()));
+        manager.deleteTask(design.getId());
+        assertTrue(manager.isReady(backend.getId()));
+        assertTrue(manager.removeDependency(epic.getId(), release.getId()));
+        assertTrue(manager.getReadyTasks().isEmpty(), "Задачи без зависимостей в очередь не попадают.");
+    }
+
+    @Test
+    public void testCyclesMatchReachability() {
+        // Случайные ребра: граф отвергает ровно те, для которых обратный путь уже есть
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        int size = 60;
+        int[] ids = new int[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = manager.createTask(new Task("Задача " + i, "Описание")).getId();
+        }
+        List<Set<Integer>> edges = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            edges.add(new HashSet<>());
+        }
+        Random random = new Random(25);
+        for (int i = 0; i < 3000; i++) {
+            int from = random.nextInt(size);
+            int to = random.nextInt(size);
+            if (random.nextInt(4) == 0) {
+                assertEquals(edges.get(from).remove(to), manager.removeDependency(ids[from], ids[to]));
+            } else if (from == to || reachable(edges, to, from)) {
+                assertThrows(IllegalArgumentException.class, () -> manager.addDependency(ids[from], ids[to]));
+            } else {
+                assertEquals(edges.get(from).add(to), manager.addDependency(ids[from], ids[to]));
+            }
+        }
+    }
+
+    @Test
+    public void testDependenciesSurviveRestart() {
+        Task first;
+        Task second;
+        Task third;
+        try (FileBackedTaskManager manager = new FileBackedTaskManager(directory)) {
+            first = manager.createTask(new Task("Первая", "Описание"));
+            second = manager.createTask(new Task("Вторая", "Описание"));
+            third = manager.createTask(new Task("Третья", "Описание"));
+            manager.addDependency(second.getId(), third.getId());
+            manager.addDependency(first.getId(), second.getId());
+            manager.compact(); // Часть зависимостей — в снимке, часть — в журнале
+            manager.addDependency(first.getId(), third.getId());
+            manager.removeDependency(second.getId(), third.getId());
+            first.setStatus(Status.DONE);
+            manager.updateTask(first);
+        }
+
+        try (FileBackedTaskManager restored = new FileBackedTaskManager(directory)) {
+            assertEquals(List.of(second.getId(), third.getId()), restored.getReadyTasks().stream()
+                    .map(Task::getId).sorted().toList());
+            assertFalse(restored.removeDependency(second.getId(), third.getId()), "Зависимость удалена в журнале.");
+            assertThrows(IllegalArgumentException.class,
+                    () -> restored.addDependency(second.getId(), first.getId()));
+        }
+    }
+
+    @Test
+    public void testDependenciesAreCapabilityOfGraphManagers() {
+        // Менеджеры без графа зависимостей не притворяются, что он у них есть
+        assertFalse(new ConcurrentTaskManager() instanceof TaskDependencies);
+        assertFalse(new ColumnarTaskManager() instanceof TaskDependencies);
+        assertInstanceOf(TaskDependencies.class, Managers.getSharded(2));
+    }
+
+    private static boolean reachable(List<Set<Integer>> edges, int from, int to) {
+        Set<Integer> seen = new HashSet<>();
+        List<Integer> stack = new ArrayList<>(List.of(from));
+        while (!stack.isEmpty()) {
+            int node = stack.remove(stack.size() - 1);
+            if (node == to) {
+                return true;
+            }
+            for (int next : edges.get(node)) {
+                if (seen.add(next)) {
+                    stack.add(next);
+                }
+            }
+        }
+        return false;
+    }
+}
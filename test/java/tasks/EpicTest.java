@@ -3,6 +3,12 @@ package tasks;
 import managers.*;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class EpicTest {
@@ -47,4 +53,283 @@ class EpicTest {
         // Проверяем, что статус эпика изменился на DONE
         assertEquals(Status.DONE, epic.getStatus(), "Статус эпика должен быть DONE.");
     }
+
+    @Test
+    public void testEpicStatusCountersStayConsistent() {
+        // Создаем менеджер задач и несколько эпиков с подзадачами
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        List<Epic> epics = new ArrayList<>();
+        List<Subtask> subtasks = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Epic epic = manager.createEpic(new Epic("Epic " + i, "Description"));
+            epics.add(epic);
+            for (int j = 0; j < 20; j++) {
+                subtasks.add(manager.createSubtask(new Subtask("Subtask " + j, "Description", epic.getId())));
+            }
+        }
+
+        // Случайно создаем, обновляем и удаляем подзадачи, сверяя счетчики с полным пересчетом
+        Random random = new Random(42);
+        Status[] statuses = Status.values();
+        for (int i = 0; i < 2_000; i++) {
+            int action = random.nextInt(10);
+            if (action < 6 && !subtasks.isEmpty()) {
+                Subtask subtask = subtasks.get(random.nextInt(subtasks.size()));
+                subtask.setStatus(statuses[random.nextInt(statuses.length)]); // Меняем статус у живого объекта
+                manager.updateSubtask(subtask);
+            } else if (action < 8 && !subtasks.isEmpty()) {
+                manager.deleteSubtask(subtasks.remove(random.nextInt(subtasks.size())).getId());
+            } else {
+                Epic epic = epics.get(random.nextInt(epics.size()));
+                subtasks.add(manager.createSubtask(new Subtask("Extra", "Description", epic.getId())));
+            }
+            assertTrue(manager.isEpicStatusConsistent(), "Счетчики статусов должны совпадать с пересчетом.");
+        }
+    }
+
+    @Test
+    public void testEpicStatusFollowsInPlaceSubtaskChange() {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        Epic epic = manager.createEpic(new Epic("Epic 1", "Description 1"));
+        manager.createSubtask(new Subtask("Subtask 1", "Description 1", epic.getId()));
+
+        // Статус хранимой подзадачи меняется без вызова update: эпик пересчитывается сразу
+        Subtask stored = manager.getSubtasksByStatus(Status.NEW).get(0);
+        stored.setStatus(Status.DONE);
+        assertEquals(Status.DONE, manager.getEpicById(epic.getId()).getStatus(), "Статус эпика должен быть DONE.");
+        assertTrue(manager.isEpicStatusConsistent(), "Счетчики и статус эпика не должны расходиться.");
+    }
+
+    @Test
+    public void testSubtaskUpdateKeepsItsEpic() {
+        // Обновление с чужим или несуществующим эпиком не переносит подзадачу: она остается в прежнем эпике
+        for (TaskManager manager : List.of(Managers.getDefault(), Managers.getConcurrent(),
+                Managers.getColumnar(), Managers.getSharded(4))) {
+            Epic epic = manager.createEpic(new Epic("Epic 1", "Description 1"));
+            Epic other = manager.createEpic(new Epic("Epic 2", "Description 2"));
+            Subtask subtask = manager.createSubtask(new Subtask("Subtask 1", "Description 1", epic.getId()));
+
+            for (int epicId : new int[]{other.getId(), 9999}) {
+                Subtask moved = new Subtask(manager.getSubTaskById(subtask.getId()));
+                moved.setEpicId(epicId);
+                moved.setStatus(Status.DONE);
+                manager.updateSubtask(moved);
+                assertEquals(epic.getId(), moved.getEpicId(), "Эпик подзадачи не должен меняться через update.");
+            }
+
+            assertEquals(epic.getId(), manager.getSubTaskById(subtask.getId()).getEpicId(),
+                    "Хранимая подзадача должна остаться в прежнем эпике.");
+            assertEquals(Set.of(subtask.getId()), idsOf(manager.getEpicSubtasks(epic.getId())),
+                    "Прежний эпик должен по-прежнему содержать подзадачу.");
+            assertTrue(manager.getEpicSubtasks(other.getId()).isEmpty(), "Другой эпик не должен получить подзадачу.");
+            assertEquals(Status.DONE, manager.getEpicById(epic.getId()).getStatus(),
+                    "Статус подзадачи должен учитываться в прежнем эпике.");
+            if (manager instanceof InMemoryTaskManager inMemory) {
+                assertTrue(inMemory.isEpicStatusConsistent(), "Счетчики статусов должны быть согласованы.");
+            } else if (manager instanceof ColumnarTaskManager columnar) {
+                assertTrue(columnar.isEpicStatusConsistent(), "Счетчики статусов должны быть согласованы.");
+            }
+        }
+    }
+
+    @Test
+    public void testStoredSubtaskMovedInPlaceStaysInItsEpic() {
+        // epicId сменили у самого хранимого объекта: update и удаление работают с эпиком, где подзадача учтена
+        for (TaskManager manager : List.of(Managers.getDefault(), Managers.getConcurrent())) {
+            Epic epic = manager.createEpic(new Epic("Epic 1", "Description 1"));
+            Epic other = manager.createEpic(new Epic("Epic 2", "Description 2"));
+            Subtask subtask = manager.createSubtask(new Subtask("Subtask 1", "Description 1", epic.getId()));
+            manager.createSubtask(new Subtask("Subtask 2", "Description 2", epic.getId()));
+            manager.getEpicSubtasksByStatus(epic.getId(), Status.NEW); // Строим индексы до переноса
+
+            Subtask live = manager.getSubTaskById(subtask.getId());
+            live.setEpicId(other.getId());
+            live.setStatus(Status.IN_PROGRESS);
+            manager.updateSubtask(live);
+
+            assertEquals(epic.getId(), live.getEpicId(), "Эпик подзадачи не должен меняться у хранимого объекта.");
+            assertEquals(Status.IN_PROGRESS, manager.getEpicById(epic.getId()).getStatus());
+            assertEquals(Set.of(subtask.getId()), idsOf(manager.getEpicSubtasksByStatus(epic.getId(), Status.IN_PROGRESS)));
+            assertTrue(manager.getEpicSubtasks(other.getId()).isEmpty(), "Другой эпик не должен получить подзадачу.");
+            if (manager instanceof InMemoryTaskManager inMemory) {
+                assertTrue(inMemory.isEpicStatusConsistent(), "Счетчики статусов должны быть согласованы.");
+            }
+
+            live.setEpicId(other.getId()); // Без update: удаление все равно убирает подзадачу из ее эпика
+            assertEquals(subtask.getId(), manager.deleteSubtask(subtask.getId()));
+            assertEquals(1, manager.getEpicById(epic.getId()).getSubtaskIds().size(),
+                    "В эпике не должно остаться id удаленной подзадачи.");
+            assertEquals(Status.NEW, manager.getEpicById(epic.getId()).getStatus());
+            if (manager instanceof InMemoryTaskManager inMemory) {
+                assertTrue(inMemory.isEpicStatusConsistent(), "Счетчики статусов должны быть согласованы.");
+            }
+        }
+    }
+
+    @Test
+    public void testEpicUpdateKeepsSubtasksAndDerivedStatus() {
+        // Новый объект эпика (как из запроса) не знает подзадач и статуса: менеджер берет их у хранимого эпика
+        for (TaskManager manager : List.of(Managers.getDefault(), Managers.getConcurrent(),
+                Managers.getColumnar(), Managers.getSharded(4))) {
+            Epic epic = manager.createEpic(new Epic("Epic 1", "Description 1"));
+            Subtask subtask = manager.createSubtask(new Subtask("Subtask 1", "Description 1", epic.getId()));
+            subtask.setStatus(Status.IN_PROGRESS);
+            manager.updateSubtask(subtask);
+            manager.getEpicsByStatus(Status.IN_PROGRESS); // Строим индексы до обновления
+
+            Epic update = new Epic("Epic 1 renamed", "Description 2");
+            update.setId(epic.getId());
+            update.setStatus(Status.DONE);
+            manager.updateEpic(update);
+
+            Epic stored = manager.getEpicById(epic.getId());
+            assertEquals("Epic 1 renamed", stored.getTitle(), "Название эпика должно обновиться.");
+            assertArrayEquals(new int[]{subtask.getId()}, stored.getSubtaskIds().toArray(),
+                    "Обновление не должно терять подзадачи эпика.");
+            assertEquals(Status.IN_PROGRESS, stored.getStatus(), "Статус эпика выводится из подзадач.");
+            assertEquals(Set.of(subtask.getId()), idsOf(manager.getEpicSubtasks(epic.getId())));
+            assertEquals(Set.of(epic.getId()), idsOf(manager.getEpicsByStatus(Status.IN_PROGRESS)),
+                    "Индекс статусов должен содержать эпик под выведенным статусом.");
+            assertTrue(manager.getEpicsByStatus(Status.DONE).isEmpty());
+
+            manager.deleteSubtask(subtask.getId()); // Подзадача по-прежнему учтена в эпике
+            assertTrue(manager.getEpicById(epic.getId()).getSubtaskIds().isEmpty());
+            assertEquals(Status.DONE, manager.getEpicById(epic.getId()).getStatus());
+            if (manager instanceof InMemoryTaskManager inMemory) {
+                assertTrue(inMemory.isEpicStatusConsistent(), "Счетчики статусов должны быть согласованы.");
+            }
+        }
+    }
+
+    @Test
+    public void testEpicStatusAfterDeletingAllSubtasks() {
+        // Опустевшие эпики выполнены, как после удаления последней подзадачи; пустой новый эпик остается NEW
+        for (TaskManager manager : List.of(Managers.getDefault(), Managers.getConcurrent(), Managers.getSharded(4))) {
+            Epic epic = manager.createEpic(new Epic("Epic 1", "Description 1"));
+            Epic empty = manager.createEpic(new Epic("Epic 2", "Description 2"));
+            Subtask subtask = manager.createSubtask(new Subtask("Subtask 1", "Description 1", epic.getId()));
+            subtask.setStatus(Status.IN_PROGRESS);
+            manager.updateSubtask(subtask);
+            manager.getEpicsByStatus(Status.IN_PROGRESS); // Строим индексы до очистки
+
+            manager.deleteAllSubTasks();
+
+            assertEquals(Status.DONE, manager.getEpicById(epic.getId()).getStatus(), "Опустевший эпик — DONE.");
+            assertEquals(Status.NEW, manager.getEpicById(empty.getId()).getStatus());
+            assertTrue(manager.getEpicsByStatus(Status.IN_PROGRESS).isEmpty(),
+                    "Индекс статусов не должен держать эпик под прежним статусом.");
+            assertEquals(Set.of(epic.getId()), idsOf(manager.getEpicsByStatus(Status.DONE)));
+            if (manager instanceof InMemoryTaskManager inMemory) {
+                assertTrue(inMemory.isEpicStatusConsistent(), "Счетчики статусов должны быть согласованы.");
+            }
+        }
+    }
+
+    @Test
+    public void testEpicStatusAfterDeletingLastSubtask() {
+        // Создаем эпик с одной подзадачей в работе
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        Epic epic = manager.createEpic(new Epic("Epic 1", "Description 1"));
+        Subtask subtask = manager.createSubtask(new Subtask("Subtask 1", "Description 1", epic.getId()));
+        subtask.setStatus(Status.IN_PROGRESS);
+        manager.updateSubtask(subtask);
+        assertEquals(Status.IN_PROGRESS, epic.getStatus(), "Статус эпика должен быть IN_PROGRESS.");
+
+        // Удаляем единственную подзадачу: эпик без подзадач считается выполненным, как и раньше
+        manager.deleteSubtask(subtask.getId());
+        assertEquals(Status.DONE, epic.getStatus(), "Статус эпика без подзадач должен быть DONE.");
+        assertTrue(manager.isEpicStatusConsistent(), "Счетчики статусов должны быть согласованы.");
+    }
+
+    @Test
+    public void testStatusIndexesMatchFullScan() {
+        // Случайно меняем статусы (в том числе заменой объектов) и удаляем задачи всех типов
+        for (TaskManager manager : List.of(Managers.getDefault(), Managers.getConcurrent())) {
+            List<Epic> epics = new ArrayList<>();
+            List<Subtask> subtasks = new ArrayList<>();
+            List<Task> tasks = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                Epic epic = manager.createEpic(new Epic("Epic " + i, "Description"));
+                epics.add(epic);
+                for (int j = 0; j < 10; j++) {
+                    subtasks.add(manager.createSubtask(new Subtask("Subtask " + j, "Description", epic.getId())));
+                }
+                tasks.add(manager.createTask(new Task("Task " + i, "Description")));
+            }
+
+            Random random = new Random(11);
+            Status[] statuses = Status.values();
+            for (int i = 0; i < 500; i++) {
+                int action = random.nextInt(10);
+                if (action < 4 && !subtasks.isEmpty()) {
+                    subtasks.get(random.nextInt(subtasks.size())).setStatus(statuses[random.nextInt(3)]);
+                } else if (action < 6 && !subtasks.isEmpty()) {
+                    int index = random.nextInt(subtasks.size());
+                    Subtask replacement = new Subtask(subtasks.get(index));
+                    replacement.setStatus(statuses[random.nextInt(3)]);
+                    manager.updateSubtask(replacement);
+                    subtasks.set(index, replacement);
+                } else if (action < 7 && !subtasks.isEmpty()) {
+                    manager.deleteSubtask(subtasks.remove(random.nextInt(subtasks.size())).getId());
+                } else if (action < 9 && !tasks.isEmpty()) {
+                    tasks.get(random.nextInt(tasks.size())).setStatus(statuses[random.nextInt(3)]);
+                } else {
+                    Epic epic = epics.get(random.nextInt(epics.size()));
+                    subtasks.add(manager.createSubtask(new Subtask("Extra", "Description", epic.getId())));
+                }
+                manager.updateEpicStatus(epics.get(0).getId());
+            }
+
+            // Выборки должны совпадать с фильтрацией полного списка
+            for (Status status : statuses) {
+                assertEquals(idsOf(filter(manager.getAllSubtasks(), status)), idsOf(manager.getSubtasksByStatus(status)),
+                        "Индекс подзадач по статусу " + status + " должен совпадать с полным обходом.");
+                assertEquals(idsOf(filter(manager.getAllTasks(), status)), idsOf(manager.getTasksByStatus(status)));
+                assertEquals(idsOf(filter(manager.getAllEpics(), status)), idsOf(manager.getEpicsByStatus(status)));
+                for (Epic epic : epics) {
+                    List<Subtask> ofEpic = manager.getEpicSubtasks(epic.getId());
+                    assertEquals(epic.getSubtaskIds().size(), ofEpic.size());
+                    assertEquals(idsOf(filter(ofEpic, status)),
+                            idsOf(manager.getEpicSubtasksByStatus(epic.getId(), status)));
+                }
+            }
+        }
+    }
+
+    private static <T extends Task> List<T> filter(List<T> tasks, Status status) {
+        return tasks.stream().filter(task -> task.getStatus() == status).toList();
+    }
+
+    @Test
+    public void testRemoveSubtaskIdsMatchesList() {
+        // Удаляем id в случайном порядке и сверяем содержимое эпика с обычным множеством
+        Epic epic = new Epic("Эпик", "Описание");
+        Set<Integer> expected = new HashSet<>();
+        for (int id = 0; id < 1_000; id++) {
+            epic.addSubtask(id);
+            expected.add(id);
+        }
+        Random random = new Random(3);
+        for (int i = 0; i < 2_000; i++) {
+            int id = random.nextInt(1_200);
+            assertEquals(expected.remove(id), epic.removeSubtask(id), "Удаление должно совпадать с множеством.");
+            if (i % 100 == 0) {
+                epic.addSubtask(1_200 + i); // Добавления после первого удаления обновляют индекс позиций
+                expected.add(1_200 + i);
+            }
+        }
+        Set<Integer> actual = new HashSet<>();
+        epic.getSubtaskIds().forEach(actual::add);
+        assertEquals(expected, actual, "Оставшиеся подзадачи должны совпадать.");
+        assertEquals(expected.size(), epic.getSubtaskIds().size(), "Дубликатов быть не должно.");
+
+        epic.clearSubtasks();
+        assertFalse(epic.removeSubtask(1_200), "После очистки подзадач в эпике нет.");
+    }
+
+    private static Set<Integer> idsOf(List<? extends Task> tasks) {
+        Set<Integer> ids = new HashSet<>();
+        tasks.forEach(task -> ids.add(task.getId()));
+        return ids;
+    }
 }
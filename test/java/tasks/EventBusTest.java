@@ -0,0 +1,177 @@
+package tasks;
+
+import managers.EventBus;
+import managers.InMemoryTaskManager;
+import managers.TaskEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventBusTest {
+    @Test
+    public void testManagerPublishesTypedEvents() throws InterruptedException {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        Epic epic = manager.createEpic(new Epic("До подписки", "Описание")); // Событие без подписчиков не публикуется
+        List<String> received = new ArrayList<>();
+        CountDownLatch done = new CountDownLatch(7);
+        EventBus.Subscription subscription = manager.getEventBus().subscribe(batch -> {
+            synchronized (received) {
+                batch.forEach(event -> received.add(describe(event)));
+            }
+            batch.forEach(event -> done.countDown());
+        });
+        try {
+            Task task = manager.createTask(new Task("Задача", "Описание"));
+            Subtask subtask = manager.createSubtask(new Subtask("Подзадача", "Описание", epic.getId()));
+            Subtask update = new Subtask(subtask); // Копия: смена статуса хранимого объекта сразу пересчитала бы эпик
+            update.setStatus(Status.DONE);
+            manager.updateSubtask(update);
+            manager.deleteTask(task.getId());
+            manager.deleteEpic(epic.getId());
+
+            assertTrue(done.await(5, TimeUnit.SECONDS), "Все события должны быть доставлены.");
+        } finally {
+            subscription.close();
+        }
+        assertEquals(List.of(
+                "created TASK " + (epic.getId() + 1),
+                "created SUBTASK " + (epic.getId() + 2) + " NEW", // Снимок не видит последующих изменений
+                "updated " + (epic.getId() + 2) + " DONE",
+                "epic " + epic.getId() + " NEW -> DONE",
+                "deleted " + (epic.getId() + 1),
+                "deleted " + (epic.getId() + 2),
+                "deleted " + epic.getId()), received, "События должны прийти по порядку.");
+    }
+
+    @Test
+    public void testBlockingBackPressureDeliversEverythingInOrder() throws InterruptedException {
+        EventBus bus = new EventBus(16, EventBus.BackPressure.BLOCK);
+        List<Integer> ids = new ArrayList<>();
+        int[] largestBatch = new int[1];
+        CountDownLatch done = new CountDownLatch(1);
+        EventBus.Subscription subscription = bus.subscribe(batch -> {
+            largestBatch[0] = Math.max(largestBatch[0], batch.size());
+            for (TaskEvent event : batch) {
+                ids.add(((TaskEvent.Deleted) event).id());
+            }
+            if (ids.size() == 10_000) {
+                done.countDown();
+            }
+        }, 8);
+        try {
+            // Буфер на 16 событий намного меньше потока событий: публикация ждет подписчика
+            for (int id = 0; id < 10_000; id++) {
+                assertTrue(bus.publish(new TaskEvent.Deleted(id)));
+            }
+            assertTrue(done.await(10, TimeUnit.SECONDS), "Все события должны быть доставлены.");
+        } finally {
+            subscription.close();
+        }
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals(i, ids.get(i), "События должны идти в порядке публикации.");
+        }
+        assertTrue(largestBatch[0] <= 8, "Пачка не должна превышать заданный размер.");
+        assertEquals(0, bus.getDroppedCount());
+    }
+
+    @Test
+    public void testDropAndFailBackPressure() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        EventBus dropping = new EventBus(4, EventBus.BackPressure.DROP);
+        EventBus failing = new EventBus(4, EventBus.BackPressure.FAIL);
+        try (dropping; failing) {
+            // Подписчики застревают на первой пачке и не освобождают буфер
+            dropping.subscribe(batch -> awaitQuietly(release), 1);
+            failing.subscribe(batch -> awaitQuietly(release), 1);
+
+            int accepted = 0;
+            for (int id = 0; id < 10; id++) {
+                if (dropping.publish(new TaskEvent.Deleted(id))) {
+                    accepted++;
+                }
+            }
+            assertTrue(accepted <= 5, "В буфер помещается не больше его емкости и одной пачки в обработке.");
+            assertEquals(10 - accepted, dropping.getDroppedCount(), "Отброшенные события должны учитываться.");
+
+            assertThrows(IllegalStateException.class, () -> {
+                for (int id = 0; id < 10; id++) {
+                    failing.publish(new TaskEvent.Deleted(id));
+                }
+            }, "Переполнение в режиме FAIL должно завершаться исключением.");
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void testSubscriptionSurvivesErrorsAndReentrantPublish() throws InterruptedException {
+        List<Throwable> reported = new CopyOnWriteArrayList<>();
+        Thread.UncaughtExceptionHandler previous = Thread.getDefaultUncaughtExceptionHandler();
+        Thread.setDefaultUncaughtExceptionHandler((thread, e) -> reported.add(e));
+        List<Integer> received = new CopyOnWriteArrayList<>();
+        AtomicReference<RuntimeException> reentrant = new AtomicReference<>();
+        CountDownLatch republished = new CountDownLatch(1);
+        CountDownLatch delivered = new CountDownLatch(1);
+        EventBus bus = new EventBus(4, EventBus.BackPressure.BLOCK);
+        try (bus) {
+            bus.subscribe(batch -> {
+                int id = ((TaskEvent.Deleted) batch.get(0)).id();
+                received.add(id);
+                if (id == 0) {
+                    throw new AssertionError("Сбой обработчика"); // Ошибка, а не RuntimeException
+                } else if (id == 1) {
+                    try {
+                        // Публикация из потока подписчика: буфер заполнится, а ждать места здесь некому
+                        for (int next = 2; next < 10; next++) {
+                            bus.publish(new TaskEvent.Deleted(next));
+                        }
+                    } catch (RuntimeException e) {
+                        reentrant.set(e);
+                    }
+                    republished.countDown();
+                } else if (id == 100) {
+                    delivered.countDown();
+                }
+            }, 1);
+            bus.publish(new TaskEvent.Deleted(0));
+            bus.publish(new TaskEvent.Deleted(1));
+            assertTrue(republished.await(5, TimeUnit.SECONDS), "Поток подписчика не должен зависать в publish.");
+            bus.publish(new TaskEvent.Deleted(100));
+            assertTrue(delivered.await(5, TimeUnit.SECONDS), "Подписка должна пережить сбои обработчика.");
+        } finally {
+            Thread.setDefaultUncaughtExceptionHandler(previous);
+        }
+
+        assertInstanceOf(IllegalStateException.class, reentrant.get(),
+                "Публикация из потока подписчика при полном буфере должна завершаться исключением, а не ждать.");
+        assertEquals(List.of(0, 1, 2, 3, 4, 100), received, "После сбоев события должны доставляться по порядку.");
+        assertEquals(1, reported.size(), "Ошибка обработчика должна передаваться обработчику исключений потока.");
+        assertInstanceOf(AssertionError.class, reported.get(0));
+    }
+
+    private static String describe(TaskEvent event) {
+        return switch (event) {
+            case TaskEvent.Created created when created.task().type() == TaskType.SUBTASK ->
+                    "created SUBTASK " + created.task().id() + " " + created.task().status();
+            case TaskEvent.Created created -> "created " + created.task().type() + " " + created.task().id();
+            case TaskEvent.Updated updated -> "updated " + updated.task().id() + " " + updated.task().status();
+            case TaskEvent.Deleted deleted -> "deleted " + deleted.id();
+            case TaskEvent.EpicStatusChanged changed ->
+                    "epic " + changed.epicId() + " " + changed.oldStatus() + " -> " + changed.newStatus();
+        };
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
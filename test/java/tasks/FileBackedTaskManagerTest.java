@@ -0,0 +1,216 @@
+package tasks;
+
+import managers.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileBackedTaskManagerTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testStateSurvivesRestartFromLog() {
+        // Создаем, изменяем и удаляем задачи, после чего закрываем менеджер
+        Task task;
+        Epic epic;
+        Subtask subtask1;
+        Subtask subtask2;
+        try (FileBackedTaskManager manager = new FileBackedTaskManager(directory)) {
+            task = manager.createTask(new Task("Task 1", "Description 1"));
+            manager.createTask(new Task("Task 2", "Description 2"));
+            epic = manager.createEpic(new Epic("Epic 1", "Description 1"));
+            subtask1 = manager.createSubtask(new Subtask("Subtask 1", "Description 1", epic.getId()));
+            subtask2 = manager.createSubtask(new Subtask("Subtask 2", "Описание 2", epic.getId()));
+
+            task.setStatus(Status.DONE);
+            manager.updateTask(task);
+            subtask1.setStatus(Status.IN_PROGRESS);
+            manager.updateSubtask(subtask1);
+            manager.deleteTask(task.getId() + 1);
+        }
+
+        // Восстанавливаем менеджер из того же каталога и сверяем состояние
+        try (FileBackedTaskManager restored = new FileBackedTaskManager(directory)) {
+            assertEquals(1, restored.getAllTasks().size(), "Удаленная задача не должна восстановиться.");
+            assertEquals(task, restored.getTaskById(task.getId()), "Задача должна восстановиться с новым статусом.");
+            assertEquals(subtask2, restored.getSubTaskById(subtask2.getId()), "Подзадача должна восстановиться.");
+
+            Epic restoredEpic = restored.getEpicById(epic.getId());
+            assertEquals(Status.IN_PROGRESS, restoredEpic.getStatus(), "Статус эпика должен быть пересчитан.");
+            assertEquals(epic.getSubtaskIds(), restoredEpic.getSubtaskIds(), "Подзадачи эпика должны сохраниться.");
+            assertTrue(restored.isEpicStatusConsistent(), "Счетчики статусов должны быть согласованы.");
+
+            // Новые id не должны пересекаться с восстановленными
+            Task next = restored.createTask(new Task("Task 3", "Description 3"));
+            assertTrue(next.getId() > subtask2.getId(), "Новый id должен быть больше восстановленных.");
+        }
+    }
+
+    @Test
+    public void testCompactionKeepsStateAndTruncatesLog() throws IOException {
+        // Снимок нужен после 10 записей, журнал сбрасывается пакетами по 4 записи
+        int epicId;
+        try (FileBackedTaskManager manager = new FileBackedTaskManager(directory, 4, 10)) {
+            Epic epic = manager.createEpic(new Epic("Epic", "Description"));
+            epicId = epic.getId();
+            for (int i = 0; i < 25; i++) {
+                Subtask subtask = manager.createSubtask(new Subtask("Subtask " + i, "Description", epicId));
+                if (i % 2 == 0) {
+                    subtask.setStatus(Status.DONE);
+                    manager.updateSubtask(subtask);
+                }
+            }
+            manager.deleteAllTasks();
+
+            // Запись журнала снимок не делает: его делают явно или при закрытии
+            assertFalse(Files.exists(directory.resolve("tasks.snapshot")), "Снимок не должен делаться при записи.");
+            assertTrue(manager.isCompactionDue());
+            assertTrue(manager.compactIfDue());
+            assertFalse(manager.compactIfDue(), "После снимка журнал короткий.");
+            for (int i = 0; i < 10; i++) {
+                manager.createTask(new Task("Task " + i, "Description"));
+            }
+        }
+
+        // Журнал длиннее 10 записей сворачивается при закрытии
+        assertTrue(Files.exists(directory.resolve("tasks.snapshot")), "Снимок должен быть создан.");
+        assertTrue(Files.size(directory.resolve("tasks.wal")) < Files.size(directory.resolve("tasks.snapshot")),
+                "Журнал должен быть свернут в снимок.");
+
+        try (FileBackedTaskManager restored = new FileBackedTaskManager(directory)) {
+            assertEquals(25, restored.getAllSubtasks().size(), "Все подзадачи должны восстановиться.");
+            assertEquals(10, restored.getAllTasks().size());
+            assertEquals(25, restored.getEpicById(epicId).getSubtaskIds().size());
+            assertEquals(Status.NEW, restored.getEpicById(epicId).getStatus(), "Статус эпика должен сохраниться.");
+            assertTrue(restored.isEpicStatusConsistent(), "Счетчики статусов должны быть согласованы.");
+        }
+    }
+
+    @Test
+    public void testNoOpChangesAreNotJournaled() throws IOException {
+        try (FileBackedTaskManager manager = new FileBackedTaskManager(directory)) {
+            Epic epic = manager.createEpic(new Epic("Эпик", "Описание"));
+            long size = Files.size(directory.resolve("tasks.wal"));
+            Task missing = new Task("Нет", "Описание");
+            missing.setId(1000);
+            manager.updateTask(missing);
+            Subtask missingSubtask = new Subtask("Нет", "Описание", epic.getId());
+            missingSubtask.setId(1001);
+            manager.updateSubtask(missingSubtask);
+            Task wrongType = new Task("Не задача", "Описание");
+            wrongType.setId(epic.getId()); // Id эпика: updateTask его не найдет
+            manager.updateTask(wrongType);
+            assertEquals(-1, manager.deleteSubtask(1001));
+            assertEquals(-1, manager.deleteTask(1000));
+            manager.deleteAllTasks();
+            manager.deleteAllSubTasks();
+            assertEquals(size, Files.size(directory.resolve("tasks.wal")), "Ничего не изменилось — нечего писать.");
+        }
+    }
+
+    @Test
+    public void testPendingRecordsAreFlushedInTheBackground() throws Exception {
+        // Пакет на 1000 записей не наберется: записи сбрасывает периодический сброс
+        Path copy = directory.resolve("copy");
+        try (FileBackedTaskManager manager = new FileBackedTaskManager(directory, 1000, 10_000, 10)) {
+            Task task = manager.createTask(new Task("Задача", "Описание"));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (Files.size(directory.resolve("tasks.wal")) == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            Files.createDirectories(copy);
+            Files.copy(directory.resolve("tasks.wal"), copy.resolve("tasks.wal"));
+            try (FileBackedTaskManager restored = new FileBackedTaskManager(copy)) {
+                assertEquals(task, restored.getTaskById(task.getId()), "Запись должна дойти до диска без close.");
+            }
+        }
+    }
+
+    @Test
+    public void testInPlaceStatusChangesSurviveRestart() {
+        // Статус меняют прямо у хранимых объектов, без update*
+        Task task;
+        Epic initiative;
+        Epic epic;
+        Subtask subtask;
+        try (FileBackedTaskManager manager = new FileBackedTaskManager(directory)) {
+            task = manager.createTask(new Task("Задача", "Описание"));
+            initiative = manager.createEpic(new Epic("Инициатива", "Описание"));
+            epic = manager.createEpic(new Epic("Эпик", "Описание", initiative.getId()));
+            subtask = manager.createSubtask(new Subtask("Подзадача", "Описание", epic.getId()));
+            subtask.setStatus(Status.DONE);
+            manager.getTaskById(task.getId()).setStatus(Status.IN_PROGRESS);
+            assertEquals(Status.DONE, manager.getEpicById(initiative.getId()).getStatus());
+        }
+
+        try (FileBackedTaskManager restored = new FileBackedTaskManager(directory)) {
+            assertEquals(Status.DONE, restored.getSubTaskById(subtask.getId()).getStatus(),
+                    "Смена статуса у объекта должна попасть в журнал.");
+            assertEquals(Status.DONE, restored.getEpicById(epic.getId()).getStatus());
+            assertEquals(Status.DONE, restored.getEpicById(initiative.getId()).getStatus());
+            assertEquals(Status.IN_PROGRESS, restored.getTaskById(task.getId()).getStatus());
+            assertEquals(0, restored.getSnapshot(subtask.getId()).version(), "Смена статуса не меняет версию.");
+            assertTrue(restored.isEpicStatusConsistent());
+        }
+    }
+
+    @Test
+    public void testEmptyEpicStatusSurvivesCompaction() {
+        // Новый пустой эпик остается NEW, а опустевший становится DONE: статус не выводится из подзадач
+        int freshId;
+        int emptiedId;
+        try (FileBackedTaskManager manager = new FileBackedTaskManager(directory)) {
+            freshId = manager.createEpic(new Epic("Новый", "Описание")).getId();
+            emptiedId = manager.createEpic(new Epic("Опустевший", "Описание")).getId();
+            manager.deleteSubtask(manager.createSubtask(new Subtask("Подзадача", "Описание", emptiedId)).getId());
+            manager.compact();
+        }
+
+        try (FileBackedTaskManager restored = new FileBackedTaskManager(directory)) {
+            assertEquals(Status.NEW, restored.getEpicById(freshId).getStatus(), "Пустой эпик должен остаться NEW.");
+            assertEquals(Status.DONE, restored.getEpicById(emptiedId).getStatus());
+            assertTrue(restored.isEpicStatusConsistent());
+        }
+    }
+
+    @Test
+    public void testTornLogTailIsIgnored() throws IOException {
+        // Пишем две задачи и имитируем сбой посреди записи третьей
+        try (FileBackedTaskManager manager = new FileBackedTaskManager(directory)) {
+            manager.createTask(new Task("Task 1", "Description 1"));
+            manager.createTask(new Task("Task 2", "Description 2"));
+        }
+        Files.write(directory.resolve("tasks.wal"), new byte[]{0, 0, 0, 42, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        // Восстановление должно учесть только целые записи и продолжить журнал после них
+        try (FileBackedTaskManager restored = new FileBackedTaskManager(directory)) {
+            assertEquals(2, restored.getAllTasks().size(), "Оборванная запись должна быть отброшена.");
+            restored.createTask(new Task("Task 3", "Description 3"));
+        }
+        try (FileBackedTaskManager restored = new FileBackedTaskManager(directory)) {
+            assertEquals(3, restored.getAllTasks().size(), "Запись после отрезанного хвоста должна читаться.");
+        }
+    }
+
+    @Test
+    public void testDeleteAllEpicsIsReplayed() {
+        // Удаляем все эпики вместе с подзадачами и перезапускаемся
+        try (FileBackedTaskManager manager = Managers.getFileBacked(directory)) {
+            Epic epic = manager.createEpic(new Epic("Epic", "Description"));
+            manager.createSubtask(new Subtask("Subtask", "Description", epic.getId()));
+            manager.deleteAllEpics();
+        }
+        try (FileBackedTaskManager restored = Managers.getFileBacked(directory)) {
+            assertTrue(restored.getAllEpics().isEmpty(), "Эпики не должны восстановиться.");
+            assertTrue(restored.getAllSubtasks().isEmpty(), "Подзадачи не должны восстановиться.");
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package tasks;
+
+// Замеры кучи для тестов занимаемой памяти
+final class Heap {
+    private Heap() {
+    }
+
+    // Объем занятой кучи после принудительной сборки мусора
+    static long used() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+}
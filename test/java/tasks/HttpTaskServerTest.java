@@ -0,0 +1,160 @@
+package tasks;
+
+import http.HttpTaskServer;
+import managers.Managers;
+import managers.TaskManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HttpTaskServerTest {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 15, 9, 0);
+
+    private TaskManager manager;
+    private HttpTaskServer server;
+    private HttpClient client;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        manager = Managers.getConcurrent();
+        server = new HttpTaskServer(manager, 0); // Свободный порт
+        server.start();
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        client.close();
+        server.stop();
+    }
+
+    @Test
+    public void testCreateAndGetTask() throws Exception {
+        HttpResponse<String> created = send("POST", "/tasks",
+                "{\"title\":\"Задача \\\"1\\\"\",\"description\":\"Описание\",\"status\":\"IN_PROGRESS\","
+                        + "\"startTime\":\"2024-01-15T09:00\",\"duration\":\"PT30M\"}");
+        assertEquals(201, created.statusCode(), "Задача должна быть создана.");
+
+        Task task = manager.getAllTasks().get(0);
+        assertEquals("Задача \"1\"", task.getTitle(), "Экранирование в названии должно разбираться.");
+        assertEquals(Status.IN_PROGRESS, task.getStatus());
+        assertEquals(Duration.ofMinutes(30), task.getDuration());
+        assertTrue(created.body().contains("\"id\":" + task.getId()), "В ответе должен быть id новой задачи.");
+
+        HttpResponse<String> found = send("GET", "/tasks/" + task.getId(), null);
+        assertEquals(200, found.statusCode());
+        assertTrue(found.body().contains("\"endTime\":\"2024-01-15T09:30\""), "Ответ: " + found.body());
+        assertEquals(404, send("GET", "/tasks/999", null).statusCode(), "Отсутствующая задача — 404.");
+        assertEquals(400, send("POST", "/tasks", "{\"title\":").statusCode(), "Неверный JSON — 400.");
+    }
+
+    @Test
+    public void testUpdateOfMissingIdIsNotFound() throws Exception {
+        Epic epic = manager.createEpic(new Epic("Эпик", "Описание"));
+        assertEquals(404, send("POST", "/tasks", "{\"id\":42,\"title\":\"Задача\",\"description\":\"\"}")
+                .statusCode(), "Обновление отсутствующей задачи — 404.");
+        assertEquals(404, send("POST", "/epics", "{\"id\":42,\"title\":\"Эпик\",\"description\":\"\"}")
+                .statusCode());
+        assertEquals(404, send("POST", "/subtasks", "{\"id\":42,\"title\":\"Подзадача\",\"description\":\"\","
+                + "\"epicId\":" + epic.getId() + "}").statusCode());
+        assertEquals(404, send("POST", "/tasks", "{\"id\":" + epic.getId() + ",\"title\":\"Задача\","
+                + "\"description\":\"\"}").statusCode(), "Id эпика не обновляет его как задачу.");
+        assertNull(manager.getTaskById(42));
+        assertEquals("Эпик", manager.getEpicById(epic.getId()).getTitle());
+
+        Task task = manager.createTask(new Task("Задача", "Описание"));
+        HttpResponse<String> updated = send("POST", "/tasks", "{\"id\":" + task.getId()
+                + ",\"title\":\"Новое название\",\"description\":\"\"}");
+        assertEquals(201, updated.statusCode());
+        assertEquals("Новое название", manager.getTaskById(task.getId()).getTitle());
+
+        assertEquals(404, send("DELETE", "/subtasks/42", null).statusCode(), "Удаление отсутствующей подзадачи — 404.");
+    }
+
+    @Test
+    public void testEpicUpdateKeepsSubtasks() throws Exception {
+        Epic epic = manager.createEpic(new Epic("Эпик", "Описание"));
+        Subtask subtask = manager.createSubtask(new Subtask("Подзадача", "Описание", epic.getId(), START,
+                Duration.ofHours(1)));
+        subtask.setStatus(Status.IN_PROGRESS);
+        manager.updateSubtask(subtask);
+
+        // В теле запроса нет подзадач, а статус указан чужой: менеджер берет их у хранимого эпика
+        HttpResponse<String> updated = send("POST", "/epics", "{\"id\":" + epic.getId()
+                + ",\"title\":\"Новое название\",\"description\":\"\",\"status\":\"DONE\"}");
+        assertEquals(201, updated.statusCode());
+
+        Epic stored = manager.getEpicById(epic.getId());
+        assertEquals("Новое название", stored.getTitle());
+        assertArrayEquals(new int[]{subtask.getId()}, stored.getSubtaskIds().toArray(),
+                "Обновление эпика по HTTP не должно терять подзадачи.");
+        assertEquals(Status.IN_PROGRESS, stored.getStatus(), "Статус эпика выводится из подзадач.");
+        assertEquals(START, stored.getStartTime(), "Время эпика выводится из подзадач.");
+        assertEquals(1, manager.getEpicSubtasks(epic.getId()).size());
+
+        HttpResponse<String> found = send("GET", "/epics/" + epic.getId() + "/subtasks", null);
+        assertEquals(200, found.statusCode());
+        assertTrue(found.body().contains("\"id\":" + subtask.getId()), "Ответ: " + found.body());
+    }
+
+    @Test
+    public void testOverlappingTaskRejected() throws Exception {
+        manager.createTask(new Task("Первая", "Описание", START, Duration.ofHours(1)));
+
+        HttpResponse<String> response = send("POST", "/tasks",
+                "{\"title\":\"Вторая\",\"description\":\"\",\"startTime\":\"2024-01-15T09:30\",\"duration\":\"PT1H\"}");
+        assertEquals(406, response.statusCode(), "Пересечение по времени — 406.");
+        assertEquals(1, manager.getAllTasks().size(), "Пересекающаяся задача не добавляется.");
+    }
+
+    @Test
+    public void testListsAreStreamedAsJsonArrays() throws Exception {
+        assertEquals("[]", send("GET", "/tasks", null).body(), "Пустой список — пустой массив.");
+
+        for (int i = 0; i < 1000; i++) {
+            manager.createTask(new Task("Задача " + i, "Описание"));
+        }
+        Epic epic = manager.createEpic(new Epic("Эпик", "Описание"));
+        Subtask subtask = manager.createSubtask(new Subtask("Подзадача", "Описание", epic.getId(), START,
+                Duration.ofHours(1)));
+
+        HttpResponse<String> tasks = send("GET", "/tasks", null);
+        assertEquals(200, tasks.statusCode());
+        assertEquals(1000, tasks.body().split("\"type\":\"TASK\"").length - 1, "Должны прийти все задачи.");
+        assertTrue(tasks.body().startsWith("[{") && tasks.body().endsWith("}]"), "Ответ — JSON-массив.");
+
+        String epics = send("GET", "/epics", null).body();
+        assertTrue(epics.contains("\"subtaskIds\":[" + subtask.getId() + "]"), "Ответ: " + epics);
+        String epicSubtasks = send("GET", "/epics/" + epic.getId() + "/subtasks", null).body();
+        assertTrue(epicSubtasks.contains("\"epicId\":" + epic.getId()), "Ответ: " + epicSubtasks);
+        assertTrue(send("GET", "/prioritized", null).body().contains("\"id\":" + subtask.getId()));
+
+        send("GET", "/subtasks/" + subtask.getId(), null);
+        assertEquals("[" + send("GET", "/subtasks/" + subtask.getId(), null).body() + "]",
+                send("GET", "/history", null).body(), "История содержит просмотренную подзадачу.");
+
+        assertEquals(200, send("DELETE", "/epics/" + epic.getId(), null).statusCode());
+        assertEquals("[]", send("GET", "/subtasks", null).body(), "Подзадачи удаляются вместе с эпиком.");
+        assertEquals(405, send("PUT", "/tasks", "{}").statusCode(), "Неподдерживаемый метод — 405.");
+    }
+
+    private HttpResponse<String> send(String method, String path, String body)
+            throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + path))
+                .method(method, body == null
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
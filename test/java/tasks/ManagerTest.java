@@ -3,7 +3,12 @@ package tasks;
 import managers.*;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -180,4 +185,178 @@ class ManagerTest {
         assertFalse(history.contains(subtask1), "Подзадача 1 должна быть удалена из истории.");
         assertFalse(history.contains(subtask2), "Подзадача 2 должна быть удалена из истории.");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testBoundedHistoryEvictsOldest() {
+        // Создаем историю на три записи и просматриваем пять задач
+        InMemoryHistoryManager historyManager = (InMemoryHistoryManager) Managers.getDefaultHistory(3);
+        for (int id = 1; id <= 5; id++) {
+            Task task = new Task("Task " + id, "Description");
+            task.setId(id);
+            historyManager.add(task);
+        }
+
+        // Повторный просмотр переносит задачу в конец и не вытесняет другие
+        Task task3 = new Task("Task 3", "Description");
+        task3.setId(3);
+        historyManager.add(task3);
+
+        // Проверяем порядок, размер и счетчик вытеснений
+        List<Task> history = historyManager.getHistory();
+        assertEquals(List.of(4, 5, 3), history.stream().map(Task::getId).toList(), "Должны остаться три последних.");
+        assertEquals(3, historyManager.size());
+        assertEquals(2, historyManager.getEvictionCount(), "Должны быть вытеснены две самые давние записи.");
+    }
+
+    @Test
+    void testIdOnlyHistoryResolvesCurrentTasks() {
+        // Создаем менеджер, история которого хранит только id и версии задач
+        InMemoryTaskManager manager = new InMemoryTaskManager(10, true);
+        Task task = manager.createTask(new Task("Task 1", "Description 1"));
+        manager.getTaskById(task.getId());
+
+        // Обновляем задачу после просмотра
+        Task updated = new Task("Task 1 (new)", "Description 1");
+        updated.setId(task.getId());
+        manager.updateTask(updated);
+
+        // История отдает актуальную задачу и знает, что она изменилась после просмотра
+        List<Task> history = manager.getHistory();
+        assertEquals(1, history.size());
+        assertSame(updated, history.get(0), "История должна отдавать актуальную задачу.");
+        assertEquals(1, updated.getVersion(), "Обновление должно увеличить версию задачи.");
+
+        // Удаленная задача пропадает из истории
+        manager.deleteTask(task.getId());
+        assertTrue(manager.getHistory().isEmpty(), "Удаленная задача не должна оставаться в истории.");
+    }
+
+    @Test
+    void testIdOnlyHistoryDetectsModification() {
+        // История в режиме id получает задачи из внешнего хранилища
+        Task task = new Task("Task 1", "Description 1");
+        task.setId(1);
+        InMemoryHistoryManager historyManager = new InMemoryHistoryManager(10, id -> id == 1 ? task : null);
+        historyManager.add(task);
+        assertFalse(historyManager.isModifiedSinceViewed(1), "Задача не менялась после просмотра.");
+
+        // Меняем версию задачи в хранилище
+        task.setVersion(task.getVersion() + 1);
+        assertTrue(historyManager.isModifiedSinceViewed(1), "История должна заметить новую версию задачи.");
+    }
+
+    @Test
+    void testViewsAndPagesWithoutCopying() {
+        TaskManager manager = Managers.getDefault();
+        Collection<Task> view = manager.getTasksView();
+        for (int i = 0; i < 25; i++) {
+            manager.createTask(new Task("Task " + i, "Description"));
+        }
+
+        // Представление живое: видит задачи, созданные после его получения, и не дает себя менять
+        assertEquals(25, view.size(), "Представление должно отражать текущее хранилище.");
+        assertThrows(UnsupportedOperationException.class, view::clear);
+        assertEquals(25, manager.getTasksView().stream().filter(t -> t.getStatus() == Status.NEW).count());
+
+        // Страницы по 10 задач покрывают все задачи ровно один раз
+        Set<Integer> ids = new HashSet<>();
+        List<Task> page;
+        int offset = 0;
+        do {
+            page = manager.getAllTasks(offset, 10);
+            page.forEach(t -> ids.add(t.getId()));
+            offset += page.size();
+        } while (!page.isEmpty());
+        assertEquals(25, ids.size(), "Страницы должны покрыть все задачи.");
+        assertEquals(5, manager.getAllTasks(20, 10).size(), "Последняя страница неполная.");
+
+        // Изменение хранилища во время обхода обнаруживается
+        assertThrows(ConcurrentModificationException.class, () -> {
+            for (Task task : view) {
+                manager.deleteTask(task.getId());
+            }
+        });
+    }
+
+    @Test
+    void testCursorPagesSurviveDeletes() {
+        for (TaskManager manager : List.of(Managers.getDefault(), Managers.getConcurrent(), Managers.getColumnar(),
+                Managers.getSharded(4), Managers.withMetrics(Managers.getDefault()))) {
+            List<Integer> expected = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                expected.add(manager.createTask(new Task("Task " + i, "Description")).getId());
+            }
+            assertEquals(expected.subList(0, 7), manager.getTasksAfter(0, 7).stream().map(Task::getId).toList(),
+                    "Страница по курсору идет по возрастанию id.");
+
+            // После задач идут подзадачи: id после курсора больше, чем задач, и хранилище обходится целиком
+            Epic epic = manager.createEpic(new Epic("Epic", "Description"));
+            for (int i = 0; i < 100; i++) {
+                manager.createSubtask(new Subtask("Subtask " + i, "Description", epic.getId()));
+            }
+            expected.add(manager.createTask(new Task("Last", "Description")).getId());
+
+            // Обход по курсору с удалениями впереди и позади курсора: каждая оставшаяся задача ровно один раз
+            List<Integer> visited = new ArrayList<>();
+            int cursor = 0;
+            List<Task> page;
+            while (!(page = manager.getTasksAfter(cursor, 7)).isEmpty()) {
+                for (Task task : page) {
+                    visited.add(task.getId());
+                }
+                cursor = page.get(page.size() - 1).getId();
+                if (visited.size() == 7) {
+                    manager.deleteTask(expected.get(2)); // Уже пройдена
+                    manager.deleteTask(expected.get(20)); // Еще впереди
+                    expected.remove(20);
+                }
+            }
+            assertEquals(expected, visited, "Курсор не должен пропускать и повторять задачи при удалениях.");
+            assertEquals(100, manager.getSubtasksAfter(0, 1000).size());
+            assertEquals(List.of(epic.getId()), manager.getEpicsAfter(0, 10).stream().map(Task::getId).toList());
+            assertTrue(manager.getEpicsAfter(epic.getId(), 10).isEmpty());
+            assertTrue(manager.getTasksAfter(0, 0).isEmpty());
+            assertThrows(IllegalArgumentException.class, () -> manager.getTasksAfter(-1, 10));
+        }
+    }
+
+    @Test
+    void testStreamHistoryKeepsOrder() {
+        TaskManager manager = Managers.getDefault();
+        List<Integer> viewed = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Task task = manager.createTask(new Task("Task " + i, "Description"));
+            manager.getTaskById(task.getId());
+            viewed.add(task.getId());
+        }
+        assertEquals(viewed, manager.streamHistory().map(Task::getId).toList(),
+                "Поток истории должен идти в порядке просмотров.");
+        assertEquals(manager.getHistory(), manager.streamHistory().toList());
+    }
+
+    @Test
+    void testDeleteAllPurgesHistoryByType() {
+        TaskManager manager = Managers.getDefault();
+        Task task = manager.createTask(new Task("Задача", "Описание"));
+        Epic epic = manager.createEpic(new Epic("Эпик", "Описание"));
+        Subtask subtask = manager.createSubtask(new Subtask("Подзадача", "Описание", epic.getId()));
+        manager.getSubTaskById(subtask.getId());
+        manager.getTaskById(task.getId());
+        manager.getEpicById(epic.getId());
+
+        // Очистка подзадач убирает из истории только подзадачи, порядок остальных сохраняется
+        manager.deleteAllSubTasks();
+        assertEquals(List.of(task.getId(), epic.getId()), manager.streamHistory().map(Task::getId).toList());
+
+        manager.deleteAllTasks();
+        assertEquals(List.of(epic.getId()), manager.streamHistory().map(Task::getId).toList());
+
+        manager.deleteAllEpics();
+        assertTrue(manager.getHistory().isEmpty(), "После очистки всех хранилищ история должна быть пустой.");
+
+        // После очистки история снова принимает задачи того же типа
+        Task next = manager.createTask(new Task("Новая", "Описание"));
+        manager.getTaskById(next.getId());
+        assertEquals(List.of(next), manager.getHistory());
+    }
+}
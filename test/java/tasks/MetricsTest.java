@@ -0,0 +1,171 @@
+package tasks;
+
+import managers.Managers;
+import managers.MetricsTaskManager;
+import managers.NestedEpics;
+import managers.TaskDependencies;
+import managers.TimeOverlapException;
+import org.junit.jupiter.api.Test;
+import util.LatencyHistogram;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsTest {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 15, 9, 0);
+
+    @Test
+    public void testCallsErrorsAndSizesAreCounted() {
+        MetricsTaskManager manager = Managers.withMetrics(Managers.getDefault());
+        Task task = manager.createTask(new Task("Задача", "Описание", START, Duration.ofHours(1)));
+        assertThrows(TimeOverlapException.class,
+                () -> manager.createTask(new Task("Пересечение", "Описание", START, Duration.ofHours(1))));
+        Epic epic = manager.createEpic(new Epic("Эпик", "Описание"));
+        manager.createEpic(new Epic("Пустой эпик", "Описание"));
+        for (int i = 0; i < 5; i++) {
+            manager.createSubtask(new Subtask("Подзадача " + i, "Описание", epic.getId()));
+        }
+        for (int i = 0; i < 10; i++) {
+            manager.getTaskById(task.getId());
+        }
+
+        MetricsTaskManager.Snapshot snapshot = manager.snapshot();
+        MetricsTaskManager.MethodStats create = snapshot.methods().get(MetricsTaskManager.Method.CREATE_TASK);
+        assertEquals(2, create.calls(), "Неудачный вызов тоже считается вызовом.");
+        assertEquals(1, create.errors(), "Исключение должно учитываться как ошибка.");
+        assertEquals(10, snapshot.methods().get(MetricsTaskManager.Method.GET_TASK_BY_ID).calls());
+        assertEquals(0, snapshot.methods().get(MetricsTaskManager.Method.DELETE_TASK).calls());
+        assertEquals(1, snapshot.taskCount());
+        assertEquals(5, snapshot.subtaskCount());
+        assertEquals(2, snapshot.epicCount());
+        assertEquals(1, snapshot.historySize(), "Повторные просмотры не увеличивают историю.");
+        assertArrayEquals(new long[]{1, 0, 0, 1}, snapshot.epicFanOut(), "Эпики без подзадач и с 4-7 подзадачами.");
+
+        manager.reset();
+        assertEquals(0, manager.getStats(MetricsTaskManager.Method.GET_TASK_BY_ID).calls());
+    }
+
+    @Test
+    public void testCapabilitiesOfDelegateAreForwarded() {
+        MetricsTaskManager manager = Managers.withMetrics(Managers.getDefault(), 1);
+        assertInstanceOf(NestedEpics.class, manager, "Вложенные эпики обернутого менеджера должны быть доступны.");
+        assertInstanceOf(TaskDependencies.class, manager, "Зависимости обернутого менеджера должны быть доступны.");
+
+        Epic initiative = manager.createEpic(new Epic("Инициатива", "Описание"));
+        Epic epic = manager.createEpic(new Epic("Эпик", "Описание"));
+        assertTrue(((NestedEpics) manager).moveEpic(epic.getId(), initiative.getId()));
+        assertEquals(List.of(epic), ((NestedEpics) manager).getChildEpics(initiative.getId()));
+
+        Task blocker = manager.createTask(new Task("Блокер", "Описание"));
+        Task blocked = manager.createTask(new Task("Зависимая", "Описание"));
+        TaskDependencies dependencies = (TaskDependencies) manager;
+        assertTrue(dependencies.addDependency(blocker.getId(), blocked.getId()));
+        assertFalse(dependencies.isReady(blocked.getId()));
+        assertThrows(IllegalArgumentException.class,
+                () -> dependencies.addDependency(blocked.getId(), blocker.getId()));
+        assertEquals(1, manager.getStats(MetricsTaskManager.Method.MOVE_EPIC).calls());
+        assertEquals(2, manager.getStats(MetricsTaskManager.Method.ADD_DEPENDENCY).calls());
+        assertEquals(1, manager.getStats(MetricsTaskManager.Method.ADD_DEPENDENCY).errors(), "Цикл — это ошибка.");
+
+        // Менеджер без этих возможностей не получает их от декоратора
+        MetricsTaskManager concurrent = Managers.withMetrics(Managers.getConcurrent());
+        assertFalse(concurrent instanceof NestedEpics);
+        assertFalse(concurrent instanceof TaskDependencies);
+    }
+
+    @Test
+    public void testJmxReadsGaugesPublishedByCallerThread() throws Exception {
+        MetricsTaskManager manager = Managers.withMetrics(Managers.getDefault(), 1);
+        manager.registerMBeans("jmx-gauges");
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName managerName = new ObjectName("kanban:type=TaskManager,name=\"jmx-gauges\"");
+            assertEquals(0, server.getAttribute(managerName, "EpicCount"), "Размеры посчитаны при создании.");
+
+            // Вызовы не обходят менеджер ради размеров: JMX показывает последние посчитанные
+            manager.createEpic(new Epic("Эпик", "Описание"));
+            assertEquals(0, server.getAttribute(managerName, "EpicCount"));
+            manager.refreshGauges();
+            assertEquals(1, server.getAttribute(managerName, "EpicCount"));
+
+            // snapshot() тоже публикует размеры
+            manager.createEpic(new Epic("Второй эпик", "Описание"));
+            manager.snapshot();
+            assertEquals(2, server.getAttribute(managerName, "EpicCount"));
+            assertArrayEquals(new long[]{2}, (long[]) server.getAttribute(managerName, "EpicFanOut"));
+        } finally {
+            manager.unregisterMBeans();
+        }
+    }
+
+    @Test
+    public void testHistogramPercentilesWithinBucketError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value * 1_000); // От 1 мкс до 100 мс
+        }
+        assertEquals(100_000, histogram.getCount());
+        assertEquals(100_000_000, histogram.getMax());
+        for (double percentile : new double[]{50, 90, 99, 99.9}) {
+            double exact = percentile / 100 * 100_000_000;
+            double error = Math.abs(histogram.getValueAtPercentile(percentile) - exact) / exact;
+            assertTrue(error <= 1.0 / 16, "Ошибка перцентиля " + percentile + " не больше ширины корзины: " + error);
+        }
+
+        LatencyHistogram small = new LatencyHistogram();
+        small.record(7);
+        assertEquals(7, small.getValueAtPercentile(99), "Малые значения хранятся точно.");
+    }
+
+    @Test
+    public void testMetricsExposedOverJmx() throws Exception {
+        MetricsTaskManager manager = Managers.withMetrics(Managers.getConcurrent(), 1); // Замеряем каждый вызов
+        manager.registerMBeans("jmx-test");
+        try {
+            manager.createEpic(new Epic("Эпик", "Описание"));
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName managerName = new ObjectName("kanban:type=TaskManager,name=\"jmx-test\"");
+            ObjectName methodName = new ObjectName("kanban:type=TaskManager,name=\"jmx-test\",method=createEpic");
+            // Потокобезопасный менеджер JMX пересчитывает сам, когда значения старше GAUGE_MAX_AGE_MILLIS
+            Thread.sleep(MetricsTaskManager.GAUGE_MAX_AGE_MILLIS);
+            assertEquals(1, server.getAttribute(managerName, "EpicCount"));
+            long measuredAt = (Long) server.getAttribute(managerName, "GaugesMeasuredAt");
+            assertTrue(System.currentTimeMillis() - measuredAt < 10_000, "Время подсчета должно быть свежим.");
+            assertEquals(1L, server.getAttribute(methodName, "Calls"));
+            assertTrue((Long) server.getAttribute(methodName, "MaxNanos") > 0, "Задержка должна быть записана.");
+        } finally {
+            manager.unregisterMBeans();
+        }
+        assertTrue(ManagementFactory.getPlatformMBeanServer()
+                .queryNames(new ObjectName("kanban:name=\"jmx-test\",*"), null).isEmpty(), "MBean должны сниматься.");
+    }
+
+    @Test
+    public void testJmxShowsWhenGaugesOfSingleThreadedManagerWereMeasured() throws Exception {
+        MetricsTaskManager manager = Managers.withMetrics(Managers.getDefault());
+        manager.registerMBeans("jmx-stale-test");
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName managerName = new ObjectName("kanban:type=TaskManager,name=\"jmx-stale-test\"");
+            long measuredAt = (Long) server.getAttribute(managerName, "GaugesMeasuredAt");
+            manager.createTask(new Task("Задача", "Описание"));
+            Thread.sleep(MetricsTaskManager.GAUGE_MAX_AGE_MILLIS);
+
+            // К менеджеру без потокобезопасности JMX не обращается: значения и время подсчета прежние
+            assertEquals(0, server.getAttribute(managerName, "TaskCount"));
+            assertEquals(measuredAt, server.getAttribute(managerName, "GaugesMeasuredAt"));
+
+            manager.refreshGauges();
+            assertEquals(1, server.getAttribute(managerName, "TaskCount"));
+            assertTrue((Long) server.getAttribute(managerName, "GaugesMeasuredAt") > measuredAt);
+        } finally {
+            manager.unregisterMBeans();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package tasks;
+
+import managers.ColumnarTaskManager;
+import managers.ConcurrentTaskManager;
+import managers.FileBackedTaskManager;
+import managers.InMemoryTaskManager;
+import managers.NestedEpics;
+import managers.TaskManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NestedEpicTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testStatusRollsUpThroughLevels() {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        Epic initiative = manager.createEpic(new Epic("Инициатива", "Описание"));
+        Epic epic = manager.createEpic(new Epic("Эпик", "Описание", initiative.getId()));
+        Epic other = manager.createEpic(new Epic("Другой эпик", "Описание", initiative.getId()));
+        Subtask subtask = manager.createSubtask(new Subtask("Подзадача", "Описание", epic.getId()));
+        assertNull(manager.createEpic(new Epic("Без родителя", "Описание", 1000)), "Родитель должен существовать.");
+        assertEquals(List.of(epic, other), manager.getChildEpics(initiative.getId()));
+
+        // Статус подзадачи поднимается через эпик к инициативе
+        subtask.setStatus(Status.IN_PROGRESS);
+        manager.updateSubtask(subtask);
+        assertEquals(Status.IN_PROGRESS, manager.getEpicById(epic.getId()).getStatus());
+        assertEquals(Status.IN_PROGRESS, manager.getEpicById(initiative.getId()).getStatus());
+
+        subtask.setStatus(Status.DONE);
+        manager.updateSubtask(subtask);
+        assertEquals(Status.DONE, epic.getStatus());
+        assertEquals(Status.NEW, initiative.getStatus(), "Второй эпик инициативы еще не начат.");
+        Subtask last = manager.createSubtask(new Subtask("Последняя", "Описание", other.getId()));
+        last.setStatus(Status.DONE);
+        manager.updateSubtask(last);
+        assertEquals(Status.DONE, initiative.getStatus());
+        assertTrue(manager.isEpicStatusConsistent());
+
+        // Удаленный эпик уходит из статуса родителя, а его дочерние эпики поднимаются на уровень выше
+        Epic nested = manager.createEpic(new Epic("Вложенный", "Описание", other.getId()));
+        assertEquals(Status.NEW, initiative.getStatus());
+        manager.deleteEpic(other.getId());
+        assertEquals(initiative.getId(), nested.getParentId());
+        assertEquals(List.of(epic, nested), manager.getChildEpics(initiative.getId()));
+        assertEquals(Status.NEW, initiative.getStatus());
+        assertTrue(manager.isEpicStatusConsistent());
+    }
+
+    @Test
+    public void testMoveRejectsCycles() {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        Epic root = manager.createEpic(new Epic("Корень", "Описание"));
+        Epic middle = manager.createEpic(new Epic("Середина", "Описание", root.getId()));
+        Epic leaf = manager.createEpic(new Epic("Лист", "Описание", middle.getId()));
+
+        assertThrows(IllegalArgumentException.class, () -> manager.moveEpic(root.getId(), leaf.getId()));
+        assertThrows(IllegalArgumentException.class, () -> manager.moveEpic(middle.getId(), middle.getId()));
+        assertFalse(manager.moveEpic(leaf.getId(), 1000), "Нельзя перенести эпик в несуществующий.");
+
+        // Перенос меняет статусы прежнего и нового родителя
+        Subtask subtask = manager.createSubtask(new Subtask("Подзадача", "Описание", leaf.getId()));
+        subtask.setStatus(Status.IN_PROGRESS);
+        manager.updateSubtask(subtask);
+        assertEquals(Status.IN_PROGRESS, root.getStatus());
+        assertTrue(manager.moveEpic(leaf.getId(), 0));
+        assertEquals(Status.DONE, middle.getStatus(), "Эпик без подзадач и вложенных эпиков выполнен.");
+        assertEquals(Status.DONE, root.getStatus());
+        assertTrue(manager.getChildEpics(middle.getId()).isEmpty());
+        assertTrue(manager.moveEpic(middle.getId(), leaf.getId()), "Бывший потомок теперь может стать родителем.");
+        assertEquals(List.of(middle), manager.getChildEpics(leaf.getId()));
+        assertTrue(manager.isEpicStatusConsistent());
+    }
+
+    @Test
+    public void testNestingSurvivesRestart() {
+        Epic initiative;
+        Epic epic;
+        Epic moved;
+        try (FileBackedTaskManager manager = new FileBackedTaskManager(directory)) {
+            initiative = manager.createEpic(new Epic("Инициатива", "Описание"));
+            epic = manager.createEpic(new Epic("Эпик", "Описание", initiative.getId()));
+            moved = manager.createEpic(new Epic("Перенесенный", "Описание"));
+            manager.moveEpic(moved.getId(), epic.getId());
+            Subtask subtask = manager.createSubtask(new Subtask("Подзадача", "Описание", moved.getId()));
+            subtask.setStatus(Status.IN_PROGRESS);
+            manager.updateSubtask(subtask);
+            manager.compact(); // Часть состояния — в снимке, часть — в журнале
+            manager.moveEpic(moved.getId(), initiative.getId());
+            manager.createEpic(new Epic("Новый", "Описание", epic.getId()));
+        }
+
+        try (FileBackedTaskManager restored = new FileBackedTaskManager(directory)) {
+            assertEquals(List.of(epic.getId(), moved.getId()), restored.getChildEpics(initiative.getId()).stream()
+                    .map(Task::getId).toList());
+            assertEquals(initiative.getId(), restored.getEpicById(moved.getId()).getParentId());
+            assertEquals(1, restored.getChildEpics(epic.getId()).size());
+            assertEquals(initiative.getStatus(), restored.getEpicById(initiative.getId()).getStatus());
+            assertEquals(Status.IN_PROGRESS, initiative.getStatus());
+            assertTrue(restored.isEpicStatusConsistent());
+        }
+    }
+
+    @Test
+    public void testNestedEpicIsJournaledAsOneRecord() throws IOException {
+        int parentId;
+        int childId;
+        try (FileBackedTaskManager manager = new FileBackedTaskManager(directory)) {
+            parentId = manager.createEpic(new Epic("Инициатива", "Описание")).getId();
+            childId = manager.createEpic(new Epic("Эпик", "Описание", parentId)).getId();
+        }
+        // Сбой посреди последней записи: вложенный эпик теряется целиком, а не всплывает на верхний уровень
+        Path log = directory.resolve("tasks.wal");
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 1);
+        }
+        try (FileBackedTaskManager restored = new FileBackedTaskManager(directory)) {
+            assertNull(restored.getEpicById(childId), "Оборванная запись не должна восстановиться частично.");
+            assertEquals(List.of(parentId), restored.getAllEpics().stream().map(Task::getId).toList());
+        }
+    }
+
+    @Test
+    public void testManagersWithoutNestingKeepEpicsTopLevel() {
+        for (TaskManager manager : List.of(new ConcurrentTaskManager(), new ColumnarTaskManager())) {
+            assertFalse(manager instanceof NestedEpics);
+            Epic epic = manager.createEpic(new Epic("Эпик", "Описание"));
+            assertNull(manager.createEpic(new Epic("Вложенный", "Описание", epic.getId())),
+                    "Без вложенных эпиков родителем не может быть ни один эпик.");
+            assertEquals(List.of(epic.getId()), manager.getAllEpics().stream().map(Task::getId).toList());
+        }
+    }
+}
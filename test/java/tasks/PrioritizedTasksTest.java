@@ -0,0 +1,122 @@
+package tasks;
+
+import managers.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrioritizedTasksTest {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 15, 9, 0);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testPrioritizedTasksOrderedByStartTime() {
+        TaskManager manager = Managers.getDefault();
+        Task late = manager.createTask(new Task("Поздняя", "Описание", START.plusHours(5), Duration.ofHours(1)));
+        Task unscheduled = manager.createTask(new Task("Без времени", "Описание"));
+        Epic epic = manager.createEpic(new Epic("Эпик", "Описание"));
+        Subtask early = manager.createSubtask(
+                new Subtask("Ранняя", "Описание", epic.getId(), START, Duration.ofMinutes(30)));
+
+        List<Task> prioritized = manager.getPrioritizedTasks();
+        assertEquals(List.of(early, late), prioritized, "Задачи должны идти по времени начала.");
+        assertFalse(prioritized.contains(unscheduled), "Задачи без времени не попадают в список.");
+
+        // После переноса задача меняет место в списке
+        late.setStartTime(START.minusHours(2));
+        manager.updateTask(late);
+        assertEquals(List.of(late, early), manager.getPrioritizedTasks());
+
+        manager.deleteTask(late.getId());
+        assertEquals(List.of(early), manager.getPrioritizedTasks(), "Удаленная задача покидает список.");
+    }
+
+    @Test
+    public void testOverlappingTasksAreRejected() {
+        TaskManager manager = Managers.getDefault();
+        Task meeting = manager.createTask(new Task("Встреча", "Описание", START, Duration.ofHours(2)));
+
+        assertThrows(TimeOverlapException.class,
+                () -> manager.createTask(new Task("Звонок", "Описание", START.plusHours(1), Duration.ofHours(2))),
+                "Пересекающаяся задача должна отклоняться.");
+        assertThrows(TimeOverlapException.class,
+                () -> manager.createTask(new Task("Внутри", "Описание", START.plusMinutes(30), Duration.ZERO)));
+        assertEquals(1, manager.getAllTasks().size(), "Отклоненная задача не должна сохраняться.");
+
+        // Задача, начинающаяся ровно в момент завершения другой, не пересекается с ней
+        Task next = manager.createTask(new Task("Следом", "Описание", START.plusHours(2), Duration.ofHours(1)));
+
+        // Обновление не сравнивает задачу с её прежним временем, но не дает наехать на соседнюю
+        meeting.setDuration(Duration.ofHours(1));
+        manager.updateTask(meeting);
+        Task moved = new Task(next);
+        moved.setStartTime(START.plusMinutes(30));
+        assertThrows(TimeOverlapException.class, () -> manager.updateTask(moved));
+        assertEquals(START.plusHours(2), manager.getTaskById(next.getId()).getStartTime(),
+                "Отклоненное обновление не должно менять задачу.");
+    }
+
+    @Test
+    public void testEpicTimeDerivedFromSubtasks() {
+        TaskManager manager = Managers.getDefault();
+        Epic epic = manager.createEpic(new Epic("Эпик", "Описание"));
+        Subtask first = manager.createSubtask(
+                new Subtask("Первая", "Описание", epic.getId(), START, Duration.ofHours(1)));
+        Subtask second = manager.createSubtask(
+                new Subtask("Вторая", "Описание", epic.getId(), START.plusHours(3), Duration.ofHours(2)));
+        manager.createSubtask(new Subtask("Без времени", "Описание", epic.getId()));
+
+        assertEquals(START, epic.getStartTime(), "Начало эпика — самое раннее начало подзадач.");
+        assertEquals(START.plusHours(5), epic.getEndTime(), "Завершение эпика — самое позднее завершение.");
+        assertEquals(Duration.ofHours(3), epic.getDuration(), "Продолжительность эпика — сумма подзадач.");
+
+        manager.deleteSubtask(first.getId());
+        assertEquals(START.plusHours(3), epic.getStartTime(), "Начало эпика должно сдвинуться.");
+        assertEquals(Duration.ofHours(2), epic.getDuration());
+
+        second.setDuration(Duration.ofHours(4));
+        manager.updateSubtask(second);
+        assertEquals(START.plusHours(7), epic.getEndTime(), "Завершение эпика должно сдвинуться.");
+
+        manager.deleteSubtask(second.getId());
+        assertNull(epic.getStartTime(), "Без запланированных подзадач у эпика нет времени.");
+        assertNull(epic.getDuration());
+        assertNull(epic.getEndTime());
+    }
+
+    @Test
+    public void testTimeSurvivesRestart() {
+        Task task;
+        Subtask subtask;
+        Epic epic;
+        try (FileBackedTaskManager manager = Managers.getFileBacked(directory)) {
+            task = manager.createTask(new Task("Задача", "Описание", START, Duration.ofMinutes(45)));
+            epic = manager.createEpic(new Epic("Эпик", "Описание"));
+            subtask = manager.createSubtask(
+                    new Subtask("Подзадача", "Описание", epic.getId(), START.plusDays(1), Duration.ofHours(8)));
+            manager.compact(); // Время должно пережить и снимок, и журнал
+            task.setStartTime(START.plusMinutes(15));
+            manager.updateTask(task);
+        }
+
+        try (FileBackedTaskManager restored = Managers.getFileBacked(directory)) {
+            assertEquals(task, restored.getTaskById(task.getId()), "Время задачи должно восстановиться.");
+            assertEquals(subtask, restored.getSubTaskById(subtask.getId()));
+            Epic restoredEpic = restored.getEpicById(epic.getId());
+            assertEquals(START.plusDays(1), restoredEpic.getStartTime(), "Время эпика должно собраться заново.");
+            assertEquals(START.plusDays(1).plusHours(8), restoredEpic.getEndTime());
+            assertEquals(List.of(task.getId(), subtask.getId()),
+                    restored.getPrioritizedTasks().stream().map(Task::getId).toList());
+            assertThrows(TimeOverlapException.class, () -> restored.createTask(
+                    new Task("Пересечение", "Описание", START.plusMinutes(30), Duration.ofMinutes(5))));
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package tasks;
+
+import managers.*;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchTest {
+
+    @Test
+    public void testSearchByWordsAndPrefixes() {
+        for (TaskManager manager : new TaskManager[]{Managers.getDefault(), Managers.getConcurrent()}) {
+            Task release = manager.createTask(new Task("Подготовить релиз", "Собрать changelog и тег"));
+            Epic backend = manager.createEpic(new Epic("Backend API", "Новый релиз сервиса"));
+            Subtask tests = manager.createSubtask(
+                    new Subtask("Тесты ЁЛКИ", "Покрыть API тестами", backend.getId()));
+
+            // Название весит больше описания, при равных рангах порядок по id
+            assertArrayEquals(new int[]{release.getId(), backend.getId()}, manager.search("релиз", 10));
+            assertArrayEquals(new int[]{backend.getId(), tests.getId()}, manager.search("api", 10),
+                    "Поиск не должен зависеть от регистра.");
+            assertArrayEquals(new int[]{tests.getId()}, manager.search("елки", 10), "Ё должна совпадать с е.");
+
+            // Несколько слов ищутся вместе, "слово*" — по началу слова
+            assertArrayEquals(new int[]{tests.getId()}, manager.search("тест* API", 10));
+            assertArrayEquals(new int[]{backend.getId()}, manager.search("Back* релиз", 10));
+            assertEquals(0, manager.search("тест", 10).length, "Без звездочки слово ищется целиком.");
+            assertEquals(1, manager.search("релиз", 1).length, "Выдача ограничена limit.");
+        }
+    }
+
+    @Test
+    public void testIndexFollowsUpdatesAndDeletes() {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        Task task = manager.createTask(new Task("Купить молоко", "Описание"));
+        Epic epic = manager.createEpic(new Epic("Переезд", "Описание"));
+        Subtask subtask = manager.createSubtask(new Subtask("Упаковать книги", "Описание", epic.getId()));
+
+        // Индекс строится при первом поиске по уже созданным задачам
+        assertArrayEquals(new int[]{task.getId()}, manager.search("молоко", 10));
+
+        // Изменение текста у хранимого объекта учитывается при обновлении
+        task.setTitle("Купить хлеб");
+        manager.updateTask(task);
+        assertEquals(0, manager.search("молоко", 10).length, "Старые слова должны уйти из индекса.");
+        assertArrayEquals(new int[]{task.getId()}, manager.search("хлеб", 10));
+
+        // Удаление эпика убирает из индекса и его подзадачи
+        manager.deleteEpic(epic.getId());
+        assertEquals(0, manager.search("книги", 10).length);
+        assertEquals(0, manager.search("переезд", 10).length);
+        assertEquals(0, manager.search(subtask.getTitle(), 10).length);
+
+        manager.deleteAllTasks();
+        assertEquals(0, manager.search("хлеб", 10).length);
+    }
+
+    @Test
+    public void testIndexFollowsDescriptionChangesOfSameLength() {
+        // Описание той же длины тоже переиндексируется
+        for (TaskManager manager : new TaskManager[]{Managers.getDefault(), Managers.getColumnar()}) {
+            Task task = manager.createTask(new Task("Отчет", "Сверить счета за март ".repeat(20)));
+            assertArrayEquals(new int[]{task.getId()}, manager.search("март", 10));
+
+            Task renamed = new Task(task);
+            renamed.setDescription("Сверить счета за июнь ".repeat(20));
+            manager.updateTask(renamed);
+            assertEquals(0, manager.search("март", 10).length, "Старые слова описания должны уйти из индекса.");
+            assertArrayEquals(new int[]{task.getId()}, manager.search("июнь", 10));
+
+            // Обновление с тем же текстом оставляет задачу в выдаче
+            manager.updateTask(new Task(renamed));
+            assertArrayEquals(new int[]{task.getId()}, manager.search("июнь счета", 10));
+        }
+    }
+
+    @Test
+    public void testIndexFollowsTextChangesWithSameHash() {
+        // "Aa" и "BB" одной длины и с одним хешем: совпадение хеша не значит, что текст прежний
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        for (TaskManager manager : new TaskManager[]{Managers.getDefault(), Managers.getConcurrent(),
+                Managers.getColumnar()}) {
+            Task task = manager.createTask(new Task("Aa", "AaAa"));
+            assertArrayEquals(new int[]{task.getId()}, manager.search("aa", 10));
+
+            // Хранимый объект меняют на месте (у колоночного менеджера это копия вызывающего)
+            task.setTitle("BB");
+            task.setDescription("BBBB");
+            manager.updateTask(task);
+            assertEquals(0, manager.search("aa", 10).length, "Старое название должно уйти из индекса.");
+            assertEquals(0, manager.search("aaaa", 10).length, "Старое описание должно уйти из индекса.");
+            assertArrayEquals(new int[]{task.getId()}, manager.search("bb bbbb", 10));
+        }
+    }
+}
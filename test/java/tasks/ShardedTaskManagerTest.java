@@ -0,0 +1,221 @@
+package tasks;
+
+import managers.Managers;
+import managers.ShardedTaskManager;
+import managers.TaskBatch;
+import managers.TimeOverlapException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedTaskManagerTest {
+    private static final int SHARDS = 4;
+
+    @Test
+    public void testEpicStaysInItsShard() {
+        ShardedTaskManager manager = Managers.getSharded(SHARDS);
+        Epic epic = manager.createEpic(new Epic("Эпик", "Описание"), "Доска А");
+        Subtask first = manager.createSubtask(new Subtask("Первая", "Описание", epic.getId()));
+        Subtask second = manager.createSubtask(new Subtask("Вторая", "Описание", epic.getId()));
+        Task task = manager.createTask(new Task("Задача", "Описание"), "Доска А");
+
+        // Задачи одной доски и подзадачи эпика лежат в одном шарде
+        assertEquals(manager.shardOfBoard("Доска А"), manager.shardOf(epic.getId()));
+        assertEquals(manager.shardOf(epic.getId()), manager.shardOf(first.getId()));
+        assertEquals(manager.shardOf(epic.getId()), manager.shardOf(task.getId()));
+
+        // Статус эпика пересчитывается внутри шарда
+        first.setStatus(Status.IN_PROGRESS);
+        manager.updateSubtask(first);
+        assertEquals(Status.IN_PROGRESS, manager.getEpicById(epic.getId()).getStatus());
+        first.setStatus(Status.DONE);
+        manager.updateSubtask(first);
+        second.setStatus(Status.DONE);
+        manager.updateSubtask(second);
+        assertEquals(Status.DONE, manager.getEpicById(epic.getId()).getStatus());
+        assertEquals(List.of(first, second), manager.getEpicSubtasks(epic.getId()));
+
+        // Удаление эпика убирает из истории и его подзадачи
+        manager.getSubTaskById(first.getId());
+        manager.deleteEpic(epic.getId());
+        assertTrue(manager.getAllSubtasks().isEmpty(), "Подзадачи удаляются вместе с эпиком.");
+        assertTrue(manager.getHistory().isEmpty(), "В истории не должно остаться удаленных задач.");
+        assertNull(manager.getTaskById(epic.getId()), "Эпик не возвращается как задача.");
+    }
+
+    @Test
+    public void testCrossShardQueries() {
+        ShardedTaskManager manager = Managers.getSharded(SHARDS);
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 9, 0);
+        List<Task> created = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Task task = new Task("Отчет " + i, i % 2 == 0 ? "квартальный отчет" : "Описание");
+            task.setStartTime(start.plusHours(19 - i)); // Задачи с поздним id начинаются раньше
+            task.setDuration(Duration.ofMinutes(30));
+            created.add(manager.createTask(task, "Доска " + i));
+        }
+
+        // Id уникальны, а выборки собирают задачи всех шардов
+        Set<Integer> ids = new HashSet<>();
+        for (Task task : created) {
+            assertTrue(ids.add(task.getId()), "Id задач разных шардов не должны совпадать.");
+        }
+        assertEquals(20, manager.getAllTasks().size());
+        assertEquals(20, manager.getTasksByStatus(Status.NEW).size());
+        assertEquals(created.reversed(), manager.getPrioritizedTasks(), "Слияние расписаний по началу задач.");
+
+        // Страницы обходят шарды по порядку без пропусков и повторов
+        List<Task> paged = new ArrayList<>();
+        for (int offset = 0; offset < 20; offset += 3) {
+            paged.addAll(manager.getAllTasks(offset, 3));
+        }
+        assertEquals(manager.getAllTasks(), paged);
+
+        // Страницы по курсору сливают шарды по id
+        List<Integer> cursorIds = new ArrayList<>();
+        List<Task> page;
+        int cursor = 0;
+        while (!(page = manager.getTasksAfter(cursor, 3)).isEmpty()) {
+            page.forEach(task -> cursorIds.add(task.getId()));
+            cursor = page.get(page.size() - 1).getId();
+        }
+        assertEquals(created.stream().map(Task::getId).sorted().toList(), cursorIds);
+
+        // Поиск сливает выдачи шардов по рангу: выше задачи, где слово есть и в названии, и в описании
+        int[] found = manager.search("отчет", 5);
+        assertEquals(5, found.length);
+        for (int i = 1; i < found.length; i++) {
+            assertTrue(found[i - 1] < found[i], "При равном ранге задачи идут по возрастанию id.");
+        }
+        for (int id : found) {
+            assertEquals("квартальный отчет", manager.getSnapshot(id).description());
+        }
+        assertEquals(10, manager.search("квартальный", 20).length);
+    }
+
+    @Test
+    public void testTasksWithoutBoardShareDefaultShard() {
+        ShardedTaskManager manager = Managers.getSharded(SHARDS);
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 9, 0);
+        Task first = manager.createTask(new Task("Первая", "Описание", start, Duration.ofHours(1)));
+        Epic epic = manager.createEpic(new Epic("Эпик", "Описание"));
+        assertEquals(ShardedTaskManager.DEFAULT_SHARD, manager.shardOf(first.getId()));
+        assertEquals(ShardedTaskManager.DEFAULT_SHARD, manager.shardOf(epic.getId()));
+
+        // Пересечения и зависимости задач без доски проверяются всегда, а не только при совпадении шардов
+        for (int i = 0; i < 20; i++) {
+            assertThrows(TimeOverlapException.class, () -> manager.createTask(
+                    new Task("Пересекается", "Описание", start.plusMinutes(30), Duration.ofHours(1))));
+            Task next = manager.createTask(new Task("Следующая " + i, "Описание"));
+            assertTrue(manager.addDependency(first.getId(), next.getId()), "Зависимость внутри одного шарда.");
+        }
+        assertEquals(21, manager.getAllTasks().size());
+    }
+
+    @Test
+    public void testDeleteAllEpicsPurgesSubtasksFromHistory() {
+        ShardedTaskManager manager = Managers.getSharded(SHARDS);
+        Task task = manager.createTask(new Task("Задача", "Описание"));
+        Epic epic = manager.createEpic(new Epic("Эпик", "Описание"));
+        Subtask subtask = manager.createSubtask(new Subtask("Подзадача", "Описание", epic.getId()));
+        manager.getTaskById(task.getId());
+        manager.getEpicById(epic.getId());
+        manager.getSubTaskById(subtask.getId());
+
+        // Вместе с эпиками удаляются их подзадачи: в истории не должно остаться ни тех, ни других
+        manager.deleteAllEpics();
+        assertTrue(manager.getAllSubtasks().isEmpty());
+        assertEquals(List.of(task.getId()), manager.getHistory().stream().map(Task::getId).toList(),
+                "В истории должна остаться только задача.");
+    }
+
+    @Test
+    public void testBatchMustStayInOneShard() {
+        ShardedTaskManager manager = Managers.getSharded(SHARDS);
+        Task first = manager.createTask(new Task("Первая", "Описание"), 0);
+        Task other = manager.createTask(new Task("Чужая", "Описание"), 1);
+
+        // Пакет по задачам одного шарда применяется, новые задачи создаются там же
+        Task created = new Task("Новая", "Описание");
+        manager.applyBatch(new TaskBatch().deleteTask(first.getId()).createTask(created));
+        assertEquals(manager.shardOf(first.getId()), manager.shardOf(created.getId()));
+        assertNull(manager.getTaskById(first.getId()));
+
+        // Пакет по задачам разных шардов отклоняется целиком
+        TaskBatch crossShard = new TaskBatch().deleteTask(created.getId()).deleteTask(other.getId());
+        assertThrows(IllegalArgumentException.class, () -> manager.applyBatch(crossShard));
+        assertEquals(2, manager.getAllTasks().size(), "Отклоненный пакет ничего не меняет.");
+    }
+
+    @Test
+    public void testHandedOutTasksAreDetachedFromShards() {
+        ShardedTaskManager manager = Managers.getSharded(SHARDS);
+        Epic epic = manager.createEpic(new Epic("Эпик", "Описание"), "Доска А");
+        Subtask subtask = manager.createSubtask(new Subtask("Подзадача", "Описание", epic.getId()));
+        Task blocker = manager.createTask(new Task("Блокер", "Описание"), "Доска А");
+        manager.addDependency(blocker.getId(), subtask.getId());
+
+        // Смена статуса у созданных и прочитанных объектов без update* не трогает индексы шарда
+        subtask.setStatus(Status.DONE);
+        manager.getSubTaskById(subtask.getId()).setStatus(Status.DONE);
+        manager.getTaskById(blocker.getId()).setStatus(Status.DONE);
+        manager.getAllTasks().forEach(task -> task.setStatus(Status.DONE));
+        manager.getEpicSubtasks(epic.getId()).forEach(task -> task.setStatus(Status.IN_PROGRESS));
+        assertEquals(Status.NEW, manager.getEpicById(epic.getId()).getStatus(), "Эпик меняется только через update.");
+        assertEquals(List.of(blocker.getId()), manager.getTasksByStatus(Status.NEW).stream().map(Task::getId).toList());
+        assertFalse(manager.isReady(subtask.getId()), "Блокер не выполнен, пока его не обновили.");
+        assertEquals(2, manager.getStatusCounts().get(TaskType.SUBTASK, Status.NEW)
+                + manager.getStatusCounts().get(TaskType.TASK, Status.NEW));
+
+        // Обновление сохраняет копию и возвращает вызывающему новую версию
+        manager.updateSubtask(subtask);
+        assertEquals(1, subtask.getVersion());
+        assertEquals(Status.DONE, manager.getEpicById(epic.getId()).getStatus());
+        subtask.setStatus(Status.NEW);
+        assertEquals(Status.DONE, manager.getSubTaskById(subtask.getId()).getStatus());
+        assertTrue(manager.updateSubtask(subtask, 1));
+        assertEquals(Status.NEW, manager.getEpicById(epic.getId()).getStatus());
+    }
+
+    @Test
+    public void testConcurrentCreatesAcrossShards() throws Exception {
+        ShardedTaskManager manager = Managers.getSharded(SHARDS);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                String board = "Доска " + t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 500; i++) {
+                        Epic epic = manager.createEpic(new Epic("Эпик", "Описание"), board);
+                        manager.createSubtask(new Subtask("Подзадача", "Описание", epic.getId()));
+                        manager.getEpicById(epic.getId());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(4000, manager.getAllEpics().size());
+        assertEquals(4000, manager.getAllSubtasks().size());
+        assertEquals(4000, manager.getHistory().size());
+        Set<Integer> ids = new HashSet<>();
+        manager.getAllEpics().forEach(epic -> ids.add(epic.getId()));
+        manager.getAllSubtasks().forEach(subtask -> ids.add(subtask.getId()));
+        assertEquals(8000, ids.size(), "Id не должны повторяться между потоками и шардами.");
+    }
+}
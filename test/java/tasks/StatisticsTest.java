@@ -0,0 +1,95 @@
+package tasks;
+
+import managers.BoardStatistics;
+import managers.ColumnarTaskManager;
+import managers.ConcurrentTaskManager;
+import managers.InMemoryTaskManager;
+import managers.Managers;
+import managers.StatusCounts;
+import managers.TaskManager;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatisticsTest {
+    @Test
+    public void testStatisticsMatchAcrossManagers() {
+        // Доска больше порога параллельного обхода
+        List<TaskManager> managers = List.of(new InMemoryTaskManager(), new ConcurrentTaskManager(),
+                Managers.getSharded(4), new ColumnarTaskManager());
+        for (TaskManager manager : managers) {
+            fill(manager);
+        }
+        TaskManager reference = managers.get(0);
+        BoardStatistics expected = reference.getStatistics(5);
+        assertEquals(reference.getTasksByStatus(Status.DONE).size(),
+                expected.counts().get(TaskType.TASK, Status.DONE));
+        assertEquals(reference.getAllSubtasks().size(), expected.counts().total(TaskType.SUBTASK));
+        assertEquals(reference.getAllEpics().size(), expected.epics().size());
+        for (BoardStatistics.EpicProgress epic : expected.epics()) {
+            assertEquals(reference.getEpicSubtasks(epic.epicId()).size(), epic.subtaskCount());
+            assertEquals(reference.getEpicSubtasksByStatus(epic.epicId(), Status.DONE).size(), epic.doneCount());
+        }
+        assertEquals(12_000, reference.getTasksView().parallelStream().mapToInt(Task::getId).distinct().count(),
+                "Параллельный обход хранилища должен вернуть каждую задачу ровно один раз.");
+        assertEquals(5, expected.largestEpics().size());
+        assertTrue(expected.largestEpics().get(0).subtaskCount() >= expected.largestEpics().get(4).subtaskCount(),
+                "Самые большие эпики идут по убыванию размера.");
+
+        // Id у менеджеров разные, поэтому сравниваем счетчики и размеры эпиков
+        for (TaskManager manager : managers.subList(1, managers.size())) {
+            BoardStatistics actual = manager.getStatistics(5);
+            assertEquals(expected.counts(), actual.counts(), manager.getClass().getSimpleName());
+            assertEquals(expected.counts(), manager.getStatusCounts());
+            assertEquals(expected.largestEpics().stream().map(BoardStatistics.EpicProgress::subtaskCount).toList(),
+                    actual.largestEpics().stream().map(BoardStatistics.EpicProgress::subtaskCount).toList());
+            assertEquals(expected.epics().stream().mapToInt(BoardStatistics.EpicProgress::doneCount).sum(),
+                    actual.epics().stream().mapToInt(BoardStatistics.EpicProgress::doneCount).sum());
+        }
+    }
+
+    @Test
+    public void testStatusCountsFollowChanges() {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        Epic epic = manager.createEpic(new Epic("Эпик", "Описание"));
+        Subtask subtask = manager.createSubtask(new Subtask("Подзадача", "Описание", epic.getId()));
+        manager.createSubtask(new Subtask("Вторая", "Описание", epic.getId()));
+        Task task = manager.createTask(new Task("Задача", "Описание"));
+
+        // Статус меняют прямо у хранимых объектов — счетчики следуют за индексами
+        subtask.setStatus(Status.DONE);
+        task.setStatus(null);
+        StatusCounts counts = manager.getStatusCounts();
+        assertEquals(1, counts.get(TaskType.SUBTASK, Status.DONE));
+        assertEquals(1, counts.get(TaskType.TASK, Status.NEW), "Задача без статуса считается NEW.");
+        assertEquals(1, counts.get(TaskType.EPIC, Status.NEW));
+        assertEquals(50.0, manager.getStatistics(1).epics().get(0).percentDone());
+
+        manager.deleteAllSubTasks();
+        assertEquals(0, manager.getStatusCounts().total(TaskType.SUBTASK));
+        assertEquals(100.0, manager.getStatistics(1).largestEpics().get(0).percentDone(),
+                "Эпик без подзадач считается выполненным.");
+        assertThrows(IllegalArgumentException.class, () -> manager.getStatistics(-1));
+    }
+
+    private static void fill(TaskManager manager) {
+        Random random = new Random(23);
+        Status[] statuses = Status.values();
+        for (int i = 0; i < 12_000; i++) {
+            Task task = manager.createTask(new Task("Задача " + i, "Описание"));
+            task.setStatus(statuses[random.nextInt(3)]);
+            manager.updateTask(task);
+        }
+        for (int i = 0; i < 200; i++) {
+            Epic epic = manager.createEpic(new Epic("Эпик " + i, "Описание"));
+            for (int j = 0; j < i % 70; j++) {
+                Subtask subtask = manager.createSubtask(new Subtask("Подзадача", "Описание", epic.getId()));
+                subtask.setStatus(statuses[random.nextInt(3)]);
+                manager.updateSubtask(subtask);
+            }
+        }
+    }
+}
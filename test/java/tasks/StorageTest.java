@@ -0,0 +1,165 @@
+package tasks;
+
+import managers.InMemoryHistoryManager;
+import managers.InMemoryTaskManager;
+import org.junit.jupiter.api.Test;
+import util.IntArrayList;
+import util.IntIntHashMap;
+import util.IntObjectHashMap;
+
+import java.lang.management.ManagementFactory;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StorageTest {
+    private static final int TASK_COUNT = 1_000_000;
+
+    @Test
+    public void testIntObjectHashMapMatchesHashMap() {
+        // Выполняем одинаковые случайные операции над примитивной и обычной картой
+        IntObjectHashMap<String> map = new IntObjectHashMap<>();
+        Map<Integer, String> reference = new HashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 100_000; i++) {
+            int key = random.nextInt(5_000) - 100; // В том числе отрицательные ключи и ноль
+            if (random.nextInt(3) == 0) {
+                assertEquals(reference.remove(key), map.remove(key), "Удаление должно вернуть то же значение.");
+            } else {
+                String value = "v" + i;
+                assertEquals(reference.put(key, value), map.put(key, value), "Вставка должна вернуть то же значение.");
+            }
+        }
+
+        // Проверяем, что содержимое карт совпадает
+        assertEquals(reference.size(), map.size(), "Размеры карт должны совпадать.");
+        for (Map.Entry<Integer, String> entry : reference.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey()), "Значения по ключу должны совпадать.");
+        }
+        assertEquals(new HashSet<>(reference.values()), new HashSet<>(map.values()), "Значения должны совпадать.");
+    }
+
+    @Test
+    public void testIntIntHashMapMatchesHashMap() {
+        // Случайные вставки, приращения и удаления над примитивной и обычной картой
+        IntIntHashMap map = new IntIntHashMap();
+        Map<Integer, Integer> reference = new HashMap<>();
+        Random random = new Random(13);
+        for (int i = 0; i < 100_000; i++) {
+            int key = random.nextInt(5_000) - 100;
+            int action = random.nextInt(3);
+            if (action == 0) {
+                assertEquals(reference.remove(key) != null, map.remove(key), "Удаление должно совпадать.");
+            } else if (action == 1) {
+                assertEquals((int) reference.merge(key, 5, Integer::sum), map.addTo(key, 5));
+            } else {
+                reference.put(key, i);
+                map.put(key, i);
+            }
+        }
+
+        assertEquals(reference.size(), map.size(), "Размеры карт должны совпадать.");
+        Map<Integer, Integer> visited = new HashMap<>();
+        map.forEach(visited::put);
+        assertEquals(reference, visited, "Обход должен вернуть те же пары.");
+        assertEquals(-1, map.get(1_000_000, -1), "Отсутствующий ключ возвращает значение по умолчанию.");
+    }
+
+    @Test
+    public void testIntArrayList() {
+        // Добавляем и удаляем элементы списка
+        IntArrayList list = new IntArrayList();
+        for (int i = 0; i < 10; i++) {
+            list.add(i);
+        }
+        assertTrue(list.removeValue(3), "Элемент 3 должен быть удален.");
+        assertFalse(list.removeValue(42), "Отсутствующий элемент не удаляется.");
+
+        // Проверяем содержимое и строковое представление, совместимое с прежним списком
+        assertEquals(9, list.size());
+        assertFalse(list.contains(3));
+        assertEquals(4, list.getInt(3));
+        assertEquals("[0, 1, 2, 4, 5, 6, 7, 8, 9]", list.toString());
+    }
+
+    @Test
+    public void testCopyOnWriteIntArrayList() {
+        // Копия разделяет массив с исходным списком до первого изменения
+        IntArrayList original = new IntArrayList();
+        original.add(1);
+        original.add(2);
+        IntArrayList copy = original.copyOnWrite();
+
+        // Изменения одного списка не видны в другом
+        copy.add(3);
+        original.removeValue(1);
+        assertEquals("[1, 2, 3]", copy.toString(), "Копия не должна видеть изменений исходного списка.");
+        assertEquals("[2]", original.toString(), "Исходный список не должен видеть изменений копии.");
+
+        IntArrayList second = original.copyOnWrite();
+        original.clear();
+        assertEquals("[2]", second.toString(), "Очистка не должна затрагивать копию.");
+    }
+
+    @Test
+    public void testEpicReadAllocation() {
+        // Повторное чтение эпика с 1000 подзадач: прежние две глубокие копии выделяли больше 8 КБ
+        long copyBytes = bytesPerEpicRead(new InMemoryTaskManager());
+        long idBytes = bytesPerEpicRead(new InMemoryTaskManager(InMemoryHistoryManager.UNBOUNDED, true));
+        // Копия эпика — сам эпик и общий список id (около 90 байт); лишний пустой список добавил бы еще 56
+        assertTrue(copyBytes < 128, "Копия эпика не должна копировать подзадачи: " + copyBytes + " байт на чтение.");
+        assertTrue(idBytes < 16, "История id не должна выделять память: " + idBytes + " байт на чтение.");
+    }
+
+    @Test
+    public void testPrimitiveStorageFootprintAtOneMillionTasks() {
+        // Одна и та же задача во всех ячейках, чтобы измерять только накладные расходы хранилищ
+        Task task = new Task("Task", "Description");
+
+        long before = Heap.used();
+        Map<Integer, Task> boxedMap = new HashMap<>();
+        List<Integer> boxedIds = new ArrayList<>();
+        for (int id = 0; id < TASK_COUNT; id++) {
+            boxedMap.put(id, task);
+            boxedIds.add(id);
+        }
+        long boxedBytes = Heap.used() - before;
+        assertEquals(TASK_COUNT, boxedMap.size()); // Обращения после замера держат структуры достижимыми
+        assertEquals(TASK_COUNT, boxedIds.size());
+        boxedMap = null;
+        boxedIds = null;
+
+        before = Heap.used();
+        IntObjectHashMap<Task> primitiveMap = new IntObjectHashMap<>();
+        IntArrayList primitiveIds = new IntArrayList();
+        for (int id = 0; id < TASK_COUNT; id++) {
+            primitiveMap.put(id, task);
+            primitiveIds.add(id);
+        }
+        long primitiveBytes = Heap.used() - before;
+        assertEquals(TASK_COUNT, primitiveMap.size());
+        assertEquals(TASK_COUNT, primitiveIds.size());
+
+        assertTrue(primitiveBytes * 2 < boxedBytes, String.format("Примитивное хранилище должно занимать как минимум "
+                + "вдвое меньше памяти: HashMap+ArrayList = %d МБ, примитивное = %d МБ на %d задач.",
+                boxedBytes >> 20, primitiveBytes >> 20, TASK_COUNT));
+    }
+
+    // Среднее число байт, выделенных текущим потоком на одно чтение эпика
+    private static long bytesPerEpicRead(InMemoryTaskManager manager) {
+        Epic epic = manager.createEpic(new Epic("Epic", "Description"));
+        for (int i = 0; i < 1000; i++) {
+            manager.createSubtask(new Subtask("Subtask " + i, "Description", epic.getId()));
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        int reads = 100_000;
+        for (int i = 0; i < reads; i++) {
+            manager.getEpicById(epic.getId()); // Прогрев
+        }
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < reads; i++) {
+            manager.getEpicById(epic.getId());
+        }
+        return (threads.getCurrentThreadAllocatedBytes() - before) / reads;
+    }
+}
@@ -0,0 +1,81 @@
+package tasks;
+
+import managers.InMemoryTaskManager;
+import org.junit.jupiter.api.Test;
+import util.CompressedText;
+import util.StringPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StringPoolTest {
+    private static final int TASK_COUNT = 1_000_000;
+    private static final String BOILERPLATE = "Acceptance criteria: the change is covered by unit tests, "
+            + "reviewed by at least one other developer, documented in the changelog and deployed to staging. "
+            + "Check the dashboards after the release and roll back if the error rate grows. ";
+
+    @Test
+    public void testCompressedTextRoundTrip() {
+        StringPool pool = new StringPool(1024, 64);
+        String description = BOILERPLATE + "Ёлки и палки: описание на кириллице тоже сжимается. " + BOILERPLATE;
+        Task task = new Task(new String("Ревью".toCharArray()), description);
+        Task copy = new Task(new String("Ревью".toCharArray()), new String(description.toCharArray()));
+        task.compactText(pool);
+        copy.compactText(pool);
+
+        // Одинаковые тексты хранятся одним экземпляром, длинное описание — сжатым вне кучи
+        assertSame(task.getTitle(), copy.getTitle(), "Одинаковые названия должны браться из пула.");
+        assertEquals(description, task.getDescription(), "Описание распаковывается без потерь.");
+        assertEquals(new Task("Ревью", description), task, "Сжатие не влияет на сравнение задач.");
+        assertEquals(new Task("Ревью", description).hashCode(), task.hashCode());
+        assertTrue(pool.getCompressedBytes() < description.length(), "Повторяющийся текст должен сжиматься.");
+        assertTrue(pool.text(new String(description.toCharArray())) instanceof CompressedText);
+        assertEquals("Короткое", pool.text("Короткое"), "Короткие тексты не сжимаются.");
+    }
+
+    @Test
+    public void testPoolSavesHeapAtOneMillionTasks() {
+        long plainBytes = heapOfTasks(null);
+        long pooledBytes = heapOfTasks(new StringPool());
+        long compressedBytes = heapOfUniqueDescriptions(new StringPool(StringPool.DEFAULT_CAPACITY, 128));
+        long uncompressedBytes = heapOfUniqueDescriptions(new StringPool());
+
+        assertTrue(pooledBytes * 2 < plainBytes, String.format("Пул должен как минимум вдвое сократить занятую кучу: "
+                + "без пула = %d МБ, с пулом = %d МБ на %d задач.", plainBytes >> 20, pooledBytes >> 20, TASK_COUNT));
+        assertTrue(compressedBytes * 2 < uncompressedBytes, String.format("Сжатые описания должны занимать меньше "
+                + "кучи: строками = %d МБ, сжатыми вне кучи = %d МБ на %d уникальных описаний.",
+                uncompressedBytes >> 20, compressedBytes >> 20, TASK_COUNT / 10));
+    }
+
+    // Куча менеджера с задачами из шаблонных названий и описаний; каждая строка — отдельный объект,
+    // как после чтения из файла или HTTP-запроса
+    private static long heapOfTasks(StringPool pool) {
+        long before = Heap.used();
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        manager.setStringPool(pool);
+        for (int i = 0; i < TASK_COUNT; i++) {
+            String title = copyOf("Code review for service " + (i % 50));
+            String description = copyOf(BOILERPLATE.substring(i % 20));
+            manager.createTask(new Task(title, description));
+        }
+        long used = Heap.used() - before;
+        assertEquals(TASK_COUNT, manager.getTasksView().size()); // Менеджер достижим до конца замера
+        return used;
+    }
+
+    // Куча менеджера с длинными описаниями, которые различаются только номером
+    private static long heapOfUniqueDescriptions(StringPool pool) {
+        long before = Heap.used();
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        manager.setStringPool(pool);
+        for (int i = 0; i < TASK_COUNT / 10; i++) {
+            manager.createTask(new Task("Release", "Release " + i + ". " + BOILERPLATE + BOILERPLATE));
+        }
+        long used = Heap.used() - before;
+        assertEquals(TASK_COUNT / 10, manager.getTasksView().size());
+        return used;
+    }
+
+    private static String copyOf(String value) {
+        return new String(value.toCharArray());
+    }
+}
@@ -0,0 +1,242 @@
+package tasks;
+
+import managers.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskBatchTest {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 3, 1, 10, 0);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testBatchCreatesEpicWithSubtasks() {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        Task task = new Task("Задача", "Описание");
+        Epic epic = new Epic("Эпик", "Описание");
+        TaskBatch batch = new TaskBatch().createTask(task).createEpic(epic);
+        for (int i = 0; i < 1_000; i++) {
+            Subtask subtask = new Subtask("Подзадача " + i, "Описание", 0);
+            subtask.setStatus(Status.DONE);
+            batch.createSubtask(epic, subtask);
+        }
+        manager.applyBatch(batch);
+
+        // Id выданы одним блоком подряд, подзадачи привязаны к созданному в пакете эпику
+        assertEquals(task.getId() + 1, epic.getId());
+        assertEquals(1_000, epic.getSubtaskIds().size());
+        assertEquals(epic.getId(), manager.getAllSubtasks().get(0).getEpicId());
+        assertEquals(Status.DONE, epic.getStatus(), "Статус эпика должен быть пересчитан при фиксации.");
+        assertTrue(manager.isEpicStatusConsistent());
+    }
+
+    @Test
+    public void testFailedBatchLeavesStoresUntouched() {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        Task meeting = manager.createTask(new Task("Встреча", "Описание", START, Duration.ofHours(1)));
+        Epic epic = manager.createEpic(new Epic("Эпик", "Описание"));
+        Subtask subtask = manager.createSubtask(new Subtask("Подзадача", "Описание", epic.getId()));
+
+        // Последняя операция пересекается по времени с задачей, созданной в этом же пакете
+        Subtask inProgress = new Subtask(subtask);
+        inProgress.setStatus(Status.IN_PROGRESS);
+        TaskBatch overlapping = new TaskBatch()
+                .deleteTask(meeting.getId())
+                .updateSubtask(inProgress)
+                .createTask(new Task("Звонок", "Описание", START, Duration.ofMinutes(30)))
+                .createTask(new Task("Созвон", "Описание", START.plusMinutes(15), Duration.ofMinutes(30)));
+        assertThrows(TimeOverlapException.class, () -> manager.applyBatch(overlapping));
+
+        // Обновление подзадачи удаленного в пакете эпика недопустимо
+        TaskBatch orphan = new TaskBatch().deleteEpic(epic.getId()).updateSubtask(inProgress);
+        assertThrows(IllegalArgumentException.class, () -> manager.applyBatch(orphan));
+
+        assertEquals(List.of(meeting), manager.getAllTasks(), "Неудачный пакет не должен менять задачи.");
+        assertSame(subtask, manager.getSubTaskById(subtask.getId()));
+        assertEquals(Status.NEW, manager.getEpicById(epic.getId()).getStatus());
+        assertEquals(List.of(meeting), manager.getPrioritizedTasks(), "Пробное расписание должно откатиться.");
+
+        // Время удаленной в пакете задачи освобождается для следующих операций пакета
+        manager.applyBatch(new TaskBatch()
+                .deleteTask(meeting.getId())
+                .createTask(new Task("Звонок", "Описание", START, Duration.ofMinutes(30))));
+        assertEquals("Звонок", manager.getPrioritizedTasks().get(0).getTitle());
+    }
+
+    @Test
+    public void testEventBusOverflowDoesNotSplitBatch() {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        CountDownLatch release = new CountDownLatch(1);
+        EventBus bus = new EventBus(2, EventBus.BackPressure.FAIL);
+        try {
+            manager.setEventBus(bus);
+            bus.subscribe(events -> {
+                try {
+                    release.await(); // Подписчик застревает на первой пачке и не освобождает буфер
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, 1);
+
+            TaskBatch batch = new TaskBatch();
+            for (int i = 0; i < 10; i++) {
+                batch.createTask(new Task("Задача " + i, "Описание"));
+            }
+            // События публикуются после фиксации: переполнение не обрывает пакет на середине
+            assertThrows(IllegalStateException.class, () -> manager.applyBatch(batch));
+            assertEquals(10, manager.getAllTasks().size(), "Пакет должен быть применен целиком.");
+        } finally {
+            release.countDown(); // Отпускаем подписчика до закрытия шины, которое ждет его поток
+            bus.close();
+        }
+    }
+
+    @Test
+    public void testBatchRejectsSubtaskEpicChanges() {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        Epic epic = manager.createEpic(new Epic("Эпик", "Описание"));
+        Epic other = manager.createEpic(new Epic("Другой эпик", "Описание"));
+        Subtask subtask = manager.createSubtask(new Subtask("Подзадача", "Описание", epic.getId()));
+
+        // Обновление не переносит подзадачу в другой эпик, ни существующий, ни отсутствующий
+        for (int epicId : new int[]{other.getId(), 9999}) {
+            Subtask moved = new Subtask(subtask);
+            moved.setEpicId(epicId);
+            TaskBatch batch = new TaskBatch().createTask(new Task("Задача", "Описание")).updateSubtask(moved);
+            assertThrows(IllegalArgumentException.class, () -> manager.applyBatch(batch));
+        }
+
+        // Подзадача не может быть своим же эпиком
+        Subtask self = new Subtask("Сама себе эпик", "Описание", epic.getId());
+        self.setId(epic.getId());
+        assertThrows(IllegalArgumentException.class, () -> manager.applyBatch(new TaskBatch().createSubtask(self)));
+
+        assertTrue(manager.getAllTasks().isEmpty(), "Неудачный пакет не должен создавать задачи.");
+        assertEquals(List.of(subtask), manager.getEpicSubtasks(epic.getId()));
+        assertTrue(manager.getEpicSubtasks(other.getId()).isEmpty());
+        assertTrue(manager.isEpicStatusConsistent());
+    }
+
+    @Test
+    public void testBatchRejectsNestedEpicsWithoutNestingSupport() {
+        // Менеджеры без NestedEpics не создают вложенный эпик: пакет должен упасть при проверке, а не молча
+        for (TaskManager manager : List.of(Managers.getConcurrent(), Managers.getColumnar())) {
+            Epic parent = manager.createEpic(new Epic("Инициатива", "Описание"));
+            Epic child = new Epic("Эпик", "Описание");
+            child.setParentId(parent.getId());
+            TaskBatch batch = new TaskBatch().createTask(new Task("Задача", "Описание")).createEpic(child);
+            assertThrows(IllegalArgumentException.class, () -> manager.applyBatch(batch));
+
+            assertTrue(manager.getAllTasks().isEmpty(), "Неудачный пакет не должен создавать задачи.");
+            assertEquals(List.of(parent.getId()), manager.getAllEpics().stream().map(Task::getId).toList());
+        }
+    }
+
+    @Test
+    public void testConcurrentBatchIdsFormOneBlock() throws InterruptedException {
+        TaskManager manager = Managers.getConcurrent();
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread writer = Thread.ofPlatform().start(() -> {
+            while (running.get()) {
+                manager.createTask(new Task("Фоновая", "Описание")); // Создается без блокировок
+            }
+        });
+        try {
+            for (int i = 0; i < 200; i++) {
+                Epic epic = new Epic("Эпик " + i, "Описание");
+                Task task = new Task("Задача " + i, "Описание");
+                Subtask subtask = new Subtask("Подзадача " + i, "Описание", 0);
+                manager.applyBatch(new TaskBatch().createEpic(epic).createTask(task).createSubtask(epic, subtask));
+
+                // Параллельные создания не вклиниваются между id пакета
+                assertEquals(epic.getId() + 1, task.getId(), "Id пакета должны идти одним блоком.");
+                assertEquals(task.getId() + 1, subtask.getId(), "Id пакета должны идти одним блоком.");
+            }
+        } finally {
+            running.set(false);
+            writer.join();
+        }
+    }
+
+    @Test
+    public void testConcurrentManagerAppliesBatch() {
+        TaskManager manager = Managers.getConcurrent();
+        Epic epic = new Epic("Эпик", "Описание");
+        Subtask first = new Subtask("Первая", "Описание", 0, START, Duration.ofHours(1));
+        first.setStatus(Status.IN_PROGRESS);
+        manager.applyBatch(new TaskBatch()
+                .createEpic(epic)
+                .createSubtask(epic, first)
+                .createSubtask(epic, new Subtask("Вторая", "Описание", 0, START.plusHours(2), Duration.ofHours(1))));
+
+        assertEquals(Status.IN_PROGRESS, epic.getStatus());
+        assertEquals(START, epic.getStartTime(), "Время эпика должно быть пересчитано при фиксации.");
+        assertEquals(START.plusHours(3), epic.getEndTime());
+    }
+
+    @Test
+    public void testBatchIsReplayedFromLog() {
+        Epic epic = new Epic("Эпик", "Описание");
+        try (FileBackedTaskManager manager = Managers.getFileBacked(directory)) {
+            Task obsolete = manager.createTask(new Task("Устаревшая", "Описание"));
+            Subtask done = new Subtask("Подзадача", "Описание", 0);
+            done.setStatus(Status.DONE);
+            manager.applyBatch(new TaskBatch()
+                    .deleteTask(obsolete.getId())
+                    .createEpic(epic)
+                    .createSubtask(epic, done)
+                    .createSubtask(epic, new Subtask("Новая", "Описание", 0)));
+        }
+
+        try (FileBackedTaskManager restored = Managers.getFileBacked(directory)) {
+            assertTrue(restored.getAllTasks().isEmpty(), "Удаление из пакета должно восстановиться.");
+            Epic restoredEpic = restored.getEpicById(epic.getId());
+            assertEquals(epic.getSubtaskIds(), restoredEpic.getSubtaskIds());
+            assertEquals(Status.NEW, restoredEpic.getStatus());
+            assertTrue(restored.isEpicStatusConsistent());
+        }
+    }
+
+    @Test
+    public void testBatchWithOverflowingBusIsJournaledWhole() {
+        CountDownLatch release = new CountDownLatch(1);
+        EventBus bus = new EventBus(2, EventBus.BackPressure.FAIL);
+        Epic epic = new Epic("Эпик", "Описание");
+        try (FileBackedTaskManager manager = Managers.getFileBacked(directory)) {
+            manager.setEventBus(bus);
+            bus.subscribe(events -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, 1);
+            TaskBatch batch = new TaskBatch().createEpic(epic);
+            for (int i = 0; i < 5; i++) {
+                batch.createTask(new Task("Задача " + i, "Описание"));
+                batch.createSubtask(epic, new Subtask("Подзадача " + i, "Описание", 0));
+            }
+            // Применение пакета не бросает: исключение шины приходит уже после фиксации и записи в журнал
+            assertThrows(IllegalStateException.class, () -> manager.applyBatch(batch));
+        } finally {
+            release.countDown();
+            bus.close();
+        }
+
+        try (FileBackedTaskManager restored = Managers.getFileBacked(directory)) {
+            assertEquals(5, restored.getAllTasks().size(), "Пакет должен восстановиться целиком.");
+            assertEquals(5, restored.getEpicById(epic.getId()).getSubtaskIds().size());
+            assertTrue(restored.isEpicStatusConsistent());
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package tasks;
+
+import managers.HistoryManager;
+import managers.Managers;
+import managers.TaskManager;
+import managers.UserHistoryService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserHistoryTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testHistoriesAreSeparatePerUser() {
+        TaskManager manager = Managers.getDefault();
+        UserHistoryService histories = new UserHistoryService(3, id -> manager.getTasksView().stream()
+                .filter(task -> task.getId() == id).findFirst().orElse(null), directory, Duration.ofHours(1));
+        Task first = manager.createTask(new Task("Первая", "Описание"));
+        Task second = manager.createTask(new Task("Вторая", "Описание"));
+        Task third = manager.createTask(new Task("Третья", "Описание"));
+        Task fourth = manager.createTask(new Task("Четвертая", "Описание"));
+
+        // Повторный просмотр переносит задачу в конец, переполнение вытесняет самый давний просмотр
+        histories.add(1, first);
+        histories.add(1, second);
+        histories.add(1, first);
+        histories.add(1, third);
+        histories.add(1, fourth);
+        histories.add(2, fourth);
+        assertArrayEquals(new int[]{first.getId(), third.getId(), fourth.getId()}, histories.getHistoryIds(1));
+        assertEquals(List.of(fourth), histories.getHistory(2), "Истории пользователей не смешиваются.");
+
+        // Удаленная задача пропускается при чтении; HistoryManager пользователя работает с той же историей
+        manager.deleteTask(third.getId());
+        HistoryManager user = histories.forUser(1);
+        assertEquals(List.of(first, fourth), user.getHistory());
+        user.remove(first.getId());
+        assertEquals(List.of(fourth), histories.getHistory(1));
+        assertTrue(histories.getHistory(3).isEmpty(), "У нового пользователя история пуста.");
+    }
+
+    @Test
+    public void testIdleHistoriesSpillToDisk() {
+        TaskManager manager = Managers.getDefault();
+        UserHistoryService histories = Managers.getUserHistories(manager, directory);
+        Task task = manager.createTask(new Task("Задача", "Описание"));
+        Epic epic = manager.createEpic(new Epic("Эпик", "Описание"));
+        histories.add(7, task);
+        histories.add(7, epic);
+        assertEquals(0, histories.evictIdle(), "Недавно активные истории остаются в памяти.");
+
+        // С нулевым временем простоя все истории выгружаются на диск
+        UserHistoryService idle = new UserHistoryService(UserHistoryService.DEFAULT_CAPACITY,
+                id -> manager.getSnapshot(id).toTask(), directory, Duration.ZERO);
+        idle.add(7, task);
+        idle.add(7, epic);
+        assertEquals(1, idle.evictIdle());
+        assertEquals(0, idle.getResidentCount(), "Выгруженная история не занимает память.");
+        assertTrue(Files.exists(directory.resolve("7.history")));
+
+        // Обращение загружает историю обратно и удаляет файл
+        assertArrayEquals(new int[]{task.getId(), epic.getId()}, idle.getHistoryIds(7));
+        assertEquals(1, idle.getResidentCount());
+        assertFalse(Files.exists(directory.resolve("7.history")), "Загруженный файл удаляется.");
+        assertEquals(List.of(task, epic), idle.getHistory(7), "Задачи берутся из хранилища при чтении.");
+        assertTrue(manager.getHistory().isEmpty(), "Чтение истории пользователя не пишет в историю менеджера.");
+    }
+}
@@ -0,0 +1,149 @@
+package tasks;
+
+import managers.ConcurrentTaskManager;
+import managers.FileBackedTaskManager;
+import managers.Managers;
+import managers.TaskManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VersioningTest {
+    private static final int THREADS = 8;
+    private static final int INCREMENTS = 500;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testStaleVersionRejected() {
+        TaskManager manager = Managers.getDefault();
+        Task task = manager.createTask(new Task("Задача", "Описание"));
+        TaskSnapshot snapshot = manager.getSnapshot(task.getId());
+
+        // Первое обновление по снимку проходит и повышает версию
+        Task first = snapshot.toTask();
+        first.setStatus(Status.IN_PROGRESS);
+        assertTrue(manager.updateTask(first, snapshot.version()), "Обновление актуальной версии должно пройти.");
+        assertEquals(snapshot.version() + 1, manager.getSnapshot(task.getId()).version());
+
+        // Второе обновление по тому же снимку устарело
+        Task second = snapshot.toTask();
+        second.setTitle("Перезапись");
+        assertFalse(manager.updateTask(second, snapshot.version()), "Устаревшая версия должна отклоняться.");
+        assertEquals("Задача", manager.getSnapshot(task.getId()).title(), "Отклоненное обновление ничего не меняет.");
+        assertEquals(Status.IN_PROGRESS, manager.getSnapshot(task.getId()).status());
+        assertFalse(manager.updateTask(new Task("Нет", "Нет"), 0), "Отсутствующая задача не обновляется.");
+        assertTrue(manager.getHistory().isEmpty(), "Снимки не попадают в историю.");
+    }
+
+    @Test
+    public void testEpicSnapshotIsImmutable() {
+        TaskManager manager = Managers.getConcurrent();
+        Epic epic = manager.createEpic(new Epic("Эпик", "Описание"));
+        Subtask subtask = manager.createSubtask(new Subtask("Подзадача", "Описание", epic.getId()));
+        TaskSnapshot snapshot = manager.getSnapshot(epic.getId());
+
+        // Изменения массива из снимка и последующие изменения эпика не видны в снимке
+        snapshot.subtaskIds()[0] = 42;
+        manager.createSubtask(new Subtask("Вторая", "Описание", epic.getId()));
+        assertArrayEquals(new int[]{subtask.getId()}, snapshot.subtaskIds(), "Снимок не должен меняться.");
+        assertEquals(TaskType.EPIC, snapshot.type());
+        assertEquals(snapshot, TaskSnapshot.of(snapshot.toTask()), "Задача из снимка воспроизводит снимок.");
+
+        // Эпик по снимку обновляется с проверкой версии, как и задачи
+        Epic renamed = (Epic) snapshot.toTask();
+        renamed.setTitle("Новое название");
+        assertTrue(manager.updateEpic(renamed, snapshot.version()));
+        assertFalse(manager.updateEpic(renamed, snapshot.version()), "Повтор с той же версией устарел.");
+    }
+
+    @Test
+    public void testConcurrentCompareAndSetLosesNoUpdates() throws Exception {
+        ConcurrentTaskManager manager = new ConcurrentTaskManager();
+        Epic epic = manager.createEpic(new Epic("Эпик", "Описание"));
+        int taskId = manager.createTask(new Task("0", "Счетчик")).getId();
+        int subtaskId = manager.createSubtask(new Subtask("0", "Счетчик", epic.getId())).getId();
+
+        // Каждый поток увеличивает счетчики в названиях, повторяя попытку при устаревшей версии
+        List<Future<?>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(THREADS)) {
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < INCREMENTS; i++) {
+                        increment(manager, taskId);
+                        increment(manager, subtaskId);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+
+        int expected = THREADS * INCREMENTS;
+        assertEquals(String.valueOf(expected), manager.getSnapshot(taskId).title(), "Обновления задачи не должны теряться.");
+        assertEquals(String.valueOf(expected), manager.getSnapshot(subtaskId).title(), "Обновления подзадачи не должны теряться.");
+        assertEquals(expected, manager.getSnapshot(taskId).version(), "Каждое обновление повышает версию на один.");
+    }
+
+    @Test
+    public void testVersionsSurviveCompactionAndRestart() {
+        // Клиент держит снимок версии 0, пока задачу трижды обновляют: часть обновлений — в снимке, часть — в журнале
+        TaskSnapshot stale;
+        int taskId;
+        int subtaskId;
+        try (FileBackedTaskManager manager = new FileBackedTaskManager(directory)) {
+            Epic epic = manager.createEpic(new Epic("Эпик", "Описание"));
+            taskId = manager.createTask(new Task("0", "Счетчик")).getId();
+            subtaskId = manager.createSubtask(new Subtask("0", "Счетчик", epic.getId())).getId();
+            stale = manager.getSnapshot(taskId);
+            increment(manager, taskId);
+            increment(manager, taskId);
+            increment(manager, subtaskId);
+            manager.compact();
+            increment(manager, taskId);
+        }
+
+        try (FileBackedTaskManager restored = new FileBackedTaskManager(directory)) {
+            assertEquals(3, restored.getSnapshot(taskId).version(), "Версия должна пережить снимок и журнал.");
+            assertEquals(1, restored.getSnapshot(subtaskId).version());
+            Task lost = stale.toTask();
+            lost.setTitle("Перезапись");
+            assertFalse(restored.updateTask(lost, stale.version()),
+                    "Устаревшая версия отклоняется и после перезапуска.");
+            increment(restored, taskId);
+            assertEquals("4", restored.getSnapshot(taskId).title());
+        }
+
+        // Перезапуск только из снимка
+        try (FileBackedTaskManager restored = new FileBackedTaskManager(directory)) {
+            restored.compact();
+        }
+        try (FileBackedTaskManager restored = new FileBackedTaskManager(directory)) {
+            assertEquals(4, restored.getSnapshot(taskId).version());
+        }
+    }
+
+    private static void increment(TaskManager manager, int id) {
+        while (true) {
+            TaskSnapshot snapshot = manager.getSnapshot(id);
+            Task next = snapshot.toTask();
+            next.setTitle(String.valueOf(Integer.parseInt(snapshot.title()) + 1));
+            boolean updated = next instanceof Subtask subtask
+                    ? manager.updateSubtask(subtask, snapshot.version())
+                    : manager.updateTask(next, snapshot.version());
+            if (updated) {
+                return;
+            }
+        }
+    }
+}